@@ -0,0 +1,73 @@
+#!/bin/sh
+#
+# Starts the JVM with a class data sharing archive of the JDK classes used by the application.
+#
+#   cds-launcher.sh dump                  create the archive from the class list
+#   cds-launcher.sh run [java arguments]  start java with the archive, re-creating it first if it is stale
+#
+# The class list comes from the training run of the startup benchmark ("./mvnw -Pbenchmark verify").
+# The archive only works with the JVM that created it, so it is created with the JVM of the image, and
+# re-created when the JVM or the class list changed. If it can't be created, the JVM starts without it.
+# Set CDS_ENABLED=false to always start without it.
+
+CDS_DIR=${CDS_DIR:-$(dirname "$0")}
+CLASS_LIST="$CDS_DIR/cds.classlist"
+ARCHIVE="$CDS_DIR/app.jsa"
+STAMP="$ARCHIVE.stamp"
+
+# Identifies the JVM by its release file, so that no JVM is started just to check the archive.
+# "java -version" is only used when there is no release file.
+jvm_stamp() {
+    for release in "$JAVA_HOME/release" "$JAVA_HOME/../release"; do
+        if [ -n "$JAVA_HOME" ] && [ -f "$release" ]; then
+            cksum < "$release"
+            return
+        fi
+    done
+    java -version 2>&1
+}
+
+stamp() {
+    jvm_stamp
+    cksum < "$CLASS_LIST"
+}
+
+dump() {
+    if [ ! -f "$CLASS_LIST" ]; then
+        echo "No class list found at $CLASS_LIST, the class data sharing archive is not created"
+        return 1
+    fi
+    rm -f "$ARCHIVE" "$STAMP"
+    if java -Xshare:dump -XX:SharedClassListFile="$CLASS_LIST" \
+        -XX:+UnlockDiagnosticVMOptions -XX:SharedArchiveFile="$ARCHIVE" > "$ARCHIVE.log" 2>&1; then
+        stamp > "$STAMP"
+    else
+        echo "Could not create the class data sharing archive, see $ARCHIVE.log"
+        rm -f "$ARCHIVE"
+        return 1
+    fi
+}
+
+case "$1" in
+    dump)
+        dump
+        ;;
+    run)
+        shift
+        if [ "$CDS_ENABLED" != "false" ] && [ -f "$CLASS_LIST" ]; then
+            if [ ! -f "$ARCHIVE" ] || [ "$(stamp)" != "$(cat "$STAMP" 2>/dev/null)" ]; then
+                echo "The class data sharing archive is missing or stale, re-creating it"
+                dump
+            fi
+            if [ -f "$ARCHIVE" ]; then
+                # With -Xshare:auto, the JVM still starts if it can't map the archive
+                exec java -Xshare:auto -XX:+UnlockDiagnosticVMOptions -XX:SharedArchiveFile="$ARCHIVE" "$@"
+            fi
+        fi
+        exec java "$@"
+        ;;
+    *)
+        echo "Usage: $0 dump | run [java arguments]"
+        exit 1
+        ;;
+esac
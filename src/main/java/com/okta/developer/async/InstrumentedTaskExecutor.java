@@ -0,0 +1,396 @@
+package com.okta.developer.async;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool task executor which measures its tasks and reports what it does with the tasks it can't take.
+ * <p>
+ * The time each task waited in the queue and the time it ran are recorded in the "&lt;name&gt;.tasks.&lt;type&gt;.wait"
+ * and "&lt;name&gt;.tasks.&lt;type&gt;.run" timers, where the type is the one of the {@link TypedTask}s, or the simple
+ * name of the class of the task, or of the class declaring it for the lambdas. The "&lt;name&gt;.active",
+ * "&lt;name&gt;.queued" and "&lt;name&gt;.pool-size" gauges show the state of the pool.
+ * <p>
+ * When both the pool and the queue are full, a task is handled as set by the {@link RejectionPolicy}, and counted in
+ * the "&lt;name&gt;.rejected.&lt;policy&gt;" meter.
+ * <p>
+ * A plain thread pool only adds threads beyond its core size once its queue is full, so that with a large queue it
+ * never grows. In scaling mode, a task is only queued when a thread is idle or when the pool has reached its maximum
+ * size, and new threads are started otherwise.
+ * <p>
+ * The exceptions thrown by the tasks are logged, as by the ExceptionHandlingAsyncTaskExecutor of JHipster: they are
+ * swallowed for the runnables, and still thrown to the futures of the callables.
+ */
+public class InstrumentedTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private static final String LAMBDA_SUFFIX = "$$Lambda";
+
+    private final Logger log = LoggerFactory.getLogger(InstrumentedTaskExecutor.class);
+
+    private final String name;
+
+    private final ConcurrentMap<Object, TaskMetrics> taskMetrics = new ConcurrentHashMap<>();
+
+    /**
+     * Tasks submitted and not completed yet, queued or running.
+     */
+    private final AtomicInteger submitted = new AtomicInteger();
+
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.FAIL_FAST;
+
+    private boolean scaling;
+
+    private MetricRegistry metricRegistry;
+
+    private Meter rejected = new Meter();
+
+    /**
+     * @param name the prefix of the metrics
+     */
+    public InstrumentedTaskExecutor(String name) {
+        this.name = name;
+    }
+
+    public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    /**
+     * @param scaling whether to start threads, up to the maximum pool size, before queueing the tasks
+     */
+    public void setScaling(boolean scaling) {
+        this.scaling = scaling;
+    }
+
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory,
+                                                 RejectedExecutionHandler rejectedExecutionHandler) {
+        ExecutorService executor = super.initializeExecutor(threadFactory, new RejectionHandler());
+        if (metricRegistry != null) {
+            rejected = metricRegistry.meter(MetricRegistry.name(name, "rejected", rejectionPolicy.getName()));
+            metricRegistry.register(MetricRegistry.name(name, "active"), (Gauge<Integer>) this::getActiveCount);
+            metricRegistry.register(MetricRegistry.name(name, "queued"),
+                (Gauge<Integer>) () -> getThreadPoolExecutor().getQueue().size());
+            metricRegistry.register(MetricRegistry.name(name, "pool-size"), (Gauge<Integer>) this::getPoolSize);
+        }
+        BlockingQueue<Runnable> queue = getThreadPoolExecutor().getQueue();
+        if (queue instanceof ScalingQueue) {
+            ((ScalingQueue) queue).executor = getThreadPoolExecutor();
+        }
+        return executor;
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        if (metricRegistry != null) {
+            metricRegistry.removeMatching((metricName, metric) -> metricName.startsWith(name + "."));
+        }
+    }
+
+    /**
+     * A bounded queue is replaced in scaling mode, a synchronous queue already makes the pool grow first.
+     */
+    @Override
+    protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        return scaling && queueCapacity > 0 ? new ScalingQueue(queueCapacity) : super.createQueue(queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        InstrumentedRunnable instrumented = new InstrumentedRunnable(task);
+        submitted.incrementAndGet();
+        try {
+            super.execute(instrumented);
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        InstrumentedRunnable instrumented = new InstrumentedRunnable(task);
+        submitted.incrementAndGet();
+        try {
+            return super.submit(instrumented);
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        InstrumentedCallable<T> instrumented = new InstrumentedCallable<>(task);
+        submitted.incrementAndGet();
+        try {
+            return super.submit(instrumented);
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public ListenableFuture<?> submitListenable(Runnable task) {
+        InstrumentedRunnable instrumented = new InstrumentedRunnable(task);
+        submitted.incrementAndGet();
+        try {
+            return super.submitListenable(instrumented);
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+        InstrumentedCallable<T> instrumented = new InstrumentedCallable<>(task);
+        submitted.incrementAndGet();
+        try {
+            return super.submitListenable(instrumented);
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private TaskMetrics taskMetrics(Object task) {
+        Object key = task instanceof TypedTask ? ((TypedTask) task).getTaskType() : task.getClass();
+        TaskMetrics metrics = taskMetrics.get(key);
+        if (metrics == null) {
+            metrics = taskMetrics.computeIfAbsent(key, type -> new TaskMetrics(
+                type instanceof String ? (String) type : taskType((Class<?>) type)));
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the simple name of the class, or of the class declaring the lambda, with the "$" of the nested classes
+     * replaced by dots
+     */
+    static String taskType(Class<?> taskClass) {
+        String className = taskClass.getName();
+        int lambda = className.indexOf(LAMBDA_SUFFIX);
+        if (lambda >= 0) {
+            className = className.substring(0, lambda);
+        }
+        return className.substring(className.lastIndexOf('.') + 1).replace('$', '.');
+    }
+
+    /**
+     * What to do with a task when both the pool and the queue are full.
+     */
+    public enum RejectionPolicy {
+
+        /**
+         * Run the task in the thread submitting it, which slows down the submitters.
+         */
+        CALLER_RUNS("caller-runs"),
+
+        /**
+         * Cancel the oldest queued task, to queue the new one.
+         */
+        DROP_OLDEST("drop-oldest"),
+
+        /**
+         * Throw a TaskRejectedException to the submitter.
+         */
+        FAIL_FAST("fail-fast");
+
+        private final String name;
+
+        RejectionPolicy(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static RejectionPolicy of(String name) {
+            for (RejectionPolicy policy : values()) {
+                if (policy.name.equals(name)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("Unknown rejection policy: " + name +
+                ", expected caller-runs, drop-oldest or fail-fast");
+        }
+    }
+
+    /**
+     * A task reporting its type, to be measured apart from the other tasks of its class.
+     */
+    public interface TypedTask {
+
+        String getTaskType();
+    }
+
+    private final class TaskMetrics {
+
+        private final Timer wait;
+
+        private final Timer run;
+
+        TaskMetrics(String type) {
+            wait = metricRegistry != null ? metricRegistry.timer(MetricRegistry.name(name, "tasks", type, "wait")) :
+                new Timer();
+            run = metricRegistry != null ? metricRegistry.timer(MetricRegistry.name(name, "tasks", type, "run")) :
+                new Timer();
+        }
+    }
+
+    private abstract class InstrumentedTask {
+
+        private final TaskMetrics metrics;
+
+        private final long submittedAt = System.nanoTime();
+
+        InstrumentedTask(Object task) {
+            metrics = taskMetrics(task);
+        }
+
+        long start() {
+            long start = System.nanoTime();
+            metrics.wait.update(start - submittedAt, TimeUnit.NANOSECONDS);
+            return start;
+        }
+
+        void end(long start) {
+            metrics.run.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            submitted.decrementAndGet();
+        }
+    }
+
+    private final class InstrumentedRunnable extends InstrumentedTask implements Runnable {
+
+        private final Runnable task;
+
+        InstrumentedRunnable(Runnable task) {
+            super(task);
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long start = start();
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Caught async exception", e);
+            } finally {
+                end(start);
+            }
+        }
+    }
+
+    private final class InstrumentedCallable<T> extends InstrumentedTask implements Callable<T> {
+
+        private final Callable<T> task;
+
+        InstrumentedCallable(Callable<T> task) {
+            super(task);
+            this.task = task;
+        }
+
+        @Override
+        public T call() throws Exception {
+            long start = start();
+            try {
+                return task.call();
+            } catch (Exception e) {
+                log.error("Caught async exception", e);
+                throw e;
+            } finally {
+                end(start);
+            }
+        }
+    }
+
+    private final class RejectionHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new TaskRejectedException("Executor " + executor + " is shut down, task " + task + " rejected");
+            }
+            if (executor.getQueue() instanceof ScalingQueue && ((ScalingQueue) executor.getQueue()).force(task)) {
+                return;
+            }
+            rejected.mark();
+            switch (rejectionPolicy) {
+                case CALLER_RUNS:
+                    task.run();
+                    break;
+                case DROP_OLDEST:
+                    Runnable oldest = executor.getQueue().poll();
+                    if (oldest == null) {
+                        throw new TaskRejectedException("Executor " + executor + " has no queued task to drop, task " +
+                            task + " rejected");
+                    }
+                    submitted.decrementAndGet();
+                    if (oldest instanceof Future) {
+                        ((Future<?>) oldest).cancel(false);
+                    }
+                    executor.execute(task);
+                    break;
+                default:
+                    throw new TaskRejectedException("Executor " + executor + " is full, task " + task + " rejected");
+            }
+        }
+    }
+
+    /**
+     * Queue refusing the tasks while the pool can grow and no thread is idle, so that the thread pool starts a thread
+     * for them instead. The tasks are forced into the queue by the rejection handler once the pool is full.
+     */
+    private final class ScalingQueue extends LinkedBlockingQueue<Runnable> {
+
+        private volatile ThreadPoolExecutor executor;
+
+        ScalingQueue(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public boolean offer(Runnable task) {
+            ThreadPoolExecutor executor = this.executor;
+            if (executor != null && submitted.get() > executor.getPoolSize() &&
+                executor.getPoolSize() < executor.getMaximumPoolSize()) {
+                return false;
+            }
+            return super.offer(task);
+        }
+
+        boolean force(Runnable task) {
+            return super.offer(task);
+        }
+    }
+}
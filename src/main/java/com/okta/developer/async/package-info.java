@@ -0,0 +1,4 @@
+/**
+ * Execution and monitoring of the asynchronous tasks.
+ */
+package com.okta.developer.async;
@@ -1,7 +1,14 @@
 package com.okta.developer.config;
 
+import com.okta.developer.web.limit.RequestLimitFilter;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Properties specific to Oidc.
  * <p>
@@ -11,4 +18,1157 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final PoolTuning poolTuning = new PoolTuning();
+
+    private final FastStart fastStart = new FastStart();
+
+    private final StartupTimeline startupTimeline = new StartupTimeline();
+
+    private final StaticAssets staticAssets = new StaticAssets();
+
+    private final Undertow undertow = new Undertow();
+
+    private final PrincipalCache principalCache = new PrincipalCache();
+
+    private final Jwt jwt = new Jwt();
+
+    private final TokenCache tokenCache = new TokenCache();
+
+    private final Stateless stateless = new Stateless();
+
+    private final SessionStore sessionStore = new SessionStore();
+
+    private final LazyCsrf lazyCsrf = new LazyCsrf();
+
+    private final SecurityFastPath securityFastPath = new SecurityFastPath();
+
+    private final RequestLimit requestLimit = new RequestLimit();
+
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    private final AsyncExecutor asyncExecutor = new AsyncExecutor();
+
+    private final ProblemFastPath problemFastPath = new ProblemFastPath();
+
+    private final LightweightExceptions lightweightExceptions = new LightweightExceptions();
+
+    private final ApproximateCount approximateCount = new ApproximateCount();
+
+    public PoolTuning getPoolTuning() {
+        return poolTuning;
+    }
+
+    public FastStart getFastStart() {
+        return fastStart;
+    }
+
+    public StartupTimeline getStartupTimeline() {
+        return startupTimeline;
+    }
+
+    public StaticAssets getStaticAssets() {
+        return staticAssets;
+    }
+
+    public Undertow getUndertow() {
+        return undertow;
+    }
+
+    public PrincipalCache getPrincipalCache() {
+        return principalCache;
+    }
+
+    public Jwt getJwt() {
+        return jwt;
+    }
+
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public Stateless getStateless() {
+        return stateless;
+    }
+
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    public LazyCsrf getLazyCsrf() {
+        return lazyCsrf;
+    }
+
+    public SecurityFastPath getSecurityFastPath() {
+        return securityFastPath;
+    }
+
+    public RequestLimit getRequestLimit() {
+        return requestLimit;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public AsyncExecutor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    public ProblemFastPath getProblemFastPath() {
+        return problemFastPath;
+    }
+
+    public LightweightExceptions getLightweightExceptions() {
+        return lightweightExceptions;
+    }
+
+    public ApproximateCount getApproximateCount() {
+        return approximateCount;
+    }
+
+    /**
+     * Adaptive sizing of the Hikari connection pool, used by the PoolTuningService.
+     */
+    public static class PoolTuning {
+
+        private boolean enabled = false;
+
+        private long intervalMs = 10000;
+
+        private int minPoolSize = 5;
+
+        private int maxPoolSize = 30;
+
+        private int minIdleFloor = 2;
+
+        private int step = 2;
+
+        private long waitThresholdMs = 20;
+
+        private double shrinkUtilization = 0.5;
+
+        private int shrinkAfterIntervals = 6;
+
+        private int historySize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public int getMinPoolSize() {
+            return minPoolSize;
+        }
+
+        public void setMinPoolSize(int minPoolSize) {
+            this.minPoolSize = minPoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getMinIdleFloor() {
+            return minIdleFloor;
+        }
+
+        public void setMinIdleFloor(int minIdleFloor) {
+            this.minIdleFloor = minIdleFloor;
+        }
+
+        public int getStep() {
+            return step;
+        }
+
+        public void setStep(int step) {
+            this.step = step;
+        }
+
+        public long getWaitThresholdMs() {
+            return waitThresholdMs;
+        }
+
+        public void setWaitThresholdMs(long waitThresholdMs) {
+            this.waitThresholdMs = waitThresholdMs;
+        }
+
+        public double getShrinkUtilization() {
+            return shrinkUtilization;
+        }
+
+        public void setShrinkUtilization(double shrinkUtilization) {
+            this.shrinkUtilization = shrinkUtilization;
+        }
+
+        public int getShrinkAfterIntervals() {
+            return shrinkAfterIntervals;
+        }
+
+        public void setShrinkAfterIntervals(int shrinkAfterIntervals) {
+            this.shrinkAfterIntervals = shrinkAfterIntervals;
+        }
+
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        public void setHistorySize(int historySize) {
+            this.historySize = historySize;
+        }
+    }
+
+    /**
+     * Fast-start mode, used by the FastStartConfiguration.
+     */
+    public static class FastStart {
+
+        private boolean enabled = false;
+
+        private List<String> lazyBeans = new ArrayList<>(Arrays.asList(
+            "thymeleafConfiguration", "emailTemplateResolver", "logsResource", "auditResource"));
+
+        private boolean deferSwagger = true;
+
+        private int warmUpThreads = 3;
+
+        private long warmUpTimeoutSeconds = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getLazyBeans() {
+            return lazyBeans;
+        }
+
+        public void setLazyBeans(List<String> lazyBeans) {
+            this.lazyBeans = lazyBeans;
+        }
+
+        public boolean isDeferSwagger() {
+            return deferSwagger;
+        }
+
+        public void setDeferSwagger(boolean deferSwagger) {
+            this.deferSwagger = deferSwagger;
+        }
+
+        public int getWarmUpThreads() {
+            return warmUpThreads;
+        }
+
+        public void setWarmUpThreads(int warmUpThreads) {
+            this.warmUpThreads = warmUpThreads;
+        }
+
+        public long getWarmUpTimeoutSeconds() {
+            return warmUpTimeoutSeconds;
+        }
+
+        public void setWarmUpTimeoutSeconds(long warmUpTimeoutSeconds) {
+            this.warmUpTimeoutSeconds = warmUpTimeoutSeconds;
+        }
+    }
+
+    /**
+     * Per-bean initialization timings, used by the StartupTimeline.
+     */
+    public static class StartupTimeline {
+
+        private boolean enabled = false;
+
+        private int logTop = 20;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLogTop() {
+            return logTop;
+        }
+
+        public void setLogTop(int logTop) {
+            this.logTop = logTop;
+        }
+    }
+
+    /**
+     * Serving of the static web assets by Undertow, used by the WebConfigurer.
+     */
+    public static class StaticAssets {
+
+        private boolean preCompressed = true;
+
+        private List<String> paths = new ArrayList<>(Arrays.asList("/app/*", "/content/*", "/i18n/*", "/swagger-ui/*",
+            "/index.html", "/favicon.ico", "/robots.txt", "/manifest.webapp"));
+
+        private String directory;
+
+        private long transferMinSize = 1024;
+
+        public boolean isPreCompressed() {
+            return preCompressed;
+        }
+
+        public void setPreCompressed(boolean preCompressed) {
+            this.preCompressed = preCompressed;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getTransferMinSize() {
+            return transferMinSize;
+        }
+
+        public void setTransferMinSize(long transferMinSize) {
+            this.transferMinSize = transferMinSize;
+        }
+    }
+
+    /**
+     * Tuning of the Undertow server, used by the WebConfigurer.
+     * <p>
+     * Thread counts and buffers are configured with the standard "server.undertow.*" properties.
+     */
+    public static class Undertow {
+
+        private final Compression compression = new Compression();
+
+        private final Http2 http2 = new Http2();
+
+        public Compression getCompression() {
+            return compression;
+        }
+
+        public Http2 getHttp2() {
+            return http2;
+        }
+
+        /**
+         * Compression of the dynamic responses, such as the JSON of the REST API.
+         */
+        public static class Compression {
+
+            private boolean enabled = false;
+
+            private List<String> encodings = new ArrayList<>(Arrays.asList("gzip"));
+
+            private List<String> mimeTypes = new ArrayList<>(Arrays.asList("application/json",
+                "application/problem+json", "text/html", "text/xml", "text/plain", "text/css", "application/javascript"));
+
+            private long minResponseSize = 1024;
+
+            private int level = 6;
+
+            private boolean ignoreFlush = true;
+
+            private boolean metrics = true;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public List<String> getEncodings() {
+                return encodings;
+            }
+
+            public void setEncodings(List<String> encodings) {
+                this.encodings = encodings;
+            }
+
+            public List<String> getMimeTypes() {
+                return mimeTypes;
+            }
+
+            public void setMimeTypes(List<String> mimeTypes) {
+                this.mimeTypes = mimeTypes;
+            }
+
+            public long getMinResponseSize() {
+                return minResponseSize;
+            }
+
+            public void setMinResponseSize(long minResponseSize) {
+                this.minResponseSize = minResponseSize;
+            }
+
+            public int getLevel() {
+                return level;
+            }
+
+            public void setLevel(int level) {
+                this.level = level;
+            }
+
+            public boolean isIgnoreFlush() {
+                return ignoreFlush;
+            }
+
+            public void setIgnoreFlush(boolean ignoreFlush) {
+                this.ignoreFlush = ignoreFlush;
+            }
+
+            public boolean isMetrics() {
+                return metrics;
+            }
+
+            public void setMetrics(boolean metrics) {
+                this.metrics = metrics;
+            }
+        }
+
+        /**
+         * HTTP/2 settings, used when "jhipster.http.version" is V_2_0. Unset values keep the Undertow defaults.
+         */
+        public static class Http2 {
+
+            private Integer maxConcurrentStreams = 100;
+
+            private Integer headerTableSize = 4096;
+
+            private Integer initialWindowSize;
+
+            private Integer maxFrameSize;
+
+            public Integer getMaxConcurrentStreams() {
+                return maxConcurrentStreams;
+            }
+
+            public void setMaxConcurrentStreams(Integer maxConcurrentStreams) {
+                this.maxConcurrentStreams = maxConcurrentStreams;
+            }
+
+            public Integer getHeaderTableSize() {
+                return headerTableSize;
+            }
+
+            public void setHeaderTableSize(Integer headerTableSize) {
+                this.headerTableSize = headerTableSize;
+            }
+
+            public Integer getInitialWindowSize() {
+                return initialWindowSize;
+            }
+
+            public void setInitialWindowSize(Integer initialWindowSize) {
+                this.initialWindowSize = initialWindowSize;
+            }
+
+            public Integer getMaxFrameSize() {
+                return maxFrameSize;
+            }
+
+            public void setMaxFrameSize(Integer maxFrameSize) {
+                this.maxFrameSize = maxFrameSize;
+            }
+        }
+    }
+
+    /**
+     * Cache of the users mapped from the identity provider claims, used by the PrincipalCache.
+     */
+    public static class PrincipalCache {
+
+        private boolean enabled = true;
+
+        private int maxEntries = 10000;
+
+        private long timeToLiveSeconds = 3600;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    /**
+     * Local validation of the access tokens, used by the JwtTokenServices and the JwkSetCache.
+     */
+    public static class Jwt {
+
+        private boolean enabled = false;
+
+        private String jwkSetUri;
+
+        private String issuer;
+
+        private List<String> audiences = new ArrayList<>();
+
+        private String usernameClaim = "preferred_username";
+
+        private long clockSkewSeconds = 60;
+
+        private long refreshIntervalMs = 3600000;
+
+        private long minRefreshIntervalMs = 30000;
+
+        private int connectTimeoutMs = 2000;
+
+        private int readTimeoutMs = 5000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getJwkSetUri() {
+            return jwkSetUri;
+        }
+
+        public void setJwkSetUri(String jwkSetUri) {
+            this.jwkSetUri = jwkSetUri;
+        }
+
+        public String getIssuer() {
+            return issuer;
+        }
+
+        public void setIssuer(String issuer) {
+            this.issuer = issuer;
+        }
+
+        public List<String> getAudiences() {
+            return audiences;
+        }
+
+        public void setAudiences(List<String> audiences) {
+            this.audiences = audiences;
+        }
+
+        public String getUsernameClaim() {
+            return usernameClaim;
+        }
+
+        public void setUsernameClaim(String usernameClaim) {
+            this.usernameClaim = usernameClaim;
+        }
+
+        public long getClockSkewSeconds() {
+            return clockSkewSeconds;
+        }
+
+        public void setClockSkewSeconds(long clockSkewSeconds) {
+            this.clockSkewSeconds = clockSkewSeconds;
+        }
+
+        public long getRefreshIntervalMs() {
+            return refreshIntervalMs;
+        }
+
+        public void setRefreshIntervalMs(long refreshIntervalMs) {
+            this.refreshIntervalMs = refreshIntervalMs;
+        }
+
+        public long getMinRefreshIntervalMs() {
+            return minRefreshIntervalMs;
+        }
+
+        public void setMinRefreshIntervalMs(long minRefreshIntervalMs) {
+            this.minRefreshIntervalMs = minRefreshIntervalMs;
+        }
+
+        public int getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(int connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+
+        public int getReadTimeoutMs() {
+            return readTimeoutMs;
+        }
+
+        public void setReadTimeoutMs(int readTimeoutMs) {
+            this.readTimeoutMs = readTimeoutMs;
+        }
+    }
+
+    /**
+     * Cache of the user info and token info responses, used by the CachingTokenServices.
+     */
+    public static class TokenCache {
+
+        private boolean enabled = false;
+
+        private int maxEntries = 10000;
+
+        private long timeToLiveSeconds = 300;
+
+        private long negativeTimeToLiveSeconds = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getNegativeTimeToLiveSeconds() {
+            return negativeTimeToLiveSeconds;
+        }
+
+        public void setNegativeTimeToLiveSeconds(long negativeTimeToLiveSeconds) {
+            this.negativeTimeToLiveSeconds = negativeTimeToLiveSeconds;
+        }
+    }
+
+    /**
+     * Stateless mode, where the authentication is kept in encrypted cookies instead of the HTTP session, used by the
+     * StatelessSessionConfiguration.
+     */
+    public static class Stateless {
+
+        private boolean enabled = false;
+
+        private List<String> keys = new ArrayList<>();
+
+        private String cookieName = "AUTH_STATE";
+
+        private long timeToLiveSeconds = 3600;
+
+        private int maxCookieSize = 4096;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        public void setKeys(List<String> keys) {
+            this.keys = keys;
+        }
+
+        public String getCookieName() {
+            return cookieName;
+        }
+
+        public void setCookieName(String cookieName) {
+            this.cookieName = cookieName;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public int getMaxCookieSize() {
+            return maxCookieSize;
+        }
+
+        public void setMaxCookieSize(int maxCookieSize) {
+            this.maxCookieSize = maxCookieSize;
+        }
+    }
+
+    /**
+     * HTTP sessions kept in a SessionRepository instead of the servlet container, used by the
+     * SessionStoreConfiguration.
+     */
+    public static class SessionStore {
+
+        private boolean enabled = false;
+
+        private String type = "jdbc";
+
+        private String cookieName = "SESSION";
+
+        private int maxInactiveIntervalSeconds = 1800;
+
+        private long touchIntervalSeconds = 60;
+
+        private long cleanupIntervalMs = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public String getCookieName() {
+            return cookieName;
+        }
+
+        public void setCookieName(String cookieName) {
+            this.cookieName = cookieName;
+        }
+
+        public int getMaxInactiveIntervalSeconds() {
+            return maxInactiveIntervalSeconds;
+        }
+
+        public void setMaxInactiveIntervalSeconds(int maxInactiveIntervalSeconds) {
+            this.maxInactiveIntervalSeconds = maxInactiveIntervalSeconds;
+        }
+
+        public long getTouchIntervalSeconds() {
+            return touchIntervalSeconds;
+        }
+
+        public void setTouchIntervalSeconds(long touchIntervalSeconds) {
+            this.touchIntervalSeconds = touchIntervalSeconds;
+        }
+
+        public long getCleanupIntervalMs() {
+            return cleanupIntervalMs;
+        }
+
+        public void setCleanupIntervalMs(long cleanupIntervalMs) {
+            this.cleanupIntervalMs = cleanupIntervalMs;
+        }
+    }
+
+    /**
+     * CSRF tokens issued lazily and verified with an HMAC instead of being stored, used by the LazyCsrfConfiguration.
+     */
+    public static class LazyCsrf {
+
+        private boolean enabled = false;
+
+        private String secret;
+
+        private String cookieName = "XSRF-TOKEN";
+
+        private String headerName = "X-XSRF-TOKEN";
+
+        private String parameterName = "_csrf";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+
+        public String getCookieName() {
+            return cookieName;
+        }
+
+        public void setCookieName(String cookieName) {
+            this.cookieName = cookieName;
+        }
+
+        public String getHeaderName() {
+            return headerName;
+        }
+
+        public void setHeaderName(String headerName) {
+            this.headerName = headerName;
+        }
+
+        public String getParameterName() {
+            return parameterName;
+        }
+
+        public void setParameterName(String parameterName) {
+            this.parameterName = parameterName;
+        }
+    }
+
+    /**
+     * Routing of the static resources and public endpoints with a path trie, used by the
+     * FastPathSecurityConfiguration.
+     */
+    public static class SecurityFastPath {
+
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Rate limiting and load shedding of the expensive endpoints, used by the RequestLimitConfiguration.
+     */
+    public static class RequestLimit {
+
+        private boolean enabled = false;
+
+        private List<String> paths = new ArrayList<>(Arrays.asList("/api/account", "/api/account/**", "/login"));
+
+        private List<String> unmeasuredPaths = new ArrayList<>(Collections.singletonList("/login"));
+
+        private String trustedProxies = RequestLimitFilter.DEFAULT_TRUSTED_PROXIES;
+
+        private final Rate principal = new Rate(50, 10);
+
+        private final Rate clientIp = new Rate(20, 2);
+
+        private int maxEntries = 65536;
+
+        private final Concurrency concurrency = new Concurrency();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getUnmeasuredPaths() {
+            return unmeasuredPaths;
+        }
+
+        public void setUnmeasuredPaths(List<String> unmeasuredPaths) {
+            this.unmeasuredPaths = unmeasuredPaths;
+        }
+
+        public String getTrustedProxies() {
+            return trustedProxies;
+        }
+
+        public void setTrustedProxies(String trustedProxies) {
+            this.trustedProxies = trustedProxies;
+        }
+
+        public Rate getPrincipal() {
+            return principal;
+        }
+
+        public Rate getClientIp() {
+            return clientIp;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Concurrency getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * Token buckets of a kind of key.
+         */
+        public static class Rate {
+
+            private long capacity;
+
+            private double refillPerSecond;
+
+            Rate(long capacity, double refillPerSecond) {
+                this.capacity = capacity;
+                this.refillPerSecond = refillPerSecond;
+            }
+
+            public long getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(long capacity) {
+                this.capacity = capacity;
+            }
+
+            public double getRefillPerSecond() {
+                return refillPerSecond;
+            }
+
+            public void setRefillPerSecond(double refillPerSecond) {
+                this.refillPerSecond = refillPerSecond;
+            }
+        }
+
+        /**
+         * Adaptive limit on the concurrent requests.
+         */
+        public static class Concurrency {
+
+            private int initialLimit = 20;
+
+            private int minLimit = 4;
+
+            private int maxLimit = 200;
+
+            private long latencyThresholdMs = 500;
+
+            private double backoffRatio = 0.9;
+
+            private boolean poolCongestion = true;
+
+            public int getInitialLimit() {
+                return initialLimit;
+            }
+
+            public void setInitialLimit(int initialLimit) {
+                this.initialLimit = initialLimit;
+            }
+
+            public int getMinLimit() {
+                return minLimit;
+            }
+
+            public void setMinLimit(int minLimit) {
+                this.minLimit = minLimit;
+            }
+
+            public int getMaxLimit() {
+                return maxLimit;
+            }
+
+            public void setMaxLimit(int maxLimit) {
+                this.maxLimit = maxLimit;
+            }
+
+            public long getLatencyThresholdMs() {
+                return latencyThresholdMs;
+            }
+
+            public void setLatencyThresholdMs(long latencyThresholdMs) {
+                this.latencyThresholdMs = latencyThresholdMs;
+            }
+
+            public double getBackoffRatio() {
+                return backoffRatio;
+            }
+
+            public void setBackoffRatio(double backoffRatio) {
+                this.backoffRatio = backoffRatio;
+            }
+
+            public boolean isPoolCongestion() {
+                return poolCongestion;
+            }
+
+            public void setPoolCongestion(boolean poolCongestion) {
+                this.poolCongestion = poolCongestion;
+            }
+        }
+    }
+
+    /**
+     * Request handling and @Async tasks in virtual threads, used by the VirtualThreadConfiguration.
+     */
+    public static class VirtualThreads {
+
+        private boolean enabled = false;
+
+        private String tracePinned = "short";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getTracePinned() {
+            return tracePinned;
+        }
+
+        public void setTracePinned(String tracePinned) {
+            this.tracePinned = tracePinned;
+        }
+    }
+
+    /**
+     * Rejection policy and scaling mode of the thread pool of the @Async tasks, sized by the "jhipster.async"
+     * properties, used by the AsyncConfiguration.
+     */
+    public static class AsyncExecutor {
+
+        private String rejectionPolicy = "fail-fast";
+
+        private boolean scaling = false;
+
+        public String getRejectionPolicy() {
+            return rejectionPolicy;
+        }
+
+        public void setRejectionPolicy(String rejectionPolicy) {
+            this.rejectionPolicy = rejectionPolicy;
+        }
+
+        public boolean isScaling() {
+            return scaling;
+        }
+
+        public void setScaling(boolean scaling) {
+            this.scaling = scaling;
+        }
+    }
+
+    /**
+     * Rendering of the error responses from cached problem templates, used by the ExceptionTranslator.
+     */
+    public static class ProblemFastPath {
+
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Expected problem exceptions thrown without stack trace, used by the ExceptionTranslator.
+     */
+    public static class LightweightExceptions {
+
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Total counts of the large tables estimated from the statistics of PostgreSQL, used by the RowCountEstimator.
+     */
+    public static class ApproximateCount {
+
+        private boolean enabled = false;
+
+        private long minRows = 100000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMinRows() {
+            return minRows;
+        }
+
+        public void setMinRows(long minRows) {
+            this.minRows = minRows;
+        }
+    }
 }
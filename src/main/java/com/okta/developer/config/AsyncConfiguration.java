@@ -1,16 +1,20 @@
 package com.okta.developer.config;
 
+import com.okta.developer.async.InstrumentedTaskExecutor;
+
 import io.github.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
 import io.github.jhipster.config.JHipsterProperties;
 
+import com.codahale.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.*;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
@@ -23,20 +27,46 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final JHipsterProperties jHipsterProperties;
 
-    public AsyncConfiguration(JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    private final ObjectProvider<MetricRegistry> metricRegistry;
+
+    private VirtualThreads virtualThreads;
+
+    public AsyncConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties,
+                              ObjectProvider<MetricRegistry> metricRegistry) {
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Autowired(required = false)
+    public void setVirtualThreads(VirtualThreads virtualThreads) {
+        this.virtualThreads = virtualThreads;
     }
 
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
+        if (virtualThreads != null && virtualThreads.isAvailable()) {
+            log.debug("Creating Async Task Executor with virtual threads");
+            return new ExceptionHandlingAsyncTaskExecutor(virtualThreads.newExecutor("oidc-Executor-"));
+        }
         log.debug("Creating Async Task Executor");
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        InstrumentedTaskExecutor executor = new InstrumentedTaskExecutor("async.task-executor");
         executor.setCorePoolSize(jHipsterProperties.getAsync().getCorePoolSize());
         executor.setMaxPoolSize(jHipsterProperties.getAsync().getMaxPoolSize());
         executor.setQueueCapacity(jHipsterProperties.getAsync().getQueueCapacity());
         executor.setThreadNamePrefix("oidc-Executor-");
-        return new ExceptionHandlingAsyncTaskExecutor(executor);
+        ApplicationProperties.AsyncExecutor properties = applicationProperties.getAsyncExecutor();
+        executor.setRejectionPolicy(InstrumentedTaskExecutor.RejectionPolicy.of(properties.getRejectionPolicy()));
+        executor.setScaling(properties.isScaling());
+        MetricRegistry registry = metricRegistry.getIfAvailable();
+        if (registry != null) {
+            executor.setMetricRegistry(registry);
+        }
+        // The instrumented executor logs the exceptions of the tasks itself, and needs to see the tasks unwrapped
+        return executor;
     }
 
     @Override
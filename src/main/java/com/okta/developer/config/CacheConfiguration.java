@@ -38,6 +38,7 @@ public class CacheConfiguration {
     public JCacheManagerCustomizer cacheManagerCustomizer() {
         return cm -> {
             cm.createCache("users", jcacheConfiguration);
+            cm.createCache("resourceVersions", jcacheConfiguration);
             cm.createCache(com.okta.developer.domain.User.class.getName(), jcacheConfiguration);
             cm.createCache(com.okta.developer.domain.Authority.class.getName(), jcacheConfiguration);
             cm.createCache(com.okta.developer.domain.User.class.getName() + ".authorities", jcacheConfiguration);
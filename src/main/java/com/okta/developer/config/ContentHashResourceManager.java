@@ -0,0 +1,250 @@
+package com.okta.developer.config;
+
+import io.undertow.io.IoCallback;
+import io.undertow.io.Sender;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.resource.RangeAwareResource;
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceChangeListener;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.util.ETag;
+import io.undertow.util.MimeMappings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Undertow resource manager for the static web assets, which gives each resource a strong ETag computed from a hash
+ * of its content.
+ * <p>
+ * Hashes are cached, and computed again when the size or the modification date of the resource changes. As the
+ * pre-compressed variants of a resource are resources of their own, each variant gets its own ETag.
+ * <p>
+ * When several resource managers are given, a resource is looked up in each of them in turn.
+ */
+public class ContentHashResourceManager implements ResourceManager {
+
+    private final List<ResourceManager> delegates;
+
+    private final Map<String, ContentHash> hashes = new ConcurrentHashMap<>();
+
+    public ContentHashResourceManager(ResourceManager... delegates) {
+        this.delegates = Arrays.asList(delegates);
+    }
+
+    @Override
+    public Resource getResource(String path) throws IOException {
+        Resource resource = find(path);
+        if (resource == null || resource.isDirectory()) {
+            return resource;
+        }
+        return new ContentHashResource(resource);
+    }
+
+    /**
+     * @param path the path of a resource
+     * @param extensions the extensions of the pre-compressed variants
+     * @return true if the resource has at least one of the pre-compressed variants
+     */
+    public boolean hasVariant(String path, Iterable<String> extensions) throws IOException {
+        for (String extension : extensions) {
+            if (find(path + extension) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isResourceChangeListenerSupported() {
+        return false;
+    }
+
+    @Override
+    public void registerResourceChangeListener(ResourceChangeListener listener) {
+    }
+
+    @Override
+    public void removeResourceChangeListener(ResourceChangeListener listener) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ResourceManager delegate : delegates) {
+            delegate.close();
+        }
+    }
+
+    private Resource find(String path) throws IOException {
+        for (ResourceManager delegate : delegates) {
+            Resource resource = delegate.getResource(path);
+            if (resource != null) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    private ETag etag(Resource resource) {
+        Date lastModified = resource.getLastModified();
+        long modified = lastModified == null ? 0 : lastModified.getTime();
+        Long length = resource.getContentLength();
+        ContentHash hash = hashes.get(resource.getPath());
+        if (hash == null || hash.modified != modified || !Objects.equals(hash.length, length)) {
+            String value = hash(resource);
+            if (value == null) {
+                return null;
+            }
+            hash = new ContentHash(modified, length, new ETag(false, value));
+            hashes.put(resource.getPath(), hash);
+        }
+        return hash.etag;
+    }
+
+    private static String hash(Resource resource) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Path file = resource.getFilePath();
+            try (InputStream in = file != null ? Files.newInputStream(file) : resource.getUrl().openStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            // Conditional requests fall back to the Last-Modified date
+            return null;
+        }
+    }
+
+    private static class ContentHash {
+
+        private final long modified;
+
+        private final Long length;
+
+        private final ETag etag;
+
+        ContentHash(long modified, Long length, ETag etag) {
+            this.modified = modified;
+            this.length = length;
+            this.etag = etag;
+        }
+    }
+
+    private class ContentHashResource implements RangeAwareResource {
+
+        private final Resource resource;
+
+        ContentHashResource(Resource resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public ETag getETag() {
+            return etag(resource);
+        }
+
+        @Override
+        public String getPath() {
+            return resource.getPath();
+        }
+
+        @Override
+        public Date getLastModified() {
+            return resource.getLastModified();
+        }
+
+        @Override
+        public String getLastModifiedString() {
+            return resource.getLastModifiedString();
+        }
+
+        @Override
+        public String getName() {
+            return resource.getName();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return resource.isDirectory();
+        }
+
+        @Override
+        public List<Resource> list() {
+            return resource.list().stream().map(ContentHashResource::new).collect(Collectors.toList());
+        }
+
+        @Override
+        public String getContentType(MimeMappings mimeMappings) {
+            return resource.getContentType(mimeMappings);
+        }
+
+        @Override
+        public void serve(Sender sender, HttpServerExchange exchange, IoCallback completionCallback) {
+            resource.serve(sender, exchange, completionCallback);
+        }
+
+        @Override
+        public void serveRange(Sender sender, HttpServerExchange exchange, long start, long end,
+                               IoCallback completionCallback) {
+            ((RangeAwareResource) resource).serveRange(sender, exchange, start, end, completionCallback);
+        }
+
+        @Override
+        public boolean isRangeSupported() {
+            return resource instanceof RangeAwareResource && ((RangeAwareResource) resource).isRangeSupported();
+        }
+
+        @Override
+        public Long getContentLength() {
+            return resource.getContentLength();
+        }
+
+        @Override
+        public String getCacheKey() {
+            return resource.getCacheKey();
+        }
+
+        @Override
+        public File getFile() {
+            return resource.getFile();
+        }
+
+        @Override
+        public Path getFilePath() {
+            return resource.getFilePath();
+        }
+
+        @Override
+        public File getResourceManagerRoot() {
+            return resource.getResourceManagerRoot();
+        }
+
+        @Override
+        public Path getResourceManagerRootPath() {
+            return resource.getResourceManagerRootPath();
+        }
+
+        @Override
+        public URL getUrl() {
+            return resource.getUrl();
+        }
+    }
+}
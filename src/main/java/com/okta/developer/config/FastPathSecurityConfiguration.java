@@ -0,0 +1,79 @@
+package com.okta.developer.config;
+
+import com.okta.developer.security.CookieSecurityContextRepository;
+import com.okta.developer.security.FastPathRouter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.web.filter.CorsFilter;
+
+/**
+ * Fast path of the security filter chains, where a {@link FastPathRouter} routes the requests with a single trie
+ * lookup: the static resources past all the security filters, and the public endpoints to a minimal chain ordered
+ * before the one of the SecurityConfiguration.
+ * <p>
+ * The minimal chain has no CSRF, authentication, session management nor authorization filters. It keeps the security
+ * headers and the CORS filter, and loads the security context without ever creating a session, so that the health
+ * endpoint still shows its details to the administrators.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.security-fast-path", name = "enabled", havingValue = "true",
+    matchIfMissing = true)
+@Order(99)
+public class FastPathSecurityConfiguration extends WebSecurityConfigurerAdapter {
+
+    private final CorsFilter corsFilter;
+
+    private CookieSecurityContextRepository cookieSecurityContextRepository;
+
+    public FastPathSecurityConfiguration(CorsFilter corsFilter) {
+        super(true);
+        this.corsFilter = corsFilter;
+    }
+
+    @Autowired(required = false)
+    public void setCookieSecurityContextRepository(CookieSecurityContextRepository cookieSecurityContextRepository) {
+        this.cookieSecurityContextRepository = cookieSecurityContextRepository;
+    }
+
+    @Bean
+    public FastPathRouter fastPathRouter() {
+        return new FastPathRouter()
+            .ignore(HttpMethod.OPTIONS.name(), "/**")
+            .ignore(SecurityConfiguration.IGNORED_PATHS)
+            .permit(SecurityConfiguration.PUBLIC_PATHS);
+    }
+
+    @Override
+    protected void configure(HttpSecurity http) throws Exception {
+        http
+            .requestMatcher(fastPathRouter().matcher(FastPathRouter.Route.PUBLIC))
+            .addFilterBefore(corsFilter, CsrfFilter.class)
+            .securityContext()
+            .securityContextRepository(securityContextRepository())
+        .and()
+            .servletApi()
+        .and()
+            .headers()
+            .frameOptions()
+            .disable();
+    }
+
+    private SecurityContextRepository securityContextRepository() {
+        if (cookieSecurityContextRepository != null) {
+            return cookieSecurityContextRepository;
+        }
+        HttpSessionSecurityContextRepository repository = new HttpSessionSecurityContextRepository();
+        repository.setAllowSessionCreation(false);
+        return repository;
+    }
+}
@@ -0,0 +1,244 @@
+package com.okta.developer.config;
+
+import com.fasterxml.classmate.TypeResolver;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.bind.PropertiesConfigurationFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.validation.BindException;
+import springfox.documentation.spi.service.RequestHandlerProvider;
+import springfox.documentation.spi.service.contexts.Defaults;
+import springfox.documentation.spring.web.DocumentationCache;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsManager;
+import springfox.documentation.spring.web.scanners.ApiDocumentationScanner;
+
+import javax.cache.Caching;
+import javax.servlet.ServletContext;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fast-start mode, enabled with "application.fast-start.enabled=true".
+ * <p>
+ * In this mode:
+ * <ul>
+ * <li>the non-critical beans listed in "application.fast-start.lazy-beans" are only created when first used,</li>
+ * <li>the Swagger documentation scan is done in the background once the application is ready,</li>
+ * <li>the JCache provider, the platform MBean server used by the metrics and the datasource connection pool
+ * are warmed up in parallel, while the rest of the context is being built.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.fast-start", name = "enabled", havingValue = "true")
+public class FastStartConfiguration {
+
+    @Bean
+    public static LazyInitPostProcessor fastStartLazyInitPostProcessor() {
+        return new LazyInitPostProcessor();
+    }
+
+    @Bean
+    public static InfrastructureWarmUp fastStartInfrastructureWarmUp() {
+        return new InfrastructureWarmUp();
+    }
+
+    /**
+     * Bind the "application" properties from the environment.
+     * <p>
+     * Bean factory post-processors run before the ApplicationProperties bean is available, so they use this to
+     * read their configuration.
+     */
+    static ApplicationProperties bindApplicationProperties(Environment environment) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        PropertiesConfigurationFactory<ApplicationProperties> factory =
+            new PropertiesConfigurationFactory<>(applicationProperties);
+        factory.setPropertySources(((ConfigurableEnvironment) environment).getPropertySources());
+        factory.setTargetName("application");
+        try {
+            factory.bindPropertiesToTarget();
+        } catch (BindException e) {
+            throw new IllegalStateException("Could not bind the application properties", e);
+        }
+        return applicationProperties;
+    }
+
+    /**
+     * Marks the configured beans as lazy, and swaps the Springfox bootstrapper for a deferred one.
+     */
+    public static class LazyInitPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+        private final Logger log = LoggerFactory.getLogger(LazyInitPostProcessor.class);
+
+        private ApplicationProperties.FastStart properties;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            this.properties = bindApplicationProperties(environment).getFastStart();
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            for (String beanName : properties.getLazyBeans()) {
+                if (beanFactory.containsBeanDefinition(beanName)) {
+                    log.debug("Deferring initialization of bean '{}'", beanName);
+                    beanFactory.getBeanDefinition(beanName).setLazyInit(true);
+                }
+            }
+            if (properties.isDeferSwagger()) {
+                for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                    BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                    if (DocumentationPluginsBootstrapper.class.getName().equals(definition.getBeanClassName())) {
+                        log.debug("Deferring the Swagger documentation scan");
+                        definition.setBeanClassName(DeferredDocumentationPluginsBootstrapper.class.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs independent infrastructure warm-up tasks in parallel with the context initialization.
+     * <p>
+     * All tasks are awaited when the context is refreshed, so the application is not reported as started before
+     * they are done.
+     */
+    public static class InfrastructureWarmUp implements BeanFactoryPostProcessor, BeanPostProcessor,
+        EnvironmentAware, ApplicationListener<ContextRefreshedEvent> {
+
+        private final Logger log = LoggerFactory.getLogger(InfrastructureWarmUp.class);
+
+        private final Map<String, Future<Long>> tasks = new LinkedHashMap<>();
+
+        private ApplicationProperties.FastStart properties;
+
+        private ExecutorService executor;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            this.properties = bindApplicationProperties(environment).getFastStart();
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            executor = Executors.newFixedThreadPool(properties.getWarmUpThreads(),
+                new CustomizableThreadFactory("oidc-warm-up-"));
+            submit("cache", Caching::getCachingProvider);
+            submit("metrics", () -> {
+                ManagementFactory.getPlatformMBeanServer();
+                ManagementFactory.getMemoryPoolMXBeans();
+                ManagementFactory.getGarbageCollectorMXBeans();
+            });
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (bean instanceof HikariDataSource && executor != null) {
+                HikariDataSource dataSource = (HikariDataSource) bean;
+                submit("datasource", () -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        connection.isValid(0);
+                    }
+                });
+            }
+            return bean;
+        }
+
+        @Override
+        public synchronized void onApplicationEvent(ContextRefreshedEvent event) {
+            if (executor == null) {
+                return;
+            }
+            tasks.forEach((name, task) -> {
+                try {
+                    log.debug("Warm-up of {} took {} ms", name, task.get(properties.getWarmUpTimeoutSeconds(), TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    log.warn("Warm-up of {} failed: {}", name, e.toString());
+                }
+            });
+            tasks.clear();
+            executor.shutdown();
+            executor = null;
+        }
+
+        private synchronized void submit(String name, WarmUpTask task) {
+            tasks.put(name, executor.submit(() -> {
+                long start = System.nanoTime();
+                task.run();
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }));
+        }
+
+        @FunctionalInterface
+        private interface WarmUpTask {
+            void run() throws Exception;
+        }
+    }
+
+    /**
+     * Springfox bootstrapper which does not scan the API at context startup, but in the background once the
+     * application is ready. Until then, "/v2/api-docs" has no documentation to serve.
+     */
+    public static class DeferredDocumentationPluginsBootstrapper extends DocumentationPluginsBootstrapper
+        implements ApplicationListener<ApplicationReadyEvent> {
+
+        private final Logger log = LoggerFactory.getLogger(DeferredDocumentationPluginsBootstrapper.class);
+
+        @Autowired
+        public DeferredDocumentationPluginsBootstrapper(DocumentationPluginsManager documentationPluginsManager,
+                                                        List<RequestHandlerProvider> handlerProviders,
+                                                        DocumentationCache scanned,
+                                                        ApiDocumentationScanner resourceListing,
+                                                        TypeResolver typeResolver,
+                                                        Defaults defaults,
+                                                        ServletContext servletContext) {
+            super(documentationPluginsManager, handlerProviders, scanned, resourceListing, typeResolver, defaults,
+                servletContext);
+        }
+
+        @Override
+        public boolean isAutoStartup() {
+            return false;
+        }
+
+        @Override
+        public void onApplicationEvent(ApplicationReadyEvent event) {
+            Thread thread = new Thread(() -> {
+                long start = System.nanoTime();
+                start();
+                log.debug("Swagger documentation scanned in {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }, "oidc-swagger-bootstrap");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+}
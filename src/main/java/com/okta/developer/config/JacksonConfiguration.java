@@ -1,15 +1,29 @@
 package com.okta.developer.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
 import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 import org.zalando.problem.ProblemModule;
 import org.zalando.problem.validation.ConstraintViolationProblemModule;
 
+import java.util.List;
+
 @Configuration
-public class JacksonConfiguration {
+public class JacksonConfiguration extends WebMvcConfigurerAdapter {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public JacksonConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
 
     /*
      * Support for Hibernate types in Jackson.
@@ -43,4 +57,16 @@ public class JacksonConfiguration {
         return new ConstraintViolationProblemModule();
     }
 
+    /*
+     * Binary Smile encoding of the REST resources, for the clients accepting "application/x-jackson-smile", with the
+     * same modules and settings as the JSON object mapper. It is added after the JSON converter, so that JSON stays the
+     * format of the clients accepting any media type.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        objectMapperBuilder.getObject().configure(smileMapper);
+        converters.add(new SmileHttpMessageConverter(smileMapper));
+    }
+
 }
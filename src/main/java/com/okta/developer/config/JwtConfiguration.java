@@ -0,0 +1,76 @@
+package com.okta.developer.config;
+
+import com.okta.developer.security.AuthoritiesConstants;
+import com.okta.developer.security.JwkSetCache;
+import com.okta.developer.security.JwtTokenServices;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
+import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
+import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
+import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
+
+/**
+ * Resource server mode: access tokens are validated locally against the keys of the identity provider.
+ * <p>
+ * The JwtTokenServices replace the user info token services, both for the login and for the requests sent with an
+ * "Authorization: Bearer" header, which are authenticated without a session.
+ */
+@Configuration
+@EnableResourceServer
+@ConditionalOnProperty(prefix = "application.jwt", name = "enabled", havingValue = "true")
+public class JwtConfiguration extends ResourceServerConfigurerAdapter {
+
+    private final ApplicationProperties applicationProperties;
+
+    private final SecurityProblemSupport problemSupport;
+
+    public JwtConfiguration(ApplicationProperties applicationProperties, SecurityProblemSupport problemSupport) {
+        this.applicationProperties = applicationProperties;
+        this.problemSupport = problemSupport;
+    }
+
+    @Bean
+    public JwkSetCache jwkSetCache() {
+        return new JwkSetCache(applicationProperties);
+    }
+
+    @Bean
+    public JwtTokenServices jwtTokenServices() {
+        return new JwtTokenServices(jwkSetCache(), applicationProperties);
+    }
+
+    @Override
+    public void configure(ResourceServerSecurityConfigurer resources) {
+        resources
+            .tokenServices(jwtTokenServices())
+            .resourceId(null)
+            .stateless(true);
+    }
+
+    @Override
+    public void configure(HttpSecurity http) throws Exception {
+        http
+            .requestMatcher(request -> {
+                String authorization = request.getHeader("Authorization");
+                return authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7);
+            })
+            .csrf()
+            .disable()
+            .exceptionHandling()
+            .accessDeniedHandler(problemSupport)
+        .and()
+            .sessionManagement()
+            .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+        .and()
+            .authorizeRequests()
+            .antMatchers("/api/profile-info").permitAll()
+            .antMatchers("/api/**").authenticated()
+            .antMatchers("/management/health").permitAll()
+            .antMatchers("/management/**").hasAuthority(AuthoritiesConstants.ADMIN);
+    }
+}
@@ -0,0 +1,23 @@
+package com.okta.developer.config;
+
+import com.okta.developer.security.HmacCsrfTokenRepository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lazy CSRF mode, where the SecurityConfiguration uses the {@link HmacCsrfTokenRepository} instead of a token cookie
+ * which is loaded, or generated and written, on every request.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.lazy-csrf", name = "enabled", havingValue = "true")
+public class LazyCsrfConfiguration {
+
+    @Bean
+    public HmacCsrfTokenRepository hmacCsrfTokenRepository(ApplicationProperties applicationProperties) {
+        ApplicationProperties.LazyCsrf properties = applicationProperties.getLazyCsrf();
+        return new HmacCsrfTokenRepository(properties.getSecret(), properties.getCookieName(),
+            properties.getHeaderName(), properties.getParameterName());
+    }
+}
@@ -0,0 +1,43 @@
+package com.okta.developer.config;
+
+import com.okta.developer.web.rest.errors.ExpectedProblem;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Creates the {@link ExpectedProblem}s without stack trace, with "application.lightweight-exceptions.enabled".
+ * <p>
+ * This is a setting of the whole JVM: it is only changed when enabled, once per application context, and restored
+ * when the context is closed.
+ */
+@Configuration
+public class LightweightExceptionsConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(LightweightExceptionsConfiguration.class);
+
+    private final boolean enabled;
+
+    public LightweightExceptionsConfiguration(ApplicationProperties applicationProperties) {
+        this.enabled = applicationProperties.getLightweightExceptions().isEnabled();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            log.debug("Creating the expected problems without stack trace");
+            ExpectedProblem.setStackTraceEnabled(false);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (enabled) {
+            ExpectedProblem.setStackTraceEnabled(true);
+        }
+    }
+}
@@ -43,10 +43,13 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
 
     private final JHipsterProperties jHipsterProperties;
 
+    private final ApplicationProperties applicationProperties;
+
     private HikariDataSource hikariDataSource;
 
-    public MetricsConfiguration(JHipsterProperties jHipsterProperties) {
+    public MetricsConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Autowired(required = false)
@@ -79,7 +82,14 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         metricRegistry.register(PROP_METRIC_REG_JCACHE_STATISTICS, new JCacheGaugeSet());
         if (hikariDataSource != null) {
             log.debug("Monitoring the datasource");
-            hikariDataSource.setMetricRegistry(metricRegistry);
+            ApplicationProperties.PoolTuning poolTuning = applicationProperties.getPoolTuning();
+            if (poolTuning.isEnabled()) {
+                // the pool is tuned on the connections of each interval only
+                hikariDataSource.setMetricsTrackerFactory(
+                    new PoolMetricsTrackerFactory(metricRegistry, poolTuning.getIntervalMs()));
+            } else {
+                hikariDataSource.setMetricRegistry(metricRegistry);
+            }
         }
         if (jHipsterProperties.getMetrics().getJmx().isEnabled()) {
             log.debug("Initializing Metrics JMX reporting");
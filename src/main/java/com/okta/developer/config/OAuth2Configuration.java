@@ -1,10 +1,13 @@
 package com.okta.developer.config;
 
+import com.okta.developer.security.CookieCipher;
+import com.okta.developer.security.LoginOriginRepository;
 import com.okta.developer.security.OAuth2AuthenticationSuccessHandler;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
@@ -36,8 +39,21 @@ public class OAuth2Configuration {
 
     private final Logger log = LoggerFactory.getLogger(OAuth2Configuration.class);
 
+    /**
+     * In stateless mode, the login origin is kept in an encrypted cookie instead of the HTTP session.
+     */
     @Bean
-    public FilterRegistrationBean saveLoginOriginFilter() {
+    public LoginOriginRepository loginOriginRepository(ObjectProvider<CookieCipher> cookieCipher,
+                                                       ApplicationProperties applicationProperties) {
+        CookieCipher cipher = cookieCipher.getIfAvailable();
+        if (cipher == null) {
+            return new LoginOriginRepository();
+        }
+        return new LoginOriginRepository(cipher, applicationProperties.getStateless().getCookieName() + "_ORIGIN");
+    }
+
+    @Bean
+    public FilterRegistrationBean saveLoginOriginFilter(LoginOriginRepository loginOriginRepository) {
         Filter filter = new OncePerRequestFilter() {
             @Override
             protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
@@ -45,27 +61,34 @@ public class OAuth2Configuration {
                 throws ServletException, IOException {
                 if (request.getRemoteUser() == null && request.getRequestURI().endsWith("/login")) {
                     String referrer = request.getHeader("referer");
-                    if (!StringUtils.isBlank(referrer) &&
-                        request.getSession().getAttribute(SAVED_LOGIN_ORIGIN_URI) == null) {
+                    if (!StringUtils.isBlank(referrer) && !loginOriginRepository.containsLoginOrigin(request)) {
                         log.debug("Saving login origin URI: {}", referrer);
-                        request.getSession().setAttribute(SAVED_LOGIN_ORIGIN_URI, referrer);
+                        loginOriginRepository.saveLoginOrigin(request, response, referrer);
                     }
                 }
                 filterChain.doFilter(request, response);
             }
         };
         FilterRegistrationBean bean = new FilterRegistrationBean(filter);
-        bean.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        // After the SessionRepositoryFilter, which replaces the session
+        bean.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
         return bean;
     }
 
     @Bean
-    public static DefaultRolesPrefixPostProcessor defaultRolesPrefixPostProcessor() {
-        return new DefaultRolesPrefixPostProcessor();
+    public static DefaultRolesPrefixPostProcessor defaultRolesPrefixPostProcessor(
+        ObjectProvider<LoginOriginRepository> loginOriginRepository) {
+        return new DefaultRolesPrefixPostProcessor(loginOriginRepository);
     }
 
     public static class DefaultRolesPrefixPostProcessor implements BeanPostProcessor, PriorityOrdered {
 
+        private final ObjectProvider<LoginOriginRepository> loginOriginRepository;
+
+        DefaultRolesPrefixPostProcessor(ObjectProvider<LoginOriginRepository> loginOriginRepository) {
+            this.loginOriginRepository = loginOriginRepository;
+        }
+
         @Override
         public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
             if (bean instanceof FilterChainProxy) {
@@ -78,7 +101,8 @@ public class OAuth2Configuration {
                             OAuth2ClientAuthenticationProcessingFilter oAuth2ClientAuthenticationProcessingFilter =
                                 (OAuth2ClientAuthenticationProcessingFilter) filter;
                             oAuth2ClientAuthenticationProcessingFilter
-                                .setAuthenticationSuccessHandler(new OAuth2AuthenticationSuccessHandler());
+                                .setAuthenticationSuccessHandler(
+                                    new OAuth2AuthenticationSuccessHandler(loginOriginRepository.getObject()));
                         }
                     }
                 }
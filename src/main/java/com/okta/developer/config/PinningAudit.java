@@ -0,0 +1,86 @@
+package com.okta.developer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the synchronized methods and blocks of the application classes, which pin the carrier thread of a virtual
+ * thread if it blocks in them, on I/O or on a lock.
+ * <p>
+ * The classes are read as bytecode, without being loaded. Monitors held for a few memory operations, such as around
+ * the caches, are harmless; the ones around network or database calls should use a ReentrantLock instead.
+ */
+public class PinningAudit {
+
+    private final Logger log = LoggerFactory.getLogger(PinningAudit.class);
+
+    private final String basePackage;
+
+    public PinningAudit(String basePackage) {
+        this.basePackage = basePackage;
+    }
+
+    /**
+     * @return the synchronized sites, as "class.method" followed by "(method)" or "(block)"
+     */
+    public List<String> find() throws IOException {
+        List<String> sites = new ArrayList<>();
+        Resource[] classes = new PathMatchingResourcePatternResolver(PinningAudit.class.getClassLoader())
+            .getResources("classpath*:" + basePackage.replace('.', '/') + "/**/*.class");
+        for (Resource resource : classes) {
+            try (InputStream in = resource.getInputStream()) {
+                find(new ClassReader(in), sites);
+            }
+        }
+        return sites;
+    }
+
+    public void log() {
+        try {
+            List<String> sites = find();
+            log.info("{} synchronized methods and blocks may pin virtual threads if they block: {}", sites.size(),
+                sites);
+        } catch (IOException e) {
+            log.warn("Could not read the application classes: {}", e.getMessage());
+        }
+    }
+
+    static void find(ClassReader reader, List<String> sites) {
+        String className = reader.getClassName().replace('/', '.');
+        reader.accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION) {
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+                                             String[] exceptions) {
+                String method = className + "." + name;
+                if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+                    sites.add(method + " (method)");
+                }
+                return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+
+                    private boolean found;
+
+                    @Override
+                    public void visitInsn(int opcode) {
+                        if (opcode == Opcodes.MONITORENTER && !found) {
+                            found = true;
+                            sites.add(method + " (block)");
+                        }
+                    }
+                };
+            }
+        }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+}
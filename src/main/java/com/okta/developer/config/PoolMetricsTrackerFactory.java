@@ -0,0 +1,53 @@
+package com.okta.developer.config;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.codahale.metrics.Timer;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.dropwizard.CodaHaleMetricsTracker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hikari metrics tracker factory publishing the same metrics as the default one, but whose "Wait" timer and "Usage"
+ * histogram only keep the connections of the last window.
+ * <p>
+ * The default reservoirs decay exponentially and keep their samples until new ones replace them, so after a burst
+ * they would report its wait times for as long as the pool stays idle. The PoolTuningService reads these metrics, so
+ * the window is its interval: each decision is taken on the connections of the interval since the previous one.
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final MetricRegistry registry;
+
+    private final long windowMs;
+
+    private final Clock clock;
+
+    public PoolMetricsTrackerFactory(MetricRegistry registry, long windowMs) {
+        this(registry, windowMs, Clock.defaultClock());
+    }
+
+    public PoolMetricsTrackerFactory(MetricRegistry registry, long windowMs, Clock clock) {
+        this.registry = registry;
+        this.windowMs = windowMs;
+        this.clock = clock;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        String prefix = MetricRegistry.name(poolName, "pool");
+        // registered first, so that the tracker finds them instead of creating the default ones
+        registry.timer(MetricRegistry.name(prefix, "Wait"), () -> new Timer(window(), clock));
+        registry.histogram(MetricRegistry.name(prefix, "Usage"), () -> new Histogram(window()));
+        return new CodaHaleMetricsTracker(poolName, poolStats, registry);
+    }
+
+    private SlidingTimeWindowReservoir window() {
+        return new SlidingTimeWindowReservoir(windowMs, TimeUnit.MILLISECONDS, clock);
+    }
+}
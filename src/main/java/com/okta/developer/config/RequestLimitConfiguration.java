@@ -0,0 +1,91 @@
+package com.okta.developer.config;
+
+import com.okta.developer.web.limit.AdaptiveConcurrencyLimiter;
+import com.okta.developer.web.limit.RequestLimitFilter;
+import com.okta.developer.web.limit.TokenBucketRateLimiter;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Rate limiting and load shedding of the expensive endpoints, with the {@link RequestLimitFilter} which the
+ * SecurityConfiguration adds to its filter chain.
+ * <p>
+ * With a Hikari data source, the threads waiting for a connection, from the "PendingConnections" gauge of its metrics,
+ * are a congestion signal which decreases the concurrency limit, so that requests are shed before the pool is saturated.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.request-limit", name = "enabled", havingValue = "true")
+public class RequestLimitConfiguration {
+
+    @Bean
+    public RequestLimitFilter requestLimitFilter(ApplicationProperties applicationProperties,
+                                                 @Qualifier("handlerExceptionResolver") HandlerExceptionResolver resolver,
+                                                 ObjectProvider<HikariDataSource> hikariDataSource,
+                                                 ObjectProvider<MetricRegistry> metricRegistry) {
+        ApplicationProperties.RequestLimit properties = applicationProperties.getRequestLimit();
+        ApplicationProperties.RequestLimit.Concurrency concurrency = properties.getConcurrency();
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(concurrency.getInitialLimit(),
+            concurrency.getMinLimit(), concurrency.getMaxLimit(), concurrency.getLatencyThresholdMs(),
+            concurrency.getBackoffRatio());
+        HikariDataSource dataSource = hikariDataSource.getIfAvailable();
+        MetricRegistry registry = metricRegistry.getIfAvailable();
+        if (concurrency.isPoolCongestion() && dataSource != null && registry != null) {
+            concurrencyLimiter.setCongestionSignal(pendingConnections(dataSource, registry));
+        }
+        RequestLimitFilter filter = new RequestLimitFilter(properties.getPaths(),
+            rateLimiter(properties.getPrincipal(), properties.getMaxEntries()),
+            rateLimiter(properties.getClientIp(), properties.getMaxEntries()), concurrencyLimiter, resolver);
+        filter.setUnmeasuredPaths(properties.getUnmeasuredPaths());
+        filter.setTrustedProxies(properties.getTrustedProxies());
+        if (registry != null) {
+            filter.setMetricRegistry(registry);
+        }
+        return filter;
+    }
+
+    /**
+     * The filter only runs in the security filter chain, not as a servlet filter.
+     */
+    @Bean
+    public FilterRegistrationBean requestLimitFilterRegistration(RequestLimitFilter requestLimitFilter) {
+        FilterRegistrationBean bean = new FilterRegistrationBean(requestLimitFilter);
+        bean.setEnabled(false);
+        return bean;
+    }
+
+    private static TokenBucketRateLimiter rateLimiter(ApplicationProperties.RequestLimit.Rate rate, int maxEntries) {
+        return new TokenBucketRateLimiter(rate.getCapacity(), rate.getRefillPerSecond(), maxEntries);
+    }
+
+    /**
+     * @return whether threads are waiting for a connection of the pool, once it is started and has registered its
+     * metrics
+     */
+    private static BooleanSupplier pendingConnections(HikariDataSource dataSource, MetricRegistry registry) {
+        Gauge<?>[] gauge = new Gauge<?>[1];
+        return () -> {
+            if (gauge[0] == null) {
+                Metric metric = dataSource.getPoolName() == null ? null :
+                    registry.getMetrics().get(MetricRegistry.name(dataSource.getPoolName(), "pool", "PendingConnections"));
+                if (!(metric instanceof Gauge)) {
+                    return false;
+                }
+                gauge[0] = (Gauge<?>) metric;
+            }
+            Object value = gauge[0].getValue();
+            return value instanceof Number && ((Number) value).intValue() > 0;
+        };
+    }
+}
@@ -0,0 +1,386 @@
+package com.okta.developer.config;
+
+import com.codahale.metrics.MetricRegistry;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.encoding.ContentEncodingProvider;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
+import io.undertow.server.handlers.encoding.EncodingHandler;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.StreamSinkConduit;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Undertow handler which compresses the dynamic responses, such as the JSON of the REST API, with gzip or deflate.
+ * <p>
+ * A response is compressed when its content type is one of the configured ones, and when it is at least
+ * "min-response-size" bytes long. Responses without a Content-Length are larger than the servlet response buffer,
+ * so they are always compressed. Responses which already have a Content-Encoding, such as the pre-compressed static
+ * assets, are left as they are. The strong ETag of a compressed response is made weak.
+ * <p>
+ * When a metric registry is given, each encoding gets, under "undertow.compression.&lt;encoding&gt;":
+ * <ul>
+ * <li>"ratio", a histogram of the compressed size of the responses in percent of their original size,</li>
+ * <li>"bytes-in" and "bytes-out", meters of the bytes before and after compression,</li>
+ * <li>"cpu", a timer of the CPU time spent compressing each response.</li>
+ * </ul>
+ */
+public class ResponseCompressionHandler implements HttpHandler {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final HttpHandler next;
+
+    private final Set<String> mimeTypes = new HashSet<>();
+
+    private final long minResponseSize;
+
+    public ResponseCompressionHandler(HttpHandler next, ApplicationProperties.Undertow.Compression compression,
+                                      MetricRegistry metricRegistry) {
+
+        this.minResponseSize = compression.getMinResponseSize();
+        for (String mimeType : compression.getMimeTypes()) {
+            this.mimeTypes.add(mimeType.trim().toLowerCase(Locale.ROOT));
+        }
+        ContentEncodingRepository repository = new ContentEncodingRepository();
+        List<String> encodings = compression.getEncodings();
+        for (int i = 0; i < encodings.size(); i++) {
+            String encoding = encodings.get(i).trim();
+            ContentEncodingProvider provider = new WeakETagEncodingProvider(provider(encoding, compression.getLevel()));
+            if (metricRegistry != null && compression.isMetrics()) {
+                provider = new MeasuredEncodingProvider(provider, metricRegistry, encoding);
+            }
+            // The first encodings are preferred when the client accepts several with the same quality
+            repository.addEncodingHandler(encoding, provider, encodings.size() - i, this::isCompressible);
+        }
+        this.next = new EncodingHandler(next, repository);
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        exchange.addResponseWrapper((factory, wrappedExchange) -> {
+            if (isCompressibleType(wrappedExchange)) {
+                HeaderValues vary = wrappedExchange.getResponseHeaders().get(Headers.VARY);
+                if (vary == null || !vary.contains(Headers.ACCEPT_ENCODING_STRING)) {
+                    wrappedExchange.getResponseHeaders().add(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+                }
+            }
+            return factory.create();
+        });
+        next.handleRequest(exchange);
+    }
+
+    boolean isCompressible(HttpServerExchange exchange) {
+        if (!isCompressibleType(exchange)) {
+            return false;
+        }
+        String contentLength = exchange.getResponseHeaders().getFirst(Headers.CONTENT_LENGTH);
+        return contentLength == null || Long.parseLong(contentLength) >= minResponseSize;
+    }
+
+    private boolean isCompressibleType(HttpServerExchange exchange) {
+        String contentType = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+        if (contentType == null) {
+            return false;
+        }
+        int parameters = contentType.indexOf(';');
+        if (parameters >= 0) {
+            contentType = contentType.substring(0, parameters);
+        }
+        return mimeTypes.contains(contentType.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static ContentEncodingProvider provider(String encoding, int level) {
+        switch (encoding) {
+            case "gzip":
+                return new GzipEncodingProvider(level);
+            case "deflate":
+                return new DeflateEncodingProvider(level);
+            default:
+                throw new IllegalArgumentException("Unsupported response compression encoding: " + encoding);
+        }
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Wraps an encoding provider to turn the strong ETag of a response, such as the one of a static asset, into a
+     * weak one, as the compressed response is not byte for byte the one the ETag was computed from.
+     */
+    static class WeakETagEncodingProvider implements ContentEncodingProvider {
+
+        private final ContentEncodingProvider delegate;
+
+        WeakETagEncodingProvider(ContentEncodingProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ConduitWrapper<StreamSinkConduit> getResponseWrapper() {
+            ConduitWrapper<StreamSinkConduit> wrapper = delegate.getResponseWrapper();
+            return (factory, exchange) -> {
+                String etag = exchange.getResponseHeaders().getFirst(Headers.ETAG);
+                if (etag != null && etag.startsWith("\"")) {
+                    exchange.getResponseHeaders().put(Headers.ETAG, "W/" + etag);
+                }
+                return wrapper.wrap(factory, exchange);
+            };
+        }
+    }
+
+    /**
+     * Wraps an encoding provider to measure, for each response, the bytes before and after compression and the CPU
+     * time spent in the compressing conduit, minus the time spent writing the compressed bytes.
+     */
+    static class MeasuredEncodingProvider implements ContentEncodingProvider {
+
+        private final ContentEncodingProvider delegate;
+
+        private final MetricRegistry metricRegistry;
+
+        private final String prefix;
+
+        MeasuredEncodingProvider(ContentEncodingProvider delegate, MetricRegistry metricRegistry, String encoding) {
+            this.delegate = delegate;
+            this.metricRegistry = metricRegistry;
+            this.prefix = MetricRegistry.name("undertow.compression", encoding);
+        }
+
+        @Override
+        public ConduitWrapper<StreamSinkConduit> getResponseWrapper() {
+            ConduitWrapper<StreamSinkConduit> wrapper = delegate.getResponseWrapper();
+            return (factory, exchange) -> {
+                Measurement measurement = new Measurement();
+                exchange.addExchangeCompleteListener((completed, nextListener) -> {
+                    try {
+                        record(measurement);
+                    } finally {
+                        nextListener.proceed();
+                    }
+                });
+                StreamSinkConduit compressing = wrapper.wrap(
+                    () -> new CompressedSinkConduit(factory.create(), measurement), exchange);
+                return new UncompressedSinkConduit(compressing, measurement);
+            };
+        }
+
+        private void record(Measurement measurement) {
+            if (measurement.bytesIn == 0) {
+                return;
+            }
+            metricRegistry.histogram(prefix + ".ratio").update(measurement.bytesOut * 100 / measurement.bytesIn);
+            metricRegistry.meter(prefix + ".bytes-in").mark(measurement.bytesIn);
+            metricRegistry.meter(prefix + ".bytes-out").mark(measurement.bytesOut);
+            metricRegistry.timer(prefix + ".cpu")
+                .update(Math.max(0, measurement.compressionNanos - measurement.writeNanos), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * What was measured for a response. The conduits of a response are never used concurrently.
+     */
+    static class Measurement {
+
+        long bytesIn;
+
+        long bytesOut;
+
+        long compressionNanos;
+
+        long writeNanos;
+    }
+
+    /**
+     * Conduit above the compressing one, which counts the bytes of the response and the time spent compressing them.
+     */
+    static class UncompressedSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+
+        private final Measurement measurement;
+
+        UncompressedSinkConduit(StreamSinkConduit next, Measurement measurement) {
+            super(next);
+            this.measurement = measurement;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.write(src));
+            } finally {
+                measurement.compressionNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.write(srcs, offs, len));
+            } finally {
+                measurement.compressionNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public int writeFinal(ByteBuffer src) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.writeFinal(src));
+            } finally {
+                measurement.compressionNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public long writeFinal(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.writeFinal(srcs, offs, len));
+            } finally {
+                measurement.compressionNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public long transferFrom(FileChannel src, long position, long count) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.transferFrom(src, position, count));
+            } finally {
+                measurement.compressionNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.transferFrom(source, count, throughBuffer));
+            } finally {
+                measurement.compressionNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public void terminateWrites() throws IOException {
+            long start = cpuTime();
+            try {
+                next.terminateWrites();
+            } finally {
+                measurement.compressionNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public boolean flush() throws IOException {
+            long start = cpuTime();
+            try {
+                return next.flush();
+            } finally {
+                measurement.compressionNanos += cpuTime() - start;
+            }
+        }
+
+        private int count(int bytes) {
+            measurement.bytesIn += Math.max(0, bytes);
+            return bytes;
+        }
+
+        private long count(long bytes) {
+            measurement.bytesIn += Math.max(0, bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * Conduit below the compressing one, which counts the compressed bytes and the time spent writing them.
+     */
+    static class CompressedSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+
+        private final Measurement measurement;
+
+        CompressedSinkConduit(StreamSinkConduit next, Measurement measurement) {
+            super(next);
+            this.measurement = measurement;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.write(src));
+            } finally {
+                measurement.writeNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.write(srcs, offs, len));
+            } finally {
+                measurement.writeNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public int writeFinal(ByteBuffer src) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.writeFinal(src));
+            } finally {
+                measurement.writeNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public long writeFinal(ByteBuffer[] srcs, int offs, int len) throws IOException {
+            long start = cpuTime();
+            try {
+                return count(next.writeFinal(srcs, offs, len));
+            } finally {
+                measurement.writeNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public boolean flush() throws IOException {
+            long start = cpuTime();
+            try {
+                return next.flush();
+            } finally {
+                measurement.writeNanos += cpuTime() - start;
+            }
+        }
+
+        private int count(int bytes) {
+            measurement.bytesOut += Math.max(0, bytes);
+            return bytes;
+        }
+
+        private long count(long bytes) {
+            measurement.bytesOut += Math.max(0, bytes);
+            return bytes;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.okta.developer.config;
 
 import com.okta.developer.security.*;
+import com.okta.developer.web.limit.RequestLimitFilter;
 
 import io.github.jhipster.security.*;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -12,10 +14,12 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
 import org.springframework.boot.autoconfigure.security.oauth2.client.EnableOAuth2Sso;
+import org.springframework.security.web.context.SecurityContextPersistenceFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfFilter;
 import org.springframework.web.filter.CorsFilter;
@@ -27,18 +31,62 @@ import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 @EnableGlobalMethodSecurity(prePostEnabled = true, securedEnabled = true)
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
+    /**
+     * Static resources, which don't go through the security filters.
+     */
+    static final String[] IGNORED_PATHS = {
+        "/app/**/*.{js,html}", "/i18n/**", "/content/**", "/swagger-ui/index.html", "/test/**", "/h2-console/**"
+    };
+
+    /**
+     * Public endpoints, which only go through a minimal chain when a {@link FastPathRouter} is available.
+     */
+    static final String[] PUBLIC_PATHS = {"/api/profile-info", "/management/health"};
+
     private final CorsFilter corsFilter;
 
     private final SecurityProblemSupport problemSupport;
 
-    public SecurityConfiguration(CorsFilter corsFilter, SecurityProblemSupport problemSupport) {
+    private final PrincipalCache principalCache;
+
+    private CookieSecurityContextRepository cookieSecurityContextRepository;
+
+    private HmacCsrfTokenRepository hmacCsrfTokenRepository;
+
+    private FastPathRouter fastPathRouter;
+
+    private RequestLimitFilter requestLimitFilter;
+
+    public SecurityConfiguration(CorsFilter corsFilter, SecurityProblemSupport problemSupport,
+                                 PrincipalCache principalCache) {
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
+        this.principalCache = principalCache;
+    }
+
+    @Autowired(required = false)
+    public void setCookieSecurityContextRepository(CookieSecurityContextRepository cookieSecurityContextRepository) {
+        this.cookieSecurityContextRepository = cookieSecurityContextRepository;
+    }
+
+    @Autowired(required = false)
+    public void setHmacCsrfTokenRepository(HmacCsrfTokenRepository hmacCsrfTokenRepository) {
+        this.hmacCsrfTokenRepository = hmacCsrfTokenRepository;
+    }
+
+    @Autowired(required = false)
+    public void setFastPathRouter(FastPathRouter fastPathRouter) {
+        this.fastPathRouter = fastPathRouter;
+    }
+
+    @Autowired(required = false)
+    public void setRequestLimitFilter(RequestLimitFilter requestLimitFilter) {
+        this.requestLimitFilter = requestLimitFilter;
     }
 
     @Bean
     public AjaxLogoutSuccessHandler ajaxLogoutSuccessHandler() {
-        return new AjaxLogoutSuccessHandler();
+        return new PrincipalCacheLogoutSuccessHandler(principalCache);
     }
 
     @Bean
@@ -48,21 +96,22 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     @Override
     public void configure(WebSecurity web) throws Exception {
+        if (fastPathRouter != null) {
+            web.ignoring()
+                .requestMatchers(fastPathRouter.matcher(FastPathRouter.Route.IGNORED));
+            return;
+        }
         web.ignoring()
             .antMatchers(HttpMethod.OPTIONS, "/**")
-            .antMatchers("/app/**/*.{js,html}")
-            .antMatchers("/i18n/**")
-            .antMatchers("/content/**")
-            .antMatchers("/swagger-ui/index.html")
-            .antMatchers("/test/**")
-            .antMatchers("/h2-console/**");
+            .antMatchers(IGNORED_PATHS);
     }
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http
             .csrf()
-            .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+            .csrfTokenRepository(hmacCsrfTokenRepository != null ? hmacCsrfTokenRepository :
+                CookieCsrfTokenRepository.withHttpOnlyFalse())
         .and()
             .addFilterBefore(corsFilter, CsrfFilter.class)
             .exceptionHandling()
@@ -87,6 +136,17 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .antMatchers("/swagger-resources/configuration/ui").permitAll()
             .antMatchers("/swagger-ui/index.html").hasAuthority(AuthoritiesConstants.ADMIN);
 
+        if (cookieSecurityContextRepository != null) {
+            http
+                .securityContext()
+                .securityContextRepository(cookieSecurityContextRepository)
+            .and()
+                .sessionManagement()
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+        }
+        if (requestLimitFilter != null) {
+            http.addFilterAfter(requestLimitFilter, SecurityContextPersistenceFilter.class);
+        }
     }
 
     @Bean
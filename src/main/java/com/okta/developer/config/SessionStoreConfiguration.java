@@ -0,0 +1,88 @@
+package com.okta.developer.config;
+
+import com.okta.developer.web.session.JdbcSessionRepository;
+import com.okta.developer.web.session.OffHeapSessionRepository;
+import com.okta.developer.web.session.SessionRepository;
+import com.okta.developer.web.session.SessionRepositoryFilter;
+
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.servlet.DispatcherType;
+
+/**
+ * Keeps the HTTP sessions in a {@link SessionRepository} instead of the memory of the servlet container: in the
+ * application database with the "jdbc" type, or outside of the Java heap with the "off-heap" type.
+ * <p>
+ * The SessionRepositoryFilter comes first, so that all the other filters, and the session scoped beans, use these
+ * sessions.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.session-store", name = "enabled", havingValue = "true")
+public class SessionStoreConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(SessionStoreConfiguration.class);
+
+    private final ApplicationProperties.SessionStore properties;
+
+    private final ObjectProvider<SessionRepository> sessionRepository;
+
+    public SessionStoreConfiguration(ApplicationProperties applicationProperties,
+                                     ObjectProvider<SessionRepository> sessionRepository) {
+        this.properties = applicationProperties.getSessionStore();
+        this.sessionRepository = sessionRepository;
+    }
+
+    @Bean
+    public SessionRepository sessionRepository(ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                               ObjectProvider<PlatformTransactionManager> transactionManager,
+                                               ObjectProvider<MetricRegistry> metricRegistry) {
+        switch (properties.getType()) {
+            case "jdbc":
+                return new JdbcSessionRepository(jdbcTemplate.getObject(), transactionManager.getObject());
+            case "off-heap":
+                OffHeapSessionRepository repository = new OffHeapSessionRepository();
+                MetricRegistry registry = metricRegistry.getIfAvailable();
+                if (registry != null) {
+                    repository.setMetricRegistry(registry);
+                }
+                return repository;
+            default:
+                throw new IllegalArgumentException("Unknown application.session-store.type: " + properties.getType() +
+                    ", expected jdbc or off-heap");
+        }
+    }
+
+    @Bean
+    public FilterRegistrationBean sessionRepositoryFilter(SessionRepository sessionRepository,
+                                                          ObjectProvider<MetricRegistry> metricRegistry) {
+        SessionRepositoryFilter filter = new SessionRepositoryFilter(sessionRepository, properties.getCookieName(),
+            properties.getMaxInactiveIntervalSeconds(), properties.getTouchIntervalSeconds());
+        MetricRegistry registry = metricRegistry.getIfAvailable();
+        if (registry != null) {
+            filter.setMetricRegistry(registry);
+        }
+        FilterRegistrationBean bean = new FilterRegistrationBean(filter);
+        bean.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC, DispatcherType.ERROR);
+        bean.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return bean;
+    }
+
+    @Scheduled(fixedDelayString = "${application.session-store.cleanup-interval-ms:60000}")
+    public void deleteExpiredSessions() {
+        int count = sessionRepository.getObject().deleteExpired(System.currentTimeMillis());
+        if (count > 0) {
+            log.debug("Deleted {} expired sessions", count);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.okta.developer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each bean takes to be created and initialized, enabled with
+ * "application.startup-timeline.enabled=true".
+ * <p>
+ * For each bean, the total time includes the creation of the beans it depends on, while the self time does not.
+ * The slowest beans are logged once the application is ready, and the full timeline is available at
+ * "/management/startup-timeline".
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.startup-timeline", name = "enabled", havingValue = "true")
+public class StartupTimeline extends InstantiationAwareBeanPostProcessorAdapter
+    implements PriorityOrdered, ApplicationListener<ApplicationReadyEvent> {
+
+    private final Logger log = LoggerFactory.getLogger(StartupTimeline.class);
+
+    private final long jvmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private final long jvmStartNanos = System.nanoTime()
+        - TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - jvmStartTime);
+
+    private final ThreadLocal<Deque<Frame>> creations = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final ConcurrentLinkedQueue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+        creations.get().push(new Frame(beanName, beanClass.getName(), System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Deque<Frame> stack = creations.get();
+        if (stack.stream().noneMatch(frame -> frame.beanName.equals(beanName))) {
+            // Objects exposed by a FactoryBean are post-processed without being instantiated
+            return bean;
+        }
+        Frame frame;
+        do {
+            // Frames above this bean's one belong to beans whose creation failed
+            frame = stack.pop();
+        } while (!frame.beanName.equals(beanName));
+        long end = System.nanoTime();
+        long total = end - frame.start;
+        Frame parent = stack.peek();
+        if (parent != null) {
+            parent.children += total;
+        }
+        entries.add(new Entry(beanName, frame.beanType, Thread.currentThread().getName(),
+            toMillis(frame.start - jvmStartNanos), toMillis(total), toMillis(total - frame.children)));
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        int logTop = event.getApplicationContext().getBean(ApplicationProperties.class).getStartupTimeline().getLogTop();
+        List<Entry> slowest = getEntries();
+        slowest.sort(Comparator.comparingDouble(Entry::getSelfMs).reversed());
+        StringBuilder report = new StringBuilder();
+        slowest.stream().limit(logTop).forEach(entry ->
+            report.append(String.format("%n\t%8.1f ms self %8.1f ms total  %s (%s)",
+                entry.getSelfMs(), entry.getTotalMs(), entry.getBeanName(), entry.getBeanType())));
+        log.info("Initialized {} beans, {} slowest:{}", slowest.size(), Math.min(logTop, slowest.size()), report);
+    }
+
+    /**
+     * @return the bean initialization timings, in creation order
+     */
+    public List<Entry> getEntries() {
+        List<Entry> result = new ArrayList<>(entries);
+        result.sort(Comparator.comparingDouble(Entry::getStartMs));
+        return result;
+    }
+
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000 / 1000d;
+    }
+
+    private static class Frame {
+
+        private final String beanName;
+
+        private final String beanType;
+
+        private final long start;
+
+        private long children;
+
+        Frame(String beanName, String beanType, long start) {
+            this.beanName = beanName;
+            this.beanType = beanType;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Initialization timing of a single bean.
+     */
+    public static class Entry {
+
+        private final String beanName;
+
+        private final String beanType;
+
+        private final String thread;
+
+        private final double startMs;
+
+        private final double totalMs;
+
+        private final double selfMs;
+
+        Entry(String beanName, String beanType, String thread, double startMs, double totalMs, double selfMs) {
+            this.beanName = beanName;
+            this.beanType = beanType;
+            this.thread = thread;
+            this.startMs = startMs;
+            this.totalMs = totalMs;
+            this.selfMs = selfMs;
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        public String getBeanType() {
+            return beanType;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * @return the time at which the bean creation started, in milliseconds since the JVM started
+         */
+        public double getStartMs() {
+            return startMs;
+        }
+
+        public double getTotalMs() {
+            return totalMs;
+        }
+
+        public double getSelfMs() {
+            return selfMs;
+        }
+    }
+}
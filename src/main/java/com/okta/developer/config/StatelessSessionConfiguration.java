@@ -0,0 +1,93 @@
+package com.okta.developer.config;
+
+import com.okta.developer.security.CookieCipher;
+import com.okta.developer.security.CookieOAuth2ClientContext;
+import com.okta.developer.security.CookieSecurityContextRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.client.DefaultOAuth2ClientContext;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Stateless mode, where no HTTP session is created, so that any node can serve any request without session
+ * replication or sticky sessions.
+ * <p>
+ * The authentication is kept in an encrypted cookie by the {@link CookieSecurityContextRepository}, which the
+ * SecurityConfiguration uses instead of the HTTP session. The state of the authorization code flow is kept in another
+ * cookie by the {@link CookieOAuth2ClientContext}, and the OAuth2 client context, which Spring Boot scopes to the
+ * session, is scoped to the request.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.stateless", name = "enabled", havingValue = "true")
+public class StatelessSessionConfiguration {
+
+    private static final String CLIENT_CONTEXT_BEAN_NAME = "scopedTarget.oauth2ClientContext";
+
+    @Bean
+    public CookieCipher cookieCipher(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Stateless properties = applicationProperties.getStateless();
+        return new CookieCipher(properties.getKeys(), properties.getMaxCookieSize());
+    }
+
+    @Bean
+    public CookieSecurityContextRepository cookieSecurityContextRepository(CookieCipher cookieCipher,
+                                                                           ApplicationProperties applicationProperties) {
+        return new CookieSecurityContextRepository(cookieCipher, applicationProperties);
+    }
+
+    @Bean
+    public static BeanFactoryPostProcessor requestScopedClientContextPostProcessor() {
+        return beanFactory -> {
+            if (beanFactory.containsBeanDefinition(CLIENT_CONTEXT_BEAN_NAME)) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(CLIENT_CONTEXT_BEAN_NAME);
+                definition.setScope(WebApplicationContext.SCOPE_REQUEST);
+            }
+        };
+    }
+
+    @Bean
+    public static CookieClientContextPostProcessor cookieClientContextPostProcessor(
+        ObjectProvider<CookieCipher> cookieCipher, ObjectProvider<ApplicationProperties> applicationProperties) {
+
+        return new CookieClientContextPostProcessor(cookieCipher, applicationProperties);
+    }
+
+    public static class CookieClientContextPostProcessor implements BeanPostProcessor {
+
+        private final Logger log = LoggerFactory.getLogger(CookieClientContextPostProcessor.class);
+
+        private final ObjectProvider<CookieCipher> cookieCipher;
+
+        private final ObjectProvider<ApplicationProperties> applicationProperties;
+
+        CookieClientContextPostProcessor(ObjectProvider<CookieCipher> cookieCipher,
+                                         ObjectProvider<ApplicationProperties> applicationProperties) {
+            this.cookieCipher = cookieCipher;
+            this.applicationProperties = applicationProperties;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (bean instanceof DefaultOAuth2ClientContext) {
+                log.debug("Keeping the state of the {} OAuth2 client context in a cookie", beanName);
+                return new CookieOAuth2ClientContext((DefaultOAuth2ClientContext) bean, cookieCipher.getObject(),
+                    applicationProperties.getObject().getStateless().getCookieName() + "_OAUTH2");
+            }
+            return bean;
+        }
+    }
+}
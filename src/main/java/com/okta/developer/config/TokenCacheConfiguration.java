@@ -0,0 +1,71 @@
+package com.okta.developer.config;
+
+import com.okta.developer.security.CachingTokenServices;
+import com.okta.developer.security.JwtTokenServices;
+
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+/**
+ * Caches the user info and token info responses of the identity provider, by wrapping the token services which Spring
+ * Boot configures from "security.oauth2.resource" into {@link CachingTokenServices}.
+ * <p>
+ * The JwtTokenServices, which validate the tokens locally, are not wrapped. The cache is opt-in, with
+ * "application.token-cache.enabled": a revoked token stays valid until its entry expires.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.token-cache", name = "enabled", havingValue = "true")
+public class TokenCacheConfiguration {
+
+    @Bean
+    public static CachingTokenServicesPostProcessor cachingTokenServicesPostProcessor(
+        ObjectProvider<ApplicationProperties> applicationProperties, ObjectProvider<MetricRegistry> metricRegistry) {
+
+        return new CachingTokenServicesPostProcessor(applicationProperties, metricRegistry);
+    }
+
+    public static class CachingTokenServicesPostProcessor implements BeanPostProcessor {
+
+        private final Logger log = LoggerFactory.getLogger(CachingTokenServicesPostProcessor.class);
+
+        private final ObjectProvider<ApplicationProperties> applicationProperties;
+
+        private final ObjectProvider<MetricRegistry> metricRegistry;
+
+        CachingTokenServicesPostProcessor(ObjectProvider<ApplicationProperties> applicationProperties,
+                                          ObjectProvider<MetricRegistry> metricRegistry) {
+            this.applicationProperties = applicationProperties;
+            this.metricRegistry = metricRegistry;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (bean instanceof ResourceServerTokenServices && !(bean instanceof JwtTokenServices) &&
+                !(bean instanceof CachingTokenServices)) {
+
+                log.debug("Caching the responses of the {} token services", beanName);
+                CachingTokenServices tokenServices = new CachingTokenServices((ResourceServerTokenServices) bean,
+                    applicationProperties.getObject());
+                MetricRegistry registry = metricRegistry.getIfAvailable();
+                if (registry != null) {
+                    tokenServices.setMetricRegistry(registry);
+                }
+                return tokenServices;
+            }
+            return bean;
+        }
+    }
+}
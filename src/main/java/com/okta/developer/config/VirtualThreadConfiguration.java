@@ -0,0 +1,19 @@
+package com.okta.developer.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Virtual thread mode, where the AsyncConfiguration and the WebConfigurer run the @Async tasks and the request
+ * handling in new {@link VirtualThreads} instead of thread pools, when the JVM supports them.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public VirtualThreads virtualThreads(ApplicationProperties applicationProperties) {
+        return new VirtualThreads(applicationProperties);
+    }
+}
@@ -0,0 +1,79 @@
+package com.okta.developer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Factory of the executors running each task in a new virtual thread, used for the request handling and the @Async
+ * tasks in the virtual thread mode.
+ * <p>
+ * Virtual threads need Java 21 or later, while the application is built for Java 8, so they are created through
+ * reflection; on older JVMs {@link #isAvailable()} is false and the usual thread pools are kept.
+ * <p>
+ * A virtual thread blocking while it holds a monitor pins its carrier thread. When "application.virtual-threads.
+ * trace-pinned" is set, the JVM prints the stack trace of the pinned threads ("jdk.tracePinnedThreads"), and the
+ * {@link PinningAudit} logs the synchronized methods and blocks of the application at startup.
+ */
+public class VirtualThreads {
+
+    private final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private final Object builder;
+
+    private final Method name;
+
+    private final Method factory;
+
+    public VirtualThreads(ApplicationProperties applicationProperties) {
+        ApplicationProperties.VirtualThreads properties = applicationProperties.getVirtualThreads();
+        Object ofVirtual = null;
+        Method nameMethod = null;
+        Method factoryMethod = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            nameMethod = builderClass.getMethod("name", String.class, long.class);
+            factoryMethod = builderClass.getMethod("factory");
+            // Read when the first virtual thread is created
+            if (!"none".equals(properties.getTracePinned()) && System.getProperty("jdk.tracePinnedThreads") == null) {
+                System.setProperty("jdk.tracePinnedThreads", properties.getTracePinned());
+            }
+            ofVirtual = Thread.class.getMethod("ofVirtual").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on Java {}, keeping the platform thread pools",
+                System.getProperty("java.version"));
+        }
+        this.builder = ofVirtual;
+        this.name = nameMethod;
+        this.factory = factoryMethod;
+        if (ofVirtual != null && !"none".equals(properties.getTracePinned())) {
+            new PinningAudit("com.okta.developer").log();
+        }
+    }
+
+    public boolean isAvailable() {
+        return builder != null;
+    }
+
+    /**
+     * @param threadNamePrefix the prefix of the names of the threads, followed by a counter
+     * @return an executor running each task in a new virtual thread
+     */
+    public AsyncListenableTaskExecutor newExecutor(String threadNamePrefix) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Virtual threads are not available");
+        }
+        try {
+            ThreadFactory threadFactory = (ThreadFactory) factory.invoke(name.invoke(builder, threadNamePrefix, 0L));
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadFactory);
+            executor.setThreadNamePrefix(threadNamePrefix);
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread factory", e);
+        }
+    }
+}
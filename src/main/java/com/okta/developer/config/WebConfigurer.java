@@ -13,7 +13,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.embedded.*;
 import org.springframework.boot.context.embedded.undertow.UndertowEmbeddedServletContainerFactory;
+import io.undertow.Undertow;
 import io.undertow.UndertowOptions;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.ServletInfo;
+import io.undertow.servlet.handlers.DefaultServlet;
+import io.undertow.servlet.handlers.ServletRequestContext;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,6 +33,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import javax.servlet.*;
@@ -33,18 +45,34 @@ import javax.servlet.*;
 @Configuration
 public class WebConfigurer implements ServletContextInitializer, EmbeddedServletContainerCustomizer {
 
+    /**
+     * Content encodings of the pre-compressed static assets, and the extension of their files.
+     */
+    private static final Map<String, String> PRE_COMPRESSED_ENCODINGS = new LinkedHashMap<>();
+
+    static {
+        PRE_COMPRESSED_ENCODINGS.put("br", ".br");
+        PRE_COMPRESSED_ENCODINGS.put("gzip", ".gz");
+    }
+
     private final Logger log = LoggerFactory.getLogger(WebConfigurer.class);
 
     private final Environment env;
 
     private final JHipsterProperties jHipsterProperties;
 
+    private final ApplicationProperties applicationProperties;
+
     private MetricRegistry metricRegistry;
 
-    public WebConfigurer(Environment env, JHipsterProperties jHipsterProperties) {
+    private VirtualThreads virtualThreads;
+
+    public WebConfigurer(Environment env, JHipsterProperties jHipsterProperties,
+                         ApplicationProperties applicationProperties) {
 
         this.env = env;
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -87,11 +115,126 @@ public class WebConfigurer implements ServletContextInitializer, EmbeddedServlet
             container instanceof UndertowEmbeddedServletContainerFactory) {
 
             ((UndertowEmbeddedServletContainerFactory) container)
-                .addBuilderCustomizers(builder ->
-                    builder.setServerOption(UndertowOptions.ENABLE_HTTP2, true));
+                .addBuilderCustomizers(this::configureHttp2);
+        }
+
+        if (container instanceof UndertowEmbeddedServletContainerFactory) {
+            ((UndertowEmbeddedServletContainerFactory) container)
+                .addDeploymentInfoCustomizers(this::configureStaticAssets, this::configureCompression);
+            if (virtualThreads != null && virtualThreads.isAvailable()) {
+                ((UndertowEmbeddedServletContainerFactory) container)
+                    .addDeploymentInfoCustomizers(this::configureVirtualThreads);
+            }
+        }
+    }
+
+    /**
+     * Dispatch the blocking request handling, and the async servlet tasks, to new virtual threads instead of the
+     * XNIO worker pool; the IO threads are unchanged.
+     */
+    private void configureVirtualThreads(DeploymentInfo deployment) {
+        log.info("Handling the requests in virtual threads");
+        deployment.setExecutor(virtualThreads.newExecutor("undertow-virtual-"));
+        deployment.setAsyncExecutor(virtualThreads.newExecutor("undertow-async-virtual-"));
+    }
+
+    /**
+     * Enable HTTP/2, with the settings from "application.undertow.http2".
+     */
+    private void configureHttp2(Undertow.Builder builder) {
+        ApplicationProperties.Undertow.Http2 http2 = applicationProperties.getUndertow().getHttp2();
+        builder.setServerOption(UndertowOptions.ENABLE_HTTP2, true);
+        if (http2.getMaxConcurrentStreams() != null) {
+            builder.setServerOption(UndertowOptions.HTTP2_SETTINGS_MAX_CONCURRENT_STREAMS,
+                http2.getMaxConcurrentStreams());
+        }
+        if (http2.getHeaderTableSize() != null) {
+            builder.setServerOption(UndertowOptions.HTTP2_SETTINGS_HEADER_TABLE_SIZE, http2.getHeaderTableSize());
+        }
+        if (http2.getInitialWindowSize() != null) {
+            builder.setServerOption(UndertowOptions.HTTP2_SETTINGS_INITIAL_WINDOW_SIZE, http2.getInitialWindowSize());
+        }
+        if (http2.getMaxFrameSize() != null) {
+            builder.setServerOption(UndertowOptions.HTTP2_SETTINGS_MAX_FRAME_SIZE, http2.getMaxFrameSize());
+        }
+    }
+
+    /**
+     * Compress the dynamic responses when "application.undertow.compression.enabled" is true, see the
+     * ResponseCompressionHandler class.
+     */
+    private void configureCompression(DeploymentInfo deployment) {
+        ApplicationProperties.Undertow.Compression compression = applicationProperties.getUndertow().getCompression();
+        if (compression.isEnabled()) {
+            log.debug("Compressing responses with {}", compression.getEncodings());
+            deployment.addInitialHandlerChainWrapper(next ->
+                new ResponseCompressionHandler(next, compression, metricRegistry));
+            // Message converters flush the response, which would send it in chunks without a Content-Length
+            deployment.setIgnoreFlush(compression.isIgnoreFlush());
         }
     }
 
+    /**
+     * Serve the static web assets with the Undertow default servlet instead of Spring MVC, with strong ETags and,
+     * when the build produced them, pre-compressed variants.
+     * <p>
+     * If "application.static-assets.directory" is set, the assets are first looked up in that directory, from
+     * which they are sent with zero-copy file transfers.
+     */
+    private void configureStaticAssets(DeploymentInfo deployment) {
+        ApplicationProperties.StaticAssets staticAssets = applicationProperties.getStaticAssets();
+        ServletInfo defaultServlet = deployment.getServlets().get("default");
+        if (defaultServlet != null) {
+            defaultServlet.addMappings(staticAssets.getPaths())
+                .addInitParam(DefaultServlet.RESOLVE_AGAINST_CONTEXT_ROOT, "true");
+        }
+        ResourceManager applicationResources = deployment.getResourceManager();
+        ContentHashResourceManager assets = new ContentHashResourceManager(applicationResources);
+        if (staticAssets.getDirectory() != null) {
+            Path directory = Paths.get(staticAssets.getDirectory());
+            if (Files.isDirectory(directory)) {
+                log.debug("Serving static assets from {}", directory);
+                assets = new ContentHashResourceManager(
+                    new PathResourceManager(directory, staticAssets.getTransferMinSize()), applicationResources);
+            } else {
+                log.warn("Static assets directory {} not found, serving them from the application", directory);
+            }
+        }
+        deployment.setResourceManager(assets);
+
+        if (staticAssets.isPreCompressed()) {
+            PRE_COMPRESSED_ENCODINGS.forEach(deployment::addPreCompressedResourceEncoding);
+            ContentHashResourceManager preCompressedAssets = assets;
+            deployment.addInnerHandlerChainWrapper(next -> preCompressedVariants(next, preCompressedAssets));
+        }
+    }
+
+    /**
+     * For static assets which have pre-compressed variants, add "Vary: Accept-Encoding" so that caches don't serve a
+     * compressed response to a client which does not support it, and set the content type of the asset, as the
+     * default servlet would otherwise use the one of the compressed file.
+     */
+    private HttpHandler preCompressedVariants(HttpHandler next, ContentHashResourceManager assets) {
+        return exchange -> {
+            if (Methods.GET.equals(exchange.getRequestMethod()) || Methods.HEAD.equals(exchange.getRequestMethod())) {
+                String path = exchange.getRelativePath();
+                if (path.endsWith("/")) {
+                    path += "index.html";
+                }
+                if (path.lastIndexOf('.') > path.lastIndexOf('/')
+                    && assets.hasVariant(path, PRE_COMPRESSED_ENCODINGS.values())) {
+                    exchange.getResponseHeaders().put(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+                    ServletRequestContext context = exchange.getAttachment(ServletRequestContext.ATTACHMENT_KEY);
+                    String mimeType = context == null ? null : context.getCurrentServletContext().getMimeType(path);
+                    if (mimeType != null) {
+                        context.getServletResponse().setContentType(mimeType);
+                    }
+                }
+            }
+            next.handleRequest(exchange);
+        };
+    }
+
     private void setLocationForStaticAssets(ConfigurableEmbeddedServletContainer container) {
         File root;
         String prefixPath = resolvePathPrefix();
@@ -183,4 +326,9 @@ public class WebConfigurer implements ServletContextInitializer, EmbeddedServlet
     public void setMetricRegistry(MetricRegistry metricRegistry) {
         this.metricRegistry = metricRegistry;
     }
+
+    @Autowired(required = false)
+    public void setVirtualThreads(VirtualThreads virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
 }
@@ -0,0 +1,88 @@
+package com.okta.developer.repository;
+
+import com.okta.developer.config.ApplicationProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.Table;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Estimates the number of rows of the tables from the statistics of PostgreSQL, in pg_class.reltuples, which are
+ * updated by VACUUM, ANALYZE and the autovacuum, to avoid an exact count of all the rows of the large tables for the
+ * total count of their pages.
+ * <p>
+ * There is no estimate when it is disabled, on the other databases, and for the tables which have not been analyzed
+ * yet or are estimated below the configured number of rows, whose rows are then counted exactly.
+ */
+@Repository
+public class RowCountEstimator {
+
+    private static final String ESTIMATE_QUERY = "SELECT reltuples FROM pg_class WHERE oid = to_regclass(?)";
+
+    private final Logger log = LoggerFactory.getLogger(RowCountEstimator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationProperties.ApproximateCount approximateCount;
+
+    private volatile Boolean postgresql;
+
+    public RowCountEstimator(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.approximateCount = applicationProperties.getApproximateCount();
+    }
+
+    /**
+     * @param entityClass the entity mapped to the table
+     * @return the estimated number of rows of the table, or empty when they should be counted exactly
+     */
+    public OptionalLong estimate(Class<?> entityClass) {
+        if (!approximateCount.isEnabled() || !isPostgresql()) {
+            return OptionalLong.empty();
+        }
+        String table = entityClass.getAnnotation(Table.class).name();
+        List<Double> estimates = jdbcTemplate.queryForList(ESTIMATE_QUERY, Double.class, table);
+        if (estimates.isEmpty() || estimates.get(0) == null || estimates.get(0) < approximateCount.getMinRows()) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(estimates.get(0).longValue());
+    }
+
+    /**
+     * @param slice a slice of the rows, read without counting them
+     * @param pageable the pagination information of the slice
+     * @param estimate the estimated number of rows
+     * @param <T> the type of the rows
+     * @return the page of the slice, with a total at least consistent with the slice, so that the next pages stay
+     * reachable when the rows are underestimated
+     */
+    public static <T> Page<T> toPage(Slice<T> slice, Pageable pageable, long estimate) {
+        long read = (long) pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        return new PageImpl<>(slice.getContent(), pageable, Math.max(estimate, read));
+    }
+
+    private boolean isPostgresql() {
+        Boolean result = postgresql;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(product);
+            if (!result) {
+                log.info("Approximate counts are only supported on PostgreSQL, rows are counted exactly on {}",
+                    product);
+            }
+            postgresql = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+package com.okta.developer.security;
+
+import com.okta.developer.domain.Authority;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the canonical Authority and GrantedAuthority instances of each role name.
+ * <p>
+ * Each registered role also gets a small index, which {@link RoleSet} uses as its bit position. Role names come from
+ * the database and from the claims of the identity provider, so the registry is bounded: past
+ * {@link #MAX_ROLES} roles, new names get fresh, unindexed instances.
+ * <p>
+ * The shared Authority instances must not be modified.
+ */
+public final class AuthorityRegistry {
+
+    public static final int MAX_ROLES = 1024;
+
+    private static final ConcurrentMap<String, Role> ROLES = new ConcurrentHashMap<>();
+
+    static {
+        register(AuthoritiesConstants.ADMIN);
+        register(AuthoritiesConstants.USER);
+        register(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    private AuthorityRegistry() {
+    }
+
+    /**
+     * @param name the name of a role
+     * @return the canonical Authority of the role
+     */
+    public static Authority authority(String name) {
+        Role role = register(name);
+        return role != null ? role.authority : newAuthority(name);
+    }
+
+    /**
+     * @param name the name of a role
+     * @return the canonical GrantedAuthority of the role
+     */
+    public static GrantedAuthority grantedAuthority(String name) {
+        Role role = register(name);
+        return role != null ? role.grantedAuthority : new SimpleGrantedAuthority(name);
+    }
+
+    /**
+     * @param name the name of a role
+     * @return the index of the role, or -1 if the role is not registered; this doesn't register the role
+     */
+    public static int indexOf(String name) {
+        Role role = ROLES.get(name);
+        return role != null ? role.index : -1;
+    }
+
+    /**
+     * @param name the name of a role
+     * @return the index of the role, registering it if possible, or -1 if the registry is full
+     */
+    static int registerIndex(String name) {
+        Role role = register(name);
+        return role != null ? role.index : -1;
+    }
+
+    private static Role register(String name) {
+        Role role = ROLES.get(name);
+        if (role == null) {
+            synchronized (ROLES) {
+                role = ROLES.get(name);
+                if (role == null && ROLES.size() < MAX_ROLES) {
+                    role = new Role(ROLES.size(), name);
+                    ROLES.put(name, role);
+                }
+            }
+        }
+        return role;
+    }
+
+    private static Authority newAuthority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+
+    private static final class Role {
+
+        private final int index;
+
+        private final Authority authority;
+
+        private final GrantedAuthority grantedAuthority;
+
+        Role(int index, String name) {
+            this.index = index;
+            this.authority = newAuthority(name);
+            this.grantedAuthority = new SimpleGrantedAuthority(name);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.okta.developer.security;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory cache of at most "maxEntries" entries, which expire after a time to live, used by the security caches of
+ * the request path.
+ * <p>
+ * Lookups don't lock: the entries are kept in a ConcurrentHashMap, and a lookup only stamps the entry it reads. When a
+ * put goes beyond "maxEntries", a single thread removes the expired entries and then the least recently used ones,
+ * along with a sixteenth of "maxEntries", so that the next puts don't need to do it again.
+ * <p>
+ * When a metric registry is given, hits and misses are metered under the given prefix, with a "hit-rate" gauge over
+ * the last 15 minutes and a "size" gauge.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxEntries;
+
+    private final long timeToLiveNanos;
+
+    private final ConcurrentHashMap<K, Node<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Orders the entries by their last use. Only the puts increment it, by 2, and the lookups stamp their entry with
+     * the stamp of the last put plus 1, so that the lookups don't contend on it.
+     */
+    private final AtomicLong stamps = new AtomicLong();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private Meter hits = new Meter();
+
+    private Meter misses = new Meter();
+
+    public BoundedCache(int maxEntries, long timeToLive, TimeUnit unit) {
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+    }
+
+    public void setMetricRegistry(MetricRegistry metricRegistry, String prefix) {
+        hits = metricRegistry.meter(MetricRegistry.name(prefix, "hits"));
+        misses = metricRegistry.meter(MetricRegistry.name(prefix, "misses"));
+        metricRegistry.register(MetricRegistry.name(prefix, "hit-rate"), new RatioGauge() {
+
+            @Override
+            protected Ratio getRatio() {
+                double hitRate = hits.getFifteenMinuteRate();
+                return Ratio.of(hitRate, hitRate + misses.getFifteenMinuteRate());
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "size"), (Gauge<Integer>) this::size);
+    }
+
+    /**
+     * @param key the key of the entry
+     * @return the value of the entry, or null if it is missing or expired
+     */
+    public V get(K key) {
+        V value = peek(key);
+        if (value != null) {
+            hits.mark();
+        } else {
+            misses.mark();
+        }
+        return value;
+    }
+
+    /**
+     * Look up an entry without metering the lookup, such as when a miss is checked again.
+     *
+     * @param key the key of the entry
+     * @return the value of the entry, or null if it is missing or expired
+     */
+    public V peek(K key) {
+        Node<V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (System.nanoTime() - node.expiresAtNanos >= 0) {
+            entries.remove(key, node);
+            return null;
+        }
+        node.stamp = stamps.get() + 1;
+        return node.value;
+    }
+
+    /**
+     * Cache an entry for the time to live of the cache.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     */
+    public void put(K key, V value) {
+        put(key, value, timeToLiveNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cache an entry for a time to live of its own.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @param timeToLive the time to live of the entry
+     * @param unit the unit of the time to live
+     */
+    public void put(K key, V value, long timeToLive, TimeUnit unit) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        entries.put(key, new Node<>(value, System.nanoTime() + unit.toNanos(timeToLive), stamps.addAndGet(2)));
+        if (entries.size() > maxEntries && evictionLock.tryLock()) {
+            try {
+                evict();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(entry -> now - entry.getValue().expiresAtNanos >= 0);
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        // the stamps are copied, as the lookups may change them while they are sorted
+        List<Candidate<K, V>> leastRecentlyUsed = new ArrayList<>(entries.size());
+        entries.forEach((key, node) -> leastRecentlyUsed.add(new Candidate<>(key, node)));
+        leastRecentlyUsed.sort(Comparator.comparingLong(candidate -> candidate.stamp));
+        int count = Math.min(leastRecentlyUsed.size(), excess + maxEntries / 16);
+        for (Candidate<K, V> candidate : leastRecentlyUsed.subList(0, count)) {
+            entries.remove(candidate.key, candidate.node);
+        }
+    }
+
+    private static final class Node<V> {
+
+        private final V value;
+
+        private final long expiresAtNanos;
+
+        private volatile long stamp;
+
+        Node(V value, long expiresAtNanos, long stamp) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+            this.stamp = stamp;
+        }
+    }
+
+    private static final class Candidate<K, V> {
+
+        private final K key;
+
+        private final Node<V> node;
+
+        private final long stamp;
+
+        Candidate(K key, Node<V> node) {
+            this.key = key;
+            this.node = node;
+            this.stamp = node.stamp;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResourceServerTokenServices caching the authentications loaded by remote token services, such as the user info
+ * or token info services, so that the identity provider is called once per token.
+ * <p>
+ * An authentication is cached for "application.token-cache.time-to-live-seconds", and no longer than the "exp" claim
+ * of the token when it is a JWT. Invalid tokens are cached for "negative-time-to-live-seconds". Concurrent lookups of
+ * the same token wait for a single call to the identity provider.
+ * <p>
+ * The authentications are kept in a {@link BoundedCache}. When a metric registry is available, its metrics are
+ * published under "security.token-cache", the lookups which waited for the call of another one are metered as
+ * "security.token-cache.coalesced", and the calls to the identity provider are timed as
+ * "security.token-cache.upstream".
+ */
+public class CachingTokenServices implements ResourceServerTokenServices {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ResourceServerTokenServices delegate;
+
+    private final long timeToLiveNanos;
+
+    private final long negativeTimeToLiveNanos;
+
+    private final BoundedCache<String, Entry> entries;
+
+    private final ConcurrentMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private Meter coalesced = new Meter();
+
+    private Timer upstream = new Timer();
+
+    public CachingTokenServices(ResourceServerTokenServices delegate, ApplicationProperties applicationProperties) {
+        ApplicationProperties.TokenCache properties = applicationProperties.getTokenCache();
+        this.delegate = delegate;
+        this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(properties.getTimeToLiveSeconds());
+        this.negativeTimeToLiveNanos = TimeUnit.SECONDS.toNanos(properties.getNegativeTimeToLiveSeconds());
+        this.entries = new BoundedCache<>(properties.getMaxEntries(), properties.getTimeToLiveSeconds(),
+            TimeUnit.SECONDS);
+    }
+
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        String prefix = "security.token-cache";
+        entries.setMetricRegistry(metricRegistry, prefix);
+        coalesced = metricRegistry.meter(MetricRegistry.name(prefix, "coalesced"));
+        upstream = metricRegistry.timer(MetricRegistry.name(prefix, "upstream"));
+    }
+
+    public ResourceServerTokenServices getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(String accessToken) throws AuthenticationException {
+        Entry entry = entries.get(accessToken);
+        if (entry != null) {
+            return entry.result();
+        }
+        CompletableFuture<Entry> call = new CompletableFuture<>();
+        CompletableFuture<Entry> pending = inFlight.putIfAbsent(accessToken, call);
+        if (pending != null) {
+            coalesced.mark();
+            try {
+                return pending.join().result();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            // Another lookup may have completed since the cache was read
+            entry = entries.peek(accessToken);
+            if (entry == null) {
+                entry = load(accessToken);
+            }
+            call.complete(entry);
+        } catch (RuntimeException e) {
+            // Other errors, such as an unreachable identity provider, are not cached
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(accessToken, call);
+        }
+        return entry.result();
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String accessToken) {
+        return delegate.readAccessToken(accessToken);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry load(String accessToken) {
+        long start = System.nanoTime();
+        Entry entry;
+        long timeToLiveNanos;
+        try (Timer.Context ignored = upstream.time()) {
+            entry = new Entry(delegate.loadAuthentication(accessToken), null);
+            timeToLiveNanos = Math.min(this.timeToLiveNanos, expiresInNanos(accessToken));
+        } catch (InvalidTokenException e) {
+            entry = new Entry(null, e);
+            timeToLiveNanos = negativeTimeToLiveNanos;
+        }
+        // the time to live starts before the call to the identity provider
+        entries.put(accessToken, entry, timeToLiveNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+        return entry;
+    }
+
+    /**
+     * Read the "exp" claim of a JWT access token, without validating it: this only shortens the time to live.
+     */
+    private static long expiresInNanos(String accessToken) {
+        String[] parts = accessToken.split("\\.");
+        if (parts.length == 3) {
+            try {
+                Object expiresAt = MAPPER.readValue(Base64.getUrlDecoder().decode(parts[1]), Map.class).get("exp");
+                if (expiresAt instanceof Number) {
+                    return TimeUnit.SECONDS.toNanos(((Number) expiresAt).longValue()) -
+                        TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+                }
+            } catch (Exception e) {
+                // Not a JWT
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static final class Entry {
+
+        private final OAuth2Authentication authentication;
+
+        private final InvalidTokenException invalid;
+
+        Entry(OAuth2Authentication authentication, InvalidTokenException invalid) {
+            this.authentication = authentication;
+            this.invalid = invalid;
+        }
+
+        /**
+         * @return a copy of the cached authentication, as callers set its details
+         */
+        OAuth2Authentication result() {
+            if (invalid != null) {
+                throw new InvalidTokenException(invalid.getMessage());
+            }
+            OAuth2Authentication copy =
+                new OAuth2Authentication(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+            copy.setDetails(authentication.getDetails());
+            return copy;
+        }
+    }
+}
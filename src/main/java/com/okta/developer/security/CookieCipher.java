@@ -0,0 +1,192 @@
+package com.okta.developer.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encrypts and authenticates cookie values with AES-GCM, so that they can't be read nor modified by the client.
+ * <p>
+ * The first key encrypts, and all the keys decrypt, so that keys can be rotated without logging the users out. Each
+ * value starts with the id of its key, derived from the key itself. The cookie name is authenticated with the value,
+ * so a value can't be moved to another cookie.
+ * <p>
+ * Cookies are written HttpOnly, and Secure on HTTPS requests. Cookies larger than the maximum size are not written,
+ * as browsers would drop them.
+ */
+public class CookieCipher {
+
+    private static final byte VERSION = 1;
+
+    private static final int KEY_ID_LENGTH = 4;
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private final Logger log = LoggerFactory.getLogger(CookieCipher.class);
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Map<Integer, SecretKeySpec> keys = new LinkedHashMap<>();
+
+    private final int currentKeyId;
+
+    private final int maxCookieSize;
+
+    /**
+     * @param base64Keys the Base64 AES keys, the first one being the current key; a random key is generated when
+     *                   there is none, which only suits a single node
+     * @param maxCookieSize the maximum size of a cookie name and value
+     */
+    public CookieCipher(List<String> base64Keys, int maxCookieSize) {
+        this.maxCookieSize = maxCookieSize;
+        if (base64Keys.isEmpty()) {
+            log.warn("No application.stateless.keys, generating a random key: cookies will only be valid on this " +
+                "node until it restarts");
+            byte[] key = new byte[32];
+            random.nextBytes(key);
+            addKey(key);
+        }
+        for (String base64Key : base64Keys) {
+            addKey(Base64.getDecoder().decode(base64Key.trim()));
+        }
+        this.currentKeyId = keys.keySet().iterator().next();
+    }
+
+    /**
+     * @param name the name of the cookie
+     * @param value the value to encrypt
+     * @return the encrypted value, in Base64 URL encoding
+     */
+    public String encrypt(String name, byte[] value) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keys.get(currentKeyId), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(name.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(value);
+            ByteBuffer buffer = ByteBuffer.allocate(1 + KEY_ID_LENGTH + IV_LENGTH + encrypted.length);
+            buffer.put(VERSION).putInt(currentKeyId).put(iv).put(encrypted);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt the cookie " + name, e);
+        }
+    }
+
+    /**
+     * @param name the name of the cookie
+     * @param encoded the encrypted value
+     * @return the decrypted value, or null if it was not encrypted with one of the keys, or was modified
+     */
+    public byte[] decrypt(String name, String encoded) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(encoded));
+            if (buffer.remaining() < 1 + KEY_ID_LENGTH + IV_LENGTH || buffer.get() != VERSION) {
+                return null;
+            }
+            SecretKeySpec key = keys.get(buffer.getInt());
+            if (key == null) {
+                log.debug("Cookie {} was encrypted with an unknown key", name);
+                return null;
+            }
+            byte[] iv = new byte[IV_LENGTH];
+            buffer.get(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(name.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(buffer.array(), buffer.position(), buffer.remaining());
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            log.debug("Invalid cookie {}: {}", name, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @param request the current request
+     * @param name the name of the cookie
+     * @return the decrypted value of the cookie, or null if there is no such valid cookie
+     */
+    public byte[] read(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (name.equals(cookie.getName())) {
+                    return decrypt(name, cookie.getValue());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param request the current request
+     * @param response the current response
+     * @param name the name of the cookie
+     * @param value the value to encrypt
+     * @param maxAge the maximum age of the cookie in seconds, or -1 for a browser session cookie
+     * @return true if the cookie was written, false if it is too large
+     */
+    public boolean write(HttpServletRequest request, HttpServletResponse response, String name, byte[] value,
+                         int maxAge) {
+        String encrypted = encrypt(name, value);
+        if (name.length() + encrypted.length() + 1 > maxCookieSize) {
+            return false;
+        }
+        response.addCookie(cookie(request, name, encrypted, maxAge));
+        return true;
+    }
+
+    /**
+     * @param request the current request
+     * @param response the current response
+     * @param name the name of the cookie to remove from the client
+     */
+    public void delete(HttpServletRequest request, HttpServletResponse response, String name) {
+        response.addCookie(cookie(request, name, "", 0));
+    }
+
+    private static Cookie cookie(HttpServletRequest request, String name, String value, int maxAge) {
+        Cookie cookie = new Cookie(name, value);
+        cookie.setPath(StringUtils.hasLength(request.getContextPath()) ? request.getContextPath() : "/");
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(maxAge);
+        return cookie;
+    }
+
+    private void addKey(byte[] key) {
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException("AES keys must be 16, 24 or 32 bytes long, not " + key.length);
+        }
+        keys.put(keyId(key), new SecretKeySpec(key, "AES"));
+    }
+
+    private static int keyId(byte[] key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key);
+            return ByteBuffer.wrap(Arrays.copyOf(digest, KEY_ID_LENGTH)).getInt();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.okta.developer.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.security.oauth2.client.OAuth2ClientContext;
+import org.springframework.security.oauth2.client.token.AccessTokenRequest;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * OAuth2ClientContext keeping the state of the authorization code flow, which is the redirect URI by state key, in an
+ * encrypted cookie instead of the HTTP session.
+ * <p>
+ * The access token is only kept by the delegate, which is request scoped in stateless mode: once logged in, the user
+ * is authenticated by the {@link CookieSecurityContextRepository}.
+ */
+public class CookieOAuth2ClientContext implements OAuth2ClientContext {
+
+    /**
+     * Logins started in other tabs, which are still pending.
+     */
+    private static final int MAX_PRESERVED_STATES = 3;
+
+    private static final int MAX_AGE_SECONDS = 600;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<LinkedHashMap<String, String>> STATES_TYPE =
+        new TypeReference<LinkedHashMap<String, String>>() {
+        };
+
+    private final OAuth2ClientContext delegate;
+
+    private final CookieCipher cookieCipher;
+
+    private final String cookieName;
+
+    public CookieOAuth2ClientContext(OAuth2ClientContext delegate, CookieCipher cookieCipher, String cookieName) {
+        this.delegate = delegate;
+        this.cookieCipher = cookieCipher;
+        this.cookieName = cookieName;
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken() {
+        return delegate.getAccessToken();
+    }
+
+    @Override
+    public void setAccessToken(OAuth2AccessToken accessToken) {
+        delegate.setAccessToken(accessToken);
+    }
+
+    @Override
+    public AccessTokenRequest getAccessTokenRequest() {
+        return delegate.getAccessTokenRequest();
+    }
+
+    @Override
+    public void setPreservedState(String stateKey, Object preservedState) {
+        ServletRequestAttributes attributes = currentRequestAttributes();
+        Map<String, String> states = read(attributes.getRequest());
+        states.put(stateKey, String.valueOf(preservedState));
+        Iterator<String> iterator = states.keySet().iterator();
+        while (states.size() > MAX_PRESERVED_STATES) {
+            iterator.next();
+            iterator.remove();
+        }
+        write(attributes, states);
+    }
+
+    @Override
+    public Object removePreservedState(String stateKey) {
+        ServletRequestAttributes attributes = currentRequestAttributes();
+        Map<String, String> states = read(attributes.getRequest());
+        String preservedState = states.remove(stateKey);
+        if (preservedState != null) {
+            write(attributes, states);
+        }
+        return preservedState;
+    }
+
+    private Map<String, String> read(HttpServletRequest request) {
+        byte[] value = cookieCipher.read(request, cookieName);
+        if (value != null) {
+            try {
+                return MAPPER.readValue(value, STATES_TYPE);
+            } catch (IOException e) {
+                // Ignore a cookie which can't be read, as with an expired one
+            }
+        }
+        return new LinkedHashMap<>();
+    }
+
+    private void write(ServletRequestAttributes attributes, Map<String, String> states) {
+        HttpServletRequest request = attributes.getRequest();
+        HttpServletResponse response = attributes.getResponse();
+        if (states.isEmpty()) {
+            cookieCipher.delete(request, response, cookieName);
+            return;
+        }
+        try {
+            if (!cookieCipher.write(request, response, cookieName, MAPPER.writeValueAsBytes(states), MAX_AGE_SECONDS)) {
+                throw new IllegalStateException("The OAuth2 state is too large for the " + cookieName + " cookie");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ServletRequestAttributes currentRequestAttributes() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes) ||
+            ((ServletRequestAttributes) attributes).getResponse() == null) {
+            throw new IllegalStateException("The OAuth2 state can only be kept during an HTTP request");
+        }
+        return (ServletRequestAttributes) attributes;
+    }
+}
@@ -0,0 +1,285 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SaveContextOnUpdateOrErrorResponseWrapper;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * SecurityContextRepository keeping the authentication in an encrypted cookie instead of the HTTP session.
+ * <p>
+ * The cookie holds the minimal state: the login, the authorities, the client id, the claims which the AccountResource
+ * maps, a key for the {@link PrincipalCache}, and an expiry time. The access token itself is not kept. The cookie is
+ * written again when its content changes, and when less than half of its time to live is left, so that it
+ * expires after "application.stateless.time-to-live-seconds" of inactivity. If it is too large, it is written without
+ * the claims.
+ */
+public class CookieSecurityContextRepository implements SecurityContextRepository {
+
+    static final List<String> CLAIMS = Collections.unmodifiableList(Arrays.asList("preferred_username", "given_name",
+        "family_name", "email", "email_verified", "langKey", "locale", "roles", "groups", "updated_at"));
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String LOADED_ATTRIBUTE = CookieSecurityContextRepository.class.getName() + ".LOADED";
+
+    private final Logger log = LoggerFactory.getLogger(CookieSecurityContextRepository.class);
+
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    private final CookieCipher cookieCipher;
+
+    private final String cookieName;
+
+    private final long timeToLiveSeconds;
+
+    private Clock clock = Clock.systemUTC();
+
+    public CookieSecurityContextRepository(CookieCipher cookieCipher, ApplicationProperties applicationProperties) {
+        this.cookieCipher = cookieCipher;
+        this.cookieName = applicationProperties.getStateless().getCookieName();
+        this.timeToLiveSeconds = applicationProperties.getStateless().getTimeToLiveSeconds();
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    @Override
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        HttpServletRequest request = requestResponseHolder.getRequest();
+        requestResponseHolder.setResponse(new SaveToCookieResponseWrapper(request, requestResponseHolder.getResponse()));
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        State state = readState(request);
+        if (state != null) {
+            Authentication authentication = state.toAuthentication(request);
+            context.setAuthentication(authentication);
+            request.setAttribute(LOADED_ATTRIBUTE, new Loaded(authentication, state));
+        }
+        return context;
+    }
+
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        SaveToCookieResponseWrapper responseWrapper = WebUtils.getNativeResponse(response,
+            SaveToCookieResponseWrapper.class);
+        if (responseWrapper == null) {
+            save(context, request, response);
+        } else if (!responseWrapper.isContextSaved()) {
+            responseWrapper.saveContext(context);
+        }
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        return readState(request) != null;
+    }
+
+    private void save(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        Authentication authentication = context.getAuthentication();
+        Loaded loaded = (Loaded) request.getAttribute(LOADED_ATTRIBUTE);
+        if (authentication == null || trustResolver.isAnonymous(authentication)) {
+            if (loaded != null) {
+                cookieCipher.delete(request, response, cookieName);
+            }
+            return;
+        }
+        long now = clock.millis() / 1000;
+        boolean fresh = loaded != null && loaded.state.exp - now > timeToLiveSeconds / 2;
+        if (fresh && loaded.authentication == authentication) {
+            return;
+        }
+        State state = State.of(authentication, now + timeToLiveSeconds);
+        if (fresh && loaded.state.hasSameContent(state)) {
+            return;
+        }
+        if (!write(request, response, state)) {
+            state.claims = null;
+            if (!write(request, response, state)) {
+                log.warn("The authentication of {} is too large for the {} cookie", authentication.getName(),
+                    cookieName);
+            }
+        }
+    }
+
+    private boolean write(HttpServletRequest request, HttpServletResponse response, State state) {
+        try {
+            return cookieCipher.write(request, response, cookieName, MAPPER.writeValueAsBytes(state),
+                (int) timeToLiveSeconds);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private State readState(HttpServletRequest request) {
+        byte[] value = cookieCipher.read(request, cookieName);
+        if (value == null) {
+            return null;
+        }
+        try {
+            State state = MAPPER.readValue(value, State.class);
+            if (state.sub == null || state.exp <= clock.millis() / 1000) {
+                return null;
+            }
+            return state;
+        } catch (IOException e) {
+            log.debug("Invalid {} cookie: {}", cookieName, e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class Loaded {
+
+        private final Authentication authentication;
+
+        private final State state;
+
+        Loaded(Authentication authentication, State state) {
+            this.authentication = authentication;
+            this.state = state;
+        }
+    }
+
+    /**
+     * The content of the cookie.
+     */
+    static class State {
+
+        public String sub;
+
+        public List<String> auth = new ArrayList<>();
+
+        public String cid;
+
+        public String key;
+
+        public Map<String, Object> claims;
+
+        public long exp;
+
+        @SuppressWarnings("unchecked")
+        static State of(Authentication authentication, long expiresAt) {
+            State state = new State();
+            state.sub = authentication.getName();
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                state.auth.add(authority.getAuthority());
+            }
+            Object details = authentication.getDetails();
+            if (authentication instanceof OAuth2Authentication) {
+                OAuth2Authentication oAuth2Authentication = (OAuth2Authentication) authentication;
+                state.cid = oAuth2Authentication.getOAuth2Request().getClientId();
+                if (oAuth2Authentication.getUserAuthentication() != null) {
+                    details = oAuth2Authentication.getUserAuthentication().getDetails();
+                }
+                if (authentication.getDetails() instanceof OAuth2AuthenticationDetails) {
+                    state.key = principalCacheKey(
+                        ((OAuth2AuthenticationDetails) authentication.getDetails()).getTokenValue());
+                }
+            }
+            if (details instanceof Map) {
+                state.claims = new LinkedHashMap<>();
+                for (String claim : CLAIMS) {
+                    Object value = ((Map<String, Object>) details).get(claim);
+                    if (value != null) {
+                        state.claims.put(claim, value);
+                    }
+                }
+            }
+            state.exp = expiresAt;
+            return state;
+        }
+
+        /**
+         * The authentication is often replaced by an equivalent one, such as the one mapped by the AccountResource.
+         */
+        boolean hasSameContent(State other) {
+            return Objects.equals(sub, other.sub) && new HashSet<>(auth).equals(new HashSet<>(other.auth)) &&
+                Objects.equals(cid, other.cid) && Objects.equals(key, other.key) && Objects.equals(claims, other.claims);
+        }
+
+        Authentication toAuthentication(HttpServletRequest request) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (String authority : auth) {
+                authorities.add(AuthorityRegistry.grantedAuthority(authority));
+            }
+            RoleSetAuthenticationToken userAuthentication =
+                new RoleSetAuthenticationToken(new User(sub, "N/A", authorities), "N/A", authorities);
+            userAuthentication.setDetails(claims != null ? claims : Collections.singletonMap("preferred_username", sub));
+            OAuth2Request oAuth2Request = new OAuth2Request(null, cid, authorities, true, null, null, null, null, null);
+            OAuth2Authentication authentication = new OAuth2Authentication(oAuth2Request, userAuthentication);
+            if (key != null) {
+                Object previous = request.getAttribute(OAuth2AuthenticationDetails.ACCESS_TOKEN_VALUE);
+                request.setAttribute(OAuth2AuthenticationDetails.ACCESS_TOKEN_VALUE, key);
+                authentication.setDetails(new OAuth2AuthenticationDetails(request));
+                request.setAttribute(OAuth2AuthenticationDetails.ACCESS_TOKEN_VALUE, previous);
+            }
+            return authentication;
+        }
+
+        /**
+         * Long access tokens are replaced by their hash, which is as good a key and keeps the cookie small.
+         */
+        private static String principalCacheKey(String tokenValue) {
+            if (tokenValue == null || tokenValue.length() <= 64) {
+                return tokenValue;
+            }
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(tokenValue.getBytes(StandardCharsets.UTF_8));
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private final class SaveToCookieResponseWrapper extends SaveContextOnUpdateOrErrorResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        SaveToCookieResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(response, true);
+            this.request = request;
+        }
+
+        @Override
+        protected void saveContext(SecurityContext context) {
+            save(context, request, (HttpServletResponse) getResponse());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.okta.developer.security;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Routes the requests between the security filter chains with a single {@link PathTrie} lookup, instead of the list
+ * of Ant matchers of each chain.
+ * <p>
+ * The FilterChainProxy asks the matcher of each chain in turn, so the route of a request is kept in a request
+ * attribute, along with the path it was computed for, since an error dispatch goes through the chains again with
+ * another path.
+ */
+public class FastPathRouter {
+
+    private static final String ROUTE_ATTRIBUTE = FastPathRouter.class.getName() + ".ROUTE";
+
+    public enum Route {
+        /**
+         * Static resources, which don't go through any security filter.
+         */
+        IGNORED,
+        /**
+         * Public endpoints, which only go through a minimal chain.
+         */
+        PUBLIC
+    }
+
+    private final PathTrie<Route> trie = new PathTrie<>();
+
+    public FastPathRouter ignore(String method, String pattern) {
+        trie.add(method, pattern, Route.IGNORED);
+        return this;
+    }
+
+    public FastPathRouter ignore(String... patterns) {
+        for (String pattern : patterns) {
+            trie.add(pattern, Route.IGNORED);
+        }
+        return this;
+    }
+
+    public FastPathRouter permit(String... patterns) {
+        for (String pattern : patterns) {
+            trie.add(pattern, Route.PUBLIC);
+        }
+        return this;
+    }
+
+    /**
+     * @return the route of the request, or null if it goes through the full chain
+     */
+    public Route route(HttpServletRequest request) {
+        String path = getRequestPath(request);
+        Object cached = request.getAttribute(ROUTE_ATTRIBUTE);
+        if (cached instanceof CachedRoute && ((CachedRoute) cached).path.equals(path)) {
+            return ((CachedRoute) cached).route;
+        }
+        Route route = trie.match(request.getMethod(), path);
+        request.setAttribute(ROUTE_ATTRIBUTE, new CachedRoute(path, route));
+        return route;
+    }
+
+    public RequestMatcher matcher(Route route) {
+        return request -> route(request) == route;
+    }
+
+    /**
+     * Same path as the one matched by the AntPathRequestMatcher.
+     */
+    private static String getRequestPath(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        return pathInfo != null ? path + pathInfo : path;
+    }
+
+    private static final class CachedRoute {
+
+        private final String path;
+
+        private final Route route;
+
+        CachedRoute(String path, Route route) {
+            this.path = path;
+            this.route = route;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.okta.developer.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.CsrfTokenRepository;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.WebUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * CSRF tokens which are issued lazily, and verified without any storage.
+ * <p>
+ * A token is a random nonce followed by the HMAC-SHA256 of the nonce and of the HTTP session id, with a server
+ * secret, so that it is only valid for the session it was issued for. When there is no session, as in the stateless
+ * mode, the token must also match the cookie it was issued in. Tokens are verified with constant-time comparisons.
+ * <p>
+ * The token returned by {@link #loadToken} costs nothing until it is used: the CsrfFilter only reads it for the
+ * state-changing requests, so that the other requests neither verify nor issue tokens. The token cookie, readable by
+ * the client, is issued to authenticated clients which don't have one yet, as they are expected to change some state,
+ * when the token is used and the cookie is missing or invalid, and on login.
+ */
+public class HmacCsrfTokenRepository implements CsrfTokenRepository {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int NONCE_LENGTH = 16;
+
+    private static final String SEPARATOR = ".";
+
+    private static final String RESPONSE_ATTRIBUTE = HttpServletResponse.class.getName();
+
+    private static final Set<String> SAFE_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "TRACE", "OPTIONS"));
+
+    private final Logger log = LoggerFactory.getLogger(HmacCsrfTokenRepository.class);
+
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final ThreadLocal<Mac> macs;
+
+    private final String cookieName;
+
+    private final String headerName;
+
+    private final String parameterName;
+
+    /**
+     * @param base64Secret the Base64 HMAC secret; a random secret is generated when there is none, which only suits a
+     *                     single node
+     */
+    public HmacCsrfTokenRepository(String base64Secret, String cookieName, String headerName, String parameterName) {
+        byte[] secret;
+        if (StringUtils.hasText(base64Secret)) {
+            secret = Base64.getDecoder().decode(base64Secret.trim());
+        } else {
+            log.warn("No application.lazy-csrf.secret, generating a random secret: CSRF tokens will only be valid on " +
+                "this node until it restarts");
+            secret = new byte[32];
+            random.nextBytes(secret);
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not initialize the CSRF token HMAC", e);
+            }
+        });
+        this.cookieName = cookieName;
+        this.headerName = headerName;
+        this.parameterName = parameterName;
+    }
+
+    @Override
+    public CsrfToken generateToken(HttpServletRequest request) {
+        return new DefaultCsrfToken(headerName, parameterName, newToken(binding(request)));
+    }
+
+    @Override
+    public void saveToken(CsrfToken token, HttpServletRequest request, HttpServletResponse response) {
+        writeCookie(token != null ? token.getToken() : "", request, response);
+    }
+
+    @Override
+    public CsrfToken loadToken(HttpServletRequest request) {
+        LazyCsrfToken token = new LazyCsrfToken(request);
+        if (SAFE_METHODS.contains(request.getMethod()) && WebUtils.getCookie(request, cookieName) == null &&
+            isAuthenticated()) {
+            token.getToken();
+        }
+        return token;
+    }
+
+    /**
+     * @return whether the token was issued by this repository for the session of the request
+     */
+    boolean isValid(String token, HttpServletRequest request) {
+        if (token == null) {
+            return false;
+        }
+        int separator = token.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            return false;
+        }
+        String binding = binding(request);
+        byte[] expected = mac(token.substring(0, separator), binding);
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return false;
+        }
+        if (binding.isEmpty()) {
+            // Without a session, any client can get a valid token, so it must be the one of the client's cookie
+            Cookie cookie = WebUtils.getCookie(request, cookieName);
+            return cookie != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                cookie.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+        return true;
+    }
+
+    private boolean isAuthenticated() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && !trustResolver.isAnonymous(authentication);
+    }
+
+    private String binding(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null ? session.getId() : "";
+    }
+
+    private String newToken(String binding) {
+        byte[] bytes = new byte[NONCE_LENGTH];
+        random.nextBytes(bytes);
+        String nonce = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        return nonce + SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(mac(nonce, binding));
+    }
+
+    private byte[] mac(String nonce, String binding) {
+        Mac mac = macs.get();
+        mac.update(nonce.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return mac.doFinal(binding.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeCookie(String token, HttpServletRequest request, HttpServletResponse response) {
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(cookieName, token);
+        cookie.setPath(StringUtils.hasLength(request.getContextPath()) ? request.getContextPath() : "/");
+        cookie.setSecure(request.isSecure());
+        if (token.isEmpty()) {
+            cookie.setMaxAge(0);
+        }
+        response.addCookie(cookie);
+    }
+
+    /**
+     * Token resolved on its first use: the token sent with a state-changing request when it is valid, so that the
+     * CsrfFilter accepts it, and otherwise a token nobody knows; the token of the cookie for the other requests. A new
+     * cookie is issued when it is missing or invalid.
+     */
+    private final class LazyCsrfToken implements CsrfToken {
+
+        private final HttpServletRequest request;
+
+        private String token;
+
+        LazyCsrfToken(HttpServletRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public String getHeaderName() {
+            return headerName;
+        }
+
+        @Override
+        public String getParameterName() {
+            return parameterName;
+        }
+
+        @Override
+        public String getToken() {
+            if (token == null) {
+                token = resolve();
+            }
+            return token;
+        }
+
+        private String resolve() {
+            Cookie cookie = WebUtils.getCookie(request, cookieName);
+            String cookieToken = cookie != null && StringUtils.hasText(cookie.getValue()) ? cookie.getValue() : null;
+            if (!SAFE_METHODS.contains(request.getMethod())) {
+                String requestToken = request.getHeader(headerName);
+                if (requestToken == null) {
+                    requestToken = request.getParameter(parameterName);
+                }
+                if (isValid(requestToken, request)) {
+                    return requestToken;
+                }
+                if (!isValid(cookieToken, request)) {
+                    issue();
+                }
+                return newToken(binding(request));
+            }
+            if (isValid(cookieToken, request)) {
+                return cookieToken;
+            }
+            return issue();
+        }
+
+        private String issue() {
+            String issued = newToken(binding(request));
+            writeCookie(issued, request, (HttpServletResponse) request.getAttribute(RESPONSE_ATTRIBUTE));
+            return issued;
+        }
+    }
+}
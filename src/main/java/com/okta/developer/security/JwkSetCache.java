@@ -0,0 +1,153 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache of the public keys of the identity provider, read from its JSON Web Key Set.
+ * <p>
+ * The keys are refreshed in the background every "application.jwt.refresh-interval-ms" milliseconds. A token signed
+ * with an unknown key, after a key rotation, refreshes them immediately, at most once every
+ * "application.jwt.min-refresh-interval-ms" milliseconds. If a refresh fails, the previous keys are kept.
+ * <p>
+ * The refreshes are serialized with a lock rather than a monitor, since a virtual thread blocking on the HTTP call
+ * while holding a monitor would pin its carrier thread.
+ */
+public class JwkSetCache {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Logger log = LoggerFactory.getLogger(JwkSetCache.class);
+
+    private final String jwkSetUri;
+
+    private final long minRefreshIntervalNanos;
+
+    private final RestTemplate restTemplate;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+
+    private volatile long lastRefreshNanos;
+
+    private volatile boolean refreshed;
+
+    public JwkSetCache(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Jwt jwt = applicationProperties.getJwt();
+        this.jwkSetUri = jwt.getJwkSetUri();
+        this.minRefreshIntervalNanos = jwt.getMinRefreshIntervalMs() * 1000000L;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(jwt.getConnectTimeoutMs());
+        requestFactory.setReadTimeout(jwt.getReadTimeoutMs());
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * @param keyId the "kid" of a token header, or null if the token has none
+     * @return the public key, or null if there is no such key, even after a refresh
+     */
+    public PublicKey getKey(String keyId) {
+        PublicKey key = find(keyId);
+        if (key == null && refreshAllowed()) {
+            refreshLock.lock();
+            try {
+                key = find(keyId);
+                if (key == null && refreshAllowed()) {
+                    log.debug("Unknown key '{}', refreshing the keys", keyId);
+                    load();
+                    key = find(keyId);
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Read the keys from the JSON Web Key Set URI.
+     * <p>
+     * This is scheduled to run every "application.jwt.refresh-interval-ms" milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${application.jwt.refresh-interval-ms:3600000}")
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            load();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public Map<String, PublicKey> getKeys() {
+        return keys;
+    }
+
+    private void load() {
+        lastRefreshNanos = System.nanoTime();
+        refreshed = true;
+        try {
+            // Read as bytes, as the key sets are served as application/json, application/jwk-set+json or others
+            byte[] jwkSet = restTemplate.getForObject(jwkSetUri, byte[].class);
+            Map<String, PublicKey> loaded = parse(jwkSet != null ? MAPPER.readValue(jwkSet, Map.class) : null);
+            if (!loaded.equals(keys)) {
+                log.info("Loaded keys {} from {}", loaded.keySet(), jwkSetUri);
+            }
+            keys = Collections.unmodifiableMap(loaded);
+        } catch (RuntimeException | IOException | GeneralSecurityException e) {
+            log.warn("Could not read the keys from {}, keeping keys {}: {}", jwkSetUri, keys.keySet(),
+                e.getMessage());
+        }
+    }
+
+    private PublicKey find(String keyId) {
+        Map<String, PublicKey> current = keys;
+        if (keyId == null) {
+            return current.size() == 1 ? current.values().iterator().next() : null;
+        }
+        return current.get(keyId);
+    }
+
+    private boolean refreshAllowed() {
+        return !refreshed || System.nanoTime() - lastRefreshNanos >= minRefreshIntervalNanos;
+    }
+
+    private static Map<String, PublicKey> parse(Map<?, ?> jwkSet) throws GeneralSecurityException {
+        if (jwkSet == null || !(jwkSet.get("keys") instanceof List)) {
+            throw new IllegalArgumentException("Not a JSON Web Key Set");
+        }
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        for (Object element : (List<?>) jwkSet.get("keys")) {
+            Map<?, ?> jwk = (Map<?, ?>) element;
+            if (!"RSA".equals(jwk.get("kty")) || (jwk.get("use") != null && !"sig".equals(jwk.get("use")))) {
+                continue;
+            }
+            BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("n")));
+            BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("e")));
+            String keyId = jwk.get("kid") != null ? jwk.get("kid").toString() : "";
+            keys.put(keyId, keyFactory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+        }
+        return keys;
+    }
+}
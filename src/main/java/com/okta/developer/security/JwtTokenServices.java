@@ -0,0 +1,211 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ResourceServerTokenServices which validates signed JWT access tokens locally, with the keys of the
+ * {@link JwkSetCache}, instead of calling the user info endpoint of the identity provider.
+ * <p>
+ * Tokens must be signed with RS256, RS384 or RS512, must not be expired, and must match the configured issuer and
+ * audiences. The claims become the details of the user authentication, as the user info would, and its authorities
+ * come from the "roles" or "groups" claim.
+ */
+public class JwtTokenServices implements ResourceServerTokenServices {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> CLAIMS = new TypeReference<Map<String, Object>>() { };
+
+    private static final Map<String, String> ALGORITHMS = new HashMap<>();
+
+    static {
+        ALGORITHMS.put("RS256", "SHA256withRSA");
+        ALGORITHMS.put("RS384", "SHA384withRSA");
+        ALGORITHMS.put("RS512", "SHA512withRSA");
+    }
+
+    private final JwkSetCache jwkSetCache;
+
+    private final ApplicationProperties.Jwt properties;
+
+    private Clock clock = Clock.systemUTC();
+
+    public JwtTokenServices(JwkSetCache jwkSetCache, ApplicationProperties applicationProperties) {
+        this.jwkSetCache = jwkSetCache;
+        this.properties = applicationProperties.getJwt();
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(String accessToken) throws AuthenticationException {
+        Map<String, Object> claims = decode(accessToken);
+        validate(claims);
+
+        String username = claimAsString(claims, properties.getUsernameClaim());
+        if (username == null) {
+            username = claimAsString(claims, "sub");
+        }
+        if (username == null) {
+            throw new InvalidTokenException("Token has no subject");
+        }
+        // The AccountResource reads the login from this claim of the user info
+        claims.putIfAbsent("preferred_username", username);
+
+        List<GrantedAuthority> authorities = authorities(claims);
+        // keeps its role set for the role checks of the request
+        RoleSetAuthenticationToken userAuthentication = new RoleSetAuthenticationToken(username, "N/A", authorities);
+        userAuthentication.setDetails(claims);
+
+        String clientId = claimAsString(claims, "cid");
+        if (clientId == null) {
+            clientId = claimAsString(claims, "azp");
+        }
+        OAuth2Request request = new OAuth2Request(null, clientId, authorities, true, scopes(claims),
+            null, null, null, null);
+        return new OAuth2Authentication(request, userAuthentication);
+    }
+
+    /**
+     * Read a signed JWT access token, which must be valid as for {@link #loadAuthentication}.
+     *
+     * @param accessToken the access token
+     * @return the token, with the expiration and the scopes of its claims
+     * @throws InvalidTokenException if the token is not valid
+     */
+    @Override
+    public OAuth2AccessToken readAccessToken(String accessToken) {
+        Map<String, Object> claims = decode(accessToken);
+        validate(claims);
+
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(accessToken);
+        token.setExpiration(new Date(claimAsLong(claims, "exp") * 1000));
+        token.setScope(scopes(claims));
+        token.setAdditionalInformation(claims);
+        return token;
+    }
+
+    private Map<String, Object> decode(String token) {
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 3) {
+            throw new InvalidTokenException("Token is not a signed JWT");
+        }
+        try {
+            Map<String, Object> header = MAPPER.readValue(Base64.getUrlDecoder().decode(parts[0]), CLAIMS);
+            String algorithm = ALGORITHMS.get(header.get("alg"));
+            if (algorithm == null) {
+                throw new InvalidTokenException("Unsupported token algorithm: " + header.get("alg"));
+            }
+            PublicKey key = jwkSetCache.getKey((String) header.get("kid"));
+            if (key == null) {
+                throw new InvalidTokenException("Unknown token key: " + header.get("kid"));
+            }
+            Signature signature = Signature.getInstance(algorithm);
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(Base64.getUrlDecoder().decode(parts[2]))) {
+                throw new InvalidTokenException("Invalid token signature");
+            }
+            return MAPPER.readValue(Base64.getUrlDecoder().decode(parts[1]), CLAIMS);
+        } catch (IOException | IllegalArgumentException | ClassCastException | GeneralSecurityException e) {
+            throw new InvalidTokenException("Malformed token: " + e.getMessage());
+        }
+    }
+
+    private void validate(Map<String, Object> claims) {
+        long now = clock.millis() / 1000;
+        long skew = properties.getClockSkewSeconds();
+        Long expiresAt = claimAsLong(claims, "exp");
+        if (expiresAt == null || now - skew >= expiresAt) {
+            throw new InvalidTokenException("Token has expired");
+        }
+        Long notBefore = claimAsLong(claims, "nbf");
+        if (notBefore != null && now + skew < notBefore) {
+            throw new InvalidTokenException("Token is not valid yet");
+        }
+        if (properties.getIssuer() != null && !properties.getIssuer().equals(claims.get("iss"))) {
+            throw new InvalidTokenException("Invalid token issuer: " + claims.get("iss"));
+        }
+        if (!properties.getAudiences().isEmpty() &&
+            Collections.disjoint(properties.getAudiences(), claimAsList(claims, "aud"))) {
+            throw new InvalidTokenException("Invalid token audience: " + claims.get("aud"));
+        }
+    }
+
+    private static List<GrantedAuthority> authorities(Map<String, Object> claims) {
+        List<String> roles = claimAsList(claims, "roles");
+        if (roles.isEmpty()) {
+            roles = claimAsList(claims, "groups");
+        }
+        List<GrantedAuthority> authorities = roles.stream()
+            .filter(role -> role.startsWith("ROLE_"))
+            .map(AuthorityRegistry::grantedAuthority)
+            .collect(Collectors.toCollection(ArrayList::new));
+        if (authorities.isEmpty()) {
+            authorities.add(AuthorityRegistry.grantedAuthority(AuthoritiesConstants.USER));
+        }
+        return authorities;
+    }
+
+    private static Set<String> scopes(Map<String, Object> claims) {
+        List<String> scopes = claimAsList(claims, "scp");
+        if (scopes.isEmpty() && claims.get("scope") instanceof String) {
+            scopes = Arrays.asList(((String) claims.get("scope")).split(" "));
+        }
+        return new LinkedHashSet<>(scopes);
+    }
+
+    private static String claimAsString(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    private static Long claimAsLong(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    private static List<String> claimAsList(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        if (value instanceof Collection) {
+            List<String> values = new ArrayList<>();
+            for (Object element : (Collection<?>) value) {
+                values.add(String.valueOf(element));
+            }
+            return values;
+        }
+        return value != null ? Collections.singletonList(value.toString()) : Collections.emptyList();
+    }
+}
@@ -0,0 +1,65 @@
+package com.okta.developer.security;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+
+import static com.okta.developer.config.OAuth2Configuration.SAVED_LOGIN_ORIGIN_URI;
+
+/**
+ * Keeps the URI which the user clicked "login" from, so that the {@link OAuth2AuthenticationSuccessHandler} redirects
+ * back to it.
+ * <p>
+ * The URI is kept in the HTTP session, or in an encrypted cookie when a {@link CookieCipher} is given, in stateless
+ * mode.
+ */
+public class LoginOriginRepository {
+
+    private static final int MAX_AGE_SECONDS = 600;
+
+    private final CookieCipher cookieCipher;
+
+    private final String cookieName;
+
+    public LoginOriginRepository() {
+        this(null, null);
+    }
+
+    public LoginOriginRepository(CookieCipher cookieCipher, String cookieName) {
+        this.cookieCipher = cookieCipher;
+        this.cookieName = cookieName;
+    }
+
+    public boolean containsLoginOrigin(HttpServletRequest request) {
+        if (cookieCipher != null) {
+            return cookieCipher.read(request, cookieName) != null;
+        }
+        return request.getSession().getAttribute(SAVED_LOGIN_ORIGIN_URI) != null;
+    }
+
+    public void saveLoginOrigin(HttpServletRequest request, HttpServletResponse response, String uri) {
+        if (cookieCipher == null) {
+            request.getSession().setAttribute(SAVED_LOGIN_ORIGIN_URI, uri);
+        } else {
+            // A referrer too long for the cookie is not saved
+            cookieCipher.write(request, response, cookieName, uri.getBytes(StandardCharsets.UTF_8), MAX_AGE_SECONDS);
+        }
+    }
+
+    /**
+     * @return the saved login origin, which is removed, or null if there is none
+     */
+    public String removeLoginOrigin(HttpServletRequest request, HttpServletResponse response) {
+        if (cookieCipher == null) {
+            Object uri = request.getSession().getAttribute(SAVED_LOGIN_ORIGIN_URI);
+            request.getSession().removeAttribute(SAVED_LOGIN_ORIGIN_URI);
+            return uri != null ? uri.toString() : null;
+        }
+        byte[] uri = cookieCipher.read(request, cookieName);
+        if (uri == null) {
+            return null;
+        }
+        cookieCipher.delete(request, response, cookieName);
+        return new String(uri, StandardCharsets.UTF_8);
+    }
+}
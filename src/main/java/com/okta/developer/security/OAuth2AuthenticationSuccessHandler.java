@@ -13,8 +13,6 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
-import static com.okta.developer.config.OAuth2Configuration.SAVED_LOGIN_ORIGIN_URI;
-
 /**
  * AuthenticationSuccessHandler that looks for a saved login origin and redirects to it if it exists.
  */
@@ -24,6 +22,16 @@ public class OAuth2AuthenticationSuccessHandler implements AuthenticationSuccess
 
     private RedirectStrategy redirectStrategy = new DefaultRedirectStrategy();
 
+    private final LoginOriginRepository loginOriginRepository;
+
+    public OAuth2AuthenticationSuccessHandler() {
+        this(new LoginOriginRepository());
+    }
+
+    public OAuth2AuthenticationSuccessHandler(LoginOriginRepository loginOriginRepository) {
+        this.loginOriginRepository = loginOriginRepository;
+    }
+
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
                                         Authentication authentication)
@@ -36,7 +44,7 @@ public class OAuth2AuthenticationSuccessHandler implements AuthenticationSuccess
     private void handle(HttpServletRequest request, HttpServletResponse response)
         throws IOException {
 
-        String targetUrl = determineTargetUrl(request);
+        String targetUrl = determineTargetUrl(request, response);
 
         if (response.isCommitted()) {
             log.error("Response has already been committed. Unable to redirect to " + targetUrl);
@@ -46,12 +54,10 @@ public class OAuth2AuthenticationSuccessHandler implements AuthenticationSuccess
         redirectStrategy.sendRedirect(request, response, targetUrl);
     }
 
-    private String determineTargetUrl(HttpServletRequest request) {
-        Object savedReferrer = request.getSession().getAttribute(SAVED_LOGIN_ORIGIN_URI);
-        if (savedReferrer != null) {
-            String savedLoginOrigin = request.getSession().getAttribute(SAVED_LOGIN_ORIGIN_URI).toString();
+    private String determineTargetUrl(HttpServletRequest request, HttpServletResponse response) {
+        String savedLoginOrigin = loginOriginRepository.removeLoginOrigin(request, response);
+        if (savedLoginOrigin != null) {
             log.debug("Redirecting to saved login origin URI: {}", savedLoginOrigin);
-            request.getSession().removeAttribute(SAVED_LOGIN_ORIGIN_URI);
             return savedLoginOrigin;
         } else {
             return "/";
@@ -0,0 +1,197 @@
+package com.okta.developer.security;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Ant-style path patterns compiled into a trie of their segments, so that matching a path walks its segments once
+ * instead of trying each pattern in turn.
+ * <p>
+ * Literal segments are compared in place, without splitting the path; "*" matches one segment, "**" any number of
+ * segments, and the other segments with wildcards are matched as by the {@link AntPathMatcher}, so that the patterns
+ * have the same meaning as with the AntPathRequestMatcher. Patterns restricted to an HTTP method are kept in a trie of
+ * their own, only walked for the requests with this method. When several patterns match, the value of the first one
+ * added is returned.
+ * <p>
+ * The trie must be fully built before it is used by several threads.
+ *
+ * @param <V> the type of the values of the patterns
+ */
+public class PathTrie<V> {
+
+    private static final String ANY_SEGMENT = "*";
+
+    private static final String ANY_SEGMENTS = "**";
+
+    private final SegmentPatternCompiler segmentPatternCompiler = new SegmentPatternCompiler();
+
+    private final Node<V> root = new Node<>();
+
+    private final Map<String, Node<V>> methodRoots = new HashMap<>();
+
+    private int size;
+
+    public PathTrie<V> add(String pattern, V value) {
+        return add(null, pattern, value);
+    }
+
+    /**
+     * @param method the HTTP method, or null for any method
+     * @param pattern the Ant-style pattern, starting with "/"
+     * @param value the value returned for the paths matching the pattern
+     */
+    public PathTrie<V> add(String method, String pattern, V value) {
+        Node<V> node = method != null ? methodRoots.computeIfAbsent(method, key -> new Node<>()) : root;
+        int start = firstSegment(pattern);
+        while (start <= pattern.length()) {
+            int end = segmentEnd(pattern, start);
+            node = node.child(pattern.substring(start, end), segmentPatternCompiler);
+            start = end + 1;
+        }
+        if (node.value == null) {
+            node.value = value;
+            node.order = size;
+        }
+        size++;
+        return this;
+    }
+
+    /**
+     * @param method the HTTP method of the request
+     * @param path the path of the request, within the application
+     * @return the value of the first pattern matching the path, or null if none matches
+     */
+    public V match(String method, String path) {
+        int start = firstSegment(path);
+        Node<V> best = match(root, path, start, null);
+        Node<V> methodRoot = methodRoots.isEmpty() ? null : methodRoots.get(method);
+        if (methodRoot != null) {
+            best = match(methodRoot, path, start, best);
+        }
+        return best != null ? best.value : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param start the index of the current segment in the path, or past the end of the path when all the segments
+     *              were matched
+     */
+    private Node<V> match(Node<V> node, String path, int start, Node<V> best) {
+        if (start > path.length()) {
+            if (node.value != null && (best == null || node.order < best.order)) {
+                best = node;
+            }
+        } else {
+            int end = segmentEnd(path, start);
+            for (int i = 0; i < node.literals.size(); i++) {
+                String literal = node.literals.get(i);
+                if (literal.length() == end - start && path.regionMatches(start, literal, 0, literal.length())) {
+                    best = match(node.literalChildren.get(i), path, end + 1, best);
+                    break;
+                }
+            }
+            if (node.anySegment != null) {
+                best = match(node.anySegment, path, end + 1, best);
+            }
+            if (!node.wildcards.isEmpty()) {
+                String segment = path.substring(start, end);
+                for (int i = 0; i < node.wildcards.size(); i++) {
+                    if (node.wildcards.get(i).test(segment)) {
+                        best = match(node.wildcardChildren.get(i), path, end + 1, best);
+                    }
+                }
+            }
+        }
+        if (node.anySegments != null) {
+            for (int next = start; ; next = segmentEnd(path, next) + 1) {
+                best = match(node.anySegments, path, next, best);
+                if (next > path.length()) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the index of the first segment, past the end of the path when the path has no segment
+     */
+    private static int firstSegment(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        return start == path.length() ? path.length() + 1 : start;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end >= 0 ? end : path.length();
+    }
+
+    private static final class Node<V> {
+
+        private final List<String> literals = new ArrayList<>(1);
+
+        private final List<Node<V>> literalChildren = new ArrayList<>(1);
+
+        private final List<String> wildcardPatterns = new ArrayList<>(0);
+
+        private final List<Predicate<String>> wildcards = new ArrayList<>(0);
+
+        private final List<Node<V>> wildcardChildren = new ArrayList<>(0);
+
+        private Node<V> anySegment;
+
+        private Node<V> anySegments;
+
+        private V value;
+
+        private int order;
+
+        Node<V> child(String segment, SegmentPatternCompiler compiler) {
+            if (ANY_SEGMENTS.equals(segment)) {
+                if (anySegments == null) {
+                    anySegments = new Node<>();
+                }
+                return anySegments;
+            }
+            if (ANY_SEGMENT.equals(segment)) {
+                if (anySegment == null) {
+                    anySegment = new Node<>();
+                }
+                return anySegment;
+            }
+            boolean wildcard = segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0;
+            List<String> keys = wildcard ? wildcardPatterns : literals;
+            List<Node<V>> children = wildcard ? wildcardChildren : literalChildren;
+            int index = keys.indexOf(segment);
+            if (index >= 0) {
+                return children.get(index);
+            }
+            Node<V> node = new Node<>();
+            keys.add(segment);
+            children.add(node);
+            if (wildcard) {
+                wildcards.add(compiler.compile(segment));
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Compiles the segments with wildcards once, with the same matcher as the AntPathMatcher.
+     */
+    private static final class SegmentPatternCompiler extends AntPathMatcher {
+
+        Predicate<String> compile(String segment) {
+            AntPathStringMatcher matcher = new AntPathStringMatcher(segment);
+            return value -> matcher.matchStrings(value, null);
+        }
+    }
+}
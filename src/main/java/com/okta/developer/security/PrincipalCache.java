@@ -0,0 +1,127 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+import com.okta.developer.service.dto.ResourceVersion;
+import com.okta.developer.service.dto.UserDTO;
+
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the users mapped from the claims of the identity provider, so that the AccountResource maps them once
+ * per login instead of on each request.
+ * <p>
+ * Entries are keyed on the access token which the OAuth2 authentication was created with: a new login, including one
+ * after a token refresh, gets a new entry, and the entry of the previous token expires. Entries are also evicted on
+ * logout, by the {@link PrincipalCacheLogoutSuccessHandler}.
+ * <p>
+ * The entries are kept in a {@link BoundedCache}, so that concurrent requests don't wait for each other's lookups.
+ * When a metric registry is available, its metrics are published under "security.principal-cache".
+ */
+@Component
+public class PrincipalCache {
+
+    private final boolean enabled;
+
+    private final BoundedCache<String, Entry> entries;
+
+    public PrincipalCache(ApplicationProperties applicationProperties) {
+        ApplicationProperties.PrincipalCache properties = applicationProperties.getPrincipalCache();
+        this.enabled = properties.isEnabled();
+        this.entries = new BoundedCache<>(properties.getMaxEntries(), properties.getTimeToLiveSeconds(),
+            TimeUnit.SECONDS);
+    }
+
+    @Autowired(required = false)
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        entries.setMetricRegistry(metricRegistry, "security.principal-cache");
+    }
+
+    /**
+     * @param authentication the current authentication
+     * @return the cached mapping of the authentication, or null if it is not cached
+     */
+    public Entry get(OAuth2Authentication authentication) {
+        String key = key(authentication);
+        return key != null ? entries.get(key) : null;
+    }
+
+    /**
+     * Cache the mapping of an authentication, if it has an access token.
+     *
+     * @param authentication the authentication from the identity provider
+     * @param userDTO the user mapped from its claims
+     * @param version the version of the user
+     * @param mappedAuthentication the authentication with the mapped authorities
+     */
+    public void put(OAuth2Authentication authentication, UserDTO userDTO, ResourceVersion version,
+                    OAuth2Authentication mappedAuthentication) {
+        String key = key(authentication);
+        if (key != null) {
+            entries.put(key, new Entry(userDTO, version, mappedAuthentication));
+        }
+    }
+
+    /**
+     * @param authentication the authentication of a user who logged out, may be null
+     */
+    public void evict(Authentication authentication) {
+        if (authentication instanceof OAuth2Authentication) {
+            String key = key((OAuth2Authentication) authentication);
+            if (key != null) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private String key(OAuth2Authentication authentication) {
+        if (enabled && authentication.getDetails() instanceof OAuth2AuthenticationDetails) {
+            return ((OAuth2AuthenticationDetails) authentication.getDetails()).getTokenValue();
+        }
+        return null;
+    }
+
+    /**
+     * A user mapped from the claims of an authentication.
+     */
+    public static final class Entry {
+
+        private final UserDTO userDTO;
+
+        private final ResourceVersion version;
+
+        private final OAuth2Authentication authentication;
+
+        Entry(UserDTO userDTO, ResourceVersion version, OAuth2Authentication authentication) {
+            this.userDTO = userDTO;
+            this.version = version;
+            this.authentication = authentication;
+        }
+
+        public UserDTO getUserDTO() {
+            return userDTO;
+        }
+
+        public ResourceVersion getVersion() {
+            return version;
+        }
+
+        public OAuth2Authentication getAuthentication() {
+            return authentication;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.okta.developer.security;
+
+import io.github.jhipster.security.AjaxLogoutSuccessHandler;
+
+import org.springframework.security.core.Authentication;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * AjaxLogoutSuccessHandler which also evicts the user from the {@link PrincipalCache}.
+ */
+public class PrincipalCacheLogoutSuccessHandler extends AjaxLogoutSuccessHandler {
+
+    private final PrincipalCache principalCache;
+
+    public PrincipalCacheLogoutSuccessHandler(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @Override
+    public void onLogoutSuccess(HttpServletRequest request, HttpServletResponse response,
+                                Authentication authentication)
+        throws IOException, ServletException {
+
+        principalCache.evict(authentication);
+        super.onLogoutSuccess(request, response, authentication);
+    }
+}
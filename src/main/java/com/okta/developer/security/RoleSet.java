@@ -0,0 +1,117 @@
+package com.okta.developer.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of roles, as a bitset of the indexes of the {@link AuthorityRegistry}, so that checking whether a
+ * role is in the set is a bit test.
+ * <p>
+ * Roles which could not be registered, because the registry is full, are kept by name.
+ */
+public final class RoleSet {
+
+    private static final long[] NO_WORDS = new long[0];
+
+    private final long[] words;
+
+    private final Set<String> unindexed;
+
+    private RoleSet(long[] words, Set<String> unindexed) {
+        this.words = words;
+        this.unindexed = unindexed;
+    }
+
+    /**
+     * @param authorities the granted authorities
+     * @return the set of their roles
+     */
+    public static RoleSet of(Collection<? extends GrantedAuthority> authorities) {
+        long[] words = NO_WORDS;
+        Set<String> unindexed = Collections.emptySet();
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name == null) {
+                continue;
+            }
+            int index = AuthorityRegistry.registerIndex(name);
+            if (index >= 0) {
+                int word = index >>> 6;
+                if (word >= words.length) {
+                    long[] grown = new long[word + 1];
+                    System.arraycopy(words, 0, grown, 0, words.length);
+                    words = grown;
+                }
+                words[word] |= 1L << index;
+            } else {
+                if (unindexed.isEmpty()) {
+                    unindexed = new HashSet<>();
+                }
+                unindexed.add(name);
+            }
+        }
+        return new RoleSet(words, unindexed);
+    }
+
+    /**
+     * Get the roles of an authentication, which are computed once for a {@link RoleSetAuthenticationToken}.
+     *
+     * @param authentication an authentication
+     * @return the set of its roles
+     */
+    public static RoleSet of(Authentication authentication) {
+        RoleSet roles = cached(authentication);
+        return roles != null ? roles : of(authentication.getAuthorities());
+    }
+
+    /**
+     * Check whether an authentication has a role: a bit test when it keeps its {@link RoleSet}, and a comparison of
+     * the names of its authorities otherwise, so that the other authentications don't build a set, nor register
+     * their roles, on each check.
+     *
+     * @param authentication an authentication
+     * @param role the name of a role
+     * @return true if the authentication has the role
+     */
+    public static boolean hasRole(Authentication authentication, String role) {
+        RoleSet roles = cached(authentication);
+        if (roles != null) {
+            return roles.contains(role);
+        }
+        return authentication.getAuthorities().stream()
+            .anyMatch(grantedAuthority -> role.equals(grantedAuthority.getAuthority()));
+    }
+
+    /**
+     * @return the role set kept by the (user) authentication, or null if it is not a {@link RoleSetAuthenticationToken}
+     */
+    private static RoleSet cached(Authentication authentication) {
+        Authentication roles = authentication;
+        if (roles instanceof OAuth2Authentication && ((OAuth2Authentication) roles).getUserAuthentication() != null) {
+            roles = ((OAuth2Authentication) roles).getUserAuthentication();
+        }
+        if (roles instanceof RoleSetAuthenticationToken) {
+            return ((RoleSetAuthenticationToken) roles).getRoleSet();
+        }
+        return null;
+    }
+
+    /**
+     * @param role the name of a role
+     * @return true if the role is in the set
+     */
+    public boolean contains(String role) {
+        int index = AuthorityRegistry.indexOf(role);
+        if (index < 0) {
+            return !unindexed.isEmpty() && unindexed.contains(role);
+        }
+        int word = index >>> 6;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+}
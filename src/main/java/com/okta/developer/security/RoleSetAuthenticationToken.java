@@ -0,0 +1,34 @@
+package com.okta.developer.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Authentication token which keeps the {@link RoleSet} of its authorities, so that role checks on the current user
+ * don't compute it on each request.
+ * <p>
+ * The role set is not serialized with the session, as the indexes of the {@link AuthorityRegistry} are only valid in
+ * the current JVM: it is computed again on first use.
+ */
+public class RoleSetAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient volatile RoleSet roleSet;
+
+    public RoleSetAuthenticationToken(Object principal, Object credentials,
+                                      Collection<? extends GrantedAuthority> authorities) {
+        super(principal, credentials, authorities);
+    }
+
+    public RoleSet getRoleSet() {
+        RoleSet roles = roleSet;
+        if (roles == null) {
+            roles = RoleSet.of(getAuthorities());
+            roleSet = roles;
+        }
+        return roles;
+    }
+}
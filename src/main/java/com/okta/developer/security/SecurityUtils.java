@@ -42,8 +42,7 @@ public final class SecurityUtils {
         SecurityContext securityContext = SecurityContextHolder.getContext();
         Authentication authentication = securityContext.getAuthentication();
         if (authentication != null) {
-            return authentication.getAuthorities().stream()
-                .noneMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(AuthoritiesConstants.ANONYMOUS));
+            return !RoleSet.hasRole(authentication, AuthoritiesConstants.ANONYMOUS);
         }
         return false;
     }
@@ -52,6 +51,8 @@ public final class SecurityUtils {
      * If the current user has a specific authority (security role).
      * <p>
      * The name of this method comes from the isUserInRole() method in the Servlet API
+     * <p>
+     * This is a bit test on the {@link RoleSet} of the current user, when its authentication keeps one.
      *
      * @param authority the authority to check
      * @return true if the current user has the authority, false otherwise
@@ -60,8 +61,7 @@ public final class SecurityUtils {
         SecurityContext securityContext = SecurityContextHolder.getContext();
         Authentication authentication = securityContext.getAuthentication();
         if (authentication != null) {
-            return authentication.getAuthorities().stream()
-                .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(authority));
+            return RoleSet.hasRole(authentication, authority);
         }
         return false;
     }
@@ -1,7 +1,10 @@
 package com.okta.developer.service;
 
 import com.okta.developer.config.audit.AuditEventConverter;
+import com.okta.developer.domain.PersistentAuditEvent;
 import com.okta.developer.repository.PersistenceAuditEventRepository;
+import com.okta.developer.repository.RowCountEstimator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * Service for managing audit events.
@@ -24,6 +28,8 @@ public class AuditEventService {
 
     private final AuditEventConverter auditEventConverter;
 
+    private RowCountEstimator rowCountEstimator;
+
     public AuditEventService(
         PersistenceAuditEventRepository persistenceAuditEventRepository,
         AuditEventConverter auditEventConverter) {
@@ -32,9 +38,19 @@ public class AuditEventService {
         this.auditEventConverter = auditEventConverter;
     }
 
+    @Autowired(required = false)
+    public void setRowCountEstimator(RowCountEstimator rowCountEstimator) {
+        this.rowCountEstimator = rowCountEstimator;
+    }
+
     public Page<AuditEvent> findAll(Pageable pageable) {
-        return persistenceAuditEventRepository.findAll(pageable)
-            .map(auditEventConverter::convertToAuditEvent);
+        OptionalLong estimate = rowCountEstimator != null ?
+            rowCountEstimator.estimate(PersistentAuditEvent.class) : OptionalLong.empty();
+        Page<PersistentAuditEvent> page = estimate.isPresent() ?
+            RowCountEstimator.toPage(persistenceAuditEventRepository.findSliceBy(pageable), pageable,
+                estimate.getAsLong()) :
+            persistenceAuditEventRepository.findAll(pageable);
+        return page.map(auditEventConverter::convertToAuditEvent);
     }
 
     public Page<AuditEvent> findByDates(Instant fromDate, Instant toDate, Pageable pageable) {
@@ -0,0 +1,197 @@
+package com.okta.developer.service;
+
+import com.okta.developer.domain.Authority;
+import com.okta.developer.repository.AuthorityRepository;
+import com.okta.developer.security.AuthorityRegistry;
+import com.okta.developer.service.dto.ResourceVersion;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog of the authorities, held as an immutable snapshot of the "jhi_authority" table.
+ * <p>
+ * The snapshot is loaded when the application is ready, and loaded again on first use after an authority was
+ * inserted, updated or deleted through Hibernate, once the transaction is committed. Readers share the same list of
+ * names, and the Authority instances of the {@link AuthorityRegistry}, which must not be modified.
+ */
+@Service
+public class AuthorityCatalog implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final Logger log = LoggerFactory.getLogger(AuthorityCatalog.class);
+
+    private final AuthorityRepository authorityRepository;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public AuthorityCatalog(AuthorityRepository authorityRepository, EntityManagerFactory entityManagerFactory) {
+        this.authorityRepository = authorityRepository;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void registerChangeListener() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        ChangeListener listener = new ChangeListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        try {
+            snapshot();
+        } catch (DataAccessException e) {
+            log.warn("Could not load the authorities, they will be loaded on first use: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the sorted names of all the authorities, as an unmodifiable list
+     */
+    public List<String> getAuthorityNames() {
+        return snapshot().names;
+    }
+
+    /**
+     * @param name the name of an authority
+     * @return the shared instance of the authority, or null if there is no such authority
+     */
+    public Authority getAuthority(String name) {
+        return snapshot().authorities.get(name);
+    }
+
+    /**
+     * @return the version of the list of the authorities
+     */
+    public ResourceVersion getVersion() {
+        return snapshot().version;
+    }
+
+    /**
+     * Discard the snapshot, so that the authorities are loaded again on first use.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            long loadedGeneration = generation.get();
+            current = load();
+            // Don't keep a snapshot which was loaded while the authorities were changing
+            if (generation.get() == loadedGeneration) {
+                snapshot = current;
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        List<String> names = new ArrayList<>();
+        Map<String, Authority> authorities = new LinkedHashMap<>();
+        authorityRepository.findAll().stream()
+            .map(Authority::getName)
+            .sorted()
+            .forEach(name -> {
+                names.add(name);
+                authorities.put(name, AuthorityRegistry.authority(name));
+            });
+        log.debug("Loaded authorities {}", names);
+        return new Snapshot(Collections.unmodifiableList(names), Collections.unmodifiableMap(authorities),
+            ResourceVersion.of(null, names));
+    }
+
+    private static class Snapshot {
+
+        private final List<String> names;
+
+        private final Map<String, Authority> authorities;
+
+        private final ResourceVersion version;
+
+        Snapshot(List<String> names, Map<String, Authority> authorities, ResourceVersion version) {
+            this.names = names;
+            this.authorities = authorities;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Invalidates the catalog when an authority change is committed.
+     */
+    private class ChangeListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return Authority.class.getName().equals(persister.getEntityName());
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Authority) {
+                invalidate();
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getEntity() instanceof Authority) {
+                invalidate();
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Authority) {
+                invalidate();
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.okta.developer.service;
+
+import com.okta.developer.config.ApplicationProperties;
+import com.okta.developer.config.PoolMetricsTrackerFactory;
+import com.okta.developer.service.dto.PoolTuningDecisionDTO;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service adjusting the size of the Hikari connection pool at runtime.
+ * <p>
+ * It periodically reads the connection wait-time timer and usage histogram that Hikari publishes in the
+ * MetricRegistry, and grows or shrinks maximumPoolSize and minimumIdle through the HikariConfigMXBean, staying
+ * within the bounds configured under "application.pool-tuning".
+ * <p>
+ * When the tuning is enabled, these metrics are published by the {@link PoolMetricsTrackerFactory}, and only hold
+ * the connections of the last interval, so that a burst is forgotten once the pool is idle again.
+ */
+@Service
+public class PoolTuningService {
+
+    private final Logger log = LoggerFactory.getLogger(PoolTuningService.class);
+
+    private final ApplicationProperties.PoolTuning properties;
+
+    private final MetricRegistry metricRegistry;
+
+    private final Deque<PoolTuningDecisionDTO> history = new ArrayDeque<>();
+
+    private HikariDataSource hikariDataSource;
+
+    private int quietIntervals;
+
+    public PoolTuningService(ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.properties = applicationProperties.getPoolTuning();
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Autowired(required = false)
+    public void setHikariDataSource(HikariDataSource hikariDataSource) {
+        this.hikariDataSource = hikariDataSource;
+    }
+
+    /**
+     * Inspect the pool metrics and resize the pool if needed.
+     * <p>
+     * This is scheduled to run every "application.pool-tuning.interval-ms" milliseconds.
+     */
+    @Scheduled(initialDelayString = "${application.pool-tuning.interval-ms:10000}",
+        fixedDelayString = "${application.pool-tuning.interval-ms:10000}")
+    public void tune() {
+        if (!properties.isEnabled() || hikariDataSource == null || hikariDataSource.getPoolName() == null) {
+            return;
+        }
+        String prefix = MetricRegistry.name(hikariDataSource.getPoolName(), "pool");
+        Timer wait = metricRegistry.getTimers().get(MetricRegistry.name(prefix, "Wait"));
+        Histogram usage = metricRegistry.getHistograms().get(MetricRegistry.name(prefix, "Usage"));
+        if (wait == null || usage == null) {
+            log.debug("No metrics available for pool {}, skipping tuning", hikariDataSource.getPoolName());
+            return;
+        }
+        HikariConfigMXBean poolConfig = hikariDataSource;
+        PoolTuningDecisionDTO decision = evaluate(
+            poolConfig.getMaximumPoolSize(),
+            poolConfig.getMinimumIdle(),
+            wait.getSnapshot().get95thPercentile() / TimeUnit.MILLISECONDS.toNanos(1),
+            usage.getSnapshot().get95thPercentile(),
+            gaugeValue(MetricRegistry.name(prefix, "ActiveConnections")),
+            gaugeValue(MetricRegistry.name(prefix, "PendingConnections")));
+        if (decision != null) {
+            poolConfig.setMaximumPoolSize(decision.getMaximumPoolSize());
+            poolConfig.setMinimumIdle(decision.getMinimumIdle());
+            log.info("Resized connection pool {}: {}", poolConfig.getPoolName(), decision);
+        }
+    }
+
+    /**
+     * Decide whether the pool should be resized, and record the decision in the history.
+     *
+     * @param maximumPoolSize the current maximum pool size
+     * @param minimumIdle the current minimum number of idle connections
+     * @param waitP95Ms the 95th percentile of the time spent waiting for a connection, in milliseconds
+     * @param usageP95Ms the 95th percentile of the time a connection is held, in milliseconds
+     * @param activeConnections the number of connections currently in use
+     * @param pendingThreads the number of threads waiting for a connection
+     * @return the decision, or null if the pool should keep its current size
+     */
+    PoolTuningDecisionDTO evaluate(int maximumPoolSize, int minimumIdle, double waitP95Ms, double usageP95Ms,
+                                   int activeConnections, int pendingThreads) {
+        int newMaximumPoolSize = maximumPoolSize;
+        int newMinimumIdle = minimumIdle;
+        String reason;
+        if (waitP95Ms > properties.getWaitThresholdMs() || pendingThreads > 0) {
+            quietIntervals = 0;
+            if (maximumPoolSize >= properties.getMaxPoolSize()) {
+                return null;
+            }
+            newMaximumPoolSize = Math.min(properties.getMaxPoolSize(), maximumPoolSize + properties.getStep());
+            newMinimumIdle = Math.min(newMaximumPoolSize, minimumIdle + properties.getStep());
+            reason = "connection wait above " + properties.getWaitThresholdMs() + " ms";
+        } else if (activeConnections < maximumPoolSize * properties.getShrinkUtilization()) {
+            if (++quietIntervals < properties.getShrinkAfterIntervals() || maximumPoolSize <= properties.getMinPoolSize()) {
+                return null;
+            }
+            quietIntervals = 0;
+            newMaximumPoolSize = Math.max(properties.getMinPoolSize(), maximumPoolSize - properties.getStep());
+            newMinimumIdle = Math.min(newMaximumPoolSize,
+                Math.max(properties.getMinIdleFloor(), minimumIdle - properties.getStep()));
+            reason = "utilization below " + properties.getShrinkUtilization();
+        } else {
+            quietIntervals = 0;
+            return null;
+        }
+        if (newMaximumPoolSize == maximumPoolSize && newMinimumIdle == minimumIdle) {
+            return null;
+        }
+        PoolTuningDecisionDTO decision = new PoolTuningDecisionDTO(Instant.now(), reason,
+            maximumPoolSize, newMaximumPoolSize, minimumIdle, newMinimumIdle,
+            waitP95Ms, usageP95Ms, activeConnections, pendingThreads);
+        synchronized (history) {
+            history.addFirst(decision);
+            while (history.size() > properties.getHistorySize()) {
+                history.removeLast();
+            }
+        }
+        return decision;
+    }
+
+    /**
+     * @return the latest pool resizing decisions, most recent first
+     */
+    public List<PoolTuningDecisionDTO> getHistory() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    private int gaugeValue(String name) {
+        Gauge gauge = metricRegistry.getGauges().get(name);
+        if (gauge == null || !(gauge.getValue() instanceof Number)) {
+            return 0;
+        }
+        return ((Number) gauge.getValue()).intValue();
+    }
+}
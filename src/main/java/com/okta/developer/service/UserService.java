@@ -2,26 +2,39 @@ package com.okta.developer.service;
 
 import com.okta.developer.domain.Authority;
 import com.okta.developer.domain.User;
-import com.okta.developer.repository.AuthorityRepository;
 import com.okta.developer.config.Constants;
+import com.okta.developer.repository.RowCountEstimator;
 import com.okta.developer.repository.UserRepository;
 import com.okta.developer.security.SecurityUtils;
+import com.okta.developer.service.dto.ResourceVersion;
 import com.okta.developer.service.dto.UserDTO;
 import com.okta.developer.web.rest.vm.ManagedUserVM;
 
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service class for managing users.
+ * <p>
+ * The cached users and their versions are evicted once the transaction changing them is committed, so that a
+ * concurrent request can't cache the previous state again in the meantime.
  */
 @Service
 @Transactional
@@ -31,18 +44,32 @@ public class UserService {
 
     private static final String USERS_CACHE = "users";
 
+    private static final String RESOURCE_VERSIONS_CACHE = "resourceVersions";
+
     private final UserRepository userRepository;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityCatalog authorityCatalog;
 
     private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    private RowCountEstimator rowCountEstimator;
+
+    /**
+     * Incremented on each committed change of a user, so that a version loaded while a user was changing isn't kept.
+     */
+    private final AtomicLong userChanges = new AtomicLong();
+
+    public UserService(UserRepository userRepository, AuthorityCatalog authorityCatalog, CacheManager cacheManager) {
         this.userRepository = userRepository;
-        this.authorityRepository = authorityRepository;
+        this.authorityCatalog = authorityCatalog;
         this.cacheManager = cacheManager;
     }
 
+    @Autowired(required = false)
+    public void setRowCountEstimator(RowCountEstimator rowCountEstimator) {
+        this.rowCountEstimator = rowCountEstimator;
+    }
+
     /**
      * Update basic information (first name, last name, email, language) for the current user.
      *
@@ -59,7 +86,7 @@ public class UserService {
             user.setEmail(email);
             user.setLangKey(langKey);
             user.setImageUrl(imageUrl);
-            cacheManager.getCache(USERS_CACHE).evict(user.getLogin());
+            evictUser(user.getLogin());
             log.debug("Changed Information for User: {}", user);
         });
     }
@@ -74,6 +101,8 @@ public class UserService {
         return Optional.of(userRepository
             .findOne(userDTO.getId()))
             .map(user -> {
+                // The user is no longer found under its previous login
+                evictUser(user.getLogin());
                 user.setLogin(userDTO.getLogin());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -84,9 +113,10 @@ public class UserService {
                 Set<Authority> managedAuthorities = user.getAuthorities();
                 managedAuthorities.clear();
                 userDTO.getAuthorities().stream()
-                    .map(authorityRepository::findOne)
+                    .map(authorityCatalog::getAuthority)
+                    .filter(Objects::nonNull)
                     .forEach(managedAuthorities::add);
-                cacheManager.getCache(USERS_CACHE).evict(user.getLogin());
+                evictUser(user.getLogin());
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -96,7 +126,7 @@ public class UserService {
     public void deleteUser(String login) {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             userRepository.delete(user);
-            cacheManager.getCache(USERS_CACHE).evict(login);
+            evictUser(login);
             log.debug("Deleted User: {}", user);
         });
     }
@@ -106,6 +136,46 @@ public class UserService {
         return userRepository.findAllByLoginNot(pageable, Constants.ANONYMOUS_USER).map(UserDTO::new);
     }
 
+    /**
+     * Get a page of the managed users, with their authorities loaded so that they can be serialized as a
+     * {@link com.okta.developer.service.dto.UserListDTO} once the transaction is over.
+     * <p>
+     * The total number of users is estimated, without counting them, on the large tables of PostgreSQL when the
+     * approximate counts are enabled, see the {@link RowCountEstimator}.
+     *
+     * @param pageable the pagination information
+     * @return the page of users
+     */
+    @Transactional(readOnly = true)
+    public Page<User> getAllManagedUsersWithAuthorities(Pageable pageable) {
+        OptionalLong estimate = rowCountEstimator != null ?
+            rowCountEstimator.estimate(User.class) : OptionalLong.empty();
+        Page<User> page = estimate.isPresent() ?
+            RowCountEstimator.toPage(userRepository.findSliceByLoginNot(pageable, Constants.ANONYMOUS_USER), pageable,
+                estimate.getAsLong()) :
+            userRepository.findAllByLoginNot(pageable, Constants.ANONYMOUS_USER);
+        page.forEach(user -> Hibernate.initialize(user.getAuthorities()));
+        return page;
+    }
+
+    /**
+     * Get a slice of the managed users ordered by id, after a given id, with their authorities loaded, without
+     * counting nor skipping the users before it.
+     *
+     * @param id the id of the last user of the previous slice, or null for the first slice
+     * @param size the number of users of the slice
+     * @return the slice of users
+     */
+    @Transactional(readOnly = true)
+    public Slice<User> getManagedUsersWithAuthoritiesAfter(Long id, int size) {
+        Pageable pageable = new PageRequest(0, size, Sort.Direction.ASC, "id");
+        Slice<User> slice = id != null ?
+            userRepository.findSliceByLoginNotAndIdGreaterThan(pageable, Constants.ANONYMOUS_USER, id) :
+            userRepository.findSliceByLoginNot(pageable, Constants.ANONYMOUS_USER);
+        slice.forEach(user -> Hibernate.initialize(user.getAuthorities()));
+        return slice;
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
         return userRepository.findOneWithAuthoritiesByLogin(login);
@@ -125,6 +195,92 @@ public class UserService {
      * @return a list of all the authorities
      */
     public List<String> getAuthorities() {
-        return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
+        return authorityCatalog.getAuthorityNames();
+    }
+
+    /**
+     * Get the version of the "login" user, from the cached version stamps when possible, so that conditional
+     * requests don't need to load the user.
+     *
+     * @param login the login of the user
+     * @return the version of the user, or empty if there is no such user
+     */
+    @Transactional(readOnly = true)
+    public Optional<ResourceVersion> getUserVersion(String login) {
+        Cache versions = cacheManager.getCache(RESOURCE_VERSIONS_CACHE);
+        ResourceVersion version = versions.get(userVersionKey(login), ResourceVersion.class);
+        if (version == null) {
+            long loadedChanges = userChanges.get();
+            Optional<User> user = userRepository.findOneWithAuthoritiesByLogin(login);
+            if (!user.isPresent()) {
+                return Optional.empty();
+            }
+            version = ResourceVersion.of(new UserDTO(user.get()));
+            versions.put(userVersionKey(login), version);
+            // A change committed during the load may have been evicted before this put: don't keep a stale version
+            if (userChanges.get() != loadedChanges) {
+                versions.evict(userVersionKey(login));
+            }
+        }
+        return Optional.of(version);
+    }
+
+    /**
+     * Get the "login" user from the cache only, without starting a transaction nor querying the database.
+     *
+     * @param login the login of the user
+     * @return the cached user, or empty if the user is not cached
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<User> getCachedUserWithAuthoritiesByLogin(String login) {
+        return Optional.ofNullable(cacheManager.getCache(USERS_CACHE).get(login, User.class));
+    }
+
+    /**
+     * Get the version of the "login" user from the cached version stamps only, without starting a transaction nor
+     * querying the database.
+     *
+     * @param login the login of the user
+     * @return the cached version of the user, or empty if it is not cached
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ResourceVersion> getCachedUserVersion(String login) {
+        return Optional.ofNullable(cacheManager.getCache(RESOURCE_VERSIONS_CACHE)
+            .get(userVersionKey(login), ResourceVersion.class));
+    }
+
+    /**
+     * @return the version of the list of all the authorities
+     */
+    public ResourceVersion getAuthoritiesVersion() {
+        return authorityCatalog.getVersion();
+    }
+
+    /**
+     * Evict the "login" user from the caches once the current transaction is committed, or at once without
+     * transaction.
+     */
+    private void evictUser(String login) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    evictCommittedUser(login);
+                }
+            });
+        } else {
+            evictCommittedUser(login);
+        }
+    }
+
+    private void evictCommittedUser(String login) {
+        userChanges.incrementAndGet();
+        cacheManager.getCache(USERS_CACHE).evict(login);
+        cacheManager.getCache(RESOURCE_VERSIONS_CACHE).evict(userVersionKey(login));
+    }
+
+    private static String userVersionKey(String login) {
+        return "user:" + login;
     }
 }
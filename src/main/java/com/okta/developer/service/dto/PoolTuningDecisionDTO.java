@@ -0,0 +1,99 @@
+package com.okta.developer.service.dto;
+
+import java.time.Instant;
+
+/**
+ * A DTO representing a resize of the connection pool, with the observations that triggered it.
+ */
+public class PoolTuningDecisionDTO {
+
+    private final Instant timestamp;
+
+    private final String reason;
+
+    private final int previousMaximumPoolSize;
+
+    private final int maximumPoolSize;
+
+    private final int previousMinimumIdle;
+
+    private final int minimumIdle;
+
+    private final double waitP95Ms;
+
+    private final double usageP95Ms;
+
+    private final int activeConnections;
+
+    private final int pendingThreads;
+
+    public PoolTuningDecisionDTO(Instant timestamp, String reason, int previousMaximumPoolSize, int maximumPoolSize,
+        int previousMinimumIdle, int minimumIdle, double waitP95Ms, double usageP95Ms,
+        int activeConnections, int pendingThreads) {
+
+        this.timestamp = timestamp;
+        this.reason = reason;
+        this.previousMaximumPoolSize = previousMaximumPoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.previousMinimumIdle = previousMinimumIdle;
+        this.minimumIdle = minimumIdle;
+        this.waitP95Ms = waitP95Ms;
+        this.usageP95Ms = usageP95Ms;
+        this.activeConnections = activeConnections;
+        this.pendingThreads = pendingThreads;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public int getPreviousMaximumPoolSize() {
+        return previousMaximumPoolSize;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public int getPreviousMinimumIdle() {
+        return previousMinimumIdle;
+    }
+
+    public int getMinimumIdle() {
+        return minimumIdle;
+    }
+
+    public double getWaitP95Ms() {
+        return waitP95Ms;
+    }
+
+    public double getUsageP95Ms() {
+        return usageP95Ms;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getPendingThreads() {
+        return pendingThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolTuningDecisionDTO{" +
+            "timestamp=" + timestamp +
+            ", reason='" + reason + '\'' +
+            ", maximumPoolSize=" + previousMaximumPoolSize + "->" + maximumPoolSize +
+            ", minimumIdle=" + previousMinimumIdle + "->" + minimumIdle +
+            ", waitP95Ms=" + waitP95Ms +
+            ", usageP95Ms=" + usageP95Ms +
+            ", activeConnections=" + activeConnections +
+            ", pendingThreads=" + pendingThreads +
+            "}";
+    }
+}
@@ -0,0 +1,99 @@
+package com.okta.developer.service.dto;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * A version stamp of a REST resource, used for conditional requests: its ETag, and its last modification date when
+ * it is known.
+ * <p>
+ * Version stamps are small, so they are cached apart from the resources themselves, to answer conditional requests
+ * without loading the resource.
+ */
+public class ResourceVersion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String etag;
+
+    private final Instant lastModified;
+
+    public ResourceVersion(String etag, Instant lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @param lastModified the last modification date of the resource, or null if it is not known
+     * @param state the state of the resource, which the ETag is a hash of, along with the last modification date
+     * @return the version of the resource
+     */
+    public static ResourceVersion of(Instant lastModified, Object... state) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(String.valueOf(lastModified).getBytes(StandardCharsets.UTF_8));
+        for (Object value : state) {
+            digest.update((byte) 0);
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+        String hash = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 12));
+        return new ResourceVersion("\"" + hash + "\"", lastModified);
+    }
+
+    /**
+     * @param user a user, from the database or from the identity provider
+     * @return the version of the user, with the last modification date of the database when the user comes from it
+     */
+    public static ResourceVersion of(UserDTO user) {
+        return of(user.getLastModifiedDate(), user.getId(), user.getLogin(), user.getFirstName(), user.getLastName(),
+            user.getEmail(), user.getImageUrl(), user.isActivated(), user.getLangKey(),
+            user.getAuthorities() == null ? null : new TreeSet<>(user.getAuthorities()));
+    }
+
+    /**
+     * @return the ETag, with its quotes
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ResourceVersion that = (ResourceVersion) o;
+        return etag.equals(that.etag) && Objects.equals(lastModified, that.lastModified);
+    }
+
+    @Override
+    public int hashCode() {
+        return etag.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceVersion{" +
+            "etag=" + etag +
+            ", lastModified=" + lastModified +
+            "}";
+    }
+}
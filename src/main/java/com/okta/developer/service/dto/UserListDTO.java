@@ -0,0 +1,89 @@
+package com.okta.developer.service.dto;
+
+import com.okta.developer.domain.Authority;
+import com.okta.developer.domain.User;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A list of users, serialized as a list of {@link UserDTO}s, but written straight from the User entities to the JSON
+ * generator, without copying each user into a DTO nor collecting its authority names into a set.
+ * <p>
+ * The authorities of the users must be loaded before the list is serialized, out of the transaction.
+ */
+@JsonSerialize(using = UserListDTO.Serializer.class)
+public class UserListDTO {
+
+    private final List<User> users;
+
+    public UserListDTO(List<User> users) {
+        this.users = users;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    /**
+     * Writes the same properties as the serialization of the UserDTO, in the same order, with the dates written by
+     * the serializer of the object mapper.
+     */
+    public static class Serializer extends StdSerializer<UserListDTO> {
+
+        public Serializer() {
+            super(UserListDTO.class);
+        }
+
+        @Override
+        public void serialize(UserListDTO value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            JsonSerializer<Object> instantSerializer = provider.findValueSerializer(Instant.class);
+            gen.writeStartArray(value.users.size());
+            for (User user : value.users) {
+                gen.writeStartObject();
+                if (user.getId() != null) {
+                    gen.writeNumberField("id", user.getId());
+                } else {
+                    gen.writeNullField("id");
+                }
+                gen.writeStringField("login", user.getLogin());
+                gen.writeStringField("firstName", user.getFirstName());
+                gen.writeStringField("lastName", user.getLastName());
+                gen.writeStringField("email", user.getEmail());
+                gen.writeStringField("imageUrl", user.getImageUrl());
+                gen.writeBooleanField("activated", user.getActivated());
+                gen.writeStringField("langKey", user.getLangKey());
+                gen.writeStringField("createdBy", user.getCreatedBy());
+                writeInstantField(gen, "createdDate", user.getCreatedDate(), instantSerializer, provider);
+                gen.writeStringField("lastModifiedBy", user.getLastModifiedBy());
+                writeInstantField(gen, "lastModifiedDate", user.getLastModifiedDate(), instantSerializer, provider);
+                gen.writeArrayFieldStart("authorities");
+                for (Authority authority : user.getAuthorities()) {
+                    gen.writeString(authority.getName());
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        private static void writeInstantField(JsonGenerator gen, String name, Instant value,
+                                              JsonSerializer<Object> serializer, SerializerProvider provider)
+            throws IOException {
+
+            gen.writeFieldName(name);
+            if (value != null) {
+                serializer.serialize(value, gen, provider);
+            } else {
+                gen.writeNull();
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.okta.developer.service.mapper;
 
 import com.okta.developer.domain.Authority;
 import com.okta.developer.domain.User;
+import com.okta.developer.security.AuthorityRegistry;
+import com.okta.developer.service.AuthorityCatalog;
 import com.okta.developer.service.dto.UserDTO;
 
 import org.springframework.stereotype.Service;
@@ -18,6 +20,12 @@ import java.util.stream.Collectors;
 @Service
 public class UserMapper {
 
+    private final AuthorityCatalog authorityCatalog;
+
+    public UserMapper(AuthorityCatalog authorityCatalog) {
+        this.authorityCatalog = authorityCatalog;
+    }
+
     public UserDTO userToUserDTO(User user) {
         return new UserDTO(user);
     }
@@ -66,11 +74,14 @@ public class UserMapper {
         return user;
     }
 
+    /**
+     * Map authority names to the shared instances of the AuthorityCatalog. Names which are not in the catalog get
+     * the instance of the AuthorityRegistry.
+     */
     public Set<Authority> authoritiesFromStrings(Set<String> strings) {
         return strings.stream().map(string -> {
-            Authority auth = new Authority();
-            auth.setName(string);
-            return auth;
+            Authority auth = authorityCatalog.getAuthority(string);
+            return auth != null ? auth : AuthorityRegistry.authority(string);
         }).collect(Collectors.toSet());
     }
 }
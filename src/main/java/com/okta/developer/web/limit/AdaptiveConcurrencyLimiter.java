@@ -0,0 +1,120 @@
+package com.okta.developer.web.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Limit on the number of concurrent requests, adapted to their latency with an additive increase, multiplicative
+ * decrease (AIMD) policy, so that the requests over the capacity of the server are rejected at once instead of
+ * queuing for its threads and database connections.
+ * <p>
+ * A request slower than the latency threshold, or completed while the congestion signal is raised, such as when
+ * threads are waiting for a database connection, decreases the limit by the backoff ratio, at most once per latency
+ * threshold so that the requests of the same burst only decrease it once. A request completed within the threshold
+ * while the limit was at least half used increases it by one.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong lastDecrease;
+
+    private BooleanSupplier congestionSignal = () -> false;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs,
+                                      double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, latencyThresholdMs, backoffRatio, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs,
+                               double backoffRatio, LongSupplier nanoClock) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("The limits must be positive, with min-limit <= initial-limit <= " +
+                "max-limit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("The backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.nanoClock = nanoClock;
+        this.limit = new AtomicInteger(initialLimit);
+        this.lastDecrease = new AtomicLong(nanoClock.getAsLong() - latencyThresholdNanos);
+    }
+
+    /**
+     * @param congestionSignal whether a resource used by the requests is saturated
+     */
+    public void setCongestionSignal(BooleanSupplier congestionSignal) {
+        this.congestionSignal = congestionSignal;
+    }
+
+    /**
+     * Start a request, if the limit allows it.
+     *
+     * @return whether the request can go on, in which case it must be ended with {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * End a request started with {@link #tryAcquire}, and adapt the limit to its latency.
+     *
+     * @param latencyNanos the time the request took
+     */
+    public void release(long latencyNanos) {
+        int used = inFlight.getAndDecrement();
+        int current = limit.get();
+        if (latencyNanos > latencyThresholdNanos || congestionSignal.getAsBoolean()) {
+            long now = nanoClock.getAsLong();
+            long last = lastDecrease.get();
+            if (now - last >= latencyThresholdNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.compareAndSet(current, Math.max(minLimit, (int) (current * backoffRatio)));
+            }
+        } else if (used * 2 >= current && current < maxLimit) {
+            limit.compareAndSet(current, current + 1);
+        }
+    }
+
+    /**
+     * End a request started with {@link #tryAcquire}, without adapting the limit, for the requests whose latency
+     * depends on another service rather than on the load of this one.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
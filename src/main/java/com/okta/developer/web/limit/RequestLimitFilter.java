@@ -0,0 +1,241 @@
+package com.okta.developer.web.limit;
+
+import com.okta.developer.security.PathTrie;
+import com.okta.developer.web.rest.errors.ServiceOverloadedException;
+import com.okta.developer.web.rest.errors.TooManyRequestsException;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.zalando.problem.ThrowableProblem;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Filter protecting the expensive endpoints, such as the account endpoint and the OAuth2 login callback, from bursts
+ * of requests.
+ * <p>
+ * Each request takes a token from the {@link TokenBucketRateLimiter} of its user when it is authenticated, and of its
+ * client IP otherwise, and then needs a slot of the {@link AdaptiveConcurrencyLimiter}, held until the response is
+ * complete, including for the asynchronous requests. The client IP is read from the X-Forwarded-For header when the
+ * request comes from a trusted proxy, skipping the trusted proxies of the header, so that the clients behind a load
+ * balancer don't share its bucket. The latency of the unmeasured paths, such as the OAuth2 login callback which waits
+ * for the identity provider, doesn't adapt the concurrency limit, as it doesn't depend on the load of the server. The
+ * rejected requests are answered with a Too Many Requests or a Service Unavailable problem, through the handler
+ * exception resolver and so the ExceptionTranslator.
+ * <p>
+ * The filter runs in the security filter chain, right after the security context is loaded, so that it knows the
+ * user before the login callback or the controllers do any work.
+ * <p>
+ * When a metric registry is available, the rejected requests are metered as "request-limit.rate-limited" and
+ * "request-limit.shed", with the "request-limit.concurrency.limit" and "request-limit.concurrency.in-flight" gauges.
+ */
+public class RequestLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * The same default as the internal proxies of Tomcat: the private, loopback and link-local addresses.
+     */
+    public static final String DEFAULT_TRUSTED_PROXIES = "10\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|" +
+        "192\\.168\\.\\d{1,3}\\.\\d{1,3}|" +
+        "169\\.254\\.\\d{1,3}\\.\\d{1,3}|" +
+        "127\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|" +
+        "172\\.1[6-9]\\.\\d{1,3}\\.\\d{1,3}|172\\.2[0-9]\\.\\d{1,3}\\.\\d{1,3}|172\\.3[0-1]\\.\\d{1,3}\\.\\d{1,3}|" +
+        "0:0:0:0:0:0:0:1|::1";
+
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final PathTrie<Boolean> paths = new PathTrie<>();
+
+    private final PathTrie<Boolean> unmeasuredPaths = new PathTrie<>();
+
+    private Pattern trustedProxies = Pattern.compile(DEFAULT_TRUSTED_PROXIES);
+
+    private final TokenBucketRateLimiter principalLimiter;
+
+    private final TokenBucketRateLimiter clientIpLimiter;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final HandlerExceptionResolver exceptionResolver;
+
+    private Meter rateLimited = new Meter();
+
+    private Meter shed = new Meter();
+
+    /**
+     * @param paths the Ant-style patterns of the protected paths
+     */
+    public RequestLimitFilter(Iterable<String> paths, TokenBucketRateLimiter principalLimiter,
+                              TokenBucketRateLimiter clientIpLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                              HandlerExceptionResolver exceptionResolver) {
+        paths.forEach(pattern -> this.paths.add(pattern, Boolean.TRUE));
+        this.principalLimiter = principalLimiter;
+        this.clientIpLimiter = clientIpLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    /**
+     * @param trustedProxies the regular expression of the addresses of the proxies whose X-Forwarded-For header is
+     * trusted, or an empty one to always limit the remote address
+     */
+    public void setTrustedProxies(String trustedProxies) {
+        this.trustedProxies = Pattern.compile(trustedProxies);
+    }
+
+    /**
+     * @param unmeasuredPaths the Ant-style patterns of the protected paths whose latency doesn't adapt the concurrency
+     * limit
+     */
+    public void setUnmeasuredPaths(Iterable<String> unmeasuredPaths) {
+        unmeasuredPaths.forEach(pattern -> this.unmeasuredPaths.add(pattern, Boolean.TRUE));
+    }
+
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        rateLimited = metricRegistry.meter("request-limit.rate-limited");
+        shed = metricRegistry.meter("request-limit.shed");
+        metricRegistry.register("request-limit.concurrency.limit", (Gauge<Integer>) concurrencyLimiter::getLimit);
+        metricRegistry.register("request-limit.concurrency.in-flight",
+            (Gauge<Integer>) concurrencyLimiter::getInFlight);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return paths.match(request.getMethod(), path(request)) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        long waitNanos = authentication != null && authentication.isAuthenticated() &&
+            !(authentication instanceof AnonymousAuthenticationToken) ?
+            principalLimiter.tryAcquire(authentication.getName()) : clientIpLimiter.tryAcquire(clientIp(request));
+        if (waitNanos > 0) {
+            rateLimited.mark();
+            reject(new TooManyRequestsException(TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1), request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            shed.mark();
+            reject(new ServiceOverloadedException(1), request, response);
+            return;
+        }
+        boolean measured = unmeasuredPaths.match(request.getMethod(), path(request)) == null;
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseListener(start, measured));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                release(start, measured);
+            }
+        }
+    }
+
+    /**
+     * @return the address of the client, read from the X-Forwarded-For header from right to left while the addresses
+     * are trusted proxies
+     */
+    String clientIp(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        if (forwardedFor == null || !trustedProxies.matcher(address).matches()) {
+            return address;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty()) {
+                address = hop;
+                if (!trustedProxies.matcher(hop).matches()) {
+                    break;
+                }
+            }
+        }
+        return address;
+    }
+
+    private void release(long start, boolean measured) {
+        if (measured) {
+            concurrencyLimiter.release(System.nanoTime() - start);
+        } else {
+            concurrencyLimiter.release();
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getPathInfo() != null ? request.getServletPath() + request.getPathInfo() :
+            request.getServletPath();
+    }
+
+    private void reject(ThrowableProblem problem, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+
+        if (exceptionResolver.resolveException(request, response, null, problem) == null) {
+            response.sendError(problem.getStatus().getStatusCode());
+        }
+    }
+
+    /**
+     * Releases the slot of an asynchronous request once, when it completes, fails or times out.
+     */
+    private final class ReleaseListener implements AsyncListener {
+
+        private final long start;
+
+        private final boolean measured;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseListener(long start, boolean measured) {
+            this.start = start;
+            this.measured = measured;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                RequestLimitFilter.this.release(start, measured);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.okta.developer.web.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets by key, such as a user or a client IP, kept in a fixed-size table so that their memory is bounded
+ * whatever the number of keys.
+ * <p>
+ * A bucket holds up to "capacity" tokens and is refilled at a constant rate; each request takes a token. The bucket
+ * is kept as the single time at which it will be full again, as in the generic cell rate algorithm, so that it is
+ * updated with one compare-and-set, without any lock.
+ * <p>
+ * A key is looked up in a few slots of the table from its hash. When they are all taken by other keys, the bucket
+ * which is the closest to full is replaced: the buckets which are full again carry no state and are replaced without
+ * any loss, and otherwise the replaced key gets a full bucket the next time, which only lets it through sooner.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final int MAX_PROBES = 8;
+
+    private final long capacity;
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final AtomicReferenceArray<Bucket> table;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param capacity the number of requests allowed in a burst
+     * @param refillPerSecond the number of requests allowed per second, on average
+     * @param maxEntries the number of buckets kept, rounded up to a power of two
+     */
+    public TokenBucketRateLimiter(long capacity, double refillPerSecond, int maxEntries) {
+        this(capacity, refillPerSecond, maxEntries, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(long capacity, double refillPerSecond, int maxEntries, LongSupplier nanoClock) {
+        if (capacity < 1 || refillPerSecond <= 0 || maxEntries < 1) {
+            throw new IllegalArgumentException("The capacity, refill rate and number of entries must be positive");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = capacity * intervalNanos;
+        int size = Integer.highestOneBit(Math.max(MAX_PROBES, maxEntries) - 1) << 1;
+        this.table = new AtomicReferenceArray<>(size);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Take a token from the bucket of a key.
+     *
+     * @param key the key of the bucket
+     * @return 0 if a token was taken, otherwise the time until the next token, in nanoseconds
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong fullAt = bucket(key, now).fullAt;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of buckets replaced before they were full again
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the number of slots of the table
+     */
+    int size() {
+        return table.length();
+    }
+
+    private Bucket bucket(String key, long now) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        int mask = table.length() - 1;
+        int victimIndex = -1;
+        Bucket victim = null;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int index = (hash + probe) & mask;
+            Bucket bucket = table.get(index);
+            if (bucket == null) {
+                Bucket created = new Bucket(key, now);
+                if (table.compareAndSet(index, null, created)) {
+                    return created;
+                }
+                bucket = table.get(index);
+            }
+            if (bucket.key.equals(key)) {
+                return bucket;
+            }
+            if (victim == null || bucket.fullAt.get() < victim.fullAt.get()) {
+                victimIndex = index;
+                victim = bucket;
+            }
+        }
+        if (victim.fullAt.get() > now) {
+            evictions.incrementAndGet();
+        }
+        Bucket created = new Bucket(key, now);
+        // When another thread replaced the victim first, this bucket is only used by the current request
+        table.compareAndSet(victimIndex, victim, created);
+        return created;
+    }
+
+    private static final class Bucket {
+
+        private final String key;
+
+        /**
+         * Time at which the bucket is full again, in nanoseconds.
+         */
+        private final AtomicLong fullAt;
+
+        Bucket(String key, long now) {
+            this.key = key;
+            this.fullAt = new AtomicLong(now);
+        }
+    }
+}
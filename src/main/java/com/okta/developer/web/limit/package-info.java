@@ -0,0 +1,4 @@
+/**
+ * Rate limiting and load shedding of the expensive endpoints.
+ */
+package com.okta.developer.web.limit;
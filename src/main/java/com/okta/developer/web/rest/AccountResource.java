@@ -3,27 +3,36 @@ package com.okta.developer.web.rest;
 import com.okta.developer.domain.User;
 import com.okta.developer.domain.Authority;
 import com.okta.developer.repository.UserRepository;
+import com.okta.developer.security.AuthorityRegistry;
+import com.okta.developer.security.PrincipalCache;
+import com.okta.developer.security.RoleSetAuthenticationToken;
 import com.okta.developer.service.UserService;
+import com.okta.developer.service.dto.ResourceVersion;
 import com.okta.developer.service.dto.UserDTO;
 import com.okta.developer.web.rest.errors.InternalServerErrorException;
+import com.okta.developer.web.rest.util.ConditionalRequestUtil;
+import com.okta.developer.web.rest.util.DeferredResultUtil;
 
 import com.codahale.metrics.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.http.HttpServletRequest;
 import java.security.Principal;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 /**
  * REST controller for managing the current user's account.
@@ -38,9 +47,16 @@ public class AccountResource {
 
     private final UserService userService;
 
-    public AccountResource(UserRepository userRepository, UserService userService) {
+    private final PrincipalCache principalCache;
+
+    private final Executor taskExecutor;
+
+    public AccountResource(UserRepository userRepository, UserService userService, PrincipalCache principalCache,
+                           @Qualifier("taskExecutor") Executor taskExecutor) {
         this.userRepository = userRepository;
         this.userService = userService;
+        this.principalCache = principalCache;
+        this.taskExecutor = taskExecutor;
     }
 
     /**
@@ -58,127 +74,233 @@ public class AccountResource {
 
     /**
      * GET  /account : get the current user.
+     * <p>
+     * Users from the identity provider are versioned with a hash of their details, so that a conditional request
+     * for an unchanged user gets a 304 (Not Modified) without synchronizing it with the database. They are mapped
+     * from the claims and synchronized once per login, and then served from the {@link PrincipalCache}.
      *
      * @param principal the current user; resolves to null if not authenticated
-     * @return the current user
+     * @param webRequest the current request, which may be conditional
+     * @return the current user, or null with status 304 (Not Modified) if the user did not change
      * @throws InternalServerErrorException 500 (Internal Server Error) if the user couldn't be returned
      */
     @GetMapping("/account")
     @Timed
+    public UserDTO getAccount(Principal principal, ServletWebRequest webRequest) {
+        if (principal instanceof OAuth2Authentication) {
+            OAuth2Authentication authentication = (OAuth2Authentication) principal;
+            PrincipalCache.Entry cached = principalCache.get(authentication);
+            if (cached != null) {
+                return getCachedAccount(authentication, cached, webRequest);
+            }
+            IdpAccount account = mapIdpAccount(authentication);
+            if (ConditionalRequestUtil.checkNotModified(webRequest, account.version)) {
+                return null;
+            }
+            return syncIdpAccount(account);
+        } else if (principal != null) {
+            // Allow Spring Security Test to be used to mock users in the database
+            UserDTO userDTO = getDatabaseAccount();
+            if (ConditionalRequestUtil.checkNotModified(webRequest, ResourceVersion.of(userDTO))) {
+                return null;
+            }
+            return userDTO;
+        } else {
+            throw new InternalServerErrorException("User could not be found");
+        }
+    }
+
+    /**
+     * GET  /async/account : get the current user, without holding the request thread while the user is synchronized
+     * with the database.
+     * <p>
+     * Users found in the {@link PrincipalCache} are returned at once, as by {@link #getAccount}. The others are
+     * mapped from the claims, and checked against the conditional headers, in the request thread, and then
+     * synchronized by the task executor while the request thread is released. The users of the database are loaded
+     * by the task executor, and their conditional headers are checked when the response is written.
+     *
+     * @param principal the current user; resolves to null if not authenticated
+     * @param webRequest the current request, which may be conditional
+     * @return the current user, or null with status 304 (Not Modified) if the user did not change
+     * @throws InternalServerErrorException 500 (Internal Server Error) if the user couldn't be returned
+     */
+    @GetMapping("/async/account")
+    @Timed
+    public DeferredResult<ResponseEntity<UserDTO>> getAccountAsync(Principal principal, ServletWebRequest webRequest) {
+        if (principal instanceof OAuth2Authentication) {
+            OAuth2Authentication authentication = (OAuth2Authentication) principal;
+            PrincipalCache.Entry cached = principalCache.get(authentication);
+            if (cached != null) {
+                UserDTO userDTO = getCachedAccount(authentication, cached, webRequest);
+                return DeferredResultUtil.completed(userDTO != null ? ResponseEntity.ok(userDTO) : null);
+            }
+            IdpAccount account = mapIdpAccount(authentication);
+            if (ConditionalRequestUtil.checkNotModified(webRequest, account.version)) {
+                return DeferredResultUtil.completed(null);
+            }
+            return DeferredResultUtil.supplyAsync(taskExecutor, "account",
+                () -> ResponseEntity.ok(syncIdpAccount(account)));
+        }
+        return DeferredResultUtil.supplyAsync(taskExecutor, "account", () -> {
+            if (principal == null) {
+                throw new InternalServerErrorException("User could not be found");
+            }
+            UserDTO userDTO = getDatabaseAccount();
+            return ConditionalRequestUtil.versioned(userDTO, ResourceVersion.of(userDTO));
+        });
+    }
+
+    /**
+     * Map the user from the claims of the identity provider, and replace the authentication of the security context
+     * of the request by one with the authorities of the user.
+     */
     @SuppressWarnings("unchecked")
-    public UserDTO getAccount(Principal principal) {
-        if (principal != null) {
-            if (principal instanceof OAuth2Authentication) {
-                OAuth2Authentication authentication = (OAuth2Authentication) principal;
-                Map<String, Object> details = (Map<String, Object>) authentication.getUserAuthentication().getDetails();
-                Set<Authority> userAuthorities;
-
-                // get roles from details
-                if (details.get("roles") != null) {
-                    List<String> roles = (List) details.get("roles");
-                    userAuthorities = roles.stream()
-                        .filter(role -> role.startsWith("ROLE_"))
-                        .map(role -> {
-                            Authority userAuthority = new Authority();
-                            userAuthority.setName(role);
-                            return userAuthority;
-                        })
-                        .collect(Collectors.toSet());
-                    // if roles don't exist, try groups
-                } else if (details.get("groups") != null) {
-                    List<String> groups = (List) details.get("groups");
-                    userAuthorities = groups.stream()
-                        .filter(group -> group.startsWith("ROLE_"))
-                        .map(group -> {
-                            Authority userAuthority = new Authority();
-                            userAuthority.setName(group);
-                            return userAuthority;
-                        })
-                        .collect(Collectors.toSet());
-                } else {
-                    userAuthorities = authentication.getAuthorities().stream()
-                        .map(role -> {
-                            Authority userAuthority = new Authority();
-                            userAuthority.setName(role.getAuthority());
-                            return userAuthority;
-                        })
-                        .collect(Collectors.toSet());
-                }
+    private static IdpAccount mapIdpAccount(OAuth2Authentication idpAuthentication) {
+        Map<String, Object> details = (Map<String, Object>) idpAuthentication.getUserAuthentication().getDetails();
+        Set<Authority> userAuthorities;
 
-                User user = new User();
-                user.setLogin((String) details.get("preferred_username"));
-                if (details.get("given_name") != null) {
-                    user.setFirstName((String) details.get("given_name"));
-                }
-                if (details.get("family_name") != null) {
-                    user.setFirstName((String) details.get("family_name"));
-                }
-                if (details.get("email_verified") != null) {
-                    user.setActivated((Boolean) details.get("email_verified"));
-                }
-                if (details.get("email") != null) {
-                    user.setEmail((String) details.get("email"));
-                }
-                if (details.get("langKey") != null) {
-                    user.setLangKey((String) details.get("langKey"));
-                } else if (details.get("locale") != null) {
-                    String locale = (String) details.get("locale");
-                    String langKey = locale.substring(0, locale.indexOf("-"));
-                    user.setLangKey(langKey);
-                }
+        // get roles from details
+        if (details.get("roles") != null) {
+            List<String> roles = (List) details.get("roles");
+            userAuthorities = roles.stream()
+                .filter(role -> role.startsWith("ROLE_"))
+                .map(AuthorityRegistry::authority)
+                .collect(Collectors.toSet());
+            // if roles don't exist, try groups
+        } else if (details.get("groups") != null) {
+            List<String> groups = (List) details.get("groups");
+            userAuthorities = groups.stream()
+                .filter(group -> group.startsWith("ROLE_"))
+                .map(AuthorityRegistry::authority)
+                .collect(Collectors.toSet());
+        } else {
+            userAuthorities = idpAuthentication.getAuthorities().stream()
+                .map(role -> AuthorityRegistry.authority(role.getAuthority()))
+                .collect(Collectors.toSet());
+        }
 
-                user.setAuthorities(userAuthorities);
-
-                UserDTO userDTO = new UserDTO(user);
-
-                // convert Authorities to GrantedAuthorities
-                Set<GrantedAuthority> grantedAuthorities = new LinkedHashSet<>();
-                userAuthorities.forEach(authority -> {
-                    grantedAuthorities.add(new SimpleGrantedAuthority(authority.getName()));
-                });
-
-                // create UserDetails so #{principal.username} works
-                UserDetails userDetails =
-                    new org.springframework.security.core.userdetails.User(user.getLogin(),
-                    "N/A", grantedAuthorities);
-                // update Spring Security Authorities to match groups claim from IdP
-                UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
-                    userDetails, "N/A", grantedAuthorities);
-                token.setDetails(details);
-                authentication = new OAuth2Authentication(authentication.getOAuth2Request(), token);
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-
-                // save account in to sync users between IdP and JHipster's local database
-                Optional<User> existingUser = userRepository.findOneByLogin(userDTO.getLogin());
-                if (existingUser.isPresent()) {
-                    // if IdP sends last updated information, use it to determine if an update should happen
-                    if (details.get("updated_at") != null) {
-                        Instant dbModifiedDate = existingUser.get().getLastModifiedDate();
-                        Instant idpModifiedDate = new Date(Long.valueOf((Integer) details.get("updated_at"))).toInstant();
-                        if (idpModifiedDate.isAfter(dbModifiedDate)) {
-                            log.debug("Updating user '{}' in local database...", userDTO.getLogin());
-                            userService.updateUser(userDTO.getFirstName(), userDTO.getLastName(), userDTO.getEmail(),
-                                userDTO.getLangKey(), userDTO.getImageUrl());
-                        }
-                        // no last updated info, blindly update
-                    } else {
-                        log.debug("Updating user '{}' in local database...", userDTO.getLogin());
-                        userService.updateUser(userDTO.getFirstName(), userDTO.getLastName(), userDTO.getEmail(),
-                            userDTO.getLangKey(), userDTO.getImageUrl());
-                    }
-                } else {
-                    log.debug("Saving user '{}' in local database...", userDTO.getLogin());
-                    userRepository.save(user);
+        User user = new User();
+        user.setLogin((String) details.get("preferred_username"));
+        if (details.get("given_name") != null) {
+            user.setFirstName((String) details.get("given_name"));
+        }
+        if (details.get("family_name") != null) {
+            user.setFirstName((String) details.get("family_name"));
+        }
+        if (details.get("email_verified") != null) {
+            user.setActivated((Boolean) details.get("email_verified"));
+        }
+        if (details.get("email") != null) {
+            user.setEmail((String) details.get("email"));
+        }
+        if (details.get("langKey") != null) {
+            user.setLangKey((String) details.get("langKey"));
+        } else if (details.get("locale") != null) {
+            String locale = (String) details.get("locale");
+            String langKey = locale.substring(0, locale.indexOf("-"));
+            user.setLangKey(langKey);
+        }
+
+        user.setAuthorities(userAuthorities);
+
+        UserDTO userDTO = new UserDTO(user);
+
+        // convert Authorities to GrantedAuthorities
+        Set<GrantedAuthority> grantedAuthorities = new LinkedHashSet<>();
+        userAuthorities.forEach(authority -> {
+            grantedAuthorities.add(AuthorityRegistry.grantedAuthority(authority.getName()));
+        });
+
+        // create UserDetails so #{principal.username} works
+        UserDetails userDetails =
+            new org.springframework.security.core.userdetails.User(user.getLogin(),
+            "N/A", grantedAuthorities);
+        // update Spring Security Authorities to match groups claim from IdP
+        RoleSetAuthenticationToken token = new RoleSetAuthenticationToken(
+            userDetails, "N/A", grantedAuthorities);
+        token.setDetails(details);
+        OAuth2Authentication authentication = new OAuth2Authentication(idpAuthentication.getOAuth2Request(), token);
+        // keep the access token, which is the key of the PrincipalCache
+        authentication.setDetails(idpAuthentication.getDetails());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        return new IdpAccount(idpAuthentication, authentication, user, userDTO, details);
+    }
+
+    /**
+     * Save the user mapped from the identity provider, to sync users between IdP and JHipster's local database, and
+     * cache it for the next requests of the login.
+     */
+    private UserDTO syncIdpAccount(IdpAccount account) {
+        UserDTO userDTO = account.userDTO;
+        Optional<User> existingUser = userRepository.findOneByLogin(userDTO.getLogin());
+        if (existingUser.isPresent()) {
+            // if IdP sends last updated information, use it to determine if an update should happen
+            if (account.details.get("updated_at") != null) {
+                Instant dbModifiedDate = existingUser.get().getLastModifiedDate();
+                Instant idpModifiedDate = new Date(Long.valueOf((Integer) account.details.get("updated_at")))
+                    .toInstant();
+                if (idpModifiedDate.isAfter(dbModifiedDate)) {
+                    log.debug("Updating user '{}' in local database...", userDTO.getLogin());
+                    userService.updateUser(userDTO.getFirstName(), userDTO.getLastName(), userDTO.getEmail(),
+                        userDTO.getLangKey(), userDTO.getImageUrl());
                 }
-                return userDTO;
+                // no last updated info, blindly update
             } else {
-                // Allow Spring Security Test to be used to mock users in the database
-                return Optional.ofNullable(userService.getUserWithAuthorities())
-                    .map(UserDTO::new)
-                    .orElseThrow(() -> new InternalServerErrorException("User could not be found"));
+                log.debug("Updating user '{}' in local database...", userDTO.getLogin());
+                userService.updateUser(userDTO.getFirstName(), userDTO.getLastName(), userDTO.getEmail(),
+                    userDTO.getLangKey(), userDTO.getImageUrl());
             }
         } else {
-            throw new InternalServerErrorException("User could not be found");
+            log.debug("Saving user '{}' in local database...", userDTO.getLogin());
+            userRepository.save(account.user);
+        }
+        principalCache.put(account.idpAuthentication, userDTO, account.version, account.authentication);
+        return userDTO;
+    }
+
+    private UserDTO getDatabaseAccount() {
+        return Optional.ofNullable(userService.getUserWithAuthorities())
+            .map(UserDTO::new)
+            .orElseThrow(() -> new InternalServerErrorException("User could not be found"));
+    }
+
+    private static UserDTO getCachedAccount(OAuth2Authentication authentication, PrincipalCache.Entry cached,
+                                            ServletWebRequest webRequest) {
+        if (cached.getAuthentication() != authentication) {
+            SecurityContextHolder.getContext().setAuthentication(cached.getAuthentication());
+        }
+        if (ConditionalRequestUtil.checkNotModified(webRequest, cached.getVersion())) {
+            return null;
+        }
+        return cached.getUserDTO();
+    }
+
+    /**
+     * A user mapped from the claims of the identity provider, before it is synchronized with the database.
+     */
+    private static final class IdpAccount {
+
+        private final OAuth2Authentication idpAuthentication;
+
+        private final OAuth2Authentication authentication;
+
+        private final User user;
+
+        private final UserDTO userDTO;
+
+        private final ResourceVersion version;
+
+        private final Map<String, Object> details;
+
+        IdpAccount(OAuth2Authentication idpAuthentication, OAuth2Authentication authentication, User user,
+                   UserDTO userDTO, Map<String, Object> details) {
+            this.idpAuthentication = idpAuthentication;
+            this.authentication = authentication;
+            this.user = user;
+            this.userDTO = userDTO;
+            this.version = ResourceVersion.of(userDTO);
+            this.details = details;
         }
     }
 }
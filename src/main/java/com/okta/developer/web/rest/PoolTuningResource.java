@@ -0,0 +1,36 @@
+package com.okta.developer.web.rest;
+
+import com.okta.developer.service.PoolTuningService;
+import com.okta.developer.service.dto.PoolTuningDecisionDTO;
+
+import com.codahale.metrics.annotation.Timed;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controller for viewing the connection pool resizing decisions.
+ */
+@RestController
+@RequestMapping("/management")
+public class PoolTuningResource {
+
+    private final PoolTuningService poolTuningService;
+
+    public PoolTuningResource(PoolTuningService poolTuningService) {
+        this.poolTuningService = poolTuningService;
+    }
+
+    /**
+     * GET  /pool-tuning : get the latest connection pool resizing decisions.
+     *
+     * @return the list of decisions, most recent first
+     */
+    @GetMapping("/pool-tuning")
+    @Timed
+    public List<PoolTuningDecisionDTO> getHistory() {
+        return poolTuningService.getHistory();
+    }
+}
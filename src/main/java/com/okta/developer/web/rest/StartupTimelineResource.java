@@ -0,0 +1,41 @@
+package com.okta.developer.web.rest;
+
+import com.okta.developer.config.StartupTimeline;
+
+import com.codahale.metrics.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Controller for viewing the bean initialization timings recorded at startup.
+ */
+@RestController
+@RequestMapping("/management")
+public class StartupTimelineResource {
+
+    private StartupTimeline startupTimeline;
+
+    /**
+     * GET  /startup-timeline : get the bean initialization timings, in creation order.
+     *
+     * @return the timings, or an empty list if "application.startup-timeline.enabled" is false
+     */
+    @GetMapping("/startup-timeline")
+    @Timed
+    public List<StartupTimeline.Entry> getTimeline() {
+        if (startupTimeline == null) {
+            return Collections.emptyList();
+        }
+        return startupTimeline.getEntries();
+    }
+
+    @Autowired(required = false)
+    public void setStartupTimeline(StartupTimeline startupTimeline) {
+        this.startupTimeline = startupTimeline;
+    }
+}
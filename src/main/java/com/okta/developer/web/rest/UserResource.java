@@ -3,27 +3,38 @@ package com.okta.developer.web.rest;
 import com.okta.developer.config.Constants;
 import com.codahale.metrics.annotation.Timed;
 
+import com.okta.developer.domain.User;
 import com.okta.developer.repository.UserRepository;
 import com.okta.developer.security.AuthoritiesConstants;
 
 import com.okta.developer.service.UserService;
+import com.okta.developer.service.dto.ResourceVersion;
 import com.okta.developer.service.dto.UserDTO;
+import com.okta.developer.service.dto.UserListDTO;
 
+import com.okta.developer.web.rest.util.ConditionalRequestUtil;
+import com.okta.developer.web.rest.util.DeferredResultUtil;
 import com.okta.developer.web.rest.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
+import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * REST controller for managing users.
@@ -59,34 +70,64 @@ public class UserResource {
 
     private final UserRepository userRepository;
     private final UserService userService;
+    private final Executor taskExecutor;
 
-    public UserResource(UserRepository userRepository,            UserService userService) {
+    public UserResource(UserRepository userRepository,            UserService userService,
+                        @Qualifier("taskExecutor") Executor taskExecutor) {
 
         this.userRepository = userRepository;
         this.userService = userService;
+        this.taskExecutor = taskExecutor;
     }
 
     /**
      * GET  /users : get all users.
+     * <p>
+     * The users are written as UserDTOs, straight from the entities, by the serializer of the {@link UserListDTO}.
      *
      * @param pageable the pagination information
      * @return the ResponseEntity with status 200 (OK) and with body all users
      */
     @GetMapping("/users")
     @Timed
-    public ResponseEntity<List<UserDTO>> getAllUsers(@ApiParam Pageable pageable) {
-        final Page<UserDTO> page = userService.getAllManagedUsers(pageable);
+    @ApiOperation(value = "getAllUsers", response = UserDTO.class, responseContainer = "List")
+    public ResponseEntity<UserListDTO> getAllUsers(@ApiParam Pageable pageable) {
+        final Page<User> page = userService.getAllManagedUsersWithAuthorities(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/users");
-        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        return new ResponseEntity<>(new UserListDTO(page.getContent()), headers, HttpStatus.OK);
     }
 
     /**
-     * @return a string list of the all of the roles
+     * GET  /users?cursor= : get the users ordered by id, after the one of the cursor, with a keyset pagination.
+     * <p>
+     * The first slice is requested with an empty cursor, and the next ones with the link of the Link header, which is
+     * missing on the last slice. The users are neither counted nor skipped, so the slices stay as fast on large tables.
+     *
+     * @param cursor the id of the last user of the previous slice, empty for the first slice
+     * @param pageable the pagination information, of which only the size is used
+     * @return the ResponseEntity with status 200 (OK) and with body the users of the slice
+     */
+    @GetMapping(value = "/users", params = "cursor")
+    @Timed
+    @ApiOperation(value = "getUsersAfter", response = UserDTO.class, responseContainer = "List")
+    public ResponseEntity<UserListDTO> getUsersAfter(@RequestParam(required = false) Long cursor,
+                                                     @ApiParam Pageable pageable) {
+        final Slice<User> slice = userService.getManagedUsersWithAuthoritiesAfter(cursor, pageable.getPageSize());
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, User::getId, "/api/users");
+        return new ResponseEntity<>(new UserListDTO(slice.getContent()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * @param webRequest the current request, which may be conditional
+     * @return a string list of the all of the roles, or status 304 (Not Modified) if they did not change
      */
     @GetMapping("/users/authorities")
     @Timed
     @Secured(AuthoritiesConstants.ADMIN)
-    public List<String> getAuthorities() {
+    public List<String> getAuthorities(ServletWebRequest webRequest) {
+        if (ConditionalRequestUtil.checkNotModified(webRequest, userService.getAuthoritiesVersion())) {
+            return null;
+        }
         return userService.getAuthorities();
     }
 
@@ -94,15 +135,65 @@ public class UserResource {
      * GET  /users/:login : get the "login" user.
      *
      * @param login the login of the user to find
-     * @return the ResponseEntity with status 200 (OK) and with body the "login" user, or with status 404 (Not Found)
+     * @param webRequest the current request, which may be conditional
+     * @return the ResponseEntity with status 200 (OK) and with body the "login" user, or with status 404 (Not Found),
+     * or with status 304 (Not Modified) if the user did not change
      */
     @GetMapping("/users/{login:" + Constants.LOGIN_REGEX + "}")
     @Timed
-    public ResponseEntity<UserDTO> getUser(@PathVariable String login) {
+    public ResponseEntity<UserDTO> getUser(@PathVariable String login, ServletWebRequest webRequest) {
         log.debug("REST request to get User : {}", login);
+        Optional<ResourceVersion> version = userService.getUserVersion(login);
+        if (version.isPresent() && ConditionalRequestUtil.checkNotModified(webRequest, version.get())) {
+            return null;
+        }
         return ResponseUtil.wrapOrNotFound(
             userService.getUserWithAuthoritiesByLogin(login)
                 .map(UserDTO::new));
     }
 
+    /**
+     * GET  /async/users/:login : get the "login" user, without holding the request thread while the database is
+     * queried.
+     * <p>
+     * The user is returned at once when it is cached with its version, as are the 304 (Not Modified) responses.
+     * Otherwise it is loaded by the task executor, and the request thread is released in the meantime; its conditional
+     * headers are then checked when the response is written.
+     *
+     * @param login the login of the user to find
+     * @param webRequest the current request, which may be conditional
+     * @return the ResponseEntity with status 200 (OK) and with body the "login" user, or with status 404 (Not Found),
+     * or with status 304 (Not Modified) if the user did not change
+     */
+    @GetMapping("/async/users/{login:" + Constants.LOGIN_REGEX + "}")
+    @Timed
+    public DeferredResult<ResponseEntity<UserDTO>> getUserAsync(@PathVariable String login,
+                                                                ServletWebRequest webRequest) {
+        log.debug("REST request to get User asynchronously : {}", login);
+        Optional<ResourceVersion> version = userService.getCachedUserVersion(login);
+        if (version.isPresent()) {
+            if (ConditionalRequestUtil.checkNotModified(webRequest, version.get())) {
+                return DeferredResultUtil.completed(null);
+            }
+            Optional<UserDTO> userDTO = userService.getCachedUserWithAuthoritiesByLogin(login).map(UserDTO::new);
+            if (userDTO.isPresent()) {
+                return DeferredResultUtil.completed(ResponseEntity.ok(userDTO.get()));
+            }
+        }
+        return DeferredResultUtil.supplyAsync(taskExecutor, "user", () -> getVersionedUser(login));
+    }
+
+    /**
+     * @return the "login" user with its version, whose conditional headers are checked when the response is written,
+     * or status 404 (Not Found)
+     */
+    private ResponseEntity<UserDTO> getVersionedUser(String login) {
+        Optional<ResourceVersion> version = userService.getUserVersion(login);
+        return userService.getUserWithAuthoritiesByLogin(login)
+            .map(UserDTO::new)
+            .map(userDTO -> version.isPresent() ? ConditionalRequestUtil.versioned(userDTO, version.get()) :
+                ResponseEntity.ok(userDTO))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
 }
@@ -1,13 +1,12 @@
 package com.okta.developer.web.rest.errors;
 
-import org.zalando.problem.AbstractThrowableProblem;
 import org.zalando.problem.Status;
 
 import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 
-public class BadRequestAlertException extends AbstractThrowableProblem {
+public class BadRequestAlertException extends ExpectedProblem {
 
     private final String entityName;
 
@@ -1,9 +1,8 @@
 package com.okta.developer.web.rest.errors;
 
-import org.zalando.problem.AbstractThrowableProblem;
 import org.zalando.problem.Status;
 
-public class EmailNotFoundException extends AbstractThrowableProblem {
+public class EmailNotFoundException extends ExpectedProblem {
 
     public EmailNotFoundException() {
         super(ErrorConstants.EMAIL_NOT_FOUND_TYPE, "Email address not registered", Status.BAD_REQUEST);
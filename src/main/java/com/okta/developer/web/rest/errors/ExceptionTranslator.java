@@ -1,10 +1,15 @@
 package com.okta.developer.web.rest.errors;
 
+import com.okta.developer.config.ApplicationProperties;
 import com.okta.developer.web.rest.util.HeaderUtil;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,22 +18,63 @@ import org.zalando.problem.DefaultProblem;
 import org.zalando.problem.Problem;
 import org.zalando.problem.ProblemBuilder;
 import org.zalando.problem.Status;
+import org.zalando.problem.StatusType;
+import org.zalando.problem.ThrowableProblem;
 import org.zalando.problem.spring.web.advice.ProblemHandling;
 import org.zalando.problem.spring.web.advice.validation.ConstraintViolationProblem;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Controller advice to translate the server side exceptions to client-friendly json structures.
  * The error response follows RFC7807 - Problem Details for HTTP APIs (https://tools.ietf.org/html/rfc7807)
+ * <p>
+ * With "application.problem-fast-path.enabled", the problems of the framework exceptions are created from cached
+ * templates, without stack trace, and written straight to the JSON generator. With
+ * "application.lightweight-exceptions.enabled", which the LightweightExceptionsConfiguration applies, the
+ * {@link ExpectedProblem}s are thrown without stack trace, so the
+ * problems are logged with the request and the exception class, which tell where they come from.
  */
 @ControllerAdvice
 public class ExceptionTranslator implements ProblemHandling {
 
+    private final boolean fastPath;
+
+    @Autowired
+    public ExceptionTranslator(ApplicationProperties applicationProperties) {
+        this(applicationProperties.getProblemFastPath().isEnabled());
+    }
+
+    ExceptionTranslator(boolean fastPath) {
+        this.fastPath = fastPath;
+    }
+
+    @Override
+    public void log(Throwable throwable, Problem problem, NativeWebRequest request, HttpStatus status) {
+        if (status.is4xxClientError()) {
+            LOG.warn("{}: {} ({} {}, {})", status.getReasonPhrase(), throwable.getMessage(), method(request),
+                path(request), throwable.getClass().getSimpleName());
+        } else if (status.is5xxServerError()) {
+            LOG.error("{}: {} ({} {})", status.getReasonPhrase(), throwable.getMessage(), method(request),
+                path(request), throwable);
+        }
+    }
+
+    @Override
+    public ThrowableProblem toProblem(Throwable throwable, StatusType status, URI type) {
+        if (!fastPath || isCausalChainsEnabled()) {
+            return ProblemHandling.super.toProblem(throwable, status, type);
+        }
+        return new TemplatedProblem(ProblemTemplate.of(type, status), throwable.getMessage());
+    }
+
     /**
      * Post-process Problem payload to add the message key for front-end if needed
      */
@@ -38,6 +84,10 @@ public class ExceptionTranslator implements ProblemHandling {
             return entity;
         }
         Problem problem = entity.getBody();
+        if (problem instanceof TemplatedProblem) {
+            return new ResponseEntity<>(((TemplatedProblem) problem).at(path(request)), entity.getHeaders(),
+                entity.getStatusCode());
+        }
         if (!(problem instanceof ConstraintViolationProblem || problem instanceof DefaultProblem)) {
             return entity;
         }
@@ -45,7 +95,7 @@ public class ExceptionTranslator implements ProblemHandling {
             .withType(Problem.DEFAULT_TYPE.equals(problem.getType()) ? ErrorConstants.DEFAULT_TYPE : problem.getType())
             .withStatus(problem.getStatus())
             .withTitle(problem.getTitle())
-            .with("path", request.getNativeRequest(HttpServletRequest.class).getRequestURI());
+            .with("path", path(request));
 
         if (problem instanceof ConstraintViolationProblem) {
             builder
@@ -68,6 +118,17 @@ public class ExceptionTranslator implements ProblemHandling {
     @Override
     public ResponseEntity<Problem> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, @Nonnull NativeWebRequest request) {
         BindingResult result = ex.getBindingResult();
+        if (fastPath) {
+            List<FieldError> errors = result.getFieldErrors();
+            List<FieldErrorVM> fieldErrors = new ArrayList<>(errors.size());
+            for (FieldError error : errors) {
+                fieldErrors.add(new FieldErrorVM(error.getObjectName(), error.getField(), error.getCode()));
+            }
+            ProblemTemplate template = ProblemTemplate.of(ErrorConstants.CONSTRAINT_VIOLATION_TYPE,
+                defaultConstraintViolationStatus(), "Method argument not valid", ErrorConstants.ERR_VALIDATION);
+            return create(ex, new TemplatedProblem(template, null, Collections.singletonMap("fieldErrors", fieldErrors),
+                null), request);
+        }
         List<FieldErrorVM> fieldErrors = result.getFieldErrors().stream()
             .map(f -> new FieldErrorVM(f.getObjectName(), f.getField(), f.getCode()))
             .collect(Collectors.toList());
@@ -95,4 +156,28 @@ public class ExceptionTranslator implements ProblemHandling {
             .build();
         return create(ex, problem, request);
     }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Problem> handleTooManyRequests(TooManyRequestsException ex, NativeWebRequest request) {
+        return create(ex, request, retryAfter(ex.getRetryAfterSeconds()));
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Problem> handleServiceOverloaded(ServiceOverloadedException ex, NativeWebRequest request) {
+        return create(ex, request, retryAfter(ex.getRetryAfterSeconds()));
+    }
+
+    private static String method(NativeWebRequest request) {
+        return request.getNativeRequest(HttpServletRequest.class).getMethod();
+    }
+
+    private static String path(NativeWebRequest request) {
+        return request.getNativeRequest(HttpServletRequest.class).getRequestURI();
+    }
+
+    private static HttpHeaders retryAfter(long seconds) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Retry-After", Long.toString(seconds));
+        return headers;
+    }
 }
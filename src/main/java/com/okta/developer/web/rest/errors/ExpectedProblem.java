@@ -0,0 +1,49 @@
+package com.okta.developer.web.rest.errors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.StatusType;
+import org.zalando.problem.ThrowableProblem;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Problem thrown on an expected error path, such as a validation failure or a rejected request, whose stack trace
+ * doesn't tell anything about the error. Capturing it can be disabled, as the cost of these exceptions is then mostly
+ * their stack trace: it is still captured while the DEBUG level is enabled for this package, to find where a problem
+ * is thrown.
+ */
+public abstract class ExpectedProblem extends AbstractThrowableProblem {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpectedProblem.class);
+
+    private static volatile boolean stackTraceEnabled = true;
+
+    protected ExpectedProblem(URI type, String title, StatusType status) {
+        super(type, title, status);
+    }
+
+    protected ExpectedProblem(URI type, String title, StatusType status, String detail, URI instance,
+                              ThrowableProblem cause, Map<String, Object> parameters) {
+        super(type, title, status, detail, instance, cause, parameters);
+    }
+
+    public static boolean isStackTraceEnabled() {
+        return stackTraceEnabled;
+    }
+
+    /**
+     * @param stackTraceEnabled false to create the expected problems without stack trace, unless the DEBUG level is
+     * enabled
+     */
+    public static void setStackTraceEnabled(boolean stackTraceEnabled) {
+        ExpectedProblem.stackTraceEnabled = stackTraceEnabled;
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return stackTraceEnabled || log.isDebugEnabled() ? super.fillInStackTrace() : this;
+    }
+}
@@ -1,12 +1,11 @@
 package com.okta.developer.web.rest.errors;
 
-import org.zalando.problem.AbstractThrowableProblem;
 import org.zalando.problem.Status;
 
 /**
  * Simple exception with a message, that returns an Internal Server Error code.
  */
-public class InternalServerErrorException extends AbstractThrowableProblem {
+public class InternalServerErrorException extends ExpectedProblem {
 
     public InternalServerErrorException(String message) {
         super(ErrorConstants.DEFAULT_TYPE, message, Status.INTERNAL_SERVER_ERROR);
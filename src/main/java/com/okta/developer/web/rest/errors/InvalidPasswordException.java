@@ -1,9 +1,8 @@
 package com.okta.developer.web.rest.errors;
 
-import org.zalando.problem.AbstractThrowableProblem;
 import org.zalando.problem.Status;
 
-public class InvalidPasswordException extends AbstractThrowableProblem {
+public class InvalidPasswordException extends ExpectedProblem {
 
     public InvalidPasswordException() {
         super(ErrorConstants.INVALID_PASSWORD_TYPE, "Incorrect password", Status.BAD_REQUEST);
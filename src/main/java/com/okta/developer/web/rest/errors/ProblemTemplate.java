@@ -0,0 +1,91 @@
+package com.okta.developer.web.rest.errors;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.zalando.problem.Problem;
+import org.zalando.problem.StatusType;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The immutable part of the problems of a type and status: their type, title, status and message key, with their
+ * encoded JSON values. The templates are cached, there are as many as the types and statuses of the problems of the
+ * application.
+ */
+final class ProblemTemplate {
+
+    private static final ConcurrentMap<List<Object>, ProblemTemplate> templates = new ConcurrentHashMap<>();
+
+    private final URI type;
+
+    private final String title;
+
+    private final StatusType status;
+
+    private final String message;
+
+    private final SerializedString typeValue;
+
+    private final SerializedString titleValue;
+
+    private final SerializedString messageValue;
+
+    private ProblemTemplate(URI type, String title, StatusType status, String message) {
+        this.type = type;
+        this.title = title;
+        this.status = status;
+        this.message = message;
+        this.typeValue = new SerializedString(type.toString());
+        this.titleValue = title == null ? null : new SerializedString(title);
+        this.messageValue = new SerializedString(message);
+    }
+
+    /**
+     * @return the template of the problems of the type and status, titled with the reason phrase of the status, and
+     * whose message key is the one of the status
+     */
+    static ProblemTemplate of(URI type, StatusType status) {
+        return of(type, status, status.getReasonPhrase(), null);
+    }
+
+    /**
+     * @param message the message key of the problems, the one of the status when null
+     */
+    static ProblemTemplate of(URI type, StatusType status, String title, String message) {
+        URI templateType = type == null || Problem.DEFAULT_TYPE.equals(type) ? ErrorConstants.DEFAULT_TYPE : type;
+        return templates.computeIfAbsent(Arrays.asList(templateType, status.getStatusCode(), title, message),
+            key -> new ProblemTemplate(templateType, title, status,
+                message != null ? message : "error.http." + status.getStatusCode()));
+    }
+
+    URI getType() {
+        return type;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    StatusType getStatus() {
+        return status;
+    }
+
+    String getMessage() {
+        return message;
+    }
+
+    SerializedString getTypeValue() {
+        return typeValue;
+    }
+
+    SerializedString getTitleValue() {
+        return titleValue;
+    }
+
+    SerializedString getMessageValue() {
+        return messageValue;
+    }
+}
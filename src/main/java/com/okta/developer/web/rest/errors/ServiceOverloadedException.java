@@ -0,0 +1,24 @@
+package com.okta.developer.web.rest.errors;
+
+import org.zalando.problem.Status;
+
+import java.util.Collections;
+
+/**
+ * Thrown when a request is shed because the server is overloaded, returns a Service Unavailable code with a
+ * Retry-After header.
+ */
+public class ServiceOverloadedException extends ExpectedProblem {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(long retryAfterSeconds) {
+        super(ErrorConstants.SERVICE_OVERLOADED_TYPE, "Service overloaded", Status.SERVICE_UNAVAILABLE, null, null,
+            null, Collections.singletonMap("message", ErrorConstants.ERR_SERVICE_OVERLOADED));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
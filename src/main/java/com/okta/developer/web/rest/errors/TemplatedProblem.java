@@ -0,0 +1,109 @@
+package com.okta.developer.web.rest.errors;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.zalando.problem.AbstractThrowableProblem;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Problem created from a {@link ProblemTemplate}, without stack trace, and written straight to the JSON generator,
+ * with the same properties as the problems rebuilt by the ExceptionTranslator.
+ */
+@JsonSerialize(using = TemplatedProblem.Serializer.class)
+final class TemplatedProblem extends AbstractThrowableProblem {
+
+    private final ProblemTemplate template;
+
+    private final String path;
+
+    TemplatedProblem(ProblemTemplate template, String detail) {
+        this(template, detail, Collections.emptyMap(), null);
+    }
+
+    TemplatedProblem(ProblemTemplate template, String detail, Map<String, Object> parameters, String path) {
+        super(template.getType(), template.getTitle(), template.getStatus(), detail, null, null, parameters);
+        this.template = template;
+        this.path = path;
+    }
+
+    /**
+     * @return the same problem, for the request of the path
+     */
+    TemplatedProblem at(String path) {
+        return new TemplatedProblem(template, getDetail(), getParameters(), path);
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+
+    static final class Serializer extends StdSerializer<TemplatedProblem> {
+
+        private static final SerializedString TYPE = new SerializedString("type");
+
+        private static final SerializedString TITLE = new SerializedString("title");
+
+        private static final SerializedString STATUS = new SerializedString("status");
+
+        private static final SerializedString DETAIL = new SerializedString("detail");
+
+        private static final SerializedString PATH = new SerializedString("path");
+
+        private static final SerializedString MESSAGE = new SerializedString("message");
+
+        Serializer() {
+            super(TemplatedProblem.class);
+        }
+
+        @Override
+        public void serialize(TemplatedProblem problem, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+
+            ProblemTemplate template = problem.template;
+            gen.writeStartObject();
+            gen.writeFieldName(TYPE);
+            gen.writeString(template.getTypeValue());
+            if (template.getTitleValue() != null) {
+                gen.writeFieldName(TITLE);
+                gen.writeString(template.getTitleValue());
+            }
+            gen.writeFieldName(STATUS);
+            gen.writeNumber(template.getStatus().getStatusCode());
+            if (problem.getDetail() != null) {
+                gen.writeFieldName(DETAIL);
+                gen.writeString(problem.getDetail());
+            }
+            if (problem.path != null) {
+                gen.writeFieldName(PATH);
+                gen.writeString(problem.path);
+            }
+            gen.writeFieldName(MESSAGE);
+            gen.writeString(template.getMessageValue());
+            for (Map.Entry<String, Object> parameter : problem.getParameters().entrySet()) {
+                provider.defaultSerializeField(parameter.getKey(), parameter.getValue(), gen);
+            }
+            gen.writeEndObject();
+        }
+
+        /**
+         * The "type" property, written by {@link #serialize}, is the type id of the problems.
+         */
+        @Override
+        public void serializeWithType(TemplatedProblem problem, JsonGenerator gen, SerializerProvider provider,
+                                      TypeSerializer typeSerializer) throws IOException {
+            serialize(problem, gen, provider);
+        }
+    }
+}
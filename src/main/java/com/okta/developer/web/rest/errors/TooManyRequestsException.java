@@ -0,0 +1,23 @@
+package com.okta.developer.web.rest.errors;
+
+import org.zalando.problem.Status;
+
+import java.util.Collections;
+
+/**
+ * Thrown when a client has used up its request rate, returns a Too Many Requests code with a Retry-After header.
+ */
+public class TooManyRequestsException extends ExpectedProblem {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(long retryAfterSeconds) {
+        super(ErrorConstants.TOO_MANY_REQUESTS_TYPE, "Too many requests", Status.TOO_MANY_REQUESTS, null, null, null,
+            Collections.singletonMap("message", ErrorConstants.ERR_TOO_MANY_REQUESTS));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,62 @@
+package com.okta.developer.web.rest.util;
+
+import com.okta.developer.service.dto.ResourceVersion;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Utility class for conditional GET requests, with the ETag and Last-Modified headers.
+ */
+public final class ConditionalRequestUtil {
+
+    /**
+     * Versioned resources may be stored by browsers and private caches, which revalidate them on each use.
+     */
+    public static final String CACHE_CONTROL = "private, no-cache";
+
+    private ConditionalRequestUtil() {
+    }
+
+    /**
+     * Check the conditional headers of the request against the version of the resource, and set the ETag,
+     * Last-Modified and Cache-Control headers of the response.
+     *
+     * @param request the current request
+     * @param version the version of the requested resource
+     * @return true if the resource was not modified, in which case the response status is set to 304 (Not Modified)
+     * and the controller should return null without building the resource
+     */
+    public static boolean checkNotModified(ServletWebRequest request, ResourceVersion version) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        if (version.getLastModified() != null) {
+            return request.checkNotModified(version.getEtag(), version.getLastModified().toEpochMilli());
+        }
+        return request.checkNotModified(version.getEtag());
+    }
+
+    /**
+     * Build the response of a resource loaded out of the request thread, such as by an asynchronous endpoint, with the
+     * ETag, Last-Modified and Cache-Control headers. The conditional headers of the request are then checked against
+     * them when the response is written, which answers 304 (Not Modified) without body if the resource did not change.
+     *
+     * @param body the resource
+     * @param version the version of the resource
+     * @return the response
+     */
+    public static <T> ResponseEntity<T> versioned(T body, ResourceVersion version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .eTag(version.getEtag())
+            .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (version.getLastModified() != null) {
+            builder.lastModified(version.getLastModified().toEpochMilli());
+        }
+        return builder.body(body);
+    }
+}
@@ -0,0 +1,93 @@
+package com.okta.developer.web.rest.util;
+
+import com.okta.developer.async.InstrumentedTaskExecutor;
+import com.okta.developer.web.rest.errors.ServiceOverloadedException;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Utility class for the asynchronous endpoints, which answer from the caches in the request thread and release it
+ * while the database is queried by the task executor.
+ */
+public final class DeferredResultUtil {
+
+    private DeferredResultUtil() {
+    }
+
+    /**
+     * @param result the result of the request, or null when the request was answered with the response status only
+     * @return a deferred result already completed with the result
+     */
+    public static <T> DeferredResult<T> completed(T result) {
+        DeferredResult<T> deferredResult = new DeferredResult<>();
+        deferredResult.setResult(result);
+        return deferredResult;
+    }
+
+    /**
+     * Run a task on the executor, with a copy of the security context of the current request, and complete the
+     * deferred result with what the task returns or throws.
+     * <p>
+     * The task must not use the request, nor change the security context of the request, which may already be saved
+     * or cleared by the time it runs: what depends on the request, such as the conditional headers, is checked in the
+     * request thread before, or when the result is written.
+     *
+     * @param executor the executor of the task
+     * @param taskType the type of the task, in the metrics of the executor
+     * @param task the task computing the result
+     * @return the deferred result of the task
+     * @throws ServiceOverloadedException 503 (Service Unavailable) if the executor can't take the task
+     */
+    public static <T> DeferredResult<T> supplyAsync(Executor executor, String taskType, Callable<T> task) {
+        DeferredResult<T> result = new DeferredResult<>();
+        try {
+            SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+            securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+            executor.execute(new DeferredTask<>(taskType, task, result, securityContext));
+        } catch (RejectedExecutionException e) {
+            throw new ServiceOverloadedException(1);
+        }
+        return result;
+    }
+
+    private static final class DeferredTask<T> implements Runnable, InstrumentedTaskExecutor.TypedTask {
+
+        private final String taskType;
+
+        private final Callable<T> task;
+
+        private final DeferredResult<T> result;
+
+        private final SecurityContext securityContext;
+
+        DeferredTask(String taskType, Callable<T> task, DeferredResult<T> result, SecurityContext securityContext) {
+            this.taskType = taskType;
+            this.task = task;
+            this.result = result;
+            this.securityContext = securityContext;
+        }
+
+        @Override
+        public String getTaskType() {
+            return taskType;
+        }
+
+        @Override
+        public void run() {
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                result.setResult(task.call());
+            } catch (Exception e) {
+                result.setErrorResult(e);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+}
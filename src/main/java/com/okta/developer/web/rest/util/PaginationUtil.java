@@ -1,8 +1,16 @@
 package com.okta.developer.web.rest.util;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Utility class for handling pagination.
@@ -10,36 +18,118 @@ import org.springframework.web.util.UriComponentsBuilder;
  * <p>
  * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">GitHub API</a>,
  * and follow <a href="http://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>.
+ * <p>
+ * The base URL of each endpoint is parsed once, into a template of its links, and the Link header is written into a
+ * buffer reused by the request thread. The base URLs are expected to be constants of the endpoints, as each one is
+ * kept in the cache of the templates.
  */
 public final class PaginationUtil {
 
+    private static final String PAGE_PLACEHOLDER = "__page__";
+
+    private static final String SIZE_PLACEHOLDER = "__size__";
+
+    private static final Map<String, LinkTemplate> pageTemplates = new ConcurrentHashMap<>();
+
+    private static final Map<String, LinkTemplate> cursorTemplates = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<StringBuilder> linkBuffer = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
     private PaginationUtil() {
     }
 
     public static HttpHeaders generatePaginationHttpHeaders(Page page, String baseUrl) {
-
+        LinkTemplate template = pageTemplates.computeIfAbsent(baseUrl, url -> new LinkTemplate(url, "page"));
         HttpHeaders headers = new HttpHeaders();
         headers.add("X-Total-Count", Long.toString(page.getTotalElements()));
-        String link = "";
+        StringBuilder link = linkBuffer();
         if ((page.getNumber() + 1) < page.getTotalPages()) {
-            link = "<" + generateUri(baseUrl, page.getNumber() + 1, page.getSize()) + ">; rel=\"next\",";
+            template.append(link, page.getNumber() + 1, page.getSize()).append(">; rel=\"next\",");
         }
         // prev link
         if ((page.getNumber()) > 0) {
-            link += "<" + generateUri(baseUrl, page.getNumber() - 1, page.getSize()) + ">; rel=\"prev\",";
+            template.append(link, page.getNumber() - 1, page.getSize()).append(">; rel=\"prev\",");
         }
         // last and first link
         int lastPage = 0;
         if (page.getTotalPages() > 0) {
             lastPage = page.getTotalPages() - 1;
         }
-        link += "<" + generateUri(baseUrl, lastPage, page.getSize()) + ">; rel=\"last\",";
-        link += "<" + generateUri(baseUrl, 0, page.getSize()) + ">; rel=\"first\"";
-        headers.add(HttpHeaders.LINK, link);
+        template.append(link, lastPage, page.getSize()).append(">; rel=\"last\",");
+        template.append(link, 0, page.getSize()).append(">; rel=\"first\"");
+        headers.add(HttpHeaders.LINK, link.toString());
         return headers;
     }
 
-    private static String generateUri(String baseUrl, int page, int size) {
-        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
+    /**
+     * Generate the headers of a slice of a keyset pagination, which are a Link header to the next slice, with the
+     * cursor of the last element of the slice, when there is one. There is no total count, nor links to the previous
+     * or last slices, as the point of a keyset pagination is not to count nor skip the rows.
+     *
+     * @param slice the slice of elements
+     * @param cursor the cursor of an element, from which the next slice starts, such as its id
+     * @param baseUrl the URL of the endpoint, which reads the cursor from the "cursor" parameter
+     * @param <T> the type of the elements
+     * @return the headers
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(Slice<T> slice, Function<T, ?> cursor,
+                                                                      String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            LinkTemplate template = cursorTemplates.computeIfAbsent(baseUrl, url -> new LinkTemplate(url, "cursor"));
+            String next = String.valueOf(cursor.apply(content.get(content.size() - 1)));
+            StringBuilder link = linkBuffer();
+            template.append(link, encodeQueryParam(next), slice.getSize()).append(">; rel=\"next\"");
+            headers.add(HttpHeaders.LINK, link.toString());
+        }
+        return headers;
+    }
+
+    private static StringBuilder linkBuffer() {
+        StringBuilder link = linkBuffer.get();
+        link.setLength(0);
+        return link;
+    }
+
+    private static String encodeQueryParam(String value) {
+        try {
+            return UriUtils.encodeQueryParam(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A link of a base URL, split around its two query parameters: the page or cursor, and the size. The base URL is
+     * parsed and encoded once, with placeholders, so that the links are the same as the ones built from the base URL.
+     */
+    private static final class LinkTemplate {
+
+        private final String prefix;
+
+        private final String middle;
+
+        private final String suffix;
+
+        LinkTemplate(String baseUrl, String name) {
+            String uri = UriComponentsBuilder.fromUriString(baseUrl)
+                .queryParam(name, PAGE_PLACEHOLDER)
+                .queryParam("size", SIZE_PLACEHOLDER)
+                .toUriString();
+            int page = uri.lastIndexOf(PAGE_PLACEHOLDER);
+            int size = uri.lastIndexOf(SIZE_PLACEHOLDER);
+            prefix = "<" + uri.substring(0, page);
+            middle = uri.substring(page + PAGE_PLACEHOLDER.length(), size);
+            suffix = uri.substring(size + SIZE_PLACEHOLDER.length());
+        }
+
+        StringBuilder append(StringBuilder link, int page, int size) {
+            return link.append(prefix).append(page).append(middle).append(size).append(suffix);
+        }
+
+        StringBuilder append(StringBuilder link, String cursor, int size) {
+            return link.append(prefix).append(cursor).append(middle).append(size).append(suffix);
+        }
     }
 }
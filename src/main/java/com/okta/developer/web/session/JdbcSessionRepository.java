@@ -0,0 +1,123 @@
+package com.okta.developer.web.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SessionRepository keeping the sessions in the application database, so that they are shared by all the nodes.
+ * <p>
+ * A session is read with a single query, and a request only writes the session row and the attributes it changed.
+ * The tables are created by the "added_session_tables" Liquibase changelog.
+ */
+public class JdbcSessionRepository implements SessionRepository {
+
+    private static final String SELECT_SESSION = "select s.creation_time, s.last_access_time, " +
+        "s.max_inactive_interval, a.attribute_name, a.attribute_value from jhi_session s " +
+        "left join jhi_session_attribute a on a.session_id = s.id where s.id = ? and s.expiry_time >= ?";
+
+    private static final String UPDATE_SESSION = "update jhi_session set last_access_time = ?, " +
+        "max_inactive_interval = ?, expiry_time = ? where id = ?";
+
+    private static final String INSERT_SESSION = "insert into jhi_session " +
+        "(id, creation_time, last_access_time, max_inactive_interval, expiry_time) values (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_ATTRIBUTE = "update jhi_session_attribute set attribute_value = ? " +
+        "where session_id = ? and attribute_name = ?";
+
+    private static final String INSERT_ATTRIBUTE = "insert into jhi_session_attribute " +
+        "(session_id, attribute_name, attribute_value) values (?, ?, ?)";
+
+    private static final String DELETE_ATTRIBUTE = "delete from jhi_session_attribute " +
+        "where session_id = ? and attribute_name = ?";
+
+    private final Logger log = LoggerFactory.getLogger(JdbcSessionRepository.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public StoredSession find(String id) {
+        return jdbcTemplate.query(SELECT_SESSION, rs -> {
+            StoredSession session = null;
+            while (rs.next()) {
+                if (session == null) {
+                    session = new StoredSession(id, rs.getLong(1), rs.getLong(2), rs.getInt(3), new HashMap<>());
+                }
+                String name = rs.getString(4);
+                if (name != null) {
+                    session.getAttributes().put(name, rs.getBytes(5));
+                }
+            }
+            return session;
+        }, id, System.currentTimeMillis());
+    }
+
+    /**
+     * The session row and the attributes are updated, and inserted when they are missing. When a concurrent request
+     * of the same session inserts one of them between the update and the insert, the insert fails with a duplicate
+     * key, and the save is run again in a new transaction, as the failed one is aborted on some databases: its update
+     * then finds the row.
+     */
+    @Override
+    public void save(StoredSession session, Map<String, byte[]> changedAttributes) {
+        try {
+            transactionTemplate.execute(status -> write(session, changedAttributes));
+        } catch (DuplicateKeyException e) {
+            log.debug("Session {} was inserted concurrently, saving it again", session.getId());
+            transactionTemplate.execute(status -> write(session, changedAttributes));
+        }
+    }
+
+    private Void write(StoredSession session, Map<String, byte[]> changedAttributes) {
+        String id = session.getId();
+        if (jdbcTemplate.update(UPDATE_SESSION, session.getLastAccessedTime(),
+            session.getMaxInactiveIntervalSeconds(), session.getExpiryTime(), id) == 0) {
+
+            jdbcTemplate.update(INSERT_SESSION, id, session.getCreationTime(), session.getLastAccessedTime(),
+                session.getMaxInactiveIntervalSeconds(), session.getExpiryTime());
+        }
+        List<Object[]> removed = new ArrayList<>();
+        for (Map.Entry<String, byte[]> attribute : changedAttributes.entrySet()) {
+            if (attribute.getValue() == null) {
+                removed.add(new Object[]{id, attribute.getKey()});
+            } else if (jdbcTemplate.update(UPDATE_ATTRIBUTE, attribute.getValue(), id, attribute.getKey()) == 0) {
+                jdbcTemplate.update(INSERT_ATTRIBUTE, id, attribute.getKey(), attribute.getValue());
+            }
+        }
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ATTRIBUTE, removed);
+        }
+        return null;
+    }
+
+    @Override
+    public void changeId(String oldId, String newId) {
+        // The attributes follow, as their foreign key cascades the update
+        jdbcTemplate.update("update jhi_session set id = ? where id = ?", newId, oldId);
+    }
+
+    @Override
+    public void delete(String id) {
+        jdbcTemplate.update("delete from jhi_session where id = ?", id);
+    }
+
+    @Override
+    public int deleteExpired(long now) {
+        return jdbcTemplate.update("delete from jhi_session where expiry_time < ?", now);
+    }
+}
@@ -0,0 +1,151 @@
+package com.okta.developer.web.session;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SessionRepository keeping the sessions of this node in direct buffers, outside of the Java heap, so that the heap
+ * doesn't grow with the number of sessions, nor is scanned by the garbage collector for their content.
+ * <p>
+ * Each session is encoded in its own buffer, which is reused while the session fits in it. Changes are applied to
+ * the stored session, so that concurrent requests of a session only overwrite the attributes they changed.
+ * <p>
+ * When a metric registry is available, the number of sessions and the size of their buffers are reported as
+ * "session-store.off-heap.sessions" and "session-store.off-heap.bytes".
+ */
+public class OffHeapSessionRepository implements SessionRepository {
+
+    private final ConcurrentMap<String, ByteBuffer> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        metricRegistry.register("session-store.off-heap.sessions", (Gauge<Integer>) sessions::size);
+        metricRegistry.register("session-store.off-heap.bytes", (Gauge<Long>) bytes::get);
+    }
+
+    @Override
+    public StoredSession find(String id) {
+        ByteBuffer buffer = sessions.get(id);
+        if (buffer == null) {
+            return null;
+        }
+        StoredSession session;
+        synchronized (buffer) {
+            session = decode(id, buffer);
+        }
+        return session.isExpired(System.currentTimeMillis()) ? null : session;
+    }
+
+    @Override
+    public void save(StoredSession session, Map<String, byte[]> changedAttributes) {
+        sessions.compute(session.getId(), (id, buffer) -> {
+            // Writers are serialized by the map, and the buffer is locked against the readers when it is reused
+            Map<String, byte[]> attributes = buffer != null ? decode(id, buffer).getAttributes() : new HashMap<>();
+            for (Map.Entry<String, byte[]> attribute : changedAttributes.entrySet()) {
+                if (attribute.getValue() == null) {
+                    attributes.remove(attribute.getKey());
+                } else {
+                    attributes.put(attribute.getKey(), attribute.getValue());
+                }
+            }
+            return encode(session, attributes, buffer);
+        });
+    }
+
+    @Override
+    public void changeId(String oldId, String newId) {
+        ByteBuffer buffer = sessions.remove(oldId);
+        if (buffer != null) {
+            sessions.put(newId, buffer);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        ByteBuffer buffer = sessions.remove(id);
+        if (buffer != null) {
+            bytes.addAndGet(-buffer.capacity());
+        }
+    }
+
+    @Override
+    public int deleteExpired(long now) {
+        int count = 0;
+        for (Iterator<Map.Entry<String, ByteBuffer>> iterator = sessions.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, ByteBuffer> entry = iterator.next();
+            long expiryTime;
+            synchronized (entry.getValue()) {
+                expiryTime = decodeExpiryTime(entry.getValue());
+            }
+            if (expiryTime < now && sessions.remove(entry.getKey(), entry.getValue())) {
+                bytes.addAndGet(-entry.getValue().capacity());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The creation time, last access time, maximum inactive interval, number of attributes, then the attributes as
+     * their name and value, each preceded by its length.
+     */
+    private ByteBuffer encode(StoredSession session, Map<String, byte[]> attributes, ByteBuffer buffer) {
+        int size = 8 + 8 + 4 + 4;
+        Map<byte[], byte[]> encoded = new HashMap<>();
+        for (Map.Entry<String, byte[]> attribute : attributes.entrySet()) {
+            byte[] name = attribute.getKey().getBytes(StandardCharsets.UTF_8);
+            encoded.put(name, attribute.getValue());
+            size += 4 + name.length + 4 + attribute.getValue().length;
+        }
+        if (buffer == null || buffer.capacity() < size) {
+            int capacity = Math.max(size, buffer != null ? buffer.capacity() * 2 : 0);
+            bytes.addAndGet(capacity - (buffer != null ? buffer.capacity() : 0));
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+        synchronized (buffer) {
+            buffer.clear();
+            buffer.putLong(session.getCreationTime())
+                .putLong(session.getLastAccessedTime())
+                .putInt(session.getMaxInactiveIntervalSeconds())
+                .putInt(encoded.size());
+            for (Map.Entry<byte[], byte[]> attribute : encoded.entrySet()) {
+                buffer.putInt(attribute.getKey().length).put(attribute.getKey())
+                    .putInt(attribute.getValue().length).put(attribute.getValue());
+            }
+        }
+        return buffer;
+    }
+
+    private static StoredSession decode(String id, ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate();
+        in.clear();
+        long creationTime = in.getLong();
+        long lastAccessedTime = in.getLong();
+        int maxInactiveIntervalSeconds = in.getInt();
+        int count = in.getInt();
+        Map<String, byte[]> attributes = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[in.getInt()];
+            in.get(name);
+            byte[] value = new byte[in.getInt()];
+            in.get(value);
+            attributes.put(new String(name, StandardCharsets.UTF_8), value);
+        }
+        return new StoredSession(id, creationTime, lastAccessedTime, maxInactiveIntervalSeconds, attributes);
+    }
+
+    private static long decodeExpiryTime(ByteBuffer buffer) {
+        int maxInactiveIntervalSeconds = buffer.getInt(16);
+        return maxInactiveIntervalSeconds < 0 ? Long.MAX_VALUE : buffer.getLong(8) + maxInactiveIntervalSeconds * 1000L;
+    }
+}
@@ -0,0 +1,282 @@
+package com.okta.developer.web.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.util.ClassUtils;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HttpSession backed by a {@link StoredSession}, for the duration of a request.
+ * <p>
+ * Attributes are deserialized when they are first read, so that a request only pays for the attributes it uses.
+ * Attributes which are set or removed are dirty, and only these are written back by {@link #flush}, and only if their
+ * serialized form changed. As with other external session stores, an attribute which is modified in place must be
+ * set again to be written back: Spring does it for the session scoped beans at the end of each request.
+ */
+class RepositoryHttpSession implements HttpSession {
+
+    private final Logger log = LoggerFactory.getLogger(RepositoryHttpSession.class);
+
+    private final StoredSession stored;
+
+    private final ServletContext servletContext;
+
+    private final boolean isNew;
+
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private final Set<String> dirty = new HashSet<>();
+
+    private boolean persisted;
+
+    private String previousId;
+
+    private long writtenLastAccessedTime;
+
+    private boolean metadataChanged;
+
+    private boolean invalidated;
+
+    private int deserializedCount;
+
+    RepositoryHttpSession(StoredSession stored, ServletContext servletContext, boolean isNew) {
+        this.stored = stored;
+        this.servletContext = servletContext;
+        this.isNew = isNew;
+        this.persisted = !isNew;
+        this.writtenLastAccessedTime = stored.getLastAccessedTime();
+    }
+
+    void access(long now) {
+        stored.setLastAccessedTime(now);
+    }
+
+    void changeId(String id) {
+        if (persisted && previousId == null) {
+            previousId = stored.getId();
+        }
+        stored.setId(id);
+    }
+
+    boolean isInvalidated() {
+        return invalidated;
+    }
+
+    boolean isPersisted() {
+        return persisted;
+    }
+
+    /**
+     * @return the number of attributes deserialized since the last call
+     */
+    int takeDeserializedCount() {
+        int count = deserializedCount;
+        deserializedCount = 0;
+        return count;
+    }
+
+    /**
+     * Write the session if it is new or changed, or if its last access time was written more than the touch interval
+     * ago.
+     *
+     * @return the number of attributes written
+     */
+    int flush(SessionRepository repository, long touchIntervalMillis) {
+        Map<String, byte[]> changes = new HashMap<>();
+        for (String name : dirty) {
+            Object value = attributes.get(name);
+            byte[] serialized = value != null ? serialize(name, value) : null;
+            byte[] current = stored.getAttributes().get(name);
+            if (serialized == null ? current != null : !Arrays.equals(serialized, current)) {
+                changes.put(name, serialized);
+            }
+        }
+        dirty.clear();
+        if (persisted && previousId == null && !metadataChanged && changes.isEmpty() &&
+            stored.getLastAccessedTime() - writtenLastAccessedTime < touchIntervalMillis) {
+            return 0;
+        }
+        if (previousId != null) {
+            repository.changeId(previousId, stored.getId());
+            previousId = null;
+        }
+        repository.save(stored, changes);
+        for (Map.Entry<String, byte[]> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                stored.getAttributes().remove(change.getKey());
+            } else {
+                stored.getAttributes().put(change.getKey(), change.getValue());
+            }
+        }
+        persisted = true;
+        metadataChanged = false;
+        writtenLastAccessedTime = stored.getLastAccessedTime();
+        return changes.size();
+    }
+
+    @Override
+    public long getCreationTime() {
+        checkValid();
+        return stored.getCreationTime();
+    }
+
+    @Override
+    public String getId() {
+        return stored.getId();
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        checkValid();
+        return stored.getLastAccessedTime();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        stored.setMaxInactiveIntervalSeconds(interval);
+        metadataChanged = true;
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return stored.getMaxInactiveIntervalSeconds();
+    }
+
+    @Override
+    @Deprecated
+    public javax.servlet.http.HttpSessionContext getSessionContext() {
+        return null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        checkValid();
+        Object value = attributes.get(name);
+        if (value == null && !dirty.contains(name)) {
+            byte[] serialized = stored.getAttributes().get(name);
+            if (serialized != null) {
+                value = deserialize(name, serialized);
+                attributes.put(name, value);
+                deserializedCount++;
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @Deprecated
+    public Object getValue(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        checkValid();
+        Set<String> names = new LinkedHashSet<>(stored.getAttributes().keySet());
+        for (String name : dirty) {
+            if (attributes.get(name) == null) {
+                names.remove(name);
+            } else {
+                names.add(name);
+            }
+        }
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    @Deprecated
+    public String[] getValueNames() {
+        return Collections.list(getAttributeNames()).toArray(new String[0]);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        checkValid();
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        attributes.put(name, value);
+        dirty.add(name);
+    }
+
+    @Override
+    @Deprecated
+    public void putValue(String name, Object value) {
+        setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        checkValid();
+        attributes.remove(name);
+        dirty.add(name);
+    }
+
+    @Override
+    @Deprecated
+    public void removeValue(String name) {
+        removeAttribute(name);
+    }
+
+    @Override
+    public void invalidate() {
+        checkValid();
+        invalidated = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        checkValid();
+        return isNew;
+    }
+
+    private void checkValid() {
+        if (invalidated) {
+            throw new IllegalStateException("The session " + stored.getId() + " was invalidated");
+        }
+    }
+
+    private Object deserialize(String name, byte[] serialized) {
+        try (ObjectInputStream in = new ConfigurableObjectInputStream(new ByteArrayInputStream(serialized),
+            ClassUtils.getDefaultClassLoader())) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            // Such as a class which changed since the attribute was written
+            log.warn("Could not deserialize the {} attribute of session {}: {}", name, stored.getId(), e.toString());
+            return null;
+        }
+    }
+
+    private byte[] serialize(String name, Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream objects = new ObjectOutputStream(out)) {
+            objects.writeObject(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize the " + name + " attribute of session " +
+                stored.getId(), e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,43 @@
+package com.okta.developer.web.session;
+
+import java.util.Map;
+
+/**
+ * Storage of the HTTP sessions used by the {@link SessionRepositoryFilter}.
+ * <p>
+ * Attributes are stored serialized, and written one by one, so that a request only writes the attributes it changed.
+ */
+public interface SessionRepository {
+
+    /**
+     * @param id the id of the session
+     * @return the session, or null if there is no such session or it is expired
+     */
+    StoredSession find(String id);
+
+    /**
+     * Create the session, or update its last access time and maximum inactive interval.
+     *
+     * @param session the session
+     * @param changedAttributes the serialized attributes to write, by name, with a null value for the attributes to
+     *                          remove
+     */
+    void save(StoredSession session, Map<String, byte[]> changedAttributes);
+
+    /**
+     * @param oldId the current id of the session
+     * @param newId the new id of the session
+     */
+    void changeId(String oldId, String newId);
+
+    /**
+     * @param id the id of the session to remove
+     */
+    void delete(String id);
+
+    /**
+     * @param now the current time, in milliseconds
+     * @return the number of expired sessions which were removed
+     */
+    int deleteExpired(long now);
+}
@@ -0,0 +1,267 @@
+package com.okta.developer.web.session;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filter replacing the sessions of the servlet container by sessions kept in a {@link SessionRepository}.
+ * <p>
+ * The session is only read from the repository when the request uses it, and is written back at the end of the
+ * request, or before the response is committed by a redirect or an error, so that the next request of the client
+ * sees it. Its id is kept in a cookie.
+ * <p>
+ * When a metric registry is available, the reads and writes are timed as "session-store.load" and
+ * "session-store.save", and the attributes deserialized and written are metered as
+ * "session-store.attributes.deserialized" and "session-store.attributes.written".
+ */
+public class SessionRepositoryFilter extends OncePerRequestFilter {
+
+    private final SessionRepository repository;
+
+    private final String cookieName;
+
+    private final int maxInactiveIntervalSeconds;
+
+    private final long touchIntervalMillis;
+
+    private Timer loads = new Timer();
+
+    private Timer saves = new Timer();
+
+    private Meter deserialized = new Meter();
+
+    private Meter written = new Meter();
+
+    public SessionRepositoryFilter(SessionRepository repository, String cookieName, int maxInactiveIntervalSeconds,
+                                   long touchIntervalSeconds) {
+        this.repository = repository;
+        this.cookieName = cookieName;
+        this.maxInactiveIntervalSeconds = maxInactiveIntervalSeconds;
+        this.touchIntervalMillis = touchIntervalSeconds * 1000;
+    }
+
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        loads = metricRegistry.timer("session-store.load");
+        saves = metricRegistry.timer("session-store.save");
+        deserialized = metricRegistry.meter("session-store.attributes.deserialized");
+        written = metricRegistry.meter("session-store.attributes.written");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+
+        SessionRequestWrapper wrappedRequest = new SessionRequestWrapper(request, response);
+        try {
+            filterChain.doFilter(wrappedRequest, new SessionResponseWrapper(response, wrappedRequest));
+        } finally {
+            wrappedRequest.commit();
+        }
+    }
+
+    private final class SessionRequestWrapper extends HttpServletRequestWrapper {
+
+        private final HttpServletResponse response;
+
+        private final String requestedSessionId;
+
+        private StoredSession requestedSession;
+
+        private boolean requestedSessionLoaded;
+
+        private RepositoryHttpSession session;
+
+        private final List<String> invalidatedIds = new ArrayList<>();
+
+        private boolean cookieCleared;
+
+        SessionRequestWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(request);
+            this.response = response;
+            Cookie cookie = WebUtils.getCookie(request, cookieName);
+            this.requestedSessionId = cookie != null && StringUtils.hasText(cookie.getValue()) ? cookie.getValue() : null;
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session != null && !session.isInvalidated()) {
+                return session;
+            }
+            if (session == null) {
+                StoredSession stored = requestedSession();
+                if (stored != null) {
+                    session = new RepositoryHttpSession(stored, getServletContext(), false);
+                    session.access(System.currentTimeMillis());
+                    return session;
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            if (session != null && session.isPersisted()) {
+                invalidatedIds.add(session.getId());
+            }
+            session = new RepositoryHttpSession(
+                new StoredSession(newId(), System.currentTimeMillis(), maxInactiveIntervalSeconds), getServletContext(),
+                true);
+            writeCookie(session.getId());
+            return session;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public String changeSessionId() {
+            HttpSession current = getSession(false);
+            if (current == null) {
+                throw new IllegalStateException("There is no session to change the id of");
+            }
+            String id = newId();
+            session.changeId(id);
+            writeCookie(id);
+            return id;
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            return requestedSessionId;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            return requestedSession() != null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return requestedSessionId != null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        @Override
+        @Deprecated
+        public boolean isRequestedSessionIdFromUrl() {
+            return false;
+        }
+
+        void commit() {
+            for (String id : invalidatedIds) {
+                repository.delete(id);
+            }
+            invalidatedIds.clear();
+            if (session != null && session.isInvalidated()) {
+                if (session.isPersisted()) {
+                    repository.delete(session.getId());
+                }
+                session = null;
+                requestedSession = null;
+                requestedSessionLoaded = true;
+            }
+            if (session == null) {
+                if (requestedSessionId != null && requestedSessionLoaded && requestedSession == null &&
+                    !cookieCleared) {
+                    // The session expired or was invalidated
+                    writeCookie("");
+                    cookieCleared = true;
+                }
+                return;
+            }
+            deserialized.mark(session.takeDeserializedCount());
+            try (Timer.Context ignored = saves.time()) {
+                written.mark(session.flush(repository, touchIntervalMillis));
+            }
+        }
+
+        private StoredSession requestedSession() {
+            if (!requestedSessionLoaded) {
+                requestedSessionLoaded = true;
+                if (requestedSessionId != null) {
+                    try (Timer.Context ignored = loads.time()) {
+                        requestedSession = repository.find(requestedSessionId);
+                    }
+                }
+            }
+            return requestedSession;
+        }
+
+        private void writeCookie(String id) {
+            Cookie cookie = new Cookie(cookieName, id);
+            cookie.setPath(StringUtils.hasLength(getContextPath()) ? getContextPath() : "/");
+            cookie.setHttpOnly(true);
+            cookie.setSecure(isSecure());
+            if (id.isEmpty()) {
+                cookie.setMaxAge(0);
+            }
+            response.addCookie(cookie);
+        }
+
+        private String newId() {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    /**
+     * Writes the session before a redirect or an error commits the response.
+     */
+    private static final class SessionResponseWrapper extends HttpServletResponseWrapper {
+
+        private final SessionRequestWrapper request;
+
+        SessionResponseWrapper(HttpServletResponse response, SessionRequestWrapper request) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            request.commit();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            request.commit();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            request.commit();
+            super.sendError(sc, msg);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.okta.developer.web.session;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A session as kept by a {@link SessionRepository}, with its attributes in their serialized form.
+ */
+public class StoredSession {
+
+    private String id;
+
+    private final long creationTime;
+
+    private long lastAccessedTime;
+
+    private int maxInactiveIntervalSeconds;
+
+    private final Map<String, byte[]> attributes;
+
+    public StoredSession(String id, long creationTime, long lastAccessedTime, int maxInactiveIntervalSeconds,
+                         Map<String, byte[]> attributes) {
+        this.id = id;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.maxInactiveIntervalSeconds = maxInactiveIntervalSeconds;
+        this.attributes = attributes;
+    }
+
+    public StoredSession(String id, long creationTime, int maxInactiveIntervalSeconds) {
+        this(id, creationTime, creationTime, maxInactiveIntervalSeconds, new HashMap<>());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public long getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+
+    void setLastAccessedTime(long lastAccessedTime) {
+        this.lastAccessedTime = lastAccessedTime;
+    }
+
+    public int getMaxInactiveIntervalSeconds() {
+        return maxInactiveIntervalSeconds;
+    }
+
+    void setMaxInactiveIntervalSeconds(int maxInactiveIntervalSeconds) {
+        this.maxInactiveIntervalSeconds = maxInactiveIntervalSeconds;
+    }
+
+    /**
+     * @return the time after which the session is expired, in milliseconds, or Long.MAX_VALUE if it never expires
+     */
+    public long getExpiryTime() {
+        if (maxInactiveIntervalSeconds < 0) {
+            return Long.MAX_VALUE;
+        }
+        return lastAccessedTime + maxInactiveIntervalSeconds * 1000L;
+    }
+
+    public boolean isExpired(long now) {
+        return now > getExpiryTime();
+    }
+
+    /**
+     * @return the serialized attributes, by name
+     */
+    public Map<String, byte[]> getAttributes() {
+        return attributes;
+    }
+}
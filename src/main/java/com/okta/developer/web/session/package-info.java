@@ -0,0 +1,4 @@
+/**
+ * HTTP sessions kept in a session repository instead of the servlet container.
+ */
+package com.okta.developer.web.session;
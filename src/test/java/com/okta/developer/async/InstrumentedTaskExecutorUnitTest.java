@@ -0,0 +1,188 @@
+package com.okta.developer.async;
+
+import com.okta.developer.async.InstrumentedTaskExecutor.RejectionPolicy;
+import com.okta.developer.async.InstrumentedTaskExecutor.TypedTask;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for the InstrumentedTaskExecutor.
+ *
+ * @see InstrumentedTaskExecutor
+ */
+public class InstrumentedTaskExecutorUnitTest {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private InstrumentedTaskExecutor executor;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRecordsTheTasksByType() throws Exception {
+        executor = executor(1, 1, 10, RejectionPolicy.FAIL_FAST, false);
+        executor.submit(new ReportTask()).get(5, TimeUnit.SECONDS);
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        executor.submit(() -> "done").get(5, TimeUnit.SECONDS);
+
+        assertThat(metricRegistry.timer("test.tasks.report.wait").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.timer("test.tasks.report.run").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.timer("test.tasks.InstrumentedTaskExecutorUnitTest.run").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.getGauges()).containsKeys("test.active", "test.queued", "test.pool-size");
+    }
+
+    @Test
+    public void testShowsTheActiveAndQueuedTasks() {
+        executor = executor(1, 1, 10, RejectionPolicy.FAIL_FAST, false);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> block(started));
+        executor.execute(this::block);
+        await(started);
+
+        assertThat(gauge("test.active")).isEqualTo(1);
+        assertThat(gauge("test.queued")).isEqualTo(1);
+        assertThat(gauge("test.pool-size")).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailFast() {
+        executor = executor(1, 1, 1, RejectionPolicy.FAIL_FAST, false);
+        executor.execute(this::block);
+        executor.execute(this::block);
+        try {
+            executor.execute(this::block);
+            fail("The task should have been rejected");
+        } catch (TaskRejectedException e) {
+            assertThat(metricRegistry.meter("test.rejected.fail-fast").getCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testCallerRuns() {
+        executor = executor(1, 1, 1, RejectionPolicy.CALLER_RUNS, false);
+        executor.execute(this::block);
+        executor.execute(this::block);
+        Thread[] thread = new Thread[1];
+        executor.execute(() -> thread[0] = Thread.currentThread());
+
+        assertThat(thread[0]).isSameAs(Thread.currentThread());
+        assertThat(metricRegistry.meter("test.rejected.caller-runs").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        executor = executor(1, 1, 1, RejectionPolicy.DROP_OLDEST, false);
+        executor.execute(this::block);
+        Future<?> oldest = executor.submit((Runnable) this::block);
+        Future<String> newest = executor.submit(() -> "done");
+
+        assertThat(oldest.isCancelled()).isTrue();
+        assertThat(metricRegistry.meter("test.rejected.drop-oldest").getCount()).isEqualTo(1);
+        release.countDown();
+        assertThat(newest.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    @Test
+    public void testQueuesBeforeGrowingByDefault() {
+        executor = executor(1, 3, 10, RejectionPolicy.FAIL_FAST, false);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(this::block);
+        }
+
+        assertThat(executor.getPoolSize()).isEqualTo(1);
+        assertThat(gauge("test.queued")).isEqualTo(2);
+    }
+
+    @Test
+    public void testGrowsBeforeQueueingWhenScaling() {
+        executor = executor(1, 3, 10, RejectionPolicy.FAIL_FAST, true);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(this::block);
+        }
+        assertThat(executor.getPoolSize()).isEqualTo(3);
+        assertThat(gauge("test.queued")).isEqualTo(0);
+
+        executor.execute(this::block);
+        assertThat(executor.getPoolSize()).isEqualTo(3);
+        assertThat(gauge("test.queued")).isEqualTo(1);
+    }
+
+    @Test
+    public void testTaskType() {
+        Runnable lambda = () -> { };
+
+        assertThat(InstrumentedTaskExecutor.taskType(lambda.getClass())).isEqualTo("InstrumentedTaskExecutorUnitTest");
+        assertThat(InstrumentedTaskExecutor.taskType(ReportTask.class))
+            .isEqualTo("InstrumentedTaskExecutorUnitTest.ReportTask");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRejectionPolicy() {
+        RejectionPolicy.of("discard");
+    }
+
+    private InstrumentedTaskExecutor executor(int corePoolSize, int maxPoolSize, int queueCapacity,
+                                              RejectionPolicy rejectionPolicy, boolean scaling) {
+        InstrumentedTaskExecutor executor = new InstrumentedTaskExecutor("test");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectionPolicy(rejectionPolicy);
+        executor.setScaling(scaling);
+        executor.setMetricRegistry(metricRegistry);
+        executor.initialize();
+        return executor;
+    }
+
+    private int gauge(String name) {
+        return (Integer) ((Gauge<?>) metricRegistry.getGauges().get(name)).getValue();
+    }
+
+    private void block(CountDownLatch started) {
+        started.countDown();
+        block();
+    }
+
+    private void block() {
+        await(release);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ReportTask implements Runnable, TypedTask {
+
+        @Override
+        public String getTaskType() {
+            return "report";
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.okta.developer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput of the blocking and asynchronous variants of the account and user endpoints, side by side, at thousands
+ * of concurrent connections, run with "./mvnw -Pbenchmark verify".
+ * <p>
+ * The application is started in a fresh JVM, as by the {@link ExecutionModeBenchmark}, once with the caches enabled
+ * and once without, so that the user endpoints are served from the caches in the first run and from the database in
+ * the second one. The task executor runs in scaling mode, so that the asynchronous requests use all its threads. Client
+ * threads of this JVM then send the requests of each endpoint in a loop over keep-alive connections, for each
+ * concurrency level, and the throughput and latency percentiles are reported after a warm-up.
+ * <p>
+ * Supported system properties:
+ * <ul>
+ * <li>benchmark.async-read.concurrency: comma-separated numbers of client threads, each with its own connection</li>
+ * <li>benchmark.async-read.warmup-seconds, benchmark.async-read.duration-seconds: duration of the warm-up and of the
+ * measure, for each endpoint and concurrency level</li>
+ * <li>benchmark.async-read.worker-threads: number of request threads of Undertow, its default when missing</li>
+ * <li>benchmark.report-dir: where the run logs and the JSON report are written</li>
+ * </ul>
+ */
+public final class AsyncReadBenchmark {
+
+    private static final String[][] ENDPOINTS = {
+        {"/api/account", "/api/async/account"},
+        {"/api/users/admin", "/api/async/users/admin"}
+    };
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final List<Integer> concurrencies = Arrays.stream(
+        System.getProperty("benchmark.async-read.concurrency", "500,2000").split(","))
+        .map(String::trim)
+        .map(Integer::valueOf)
+        .collect(Collectors.toList());
+
+    private final long warmupSeconds = Long.getLong("benchmark.async-read.warmup-seconds", 5);
+
+    private final long durationSeconds = Long.getLong("benchmark.async-read.duration-seconds", 10);
+
+    private final String workerThreads = System.getProperty("benchmark.async-read.worker-threads", "");
+
+    private final Path reportDir = Paths.get(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    private AsyncReadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        AsyncReadBenchmark benchmark = new AsyncReadBenchmark();
+        Files.createDirectories(benchmark.reportDir);
+        // Keep a connection per client thread alive between the requests
+        System.setProperty("http.maxConnections",
+            Integer.toString(Collections.max(benchmark.concurrencies)));
+        OAuth2StubServer stubServer = new OAuth2StubServer();
+        stubServer.start();
+        try {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("cached", benchmark.runServer("cached", "jcache", stubServer));
+            report.put("uncached", benchmark.runServer("uncached", "none", stubServer));
+            Path reportFile = benchmark.reportDir.resolve("async-read-report.json");
+            mapper.writeValue(reportFile.toFile(), report);
+            System.out.println("Report written to " + reportFile);
+        } finally {
+            stubServer.stop();
+        }
+    }
+
+    private Map<String, Object> runServer(String name, String cacheType, OAuth2StubServer stubServer)
+        throws Exception {
+
+        List<String> arguments = new ArrayList<>(stubServer.getApplicationArguments());
+        arguments.add("--spring.cache.type=" + cacheType);
+        arguments.add("--application.async-executor.scaling=true");
+        if (!workerThreads.isEmpty()) {
+            arguments.add("--server.undertow.worker-threads=" + workerThreads);
+        }
+        File log = reportDir.resolve("async-read-" + name + ".log").toFile();
+        Process process = ExecutionModeBenchmark.fork(StartupBenchmark.javaCommand(), "", "platform", arguments, log);
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> ready = mapper.readValue(ExecutionModeBenchmark.awaitReady(process, log),
+                LinkedHashMap.class);
+            String baseUrl = "http://localhost:" + ready.get("port");
+            String cookies = ExecutionModeBenchmark.login(baseUrl);
+            System.out.println(String.format("%n%s, caches: %s", name, cacheType));
+            System.out.println(String.format("%-24s %11s %12s %9s %9s %7s", "endpoint", "concurrency",
+                "requests/s", "p50 (ms)", "p99 (ms)", "errors"));
+            Map<String, Object> measures = new LinkedHashMap<>();
+            for (int concurrency : concurrencies) {
+                for (String[] pair : ENDPOINTS) {
+                    double[] throughput = new double[pair.length];
+                    for (int i = 0; i < pair.length; i++) {
+                        String endpoint = pair[i];
+                        ExecutionModeBenchmark.run(baseUrl + endpoint, cookies, concurrency, warmupSeconds);
+                        Map<String, Object> measure = ExecutionModeBenchmark.run(baseUrl + endpoint, cookies,
+                            concurrency, durationSeconds);
+                        measures.put(endpoint + " c=" + concurrency, measure);
+                        throughput[i] = (Double) measure.get("requestsPerSecond");
+                        System.out.println(String.format("%-24s %11d %12.0f %9.1f %9.1f %7d", endpoint, concurrency,
+                            measure.get("requestsPerSecond"), measure.get("p50Ms"), measure.get("p99Ms"),
+                            measure.get("errors")));
+                    }
+                    measures.put(pair[1] + " c=" + concurrency + " throughput ratio",
+                        throughput[0] == 0 ? null : Math.round(throughput[1] / throughput[0] * 100) / 100d);
+                }
+            }
+            return measures;
+        } finally {
+            ExecutionModeBenchmark.stop(process);
+        }
+    }
+}
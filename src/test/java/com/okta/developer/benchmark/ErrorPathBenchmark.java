@@ -0,0 +1,216 @@
+package com.okta.developer.benchmark;
+
+import com.okta.developer.config.ApplicationProperties;
+import com.okta.developer.web.rest.errors.EmailAlreadyUsedException;
+import com.okta.developer.web.rest.errors.EmailNotFoundException;
+import com.okta.developer.web.rest.errors.ExceptionTranslator;
+import com.okta.developer.web.rest.errors.InternalServerErrorException;
+import com.okta.developer.web.rest.errors.InvalidPasswordException;
+import com.okta.developer.web.rest.errors.LoginAlreadyUsedException;
+import com.okta.developer.web.rest.util.HeaderUtil;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.zalando.problem.ProblemModule;
+import org.zalando.problem.spring.web.advice.AdviceTrait;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Throughput of the error paths, with the default exceptions and problems, and with the lightweight exceptions and the
+ * problem fast path of the ExceptionTranslator, run with "./mvnw -Pbenchmark verify".
+ * <p>
+ * Each mode runs in a fresh JVM, where the requests go through a MockMvc with the ExceptionTranslator, to a controller
+ * throwing the expected problems of the application, or a framework exception for a missing parameter. The logging of
+ * the problems is disabled, so that the measure doesn't include the console. Each request is repeated in batches after
+ * a warm-up of all of them, and the median time per request of the batches, and the matching number of requests per
+ * second, are reported.
+ * <p>
+ * Supported system properties:
+ * <ul>
+ * <li>benchmark.error-path.iterations: number of requests of a batch</li>
+ * <li>benchmark.error-path.batches: number of measured batches, after as many warm-up batches</li>
+ * <li>benchmark.error-path.lightweight: set by the benchmark, to measure a single mode in the current JVM</li>
+ * <li>benchmark.report-dir: where the JSON report is written</li>
+ * </ul>
+ */
+public final class ErrorPathBenchmark {
+
+    private static final String RESULT_MARKER = "ERROR-PATH-RESULT ";
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final String[] PATHS = {
+        "/email-already-used",
+        "/login-already-used",
+        "/email-not-found",
+        "/invalid-password",
+        "/internal-server-error",
+        "/missing-parameter"
+    };
+
+    private final int iterations = Integer.getInteger("benchmark.error-path.iterations", 20000);
+
+    private final int batches = Integer.getInteger("benchmark.error-path.batches", 5);
+
+    private final Path reportDir = Paths.get(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    private ErrorPathBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ErrorPathBenchmark benchmark = new ErrorPathBenchmark();
+        String lightweight = System.getProperty("benchmark.error-path.lightweight");
+        if (lightweight != null) {
+            Map<String, Double> times = benchmark.runMode(Boolean.parseBoolean(lightweight));
+            System.out.println(RESULT_MARKER + mapper.writer().without(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsString(times));
+            System.out.flush();
+            System.exit(0);
+        }
+        Files.createDirectories(benchmark.reportDir);
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Double> before = benchmark.fork(false);
+        Map<String, Double> after = benchmark.fork(true);
+        report.put("defaultNs", before);
+        report.put("lightweightNs", after);
+
+        System.out.println(String.format("%n%-24s %12s %12s %14s %14s %7s", "request", "before (ns)", "after (ns)",
+            "before (req/s)", "after (req/s)", "ratio"));
+        Map<String, Double> ratios = new LinkedHashMap<>();
+        before.forEach((path, time) -> {
+            ratios.put(path, Math.round(time / after.get(path) * 10) / 10d);
+            System.out.println(String.format("%-24s %12.0f %12.0f %14.0f %14.0f %6.1fx", path, time, after.get(path),
+                1e9 / time, 1e9 / after.get(path), ratios.get(path)));
+        });
+        report.put("ratio", ratios);
+
+        Path reportFile = benchmark.reportDir.resolve("error-path-report.json");
+        mapper.writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    /**
+     * Run a mode in a fresh JVM, so that the code compiled for the other mode doesn't skew its measures.
+     */
+    private Map<String, Double> fork(boolean lightweight) throws IOException, InterruptedException {
+        List<String> command = Arrays.asList(StartupBenchmark.javaCommand(), "-Xmx256m",
+            "-Dbenchmark.error-path.iterations=" + iterations, "-Dbenchmark.error-path.batches=" + batches,
+            "-Dbenchmark.error-path.lightweight=" + lightweight,
+            "-cp", System.getProperty("java.class.path"), ErrorPathBenchmark.class.getName());
+        File log = reportDir.resolve("error-path-" + (lightweight ? "lightweight" : "default") + ".log").toFile();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        if (!process.waitFor(10, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Run timed out, see " + log);
+        }
+        String line = Files.readAllLines(log.toPath()).stream()
+            .filter(l -> l.startsWith(RESULT_MARKER))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("Run failed, see " + log));
+        return mapper.readValue(line.substring(RESULT_MARKER.length()),
+            new TypeReference<LinkedHashMap<String, Double>>() { });
+    }
+
+    /**
+     * @return the median time per request, in nanoseconds, by path
+     */
+    private Map<String, Double> runMode(boolean lightweight) throws Exception {
+        ((Logger) LoggerFactory.getLogger(AdviceTrait.class)).setLevel(Level.OFF);
+        ((Logger) LoggerFactory.getLogger(HeaderUtil.class)).setLevel(Level.OFF);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProblemFastPath().setEnabled(lightweight);
+        applicationProperties.getLightweightExceptions().setEnabled(lightweight);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ErrorController())
+            .setControllerAdvice(new ExceptionTranslator(applicationProperties))
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new ProblemModule())))
+            .build();
+
+        // Warm up all the paths first, as they share most of their code
+        for (int i = 0; i < batches; i++) {
+            for (String path : PATHS) {
+                runBatch(mockMvc, path);
+            }
+        }
+        Map<String, Double> times = new LinkedHashMap<>();
+        for (String path : PATHS) {
+            List<Double> samples = new ArrayList<>();
+            for (int i = 0; i < batches; i++) {
+                samples.add(runBatch(mockMvc, path));
+            }
+            Collections.sort(samples);
+            times.put(path, samples.get(samples.size() / 2));
+        }
+        return times;
+    }
+
+    /**
+     * @return the mean time per request of the batch, in nanoseconds
+     */
+    private double runBatch(MockMvc mockMvc, String path) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mockMvc.perform(get(path));
+        }
+        return (System.nanoTime() - start) / (double) iterations;
+    }
+
+    @RestController
+    public static class ErrorController {
+
+        @GetMapping("/email-already-used")
+        public void emailAlreadyUsed() {
+            throw new EmailAlreadyUsedException();
+        }
+
+        @GetMapping("/login-already-used")
+        public void loginAlreadyUsed() {
+            throw new LoginAlreadyUsedException();
+        }
+
+        @GetMapping("/email-not-found")
+        public void emailNotFound() {
+            throw new EmailNotFoundException();
+        }
+
+        @GetMapping("/invalid-password")
+        public void invalidPassword() {
+            throw new InvalidPasswordException();
+        }
+
+        @GetMapping("/internal-server-error")
+        public void internalServerError() {
+            throw new InternalServerErrorException("User could not be found");
+        }
+
+        @GetMapping("/missing-parameter")
+        public void missingParameter(@RequestParam String key) {
+        }
+    }
+}
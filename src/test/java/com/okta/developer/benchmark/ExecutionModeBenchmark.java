@@ -0,0 +1,282 @@
+package com.okta.developer.benchmark;
+
+import com.okta.developer.OidcApp;
+import com.okta.developer.config.VirtualThreads;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.CookieHandler;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput of the account and users endpoints at high concurrency, with the request handling and the @Async tasks
+ * on platform thread pools and on virtual threads, run with "./mvnw -Pbenchmark verify".
+ * <p>
+ * The application is started for each mode in a fresh JVM, against the in-memory H2 database of the test
+ * configuration and a local {@link OAuth2StubServer}, and logged in once. Client threads of this JVM then send the
+ * requests of each endpoint in a loop over real HTTP connections, for each concurrency level, and the throughput and
+ * latency percentiles are reported after a warm-up.
+ * <p>
+ * Virtual threads need Java 21: point "benchmark.execution-mode.java" to a Java 21 executable, and add a JAXB
+ * implementation, which Hibernate needs on Java 11 and later, to "benchmark.execution-mode.classpath". When the
+ * application JVM doesn't support them, the virtual mode falls back to the thread pools, which the report shows with
+ * "virtualThreads": false.
+ * <p>
+ * Supported system properties:
+ * <ul>
+ * <li>benchmark.execution-mode.java: the java executable of the application JVM, the current one by default</li>
+ * <li>benchmark.execution-mode.classpath: entries appended to the classpath of the application JVM</li>
+ * <li>benchmark.execution-mode.concurrency: comma-separated numbers of client threads</li>
+ * <li>benchmark.execution-mode.warmup-seconds, benchmark.execution-mode.duration-seconds: duration of the warm-up
+ * and of the measure, for each endpoint and concurrency level</li>
+ * <li>benchmark.execution-mode.server: set by the benchmark, to start the application in the given mode</li>
+ * <li>benchmark.report-dir: where the run logs and the JSON report are written</li>
+ * </ul>
+ */
+public final class ExecutionModeBenchmark {
+
+    private static final String READY_MARKER = "EXECUTION-MODE-READY ";
+
+    private static final String[] ENDPOINTS = {"/api/account", "/api/users"};
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final String java = System.getProperty("benchmark.execution-mode.java", StartupBenchmark.javaCommand());
+
+    private final String extraClasspath = System.getProperty("benchmark.execution-mode.classpath", "");
+
+    private final List<Integer> concurrencies = Arrays.stream(
+        System.getProperty("benchmark.execution-mode.concurrency", "16,256").split(","))
+        .map(String::trim)
+        .map(Integer::valueOf)
+        .collect(Collectors.toList());
+
+    private final long warmupSeconds = Long.getLong("benchmark.execution-mode.warmup-seconds", 5);
+
+    private final long durationSeconds = Long.getLong("benchmark.execution-mode.duration-seconds", 10);
+
+    private final Path reportDir = Paths.get(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    private ExecutionModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String server = System.getProperty("benchmark.execution-mode.server");
+        if (server != null) {
+            runServer("virtual".equals(server), args);
+            return;
+        }
+        ExecutionModeBenchmark benchmark = new ExecutionModeBenchmark();
+        Files.createDirectories(benchmark.reportDir);
+        // Keep a connection per client thread alive between the requests
+        System.setProperty("http.maxConnections",
+            Integer.toString(Collections.max(benchmark.concurrencies)));
+        OAuth2StubServer stubServer = new OAuth2StubServer();
+        stubServer.start();
+        try {
+            Map<String, Object> report = new LinkedHashMap<>();
+            for (String mode : Arrays.asList("platform", "virtual")) {
+                report.put(mode, benchmark.runMode(mode, stubServer));
+            }
+            Path reportFile = benchmark.reportDir.resolve("execution-mode-report.json");
+            mapper.writeValue(reportFile.toFile(), report);
+            System.out.println("Report written to " + reportFile);
+        } finally {
+            stubServer.stop();
+        }
+    }
+
+    /**
+     * Start the application in the current JVM, print its port, and keep it running until the JVM is stopped.
+     */
+    private static void runServer(boolean virtual, String[] args) throws IOException {
+        List<String> appArgs = new ArrayList<>(Arrays.asList(args));
+        appArgs.add("--server.port=0");
+        appArgs.add("--application.virtual-threads.enabled=" + virtual);
+        appArgs.add("--application.request-limit.enabled=false");
+        ConfigurableApplicationContext context = SpringApplication.run(OidcApp.class, appArgs.toArray(new String[0]));
+        Map<String, Object> ready = new LinkedHashMap<>();
+        ready.put("port", context.getEnvironment().getProperty("local.server.port"));
+        ready.put("javaVersion", System.getProperty("java.version"));
+        ready.put("virtualThreads", context.getBeansOfType(VirtualThreads.class).values().stream()
+            .anyMatch(VirtualThreads::isAvailable));
+        System.out.println(READY_MARKER + mapper.writer().without(SerializationFeature.INDENT_OUTPUT)
+            .writeValueAsString(ready));
+        System.out.flush();
+    }
+
+    private Map<String, Object> runMode(String mode, OAuth2StubServer stubServer) throws Exception {
+        File log = reportDir.resolve("execution-mode-" + mode + ".log").toFile();
+        Process process = fork(java, extraClasspath, mode, stubServer.getApplicationArguments(), log);
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> result = mapper.readValue(awaitReady(process, log), LinkedHashMap.class);
+            String baseUrl = "http://localhost:" + result.get("port");
+            String cookies = login(baseUrl);
+            System.out.println(String.format("%n%s mode, Java %s, virtual threads: %s", mode, result.get("javaVersion"),
+                result.get("virtualThreads")));
+            System.out.println(String.format("%-14s %11s %12s %9s %9s %7s", "endpoint", "concurrency",
+                "requests/s", "p50 (ms)", "p99 (ms)", "errors"));
+            Map<String, Object> measures = new LinkedHashMap<>();
+            for (int concurrency : concurrencies) {
+                for (String endpoint : ENDPOINTS) {
+                    run(baseUrl + endpoint, cookies, concurrency, warmupSeconds);
+                    Map<String, Object> measure = run(baseUrl + endpoint, cookies, concurrency, durationSeconds);
+                    measures.put(endpoint + " c=" + concurrency, measure);
+                    System.out.println(String.format("%-14s %11d %12.0f %9.1f %9.1f %7d", endpoint, concurrency,
+                        measure.get("requestsPerSecond"), measure.get("p50Ms"), measure.get("p99Ms"),
+                        measure.get("errors")));
+                }
+            }
+            result.put("measures", measures);
+            return result;
+        } finally {
+            stop(process);
+        }
+    }
+
+    /**
+     * Start the application in a fresh JVM, in the given mode, with the given application arguments.
+     */
+    static Process fork(String java, String extraClasspath, String mode, List<String> arguments, File log)
+        throws IOException {
+
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-Xmx512m",
+            "-Dbenchmark.execution-mode.server=" + mode, "-Dspring.devtools.restart.enabled=false",
+            "-cp", System.getProperty("java.class.path") +
+                (extraClasspath.isEmpty() ? "" : File.pathSeparator + extraClasspath),
+            ExecutionModeBenchmark.class.getName()));
+        command.addAll(arguments);
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log);
+        // Read by the Java 9+ launchers only, for the CGLIB proxies of Spring
+        builder.environment().put("JDK_JAVA_OPTIONS", "--add-opens=java.base/java.lang=ALL-UNNAMED " +
+            "--add-opens=java.base/java.util=ALL-UNNAMED --add-opens=java.base/java.lang.reflect=ALL-UNNAMED " +
+            "--add-opens=java.base/java.io=ALL-UNNAMED --add-opens=java.base/java.nio=ALL-UNNAMED");
+        return builder.start();
+    }
+
+    static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * @return the JSON printed by the application JVM once it is started, with its port
+     */
+    static String awaitReady(Process process, File log) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (log.exists()) {
+                for (String line : Files.readAllLines(log.toPath())) {
+                    if (line.startsWith(READY_MARKER)) {
+                        return line.substring(READY_MARKER.length());
+                    }
+                }
+            }
+            if (!process.isAlive()) {
+                break;
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("The application did not start, see " + log);
+    }
+
+    /**
+     * @return the cookies of the session, for the Cookie header of the requests
+     */
+    static String login(String baseUrl) throws IOException {
+        CookieManager cookieManager = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+        CookieHandler.setDefault(cookieManager);
+        try {
+            StartupProbe.login(baseUrl);
+        } finally {
+            // The client threads send the Cookie header themselves, instead of contending on the cookie manager
+            CookieHandler.setDefault(null);
+        }
+        return cookieManager.getCookieStore().get(URI.create(baseUrl)).stream()
+            .map(HttpCookie::toString)
+            .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Send the requests in a loop from the given number of client threads, for the given duration.
+     *
+     * @return the number of requests and errors, the throughput and the latency percentiles
+     */
+    static Map<String, Object> run(String url, String cookies, int concurrency, long seconds)
+        throws InterruptedException {
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        List<List<Long>> latencies = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            List<Long> threadLatencies = new ArrayList<>();
+            latencies.add(threadLatencies);
+            Thread client = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpURLConnection connection = StartupProbe.get(url);
+                            connection.setRequestProperty("Cookie", cookies);
+                            int status = connection.getResponseCode();
+                            StartupProbe.drain(connection);
+                            if (status != HttpURLConnection.HTTP_OK) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        threadLatencies.add(System.nanoTime() - start);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + i);
+            client.start();
+        }
+        done.await();
+
+        List<Long> all = latencies.stream().flatMap(List::stream).sorted().collect(Collectors.toList());
+        Map<String, Object> measure = new LinkedHashMap<>();
+        measure.put("requests", all.size());
+        measure.put("errors", errors.get());
+        measure.put("requestsPerSecond", all.size() / (double) seconds);
+        measure.put("p50Ms", percentile(all, 0.5));
+        measure.put("p99Ms", percentile(all, 0.99));
+        return measure;
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        long nanos = sorted.get(Math.min(sorted.size() - 1, (int) (sorted.size() * percentile)));
+        return Math.round(nanos / 100000d) / 10d;
+    }
+}
@@ -0,0 +1,180 @@
+package com.okta.developer.benchmark;
+
+import com.okta.developer.OidcApp;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import javax.servlet.ServletException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the security filter chains, with and without the fast path of the
+ * FastPathSecurityConfiguration, run with "./mvnw -Pbenchmark verify".
+ * <p>
+ * The application is started once for each variant, in a fresh JVM, and the requests go through its springSecurityFilterChain only,
+ * ending in an empty servlet, so that the measure doesn't include the controllers nor the network. Each request is
+ * repeated in batches after a warm-up, and the median time per request of the batches is reported.
+ * <p>
+ * Supported system properties:
+ * <ul>
+ * <li>benchmark.filter-chain.iterations: number of requests of a batch</li>
+ * <li>benchmark.filter-chain.batches: number of measured batches, after as many warm-up batches</li>
+ * <li>benchmark.filter-chain.fast-path: set by the benchmark, to measure a single variant in the current JVM</li>
+ * <li>benchmark.report-dir: where the JSON report is written</li>
+ * </ul>
+ */
+public final class FilterChainBenchmark {
+
+    private static final String RESULT_MARKER = "FILTER-CHAIN-RESULT ";
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final String[][] REQUESTS = {
+        {"GET", "/content/css/global.css", "anonymous"},
+        {"GET", "/i18n/en/global.json", "anonymous"},
+        {"OPTIONS", "/api/account", "anonymous"},
+        {"GET", "/management/health", "anonymous"},
+        {"GET", "/api/profile-info", "anonymous"},
+        {"GET", "/api/account", "anonymous"},
+        {"GET", "/api/account", "authenticated"}
+    };
+
+    private final int iterations = Integer.getInteger("benchmark.filter-chain.iterations", 20000);
+
+    private final int batches = Integer.getInteger("benchmark.filter-chain.batches", 5);
+
+    private final Path reportDir = Paths.get(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    private FilterChainBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        FilterChainBenchmark benchmark = new FilterChainBenchmark();
+        String fastPath = System.getProperty("benchmark.filter-chain.fast-path");
+        if (fastPath != null) {
+            Map<String, Double> times = benchmark.runVariant(Boolean.parseBoolean(fastPath));
+            System.out.println(RESULT_MARKER + mapper.writer().without(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsString(times));
+            System.out.flush();
+            System.exit(0);
+        }
+        Files.createDirectories(benchmark.reportDir);
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Double> before = benchmark.fork(false);
+        Map<String, Double> after = benchmark.fork(true);
+        report.put("fastPathDisabledNs", before);
+        report.put("fastPathEnabledNs", after);
+
+        System.out.println(String.format("%n%-40s %12s %12s %8s", "request", "before (ns)", "after (ns)", "ratio"));
+        Map<String, Double> ratios = new LinkedHashMap<>();
+        before.forEach((request, time) -> {
+            ratios.put(request, Math.round(time / after.get(request) * 10) / 10d);
+            System.out.println(String.format("%-40s %12.0f %12.0f %7.1fx", request, time, after.get(request),
+                ratios.get(request)));
+        });
+        report.put("ratio", ratios);
+
+        Path reportFile = benchmark.reportDir.resolve("filter-chain-report.json");
+        mapper.writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    /**
+     * Run a variant in a fresh JVM, so that the code compiled for the other variant doesn't skew its measures.
+     */
+    private Map<String, Double> fork(boolean fastPath) throws IOException, InterruptedException {
+        List<String> command = Arrays.asList(StartupBenchmark.javaCommand(), "-Xmx256m",
+            "-Dbenchmark.filter-chain.iterations=" + iterations, "-Dbenchmark.filter-chain.batches=" + batches,
+            "-Dbenchmark.filter-chain.fast-path=" + fastPath, "-Dspring.devtools.restart.enabled=false",
+            "-cp", System.getProperty("java.class.path"), FilterChainBenchmark.class.getName());
+        File log = reportDir.resolve("filter-chain-" + (fastPath ? "fast-path" : "default") + ".log").toFile();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        if (!process.waitFor(10, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Run timed out, see " + log);
+        }
+        String line = Files.readAllLines(log.toPath()).stream()
+            .filter(l -> l.startsWith(RESULT_MARKER))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("Run failed, see " + log));
+        return mapper.readValue(line.substring(RESULT_MARKER.length()),
+            new TypeReference<LinkedHashMap<String, Double>>() { });
+    }
+
+    /**
+     * @return the median time per request, in nanoseconds, by request
+     */
+    private Map<String, Double> runVariant(boolean fastPath) throws IOException, ServletException {
+        ConfigurableApplicationContext context = SpringApplication.run(OidcApp.class, "--server.port=0",
+            "--application.security-fast-path.enabled=" + fastPath, "--application.request-limit.enabled=false");
+        try {
+            FilterChainProxy filterChain = context.getBean("springSecurityFilterChain", FilterChainProxy.class);
+            SecurityContextImpl securityContext = new SecurityContextImpl();
+            securityContext.setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+                AuthorityUtils.createAuthorityList("ROLE_ADMIN", "ROLE_USER")));
+            MockHttpSession session = new MockHttpSession();
+            session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext);
+
+            Map<String, Double> times = new LinkedHashMap<>();
+            for (String[] request : REQUESTS) {
+                MockHttpSession requestSession = "authenticated".equals(request[2]) ? session : null;
+                for (int i = 0; i < batches; i++) {
+                    runBatch(filterChain, request[0], request[1], requestSession);
+                }
+                List<Double> samples = new ArrayList<>();
+                for (int i = 0; i < batches; i++) {
+                    samples.add(runBatch(filterChain, request[0], request[1], requestSession));
+                }
+                Collections.sort(samples);
+                times.put(String.join(" ", Arrays.asList(request)), samples.get(samples.size() / 2));
+            }
+            return times;
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * @return the mean time per request of the batch, in nanoseconds
+     */
+    private double runBatch(FilterChainProxy filterChain, String method, String path, MockHttpSession session)
+        throws IOException, ServletException {
+
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+            request.setServletPath(path);
+            request.setSession(session);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain chain = new MockFilterChain();
+            long start = System.nanoTime();
+            filterChain.doFilter(request, response, chain);
+            total += System.nanoTime() - start;
+        }
+        return total / (double) iterations;
+    }
+}
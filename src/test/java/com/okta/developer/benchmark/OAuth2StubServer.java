@@ -0,0 +1,89 @@
+package com.okta.developer.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Minimal local OpenID Connect provider, so the application can be started and logged in without a real IdP.
+ * <p>
+ * The authorization endpoint immediately redirects back with a code, the token endpoint accepts any code, and the
+ * userinfo and introspection endpoints describe a fixed "admin" user.
+ */
+public class OAuth2StubServer {
+
+    private static final String USER_INFO = "{\"sub\":\"admin\",\"name\":\"admin\",\"preferred_username\":\"admin\"," +
+        "\"given_name\":\"Administrator\",\"family_name\":\"Administrator\",\"email\":\"admin@localhost\"," +
+        "\"email_verified\":true,\"locale\":\"en-US\",\"roles\":[\"ROLE_ADMIN\",\"ROLE_USER\"]}";
+
+    private final HttpServer server;
+
+    public OAuth2StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/authorize", this::authorize);
+        server.createContext("/token", exchange -> respond(exchange, 200, "{\"access_token\":\"" + UUID.randomUUID() +
+            "\",\"token_type\":\"bearer\",\"expires_in\":300,\"scope\":\"openid profile email\"}"));
+        server.createContext("/userinfo", exchange -> respond(exchange, 200, USER_INFO));
+        server.createContext("/introspect", exchange -> respond(exchange, 200,
+            USER_INFO.replace("{", "{\"active\":true,\"exp\":" + (System.currentTimeMillis() / 1000 + 300) + ",")));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return the command line arguments pointing the application to this server
+     */
+    public List<String> getApplicationArguments() {
+        return new ArrayList<>(Arrays.asList(
+            "--security.oauth2.client.user-authorization-uri=" + getBaseUrl() + "/authorize",
+            "--security.oauth2.client.access-token-uri=" + getBaseUrl() + "/token",
+            "--security.oauth2.resource.user-info-uri=" + getBaseUrl() + "/userinfo",
+            "--security.oauth2.resource.token-info-uri=" + getBaseUrl() + "/introspect"));
+    }
+
+    private void authorize(HttpExchange exchange) throws IOException {
+        Map<String, List<String>> params = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build().getQueryParams();
+        String location = UriComponentsBuilder.fromUriString(URLDecoder.decode(params.get("redirect_uri").get(0), "UTF-8"))
+            .queryParam("code", UUID.randomUUID())
+            .queryParam("state", params.get("state").get(0))
+            .toUriString();
+        exchange.getResponseHeaders().add("Location", location);
+        respond(exchange, 302, "");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            while (in.read() != -1) {
+                // drain the request
+            }
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.okta.developer.benchmark;
+
+import com.okta.developer.web.rest.util.PaginationUtil;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cost of the pagination headers, built with a UriComponentsBuilder per link as before, and from the link templates
+ * of the PaginationUtil, run with "./mvnw -Pbenchmark verify".
+ * <p>
+ * The headers of a page in the middle of the users and of the audits are generated in batches after a warm-up, as well
+ * as the headers of a slice of a keyset pagination. The median time and the median number of bytes allocated per
+ * response of the batches are reported.
+ * <p>
+ * Supported system properties:
+ * <ul>
+ * <li>benchmark.pagination-header.iterations: number of headers generated in a batch</li>
+ * <li>benchmark.pagination-header.batches: number of measured batches, after as many warm-up batches</li>
+ * <li>benchmark.report-dir: where the JSON report is written</li>
+ * </ul>
+ */
+public final class PaginationHeaderBenchmark {
+
+    private static final ObjectMapper reportMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int iterations = Integer.getInteger("benchmark.pagination-header.iterations", 200000);
+
+    private final int batches = Integer.getInteger("benchmark.pagination-header.batches", 5);
+
+    private final Path reportDir = Paths.get(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    /**
+     * Keeps the headers reachable, so that their generation isn't optimized away.
+     */
+    private HttpHeaders sink;
+
+    private PaginationHeaderBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PaginationHeaderBenchmark benchmark = new PaginationHeaderBenchmark();
+        Files.createDirectories(benchmark.reportDir);
+        Page<String> page = new PageImpl<>(Collections.nCopies(20, "user"), new PageRequest(2500, 20), 1000000L);
+        Map<String, String> endpoints = new LinkedHashMap<>();
+        endpoints.put("users", "/api/users");
+        endpoints.put("audits", "/management/audits");
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        System.out.println(String.format("%n%-10s %-20s %12s %14s", "endpoint", "path", "time (ns)", "allocated (B)"));
+        for (Map.Entry<String, String> endpoint : endpoints.entrySet()) {
+            String baseUrl = endpoint.getValue();
+            double[] builder = benchmark.measure(p -> uriComponentsBuilderHeaders(p, baseUrl), page);
+            double[] template = benchmark.measure(p -> PaginationUtil.generatePaginationHttpHeaders(p, baseUrl), page);
+            Map<String, Object> measures = new LinkedHashMap<>();
+            measures.put("uriComponentsBuilderNs", builder[0]);
+            measures.put("uriComponentsBuilderAllocatedBytes", builder[1]);
+            measures.put("linkTemplateNs", template[0]);
+            measures.put("linkTemplateAllocatedBytes", template[1]);
+            measures.put("timeRatio", Math.round(builder[0] / template[0] * 10) / 10d);
+            measures.put("allocationRatio", Math.round(builder[1] / template[1] * 10) / 10d);
+            report.put(endpoint.getKey(), measures);
+            System.out.println(String.format("%-10s %-20s %12.0f %14.0f", endpoint.getKey(), "UriComponentsBuilder",
+                builder[0], builder[1]));
+            System.out.println(String.format("%-10s %-20s %12.0f %14.0f", endpoint.getKey(), "link template",
+                template[0], template[1]));
+        }
+        double[] keyset = benchmark.measure(p -> PaginationUtil.generateKeysetPaginationHttpHeaders(p,
+            value -> 50000L, "/api/users"), page);
+        Map<String, Object> measures = new LinkedHashMap<>();
+        measures.put("linkTemplateNs", keyset[0]);
+        measures.put("linkTemplateAllocatedBytes", keyset[1]);
+        report.put("users keyset", measures);
+        System.out.println(String.format("%-10s %-20s %12.0f %14.0f", "users", "keyset", keyset[0], keyset[1]));
+
+        Path reportFile = benchmark.reportDir.resolve("pagination-header-report.json");
+        reportMapper.writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    /**
+     * @return the median time, in nanoseconds, and the median number of allocated bytes, per response
+     */
+    private double[] measure(Function<Page<String>, HttpHeaders> headers, Page<String> page) {
+        for (int i = 0; i < batches; i++) {
+            runBatch(headers, page);
+        }
+        List<Double> times = new ArrayList<>();
+        List<Double> allocations = new ArrayList<>();
+        for (int i = 0; i < batches; i++) {
+            double[] batch = runBatch(headers, page);
+            times.add(batch[0]);
+            allocations.add(batch[1]);
+        }
+        Collections.sort(times);
+        Collections.sort(allocations);
+        return new double[] {times.get(batches / 2), allocations.get(batches / 2)};
+    }
+
+    /**
+     * @return the mean time, in nanoseconds, and the mean number of allocated bytes, per response of the batch
+     */
+    private double[] runBatch(Function<Page<String>, HttpHeaders> headers, Page<String> page) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = headers.apply(page);
+        }
+        long time = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new double[] {time / (double) iterations, allocated / (double) iterations};
+    }
+
+    /**
+     * The headers as they were generated before the links were templated.
+     */
+    private static HttpHeaders uriComponentsBuilderHeaders(Page<?> page, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Total-Count", Long.toString(page.getTotalElements()));
+        String link = "";
+        if ((page.getNumber() + 1) < page.getTotalPages()) {
+            link = "<" + uri(baseUrl, page.getNumber() + 1, page.getSize()) + ">; rel=\"next\",";
+        }
+        if ((page.getNumber()) > 0) {
+            link += "<" + uri(baseUrl, page.getNumber() - 1, page.getSize()) + ">; rel=\"prev\",";
+        }
+        int lastPage = page.getTotalPages() > 0 ? page.getTotalPages() - 1 : 0;
+        link += "<" + uri(baseUrl, lastPage, page.getSize()) + ">; rel=\"last\",";
+        link += "<" + uri(baseUrl, 0, page.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    private static String uri(String baseUrl, int page, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size)
+            .toUriString();
+    }
+}
@@ -0,0 +1,293 @@
+package com.okta.developer.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Startup time and memory benchmark, run with "./mvnw -Pbenchmark verify".
+ * <p>
+ * The application is started several times, each time in a fresh JVM running the {@link StartupProbe}, against the
+ * in-memory H2 database of the test configuration and a local {@link OAuth2StubServer}. The median of each measure
+ * is compared to the thresholds given as system properties, and the build fails if one of them is exceeded.
+ * <p>
+ * When class data sharing is enabled, a training run first records the JDK classes loaded by the application. They
+ * are written to a class list, used by "src/main/docker/cds-launcher.sh" to dump the archive of the Docker image, and
+ * dumped to a local archive with which the application is started again, to report the gain.
+ * <p>
+ * Supported system properties:
+ * <ul>
+ * <li>benchmark.runs, benchmark.warmup-runs: number of measured and discarded runs</li>
+ * <li>benchmark.jvm-args, benchmark.app-args: extra arguments for the probe JVM and for the application</li>
+ * <li>benchmark.timeout-seconds: maximum duration of a single run</li>
+ * <li>benchmark.report-dir: where the run logs and the JSON report are written</li>
+ * <li>benchmark.cds, benchmark.cds-class-list, benchmark.cds-archive: whether to measure the class data sharing
+ * gain, and where to write the class list and the archive</li>
+ * <li>benchmark.max-started-ms, benchmark.max-first-request-ms, benchmark.max-authenticated-request-ms,
+ * benchmark.max-heap-mb, benchmark.max-metaspace-mb, benchmark.max-loaded-classes: thresholds, unchecked if empty</li>
+ * </ul>
+ */
+public final class StartupBenchmark {
+
+    private static final Map<String, String> THRESHOLDS = new LinkedHashMap<>();
+
+    static {
+        THRESHOLDS.put("startedMs", "benchmark.max-started-ms");
+        THRESHOLDS.put("firstRequestMs", "benchmark.max-first-request-ms");
+        THRESHOLDS.put("firstAuthenticatedRequestMs", "benchmark.max-authenticated-request-ms");
+        THRESHOLDS.put("heapAfterGcMb", "benchmark.max-heap-mb");
+        THRESHOLDS.put("metaspaceMb", "benchmark.max-metaspace-mb");
+        THRESHOLDS.put("loadedClasses", "benchmark.max-loaded-classes");
+    }
+
+    /**
+     * A class loading trace, as printed by "-verbose:class" on Java 8 and on Java 9 or later.
+     */
+    private static final Pattern CLASS_LOAD =
+        Pattern.compile("^\\[Loaded (\\S+) from (.+)\\]$|\\[class,load\\s*\\] (\\S+) source: (.+)$");
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final int runs = Integer.getInteger("benchmark.runs", 5);
+
+    private final int warmupRuns = Integer.getInteger("benchmark.warmup-runs", 1);
+
+    private final long timeoutSeconds = Long.getLong("benchmark.timeout-seconds", 300);
+
+    private final List<String> appArgs = split(System.getProperty("benchmark.app-args"));
+
+    private final Path reportDir = Paths.get(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    private final boolean cds = Boolean.getBoolean("benchmark.cds");
+
+    private final Path cdsClassList = Paths.get(System.getProperty("benchmark.cds-class-list", "target/cds.classlist"));
+
+    private final Path cdsArchive = Paths.get(System.getProperty("benchmark.cds-archive", "target/benchmark/app.jsa"));
+
+    private final OAuth2StubServer stubServer;
+
+    private StartupBenchmark(OAuth2StubServer stubServer) {
+        this.stubServer = stubServer;
+    }
+
+    public static void main(String[] args) throws Exception {
+        OAuth2StubServer stubServer = new OAuth2StubServer();
+        stubServer.start();
+        StartupBenchmark benchmark = new StartupBenchmark(stubServer);
+        Files.createDirectories(benchmark.reportDir);
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Object> summary;
+        try {
+            List<String> jvmArgs = split(System.getProperty("benchmark.jvm-args"));
+            summary = benchmark.runVariant("default", jvmArgs);
+            report.put("default", summary);
+            if (benchmark.cds) {
+                List<String> cdsArgs = new ArrayList<>(jvmArgs);
+                cdsArgs.addAll(benchmark.dumpCdsArchive(jvmArgs));
+                Map<String, Object> cdsSummary = benchmark.runVariant("cds", cdsArgs);
+                report.put("cds", cdsSummary);
+                report.put("cdsGain", gain(summary, cdsSummary));
+            }
+        } finally {
+            stubServer.stop();
+        }
+        @SuppressWarnings("unchecked")
+        List<String> failures = checkThresholds((Map<String, Object>) summary.get("median"));
+        report.put("failures", failures);
+        Path reportFile = benchmark.reportDir.resolve("startup-report.json");
+        mapper.writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("Threshold exceeded: " + failure));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Start the application several times with the given JVM arguments, and summarize the measures.
+     *
+     * @param name the name of the variant, used for the log files
+     * @param jvmArgs the extra arguments of the probe JVM
+     * @return the median, min and max of each measure, the median time of each application event, and all runs
+     */
+    Map<String, Object> runVariant(String name, List<String> jvmArgs) throws IOException, InterruptedException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < warmupRuns + runs; i++) {
+            Map<String, Object> result = runOnce(name + "-" + i, jvmArgs);
+            if (i >= warmupRuns) {
+                results.add(result);
+            }
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Map<String, Object> medians = new LinkedHashMap<>();
+        Map<String, Object> mins = new LinkedHashMap<>();
+        Map<String, Object> maxs = new LinkedHashMap<>();
+        for (String metric : THRESHOLDS.keySet()) {
+            List<Double> values = results.stream()
+                .map(result -> ((Number) result.get(metric)).doubleValue())
+                .sorted()
+                .collect(Collectors.toList());
+            medians.put(metric, median(values));
+            mins.put(metric, values.get(0));
+            maxs.put(metric, values.get(values.size() - 1));
+        }
+        Map<String, List<Double>> eventTimes = new TreeMap<>();
+        for (Map<String, Object> result : results) {
+            @SuppressWarnings("unchecked")
+            Map<String, Number> events = (Map<String, Number>) result.get("events");
+            events.forEach((event, time) -> eventTimes.computeIfAbsent(event, key -> new ArrayList<>()).add(time.doubleValue()));
+        }
+        Map<String, Double> events = new LinkedHashMap<>();
+        eventTimes.entrySet().stream()
+            .sorted((a, b) -> Double.compare(median(a.getValue()), median(b.getValue())))
+            .forEach(entry -> events.put(entry.getKey(), median(entry.getValue())));
+        summary.put("median", medians);
+        summary.put("min", mins);
+        summary.put("max", maxs);
+        summary.put("events", events);
+        summary.put("runs", results);
+
+        System.out.println(String.format("%n%s (%d runs, jvm args: %s)", name, results.size(), jvmArgs));
+        medians.forEach((metric, median) -> System.out.println(String.format("  %-28s median %10.1f  min %10.1f  max %10.1f",
+            metric, median, mins.get(metric), maxs.get(metric))));
+        events.forEach((event, time) -> System.out.println(String.format("  %-50s %8.0f ms", event, time)));
+        return summary;
+    }
+
+    /**
+     * Do a training run tracing the loaded classes, write the JDK classes it loaded to the class list, and dump them
+     * to a class data sharing archive.
+     * <p>
+     * Only the JDK classes are archived: Java 8 can only share the classes of the boot class path, and the classes
+     * of the executable WAR are loaded by the Spring Boot class loader, which no class data sharing archive supports.
+     *
+     * @param jvmArgs the extra arguments of the probe JVM
+     * @return the JVM arguments starting the application with the archive
+     */
+    List<String> dumpCdsArchive(List<String> jvmArgs) throws IOException, InterruptedException {
+        List<String> trainingArgs = new ArrayList<>(jvmArgs);
+        trainingArgs.add("-verbose:class");
+        runOnce("cds-training", trainingArgs);
+        String javaHome = System.getProperty("java.home");
+        Set<String> classes = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(reportDir.resolve("cds-training.log"), StandardCharsets.ISO_8859_1)) {
+            Matcher matcher = CLASS_LOAD.matcher(line);
+            if (matcher.find()) {
+                String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(3);
+                String source = matcher.group(1) != null ? matcher.group(2) : matcher.group(4);
+                if (source.equals("shared objects file") || source.startsWith("jrt:/") || source.startsWith(javaHome)) {
+                    classes.add(name.replace('.', '/'));
+                }
+            }
+        }
+        Files.createDirectories(cdsClassList.toAbsolutePath().getParent());
+        Files.write(cdsClassList, classes);
+
+        Files.createDirectories(cdsArchive.toAbsolutePath().getParent());
+        Files.deleteIfExists(cdsArchive);
+        File log = reportDir.resolve("cds-dump.log").toFile();
+        Process process = new ProcessBuilder(javaCommand(), "-Xshare:dump", "-XX:SharedClassListFile=" + cdsClassList,
+            "-XX:+UnlockDiagnosticVMOptions", "-XX:SharedArchiveFile=" + cdsArchive)
+            .redirectErrorStream(true).redirectOutput(log).start();
+        if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Could not dump the class data sharing archive, see " + log);
+        }
+        System.out.println(String.format("Archived %d JDK classes to %s", classes.size(), cdsArchive));
+        // Fail rather than silently measure a run without the archive
+        return Arrays.asList("-Xshare:on", "-XX:+UnlockDiagnosticVMOptions", "-XX:SharedArchiveFile=" + cdsArchive);
+    }
+
+    private Map<String, Object> runOnce(String runName, List<String> jvmArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(javaCommand());
+        command.add("-Xmx256m");
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupProbe.class.getName());
+        command.addAll(stubServer.getApplicationArguments());
+        command.addAll(appArgs);
+
+        File log = reportDir.resolve(runName + ".log").toFile();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Run " + runName + " timed out, see " + log);
+        }
+        String line = Files.readAllLines(log.toPath()).stream()
+            .filter(l -> l.startsWith(StartupProbe.RESULT_MARKER))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("Run " + runName + " failed, see " + log));
+        System.out.println("Completed run " + runName);
+        return mapper.readValue(line.substring(StartupProbe.RESULT_MARKER.length()),
+            new TypeReference<LinkedHashMap<String, Object>>() { });
+    }
+
+    private static Map<String, Object> gain(Map<String, Object> baseline, Map<String, Object> variant) {
+        @SuppressWarnings("unchecked")
+        Map<String, Number> baselineMedians = (Map<String, Number>) baseline.get("median");
+        @SuppressWarnings("unchecked")
+        Map<String, Number> variantMedians = (Map<String, Number>) variant.get("median");
+        Map<String, Object> gain = new LinkedHashMap<>();
+        System.out.println(String.format("%nClass data sharing gain"));
+        baselineMedians.forEach((metric, value) -> {
+            double before = value.doubleValue();
+            double after = variantMedians.get(metric).doubleValue();
+            double percent = before == 0 ? 0 : (before - after) * 100 / before;
+            gain.put(metric, percent);
+            System.out.println(String.format("  %-28s %10.1f -> %10.1f  (%+.1f%%)", metric, before, after, -percent));
+        });
+        return gain;
+    }
+
+    static String javaCommand() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static List<String> checkThresholds(Map<String, Object> medians) {
+        List<String> failures = new ArrayList<>();
+        THRESHOLDS.forEach((metric, property) -> {
+            String threshold = System.getProperty(property);
+            if (threshold != null && !threshold.trim().isEmpty()) {
+                double value = ((Number) medians.get(metric)).doubleValue();
+                if (value > Double.parseDouble(threshold)) {
+                    failures.add(String.format("%s median is %.1f, above %s=%s", metric, value, property, threshold));
+                }
+            }
+        });
+        return failures;
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = values.stream().sorted().collect(Collectors.toList());
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    private static List<String> split(String args) {
+        if (args == null || args.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(args.trim().split("\\s+")));
+    }
+}
@@ -0,0 +1,127 @@
+package com.okta.developer.benchmark;
+
+import com.okta.developer.OidcApp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.CookieHandler;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts the application once, measures it, and prints the result as a single JSON line prefixed with
+ * {@link #RESULT_MARKER}.
+ * <p>
+ * This runs in a fresh JVM launched by the {@link StartupBenchmark}, so every measure is a cold start.
+ */
+public final class StartupProbe {
+
+    static final String RESULT_MARKER = "STARTUP-PROBE-RESULT ";
+
+    private StartupProbe() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Long> events = new LinkedHashMap<>();
+        SpringApplication app = new SpringApplication(OidcApp.class);
+        app.addListeners(event -> events.putIfAbsent(eventName(event), uptime()));
+        String[] appArgs = Arrays.copyOf(args, args.length + 1);
+        appArgs[args.length] = "--server.port=0";
+        ConfigurableApplicationContext context = app.run(appArgs);
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startedMs", events.get("ApplicationReadyEvent"));
+
+        CookieHandler.setDefault(new CookieManager(null, CookiePolicy.ACCEPT_ALL));
+        expectOk(get(baseUrl + "/api/profile-info"));
+        result.put("firstRequestMs", uptime());
+        login(baseUrl);
+        expectOk(get(baseUrl + "/api/account"));
+        result.put("firstAuthenticatedRequestMs", uptime());
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        result.put("heapAfterGcMb", toMb(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed()));
+        result.put("metaspaceMb", toMb(ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> "Metaspace".equals(pool.getName()))
+            .mapToLong(pool -> pool.getUsage().getUsed())
+            .sum()));
+        result.put("loadedClasses", ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+        result.put("events", events);
+
+        System.out.println(RESULT_MARKER + new ObjectMapper().writeValueAsString(result));
+        System.out.flush();
+        context.close();
+        System.exit(0);
+    }
+
+    /**
+     * Go through the authorization code flow against the stub provider, following redirects manually so the
+     * session cookie is kept across hosts.
+     */
+    static void login(String baseUrl) throws IOException {
+        String location = baseUrl + "/login";
+        for (int i = 0; i < 5 && location != null && !location.equals(baseUrl + "/"); i++) {
+            HttpURLConnection connection = get(location);
+            int status = connection.getResponseCode();
+            drain(connection);
+            if (status / 100 != 3) {
+                throw new IllegalStateException("Login failed with status " + status + " on " + location);
+            }
+            location = new URL(new URL(location), connection.getHeaderField("Location")).toString();
+        }
+    }
+
+    static HttpURLConnection get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        connection.setRequestProperty("Accept", "application/json");
+        return connection;
+    }
+
+    private static void expectOk(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        drain(connection);
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new IllegalStateException("Unexpected status " + status + " for " + connection.getURL());
+        }
+    }
+
+    static void drain(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] buffer = new byte[4096];
+                while (stream.read(buffer) != -1) {
+                    // discard the body
+                }
+            }
+        }
+    }
+
+    private static String eventName(ApplicationEvent event) {
+        return event.getClass().getSimpleName();
+    }
+
+    private static long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    private static double toMb(long bytes) {
+        return Math.round(bytes / 1024d / 1024d * 10) / 10d;
+    }
+}
@@ -0,0 +1,172 @@
+package com.okta.developer.benchmark;
+
+import com.okta.developer.domain.Authority;
+import com.okta.developer.domain.User;
+import com.okta.developer.security.AuthoritiesConstants;
+import com.okta.developer.service.dto.UserDTO;
+import com.okta.developer.service.dto.UserListDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of writing a page of users, by copying each user into a UserDTO as before and with the {@link UserListDTO},
+ * which writes the users straight to the JSON generator, run with "./mvnw -Pbenchmark verify".
+ * <p>
+ * Pages of users with two authorities are written by an object mapper configured as the one of the application, in
+ * batches after a warm-up. The median time and the median number of bytes allocated per page of the batches are
+ * reported, for each page size.
+ * <p>
+ * Supported system properties:
+ * <ul>
+ * <li>benchmark.user-serialization.page-sizes: comma-separated numbers of users of a page</li>
+ * <li>benchmark.user-serialization.iterations: number of pages written in a batch</li>
+ * <li>benchmark.user-serialization.batches: number of measured batches, after as many warm-up batches</li>
+ * <li>benchmark.report-dir: where the JSON report is written</li>
+ * </ul>
+ */
+public final class UserSerializationBenchmark {
+
+    private static final ObjectMapper reportMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final ObjectWriter writer = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .registerModule(new AfterburnerModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .writer();
+
+    private final com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<Integer> pageSizes = Arrays.stream(
+        System.getProperty("benchmark.user-serialization.page-sizes", "20,100").split(","))
+        .map(String::trim)
+        .map(Integer::valueOf)
+        .collect(Collectors.toList());
+
+    private final int iterations = Integer.getInteger("benchmark.user-serialization.iterations", 20000);
+
+    private final int batches = Integer.getInteger("benchmark.user-serialization.batches", 5);
+
+    private final Path reportDir = Paths.get(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+    private UserSerializationBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        UserSerializationBenchmark benchmark = new UserSerializationBenchmark();
+        Files.createDirectories(benchmark.reportDir);
+        Map<String, Object> report = new LinkedHashMap<>();
+        System.out.println(String.format("%n%-10s %-12s %12s %14s", "page size", "path", "time (ns)", "allocated (B)"));
+        for (int pageSize : benchmark.pageSizes) {
+            List<User> users = users(pageSize);
+            Map<String, Object> measures = new LinkedHashMap<>();
+            double[] dto = benchmark.measure(() -> benchmark.writer.writeValue(benchmark.out,
+                users.stream().map(UserDTO::new).collect(Collectors.toList())));
+            double[] direct = benchmark.measure(() -> benchmark.writer.writeValue(benchmark.out,
+                new UserListDTO(users)));
+            measures.put("userDtoNs", dto[0]);
+            measures.put("userDtoAllocatedBytes", dto[1]);
+            measures.put("userListDtoNs", direct[0]);
+            measures.put("userListDtoAllocatedBytes", direct[1]);
+            measures.put("timeRatio", Math.round(dto[0] / direct[0] * 10) / 10d);
+            measures.put("allocationRatio", direct[1] == 0 ? null : Math.round(dto[1] / direct[1] * 10) / 10d);
+            report.put("pageSize=" + pageSize, measures);
+            System.out.println(String.format("%-10d %-12s %12.0f %14.0f", pageSize, "UserDTO", dto[0], dto[1]));
+            System.out.println(String.format("%-10d %-12s %12.0f %14.0f", pageSize, "UserListDTO", direct[0],
+                direct[1]));
+        }
+        Path reportFile = benchmark.reportDir.resolve("user-serialization-report.json");
+        reportMapper.writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    /**
+     * @return the median time, in nanoseconds, and the median number of allocated bytes, per page
+     */
+    private double[] measure(Page page) throws IOException {
+        for (int i = 0; i < batches; i++) {
+            runBatch(page);
+        }
+        List<Double> times = new ArrayList<>();
+        List<Double> allocations = new ArrayList<>();
+        for (int i = 0; i < batches; i++) {
+            double[] batch = runBatch(page);
+            times.add(batch[0]);
+            allocations.add(batch[1]);
+        }
+        Collections.sort(times);
+        Collections.sort(allocations);
+        return new double[] {times.get(batches / 2), allocations.get(batches / 2)};
+    }
+
+    /**
+     * @return the mean time, in nanoseconds, and the mean number of allocated bytes, per page of the batch
+     */
+    private double[] runBatch(Page page) throws IOException {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            out.reset();
+            page.write();
+        }
+        long time = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new double[] {time / (double) iterations, allocated / (double) iterations};
+    }
+
+    static List<User> users(int count) {
+        Authority user = new Authority();
+        user.setName(AuthoritiesConstants.USER);
+        Authority admin = new Authority();
+        admin.setName(AuthoritiesConstants.ADMIN);
+        Instant now = Instant.now();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User entity = new User();
+            entity.setId((long) i);
+            entity.setLogin("user-" + i);
+            entity.setFirstName("First" + i);
+            entity.setLastName("Last" + i);
+            entity.setEmail("user-" + i + "@localhost");
+            entity.setImageUrl("http://placehold.it/50x50");
+            entity.setActivated(true);
+            entity.setLangKey("en");
+            entity.setCreatedBy("system");
+            entity.setCreatedDate(now);
+            entity.setLastModifiedBy("system");
+            entity.setLastModifiedDate(now);
+            entity.setAuthorities(new HashSet<>(Arrays.asList(user, admin)));
+            users.add(entity);
+        }
+        return users;
+    }
+
+    @FunctionalInterface
+    private interface Page {
+
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,163 @@
+package com.okta.developer.benchmark;
+
+import com.okta.developer.config.SmileHttpMessageConverter;
+import com.okta.developer.service.dto.UserDTO;
+import com.okta.developer.service.dto.UserListDTO;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.zalando.problem.ProblemModule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Payload size, encoding and decoding time of the user and audit pages, in JSON and in the Smile format of the
+ * {@link SmileHttpMessageConverter}, run with "./mvnw -Pbenchmark verify".
+ * <p>
+ * Both object mappers are configured as the ones of the application. The user pages are encoded from User entities,
+ * as by the UserResource, and decoded into UserDTOs, the audit pages are encoded from AuditEvents and decoded into
+ * maps. Each page is encoded and decoded in batches after a warm-up, and the median time per page of the batches is
+ * reported, for each page size.
+ * <p>
+ * Supported system properties:
+ * <ul>
+ * <li>benchmark.wire-format.page-sizes: comma-separated numbers of users or audit events of a page</li>
+ * <li>benchmark.wire-format.iterations: number of pages encoded or decoded in a batch</li>
+ * <li>benchmark.wire-format.batches: number of measured batches, after as many warm-up batches</li>
+ * <li>benchmark.report-dir: where the JSON report is written</li>
+ * </ul>
+ */
+public final class WireFormatBenchmark {
+
+    private static final ObjectMapper reportMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final TypeReference<List<UserDTO>> USER_PAGE = new TypeReference<List<UserDTO>>() { };
+
+    private static final TypeReference<List<Map<String, Object>>> AUDIT_PAGE =
+        new TypeReference<List<Map<String, Object>>>() { };
+
+    private final Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+
+    private final List<Integer> pageSizes = Arrays.stream(
+        System.getProperty("benchmark.wire-format.page-sizes", "20,100").split(","))
+        .map(String::trim)
+        .map(Integer::valueOf)
+        .collect(Collectors.toList());
+
+    private final int iterations = Integer.getInteger("benchmark.wire-format.iterations", 20000);
+
+    private final int batches = Integer.getInteger("benchmark.wire-format.batches", 5);
+
+    private final Path reportDir = Paths.get(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    private WireFormatBenchmark() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new Hibernate5Module(), new AfterburnerModule(), new ProblemModule(),
+                new JavaTimeModule())
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mappers.put("json", builder.build());
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        builder.configure(smileMapper);
+        mappers.put("smile", smileMapper);
+    }
+
+    public static void main(String[] args) throws Exception {
+        WireFormatBenchmark benchmark = new WireFormatBenchmark();
+        Files.createDirectories(benchmark.reportDir);
+        Map<String, Object> report = new LinkedHashMap<>();
+        System.out.println(String.format("%n%-7s %-10s %-6s %10s %12s %12s", "page", "page size", "format",
+            "size (B)", "encode (ns)", "decode (ns)"));
+        for (int pageSize : benchmark.pageSizes) {
+            report.put("users pageSize=" + pageSize,
+                benchmark.measure("users", pageSize, new UserListDTO(UserSerializationBenchmark.users(pageSize)),
+                    USER_PAGE));
+            report.put("audits pageSize=" + pageSize,
+                benchmark.measure("audits", pageSize, auditEvents(pageSize), AUDIT_PAGE));
+        }
+        Path reportFile = benchmark.reportDir.resolve("wire-format-report.json");
+        reportMapper.writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    private Map<String, Object> measure(String name, int pageSize, Object page, TypeReference<?> type)
+        throws IOException {
+
+        Map<String, Object> measures = new LinkedHashMap<>();
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] payload = mapper.writeValueAsBytes(page);
+            double encode = median(() -> mapper.writeValueAsBytes(page));
+            double decode = median(() -> mapper.readValue(payload, type));
+            Map<String, Object> format = new LinkedHashMap<>();
+            format.put("bytes", payload.length);
+            format.put("encodeNs", encode);
+            format.put("decodeNs", decode);
+            measures.put(entry.getKey(), format);
+            System.out.println(String.format("%-7s %-10d %-6s %10d %12.0f %12.0f", name, pageSize, entry.getKey(),
+                payload.length, encode, decode));
+        }
+        return measures;
+    }
+
+    /**
+     * @return the median time per operation of the batches, in nanoseconds
+     */
+    private double median(Operation operation) throws IOException {
+        for (int i = 0; i < batches; i++) {
+            runBatch(operation);
+        }
+        List<Double> samples = new ArrayList<>();
+        for (int i = 0; i < batches; i++) {
+            samples.add(runBatch(operation));
+        }
+        Collections.sort(samples);
+        return samples.get(samples.size() / 2);
+    }
+
+    /**
+     * @return the mean time per operation of the batch, in nanoseconds
+     */
+    private double runBatch(Operation operation) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / (double) iterations;
+    }
+
+    private static List<AuditEvent> auditEvents(int count) {
+        List<AuditEvent> auditEvents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("remoteAddress", "10.0.0." + (i % 256));
+            data.put("sessionId", "6F3A2C1B9E8D7F6A5B4C3D2E1F0A9B8" + (i % 10));
+            auditEvents.add(new AuditEvent(new Date(), "user-" + i,
+                i % 5 == 0 ? "AUTHENTICATION_FAILURE" : "AUTHENTICATION_SUCCESS", data));
+        }
+        return auditEvents;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+
+        Object run() throws IOException;
+    }
+}
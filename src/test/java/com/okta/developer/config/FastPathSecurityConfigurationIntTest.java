@@ -0,0 +1,69 @@
+package com.okta.developer.config;
+
+import com.okta.developer.OidcApp;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.FilterSecurityInterceptor;
+import org.springframework.security.web.context.SecurityContextPersistenceFilter;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.servlet.Filter;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the FastPathSecurityConfiguration.
+ *
+ * @see FastPathSecurityConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = OidcApp.class)
+public class FastPathSecurityConfigurationIntTest {
+
+    @Autowired
+    private FilterChainProxy springSecurityFilterChain;
+
+    @Test
+    public void testStaticResourcesAreIgnored() {
+        assertThat(filters("GET", "/content/images/logo.png")).isEmpty();
+        assertThat(filters("GET", "/app/home/home.component.html")).isEmpty();
+        assertThat(filters("OPTIONS", "/api/account")).isEmpty();
+    }
+
+    @Test
+    public void testPublicEndpointsUseTheMinimalChain() {
+        List<Filter> filters = filters("GET", "/management/health");
+
+        assertThat(filters).hasAtLeastOneElementOfType(SecurityContextPersistenceFilter.class);
+        assertThat(filters).filteredOn(filter -> filter instanceof CsrfFilter || filter instanceof FilterSecurityInterceptor)
+            .isEmpty();
+        assertThat(filters("GET", "/api/profile-info")).isEqualTo(filters);
+    }
+
+    @Test
+    public void testOtherRequestsUseTheFullChain() {
+        assertThat(filters("GET", "/api/account"))
+            .hasAtLeastOneElementOfType(CsrfFilter.class)
+            .hasAtLeastOneElementOfType(FilterSecurityInterceptor.class);
+        assertThat(filters("GET", "/management/env")).hasAtLeastOneElementOfType(FilterSecurityInterceptor.class);
+    }
+
+    private List<Filter> filters(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return springSecurityFilterChain.getFilterChains().stream()
+            .filter(chain -> chain.matches(request))
+            .findFirst()
+            .map(SecurityFilterChain::getFilters)
+            .orElse(Collections.emptyList());
+    }
+}
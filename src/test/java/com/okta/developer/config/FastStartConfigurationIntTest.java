@@ -0,0 +1,51 @@
+package com.okta.developer.config;
+
+import com.okta.developer.OidcApp;
+import com.okta.developer.web.rest.StartupTimelineResource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the fast-start mode and the startup timeline.
+ *
+ * @see FastStartConfiguration
+ * @see StartupTimeline
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = OidcApp.class, properties = {
+    "application.fast-start.enabled=true",
+    "application.startup-timeline.enabled=true"
+})
+public class FastStartConfigurationIntTest {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private StartupTimelineResource startupTimelineResource;
+
+    @Test
+    public void testNonCriticalBeansAreLazy() {
+        assertThat(beanFactory.getBeanDefinition("logsResource").isLazyInit()).isTrue();
+        assertThat(beanFactory.getBeanDefinition("auditResource").isLazyInit()).isTrue();
+        assertThat(beanFactory.containsSingleton("logsResource")).isFalse();
+        assertThat(beanFactory.getBeanDefinition("userResource").isLazyInit()).isFalse();
+    }
+
+    @Test
+    public void testStartupTimelineIsRecorded() {
+        assertThat(startupTimelineResource.getTimeline())
+            .extracting(StartupTimeline.Entry::getBeanName)
+            .contains("userService", "cacheConfiguration")
+            .doesNotContain("logsResource");
+        assertThat(startupTimelineResource.getTimeline())
+            .allMatch(entry -> entry.getSelfMs() <= entry.getTotalMs());
+    }
+}
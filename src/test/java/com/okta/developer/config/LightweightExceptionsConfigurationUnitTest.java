@@ -0,0 +1,46 @@
+package com.okta.developer.config;
+
+import com.okta.developer.web.rest.errors.ExpectedProblem;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the LightweightExceptionsConfiguration.
+ *
+ * @see LightweightExceptionsConfiguration
+ */
+public class LightweightExceptionsConfigurationUnitTest {
+
+    @After
+    public void tearDown() {
+        ExpectedProblem.setStackTraceEnabled(true);
+    }
+
+    @Test
+    public void testStackTracesAreDisabledUntilTheContextIsClosed() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getLightweightExceptions().setEnabled(true);
+        LightweightExceptionsConfiguration configuration =
+            new LightweightExceptionsConfiguration(applicationProperties);
+
+        configuration.init();
+        assertThat(ExpectedProblem.isStackTraceEnabled()).isFalse();
+
+        configuration.destroy();
+        assertThat(ExpectedProblem.isStackTraceEnabled()).isTrue();
+    }
+
+    @Test
+    public void testDisabledConfigurationLeavesTheStackTraces() {
+        LightweightExceptionsConfiguration configuration =
+            new LightweightExceptionsConfiguration(new ApplicationProperties());
+        ExpectedProblem.setStackTraceEnabled(false);
+
+        // another context, without lightweight exceptions, doesn't change the setting of the JVM
+        configuration.init();
+        configuration.destroy();
+        assertThat(ExpectedProblem.isStackTraceEnabled()).isFalse();
+    }
+}
@@ -0,0 +1,62 @@
+package com.okta.developer.config;
+
+import com.okta.developer.security.JwkSetCache;
+import com.okta.developer.security.PrincipalCache;
+
+import org.junit.Test;
+import org.springframework.asm.ClassReader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PinningAudit.
+ *
+ * @see PinningAudit
+ */
+public class PinningAuditUnitTest {
+
+    @Test
+    public void testFindsSynchronizedMethodsAndBlocks() throws Exception {
+        List<String> sites = new ArrayList<>();
+        PinningAudit.find(new ClassReader(Monitors.class.getName()), sites);
+
+        String prefix = Monitors.class.getName() + ".";
+        assertThat(sites).containsExactlyInAnyOrder(prefix + "method (method)", prefix + "block (block)");
+    }
+
+    @Test
+    public void testScansTheApplicationClasses() throws Exception {
+        List<String> sites = new PinningAudit("com.okta.developer").find();
+
+        assertThat(sites).contains(Monitors.class.getName() + ".block (block)");
+        // The keys are fetched over HTTP while the refresh lock is held
+        assertThat(sites).filteredOn(site -> site.startsWith(JwkSetCache.class.getName() + ".")).isEmpty();
+        // Every request to /api/account looks up the users mapped from the identity provider
+        assertThat(sites).filteredOn(site -> site.startsWith(PrincipalCache.class.getName() + ".")).isEmpty();
+    }
+
+    @SuppressWarnings("unused")
+    static class Monitors {
+
+        private final Object lock = new Object();
+
+        private int count;
+
+        synchronized void method() {
+            count++;
+        }
+
+        void block() {
+            synchronized (lock) {
+                count++;
+            }
+        }
+
+        void none() {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.okta.developer.config;
+
+import com.codahale.metrics.MetricRegistry;
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.util.Headers;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the ResponseCompressionHandler class.
+ *
+ * @see ResponseCompressionHandler
+ */
+public class ResponseCompressionHandlerTest {
+
+    private static final String JSON = "[" + String.join(",", Collections.nCopies(200,
+        "{\"login\":\"user\",\"activated\":true,\"langKey\":\"en\"}")) + "]";
+
+    private ApplicationProperties.Undertow.Compression compression;
+
+    private MetricRegistry metricRegistry;
+
+    private Undertow server;
+
+    @Before
+    public void setup() {
+        compression = new ApplicationProperties.Undertow().getCompression();
+        metricRegistry = new MetricRegistry();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testCompressesJson() throws Exception {
+        start(respond("application/json;charset=UTF-8", JSON, true));
+
+        HttpURLConnection connection = request("/", "gzip, deflate");
+        assertThat(connection.getHeaderField("Content-Encoding")).isEqualTo("gzip");
+        assertThat(connection.getHeaderField("Vary")).isEqualTo("Accept-Encoding");
+        try (InputStream in = new GZIPInputStream(connection.getInputStream())) {
+            assertThat(IOUtils.toString(in, StandardCharsets.UTF_8)).isEqualTo(JSON);
+        }
+
+        awaitRecorded("undertow.compression.gzip.cpu");
+        assertThat(metricRegistry.getMeters().get("undertow.compression.gzip.bytes-in").getCount())
+            .isEqualTo(JSON.length());
+        long bytesOut = metricRegistry.getMeters().get("undertow.compression.gzip.bytes-out").getCount();
+        assertThat(bytesOut).isPositive().isLessThan(JSON.length());
+        assertThat(metricRegistry.getHistograms().get("undertow.compression.gzip.ratio").getSnapshot().getMax())
+            .isEqualTo(bytesOut * 100 / JSON.length());
+        assertThat(metricRegistry.getTimers().get("undertow.compression.gzip.cpu").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCompressesStreamedJson() throws Exception {
+        compression.setEncodings(Arrays.asList("gzip", "deflate"));
+        start(respond("application/json", JSON, false));
+
+        HttpURLConnection connection = request("/", "deflate");
+        assertThat(connection.getHeaderField("Content-Encoding")).isEqualTo("deflate");
+        try (InputStream in = new InflaterInputStream(connection.getInputStream(), new Inflater(true))) {
+            assertThat(IOUtils.toString(in, StandardCharsets.UTF_8)).isEqualTo(JSON);
+        }
+    }
+
+    @Test
+    public void testWeakensETagOfCompressedResponses() throws Exception {
+        HttpHandler json = respond("application/json", JSON, true);
+        start(exchange -> {
+            exchange.getResponseHeaders().put(Headers.ETAG, "\"v1\"");
+            json.handleRequest(exchange);
+        });
+
+        assertThat(request("/", "gzip").getHeaderField("ETag")).isEqualTo("W/\"v1\"");
+        assertThat(request("/", null).getHeaderField("ETag")).isEqualTo("\"v1\"");
+    }
+
+    @Test
+    public void testDoesNotCompressSmallResponses() throws Exception {
+        start(respond("application/json", "{}", true));
+
+        HttpURLConnection connection = request("/", "gzip");
+        assertThat(connection.getHeaderField("Content-Encoding")).isNull();
+        assertThat(connection.getHeaderField("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8)).isEqualTo("{}");
+    }
+
+    @Test
+    public void testDoesNotCompressOtherContentTypes() throws Exception {
+        start(respond("image/png", JSON, true));
+
+        HttpURLConnection connection = request("/", "gzip");
+        assertThat(connection.getHeaderField("Content-Encoding")).isNull();
+        assertThat(connection.getHeaderField("Vary")).isNull();
+    }
+
+    @Test
+    public void testDoesNotCompressWithoutAcceptEncoding() throws Exception {
+        start(respond("application/json", JSON, true));
+
+        HttpURLConnection connection = request("/", null);
+        assertThat(connection.getHeaderField("Content-Encoding")).isNull();
+        assertThat(IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(JSON);
+        assertThat(metricRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void testWithoutMetrics() throws Exception {
+        compression.setMetrics(false);
+        start(respond("application/json", JSON, true));
+
+        HttpURLConnection connection = request("/", "gzip");
+        assertThat(connection.getHeaderField("Content-Encoding")).isEqualTo("gzip");
+        IOUtils.toByteArray(connection.getInputStream());
+        assertThat(metricRegistry.getMetrics()).isEmpty();
+    }
+
+    /**
+     * The metrics are recorded when the exchange completes, which may happen after the client has read the response.
+     */
+    private void awaitRecorded(String timer) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!metricRegistry.getTimers().containsKey(timer) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static HttpHandler respond(String contentType, String body, boolean contentLength) {
+        return exchange -> {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, contentType);
+            if (contentLength) {
+                exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, bytes.length);
+            }
+            exchange.getResponseSender().send(ByteBuffer.wrap(bytes));
+        };
+    }
+
+    private void start(HttpHandler handler) {
+        server = Undertow.builder()
+            .addHttpListener(0, "localhost")
+            .setHandler(new ResponseCompressionHandler(handler, compression, metricRegistry))
+            .build();
+        server.start();
+    }
+
+    private HttpURLConnection request(String path, String acceptEncoding) throws Exception {
+        InetSocketAddress address = (InetSocketAddress) server.getListenerInfo().get(0).getAddress();
+        HttpURLConnection connection = (HttpURLConnection)
+            new URL("http://localhost:" + address.getPort() + path).openConnection();
+        if (acceptEncoding != null) {
+            connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+        }
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        return connection;
+    }
+}
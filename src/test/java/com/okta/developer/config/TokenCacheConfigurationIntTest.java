@@ -0,0 +1,33 @@
+package com.okta.developer.config;
+
+import com.okta.developer.OidcApp;
+import com.okta.developer.security.CachingTokenServices;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.UserInfoTokenServices;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TokenCacheConfiguration.
+ *
+ * @see TokenCacheConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = OidcApp.class, properties = "application.token-cache.enabled=true")
+public class TokenCacheConfigurationIntTest {
+
+    @Autowired
+    private ResourceServerTokenServices tokenServices;
+
+    @Test
+    public void testUserInfoTokenServicesAreCached() {
+        assertThat(tokenServices).isInstanceOf(CachingTokenServices.class);
+        assertThat(((CachingTokenServices) tokenServices).getDelegate()).isInstanceOf(UserInfoTokenServices.class);
+    }
+}
@@ -9,10 +9,21 @@ import io.github.jhipster.web.filter.CachingHttpHeadersFilter;
 import io.undertow.Undertow;
 import io.undertow.Undertow.Builder;
 import io.undertow.UndertowOptions;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.servlet.Servlets;
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.util.ETag;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
 import org.apache.commons.io.FilenameUtils;
 import org.h2.server.web.WebServlet;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.boot.context.embedded.undertow.UndertowEmbeddedServletContainerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.mock.env.MockEnvironment;
@@ -23,6 +34,9 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.xnio.OptionMap;
 
 import javax.servlet.*;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 
 
@@ -42,6 +56,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 public class WebConfigurerTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private WebConfigurer webConfigurer;
 
     private MockServletContext servletContext;
@@ -50,6 +67,8 @@ public class WebConfigurerTest {
 
     private JHipsterProperties props;
 
+    private ApplicationProperties applicationProperties;
+
     private MetricRegistry metricRegistry;
 
     @Before
@@ -62,8 +81,9 @@ public class WebConfigurerTest {
 
         env = new MockEnvironment();
         props = new JHipsterProperties();
+        applicationProperties = new ApplicationProperties();
 
-        webConfigurer = new WebConfigurer(env, props);
+        webConfigurer = new WebConfigurer(env, props, applicationProperties);
         metricRegistry = new MetricRegistry();
         webConfigurer.setMetricRegistry(metricRegistry);
     }
@@ -121,6 +141,99 @@ public class WebConfigurerTest {
         container.getBuilderCustomizers().forEach(c -> c.customize(builder));
         OptionMap.Builder serverOptions = (OptionMap.Builder) ReflectionTestUtils.getField(builder, "serverOptions");
         assertThat(serverOptions.getMap().get(UndertowOptions.ENABLE_HTTP2)).isTrue();
+        assertThat(serverOptions.getMap().get(UndertowOptions.HTTP2_SETTINGS_MAX_CONCURRENT_STREAMS)).isEqualTo(100);
+        assertThat(serverOptions.getMap().get(UndertowOptions.HTTP2_SETTINGS_HEADER_TABLE_SIZE)).isEqualTo(4096);
+        assertThat(serverOptions.getMap().get(UndertowOptions.HTTP2_SETTINGS_MAX_FRAME_SIZE)).isNull();
+    }
+
+    @Test
+    public void testUndertowCompression() throws Exception {
+        assertThat(customizeDeployment(new PathResourceManager(temporaryFolder.getRoot().toPath(), 0))
+            .getInitialHandlerChainWrappers()).isEmpty();
+
+        applicationProperties.getUndertow().getCompression().setEnabled(true);
+        DeploymentInfo deployment = customizeDeployment(new PathResourceManager(temporaryFolder.getRoot().toPath(), 0));
+        assertThat(deployment.getInitialHandlerChainWrappers()).hasSize(1);
+        assertThat(deployment.getInitialHandlerChainWrappers().get(0).wrap(e -> { }))
+            .isInstanceOf(ResponseCompressionHandler.class);
+    }
+
+    @Test
+    public void testUndertowStaticAssets() throws Exception {
+        File www = temporaryFolder.newFolder("www");
+        write(new File(www, "main.js"), "main");
+        write(new File(www, "main.js.gz"), "compressed main");
+        DeploymentInfo deployment = customizeDeployment(new PathResourceManager(www.toPath(), 0));
+
+        assertThat(deployment.getPreCompressedResources()).containsEntry("br", ".br").containsEntry("gzip", ".gz");
+        ResourceManager resourceManager = deployment.getResourceManager();
+        ETag etag = resourceManager.getResource("/main.js").getETag();
+        assertThat(etag.isWeak()).isFalse();
+        assertThat(resourceManager.getResource("/main.js").getETag()).isEqualTo(etag);
+        assertThat(resourceManager.getResource("/main.js.gz").getETag()).isNotEqualTo(etag);
+
+        write(new File(www, "main.js"), "changed main");
+        assertThat(resourceManager.getResource("/main.js").getETag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    public void testUndertowStaticAssetsVaryOnAcceptEncoding() throws Exception {
+        File www = temporaryFolder.newFolder("www");
+        write(new File(www, "main.js"), "main");
+        write(new File(www, "main.js.br"), "compressed main");
+        write(new File(www, "other.js"), "other");
+        DeploymentInfo deployment = customizeDeployment(new PathResourceManager(www.toPath(), 0));
+
+        assertThat(deployment.getInnerHandlerChainWrappers()).hasSize(1);
+        assertThat(varyHeader(deployment, "/main.js")).isEqualTo(Headers.ACCEPT_ENCODING_STRING);
+        assertThat(varyHeader(deployment, "/other.js")).isNull();
+        assertThat(varyHeader(deployment, "/api/account")).isNull();
+    }
+
+    @Test
+    public void testUndertowStaticAssetsDirectory() throws Exception {
+        File www = temporaryFolder.newFolder("www");
+        File extracted = temporaryFolder.newFolder("extracted");
+        write(new File(www, "index.html"), "index");
+        write(new File(extracted, "main.js"), "main");
+        applicationProperties.getStaticAssets().setDirectory(extracted.getPath());
+        DeploymentInfo deployment = customizeDeployment(new PathResourceManager(www.toPath(), 0));
+
+        Resource resource = deployment.getResourceManager().getResource("/main.js");
+        assertThat(resource.getFilePath()).isEqualTo(extracted.toPath().resolve("main.js"));
+        assertThat(deployment.getResourceManager().getResource("/index.html")).isNotNull();
+    }
+
+    @Test
+    public void testUndertowStaticAssetsNotPreCompressed() throws Exception {
+        applicationProperties.getStaticAssets().setPreCompressed(false);
+        DeploymentInfo deployment = customizeDeployment(new PathResourceManager(temporaryFolder.getRoot().toPath(), 0));
+
+        assertThat(deployment.getPreCompressedResources()).isEmpty();
+        assertThat(deployment.getInnerHandlerChainWrappers()).isEmpty();
+        assertThat(deployment.getResourceManager()).isInstanceOf(ContentHashResourceManager.class);
+    }
+
+    private DeploymentInfo customizeDeployment(ResourceManager documentRoot) {
+        UndertowEmbeddedServletContainerFactory container = new UndertowEmbeddedServletContainerFactory();
+        webConfigurer.customize(container);
+        DeploymentInfo deployment = Servlets.deployment().setResourceManager(documentRoot);
+        container.getDeploymentInfoCustomizers().forEach(c -> c.customize(deployment));
+        return deployment;
+    }
+
+    private static String varyHeader(DeploymentInfo deployment, String path) throws Exception {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.setRequestMethod(Methods.GET);
+        exchange.setRelativePath(path);
+        deployment.getInnerHandlerChainWrappers().get(0).wrap(e -> { }).handleRequest(exchange);
+        return exchange.getResponseHeaders().getFirst(Headers.VARY);
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        // Make sure a rewrite is seen as a modification
+        file.setLastModified(file.lastModified() + 1000);
     }
 
     @Test
@@ -0,0 +1,103 @@
+package com.okta.developer.repository;
+
+import com.okta.developer.config.ApplicationProperties;
+import com.okta.developer.domain.PersistentAuditEvent;
+import com.okta.developer.domain.User;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the RowCountEstimator.
+ *
+ * @see RowCountEstimator
+ */
+public class RowCountEstimatorUnitTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ApplicationProperties applicationProperties;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getApproximateCount().setEnabled(true);
+        applicationProperties.getApproximateCount().setMinRows(1000);
+        when(jdbcTemplate.queryForList(anyString(), eq(Double.class), eq("jhi_user")))
+            .thenReturn(Collections.singletonList(250000d));
+        when(jdbcTemplate.queryForList(anyString(), eq(Double.class), eq("jhi_persistent_audit_event")))
+            .thenReturn(Collections.singletonList(10d));
+    }
+
+    @Test
+    public void testEstimatesTheLargeTablesOnPostgresql() {
+        databaseProduct("PostgreSQL");
+        RowCountEstimator estimator = new RowCountEstimator(jdbcTemplate, applicationProperties);
+
+        assertThat(estimator.estimate(User.class)).isEqualTo(OptionalLong.of(250000));
+        assertThat(estimator.estimate(PersistentAuditEvent.class)).isEqualTo(OptionalLong.empty());
+        // The database is only looked up once
+        verify(jdbcTemplate, times(1)).execute(Matchers.<ConnectionCallback<String>>any());
+    }
+
+    @Test
+    public void testCountsExactlyOnTheOtherDatabases() {
+        databaseProduct("H2");
+        RowCountEstimator estimator = new RowCountEstimator(jdbcTemplate, applicationProperties);
+
+        assertThat(estimator.estimate(User.class)).isEqualTo(OptionalLong.empty());
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(Double.class), Matchers.anyVararg());
+    }
+
+    @Test
+    public void testCountsExactlyWhenDisabled() {
+        databaseProduct("PostgreSQL");
+        applicationProperties.getApproximateCount().setEnabled(false);
+        RowCountEstimator estimator = new RowCountEstimator(jdbcTemplate, applicationProperties);
+
+        assertThat(estimator.estimate(User.class)).isEqualTo(OptionalLong.empty());
+        verify(jdbcTemplate, never()).execute(Matchers.<ConnectionCallback<String>>any());
+    }
+
+    @Test
+    public void testToPageKeepsTheNextPagesReachable() {
+        Page<String> estimated = RowCountEstimator.toPage(
+            new SliceImpl<>(Arrays.asList("a", "b"), new PageRequest(3, 2), true), new PageRequest(3, 2), 100);
+        assertThat(estimated.getTotalElements()).isEqualTo(100);
+        assertThat(estimated.getContent()).containsExactly("a", "b");
+
+        Page<String> underestimated = RowCountEstimator.toPage(
+            new SliceImpl<>(Arrays.asList("a", "b"), new PageRequest(3, 2), true), new PageRequest(3, 2), 4);
+        assertThat(underestimated.getTotalElements()).isEqualTo(9);
+        assertThat(underestimated.hasNext()).isTrue();
+
+        Page<String> last = RowCountEstimator.toPage(
+            new SliceImpl<>(Collections.singletonList("a"), new PageRequest(3, 2), false), new PageRequest(3, 2), 4);
+        assertThat(last.getTotalElements()).isEqualTo(7);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    private void databaseProduct(String product) {
+        when(jdbcTemplate.execute(Matchers.<ConnectionCallback<String>>any())).thenReturn(product);
+    }
+}
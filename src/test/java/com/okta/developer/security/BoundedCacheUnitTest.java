@@ -0,0 +1,97 @@
+package com.okta.developer.security;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the BoundedCache.
+ *
+ * @see BoundedCache
+ */
+public class BoundedCacheUnitTest {
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 1, TimeUnit.HOURS);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertThat(cache.get("a")).isEqualTo("1");
+        cache.put("c", "3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo("3");
+    }
+
+    @Test
+    public void testEntriesExpire() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 0, TimeUnit.SECONDS);
+        cache.put("a", "1");
+        cache.put("b", "2", 1, TimeUnit.HOURS);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo("2");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNothingIsCachedWithoutEntries() {
+        BoundedCache<String, String> cache = new BoundedCache<>(0, 1, TimeUnit.HOURS);
+        cache.put("a", "1");
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testMetrics() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1, TimeUnit.HOURS);
+        cache.setMetricRegistry(metricRegistry, "test-cache");
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("b");
+        cache.peek("b");
+
+        assertThat(metricRegistry.meter("test-cache.hits").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.meter("test-cache.misses").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.getGauges().get("test-cache.size").getValue()).isEqualTo(1);
+        assertThat(metricRegistry.getGauges()).containsKey("test-cache.hit-rate");
+    }
+
+    @Test
+    public void testConcurrentPutsStayBounded() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, 1, TimeUnit.HOURS);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread * 10000;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        cache.put(offset + i, i);
+                        cache.get(offset + i / 2);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // The last puts may have been made while another thread was evicting
+        cache.put(-1, -1);
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+}
@@ -0,0 +1,186 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the CachingTokenServices.
+ *
+ * @see CachingTokenServices
+ */
+public class CachingTokenServicesUnitTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private ApplicationProperties applicationProperties;
+
+    private MetricRegistry metricRegistry;
+
+    private StubTokenServices upstream;
+
+    private CachingTokenServices tokenServices;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        metricRegistry = new MetricRegistry();
+        upstream = new StubTokenServices();
+        tokenServices = tokenServices();
+    }
+
+    @Test
+    public void testAuthenticationIsCached() {
+        OAuth2Authentication first = tokenServices.loadAuthentication("valid");
+        first.setDetails("details of the first login");
+        OAuth2Authentication second = tokenServices.loadAuthentication("valid");
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo("user");
+        assertThat(second.getDetails()).isNull();
+        assertThat(tokenServices.loadAuthentication("other-valid").getName()).isEqualTo("user");
+        assertThat(calls.get()).isEqualTo(2);
+
+        assertThat(metricRegistry.meter("security.token-cache.hits").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.meter("security.token-cache.misses").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.timer("security.token-cache.upstream").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.getGauges().get("security.token-cache.size").getValue()).isEqualTo(2);
+        assertThat(metricRegistry.getGauges()).containsKey("security.token-cache.hit-rate");
+    }
+
+    @Test
+    public void testInvalidTokenIsCached() {
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> tokenServices.loadAuthentication("invalid"))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("invalid");
+        }
+        assertThat(calls.get()).isEqualTo(1);
+
+        applicationProperties.getTokenCache().setNegativeTimeToLiveSeconds(0);
+        tokenServices = tokenServices();
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> tokenServices.loadAuthentication("invalid"))
+                .isInstanceOf(InvalidTokenException.class);
+        }
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testUpstreamErrorIsNotCached() {
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> tokenServices.loadAuthentication("unavailable"))
+                .isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(tokenServices.size()).isZero();
+    }
+
+    @Test
+    public void testTimeToLiveIsBoundedByTokenExpiry() {
+        long now = System.currentTimeMillis() / 1000;
+        String expired = jwt(now - 10);
+        String valid = jwt(now + 3600);
+
+        tokenServices.loadAuthentication(expired);
+        tokenServices.loadAuthentication(expired);
+        assertThat(calls.get()).isEqualTo(2);
+
+        tokenServices.loadAuthentication(valid);
+        tokenServices.loadAuthentication(valid);
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testConcurrentLookupsAreCoalesced() throws Exception {
+        upstream.latch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OAuth2Authentication>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> tokenServices.loadAuthentication("valid")));
+            }
+            // Wait for the threads to be waiting on the call in flight
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (metricRegistry.meter("security.token-cache.coalesced").getCount() < 7 &&
+                System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            upstream.latch.countDown();
+            for (Future<OAuth2Authentication> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS).getName()).isEqualTo("user");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(metricRegistry.meter("security.token-cache.coalesced").getCount()).isEqualTo(7);
+    }
+
+    private CachingTokenServices tokenServices() {
+        CachingTokenServices services = new CachingTokenServices(upstream, applicationProperties);
+        metricRegistry = new MetricRegistry();
+        services.setMetricRegistry(metricRegistry);
+        return services;
+    }
+
+    private static String jwt(long expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "." +
+            encoder.encodeToString(("{\"sub\":\"user\",\"exp\":" + expiresAt + "}").getBytes(StandardCharsets.UTF_8)) +
+            ".signature";
+    }
+
+    private class StubTokenServices implements ResourceServerTokenServices {
+
+        private volatile CountDownLatch latch;
+
+        @Override
+        public OAuth2Authentication loadAuthentication(String accessToken) {
+            calls.incrementAndGet();
+            if (latch != null) {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (accessToken.equals("invalid")) {
+                throw new InvalidTokenException("invalid");
+            }
+            if (accessToken.equals("unavailable")) {
+                throw new IllegalStateException("unavailable");
+            }
+            OAuth2Request request = new OAuth2Request(null, "client", null, true, null, null, null, null, null);
+            return new OAuth2Authentication(request, new UsernamePasswordAuthenticationToken("user", "N/A"));
+        }
+
+        @Override
+        public OAuth2AccessToken readAccessToken(String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
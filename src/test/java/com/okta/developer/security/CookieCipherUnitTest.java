@@ -0,0 +1,103 @@
+package com.okta.developer.security;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.Cookie;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the CookieCipher.
+ *
+ * @see CookieCipher
+ */
+public class CookieCipherUnitTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private static final String NEW_KEY = Base64.getEncoder().encodeToString(Arrays.copyOf(new byte[]{1}, 16));
+
+    private final CookieCipher cookieCipher = new CookieCipher(Collections.singletonList(KEY), 4096);
+
+    @Test
+    public void testEncryptDecrypt() {
+        String encrypted = cookieCipher.encrypt("name", bytes("value"));
+
+        assertThat(encrypted).doesNotContain("value");
+        assertThat(cookieCipher.encrypt("name", bytes("value"))).isNotEqualTo(encrypted);
+        assertThat(cookieCipher.decrypt("name", encrypted)).isEqualTo(bytes("value"));
+    }
+
+    @Test
+    public void testModifiedValueIsRejected() {
+        String encrypted = cookieCipher.encrypt("name", bytes("value"));
+        char[] modified = encrypted.toCharArray();
+        modified[modified.length - 5] = modified[modified.length - 5] == 'A' ? 'B' : 'A';
+
+        assertThat(cookieCipher.decrypt("name", new String(modified))).isNull();
+        assertThat(cookieCipher.decrypt("other", encrypted)).isNull();
+        assertThat(cookieCipher.decrypt("name", "not-base64!")).isNull();
+        assertThat(cookieCipher.decrypt("name", "")).isNull();
+    }
+
+    @Test
+    public void testKeyRotation() {
+        String encryptedWithOldKey = cookieCipher.encrypt("name", bytes("value"));
+        CookieCipher rotated = new CookieCipher(Arrays.asList(NEW_KEY, KEY), 4096);
+        String encryptedWithNewKey = rotated.encrypt("name", bytes("value"));
+
+        assertThat(rotated.decrypt("name", encryptedWithOldKey)).isEqualTo(bytes("value"));
+        assertThat(cookieCipher.decrypt("name", encryptedWithNewKey)).isNull();
+
+        CookieCipher oldKeyRemoved = new CookieCipher(Collections.singletonList(NEW_KEY), 4096);
+        assertThat(oldKeyRemoved.decrypt("name", encryptedWithNewKey)).isEqualTo(bytes("value"));
+        assertThat(oldKeyRemoved.decrypt("name", encryptedWithOldKey)).isNull();
+    }
+
+    @Test
+    public void testInvalidKeyIsRejected() {
+        String key = Base64.getEncoder().encodeToString(new byte[10]);
+
+        assertThatThrownBy(() -> new CookieCipher(Collections.singletonList(key), 4096))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testWriteAndReadCookie() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSecure(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(cookieCipher.write(request, response, "name", bytes("value"), 60)).isTrue();
+        Cookie cookie = response.getCookie("name");
+        assertThat(cookie.isHttpOnly()).isTrue();
+        assertThat(cookie.getSecure()).isTrue();
+        assertThat(cookie.getPath()).isEqualTo("/");
+        assertThat(cookie.getMaxAge()).isEqualTo(60);
+
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(cookie);
+        assertThat(cookieCipher.read(next, "name")).isEqualTo(bytes("value"));
+        assertThat(cookieCipher.read(next, "other")).isNull();
+    }
+
+    @Test
+    public void testTooLargeCookieIsNotWritten() {
+        CookieCipher small = new CookieCipher(Collections.singletonList(KEY), 100);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(small.write(new MockHttpServletRequest(), response, "name", new byte[100], 60)).isFalse();
+        assertThat(response.getCookie("name")).isNull();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+
+import javax.servlet.http.Cookie;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CookieSecurityContextRepository.
+ *
+ * @see CookieSecurityContextRepository
+ */
+public class CookieSecurityContextRepositoryUnitTest {
+
+    private static final Instant NOW = Instant.parse("2017-10-01T12:00:00Z");
+
+    private ApplicationProperties applicationProperties;
+
+    private CookieSecurityContextRepository repository;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        repository = repository(4096);
+    }
+
+    @Test
+    public void testSaveAndLoadContext() {
+        Cookie cookie = save(authentication());
+
+        HttpRequestResponseHolder holder = holder(cookie);
+        assertThat(repository.containsContext(holder.getRequest())).isTrue();
+        Authentication loaded = repository.loadContext(holder).getAuthentication();
+
+        assertThat(loaded).isInstanceOf(OAuth2Authentication.class);
+        assertThat(loaded.getName()).isEqualTo("admin");
+        assertThat(loaded.getPrincipal()).isInstanceOf(UserDetails.class);
+        assertThat(RoleSet.of(loaded).contains(AuthoritiesConstants.ADMIN)).isTrue();
+        assertThat(((OAuth2Authentication) loaded).getOAuth2Request().getClientId()).isEqualTo("web_app");
+        assertThat(((OAuth2AuthenticationDetails) loaded.getDetails()).getTokenValue()).isEqualTo("token");
+        Map<?, ?> claims = (Map<?, ?>) ((OAuth2Authentication) loaded).getUserAuthentication().getDetails();
+        assertThat(claims.get("email")).isEqualTo("admin@localhost");
+        assertThat(claims.get("roles")).isEqualTo(Arrays.asList("ROLE_ADMIN", "ROLE_USER"));
+        assertThat(claims.containsKey("picture")).isFalse();
+    }
+
+    @Test
+    public void testUnchangedContextIsNotWrittenAgain() {
+        Cookie cookie = save(authentication());
+
+        HttpRequestResponseHolder holder = holder(cookie);
+        SecurityContext context = repository.loadContext(holder);
+        repository.saveContext(context, holder.getRequest(), holder.getResponse());
+        assertThat(((MockHttpServletResponse) holder.getRequest().getAttribute("response")).getCookies()).isEmpty();
+
+        // An equivalent authentication doesn't change the cookie either
+        holder = holder(cookie);
+        context = repository.loadContext(holder);
+        context.setAuthentication(authentication());
+        repository.saveContext(context, holder.getRequest(), holder.getResponse());
+        assertThat(((MockHttpServletResponse) holder.getRequest().getAttribute("response")).getCookies()).isEmpty();
+
+        // The cookie is renewed when half of its time to live is over
+        repository.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(31)), ZoneOffset.UTC));
+        holder = holder(cookie);
+        context = repository.loadContext(holder);
+        repository.saveContext(context, holder.getRequest(), holder.getResponse());
+        assertThat(((MockHttpServletResponse) holder.getRequest().getAttribute("response")).getCookie("AUTH_STATE"))
+            .isNotNull();
+    }
+
+    @Test
+    public void testExpiredOrInvalidCookieIsIgnored() {
+        Cookie cookie = save(authentication());
+
+        repository.setClock(Clock.fixed(NOW.plus(Duration.ofHours(1)), ZoneOffset.UTC));
+        assertThat(repository.loadContext(holder(cookie)).getAuthentication()).isNull();
+
+        repository.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        char[] value = cookie.getValue().toCharArray();
+        value[value.length / 2] = value[value.length / 2] == 'A' ? 'B' : 'A';
+        Cookie modified = new Cookie("AUTH_STATE", new String(value));
+        assertThat(repository.loadContext(holder(modified)).getAuthentication()).isNull();
+        assertThat(repository.loadContext(holder(null)).getAuthentication()).isNull();
+    }
+
+    @Test
+    public void testCookieIsDeletedOnLogout() {
+        Cookie cookie = save(authentication());
+
+        HttpRequestResponseHolder holder = holder(cookie);
+        SecurityContext context = repository.loadContext(holder);
+        context.setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser",
+            Collections.singletonList(AuthorityRegistry.grantedAuthority(AuthoritiesConstants.ANONYMOUS))));
+        repository.saveContext(context, holder.getRequest(), holder.getResponse());
+
+        Cookie deleted = ((MockHttpServletResponse) holder.getRequest().getAttribute("response")).getCookie("AUTH_STATE");
+        assertThat(deleted.getMaxAge()).isZero();
+    }
+
+    @Test
+    public void testClaimsAreLeftOutOfLargeCookies() {
+        repository = repository(250);
+        Cookie cookie = save(authentication());
+        assertThat(cookie).isNotNull();
+
+        Authentication loaded = repository.loadContext(holder(cookie)).getAuthentication();
+        assertThat(loaded.getName()).isEqualTo("admin");
+        assertThat(RoleSet.of(loaded).contains(AuthoritiesConstants.ADMIN)).isTrue();
+        assertThat(((OAuth2Authentication) loaded).getUserAuthentication().getDetails())
+            .isEqualTo(Collections.singletonMap("preferred_username", "admin"));
+    }
+
+    private CookieSecurityContextRepository repository(int maxCookieSize) {
+        String key = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=";
+        CookieSecurityContextRepository repository = new CookieSecurityContextRepository(
+            new CookieCipher(Collections.singletonList(key), maxCookieSize), applicationProperties);
+        repository.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        return repository;
+    }
+
+    private Cookie save(Authentication authentication) {
+        HttpRequestResponseHolder holder = holder(null);
+        SecurityContext context = repository.loadContext(holder);
+        assertThat(context.getAuthentication()).isNull();
+        SecurityContext authenticated = SecurityContextHolder.createEmptyContext();
+        authenticated.setAuthentication(authentication);
+        repository.saveContext(authenticated, holder.getRequest(), holder.getResponse());
+        return ((MockHttpServletResponse) holder.getRequest().getAttribute("response")).getCookie("AUTH_STATE");
+    }
+
+    private static HttpRequestResponseHolder holder(Cookie cookie) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (cookie != null) {
+            request.setCookies(cookie);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        request.setAttribute("response", response);
+        return new HttpRequestResponseHolder(request, response);
+    }
+
+    private static OAuth2Authentication authentication() {
+        List<String> roles = Arrays.asList("ROLE_ADMIN", "ROLE_USER");
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("preferred_username", "admin");
+        claims.put("email", "admin@localhost");
+        claims.put("roles", roles);
+        claims.put("picture", "https://example.com/admin.png");
+        UsernamePasswordAuthenticationToken user = new UsernamePasswordAuthenticationToken("admin", "N/A",
+            Arrays.asList(AuthorityRegistry.grantedAuthority(AuthoritiesConstants.ADMIN),
+                AuthorityRegistry.grantedAuthority(AuthoritiesConstants.USER)));
+        user.setDetails(claims);
+        OAuth2Request request = new OAuth2Request(null, "web_app", null, true, null, null, null, null, null);
+        OAuth2Authentication authentication = new OAuth2Authentication(request, user);
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.setAttribute(OAuth2AuthenticationDetails.ACCESS_TOKEN_VALUE, "token");
+        authentication.setDetails(new OAuth2AuthenticationDetails(servletRequest));
+        return authentication;
+    }
+}
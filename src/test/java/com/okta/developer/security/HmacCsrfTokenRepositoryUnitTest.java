@@ -0,0 +1,134 @@
+package com.okta.developer.security;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.csrf.CsrfFilter;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the HmacCsrfTokenRepository.
+ *
+ * @see HmacCsrfTokenRepository
+ */
+public class HmacCsrfTokenRepositoryUnitTest {
+
+    private static final String SECRET = "c2VjcmV0LXNlY3JldC1zZWNyZXQtc2VjcmV0LXNlY3I=";
+
+    private HmacCsrfTokenRepository repository;
+
+    private CsrfFilter filter;
+
+    @Before
+    public void setup() {
+        repository = new HmacCsrfTokenRepository(SECRET, "XSRF-TOKEN", "X-XSRF-TOKEN", "_csrf");
+        filter = new CsrfFilter(repository);
+    }
+
+    @After
+    public void cleanup() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testNoTokenIsIssuedToAnonymousReads() throws Exception {
+        MockHttpServletResponse response = perform(new MockHttpServletRequest("GET", "/api/profile-info"));
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(response.getCookie("XSRF-TOKEN")).isNull();
+    }
+
+    @Test
+    public void testTokenIsIssuedOnceToAuthenticatedClients() throws Exception {
+        authenticate();
+        MockHttpSession session = new MockHttpSession();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/account");
+        request.setSession(session);
+        Cookie cookie = perform(request).getCookie("XSRF-TOKEN");
+        assertThat(cookie.getValue()).isNotEmpty();
+        assertThat(cookie.isHttpOnly()).isFalse();
+
+        request = new MockHttpServletRequest("GET", "/api/account");
+        request.setSession(session);
+        request.setCookies(cookie);
+        assertThat(perform(request).getCookie("XSRF-TOKEN")).isNull();
+    }
+
+    @Test
+    public void testTokenIsBoundToTheSession() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        String token = repository.generateToken(request("GET", session, null)).getToken();
+
+        assertThat(perform(request("POST", session, token)).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(perform(request("POST", new MockHttpSession(), token)).getStatus())
+            .isEqualTo(HttpServletResponse.SC_FORBIDDEN);
+
+        int middle = token.length() - 10;
+        String tampered = token.substring(0, middle) + (token.charAt(middle) == 'A' ? 'B' : 'A') +
+            token.substring(middle + 1);
+        assertThat(perform(request("POST", session, tampered)).getStatus())
+            .isEqualTo(HttpServletResponse.SC_FORBIDDEN);
+    }
+
+    @Test
+    public void testMissingTokenIsRejectedAndIssued() throws Exception {
+        MockHttpServletResponse response = perform(request("POST", new MockHttpSession(), null));
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_FORBIDDEN);
+        assertThat(response.getCookie("XSRF-TOKEN").getValue()).isNotEmpty();
+    }
+
+    @Test
+    public void testTokenMustMatchTheCookieWithoutSession() throws Exception {
+        String token = repository.generateToken(new MockHttpServletRequest()).getToken();
+        String other = repository.generateToken(new MockHttpServletRequest()).getToken();
+
+        MockHttpServletRequest request = request("POST", null, token);
+        request.setCookies(new Cookie("XSRF-TOKEN", token));
+        assertThat(perform(request).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+
+        request = request("POST", null, token);
+        request.setCookies(new Cookie("XSRF-TOKEN", other));
+        assertThat(perform(request).getStatus()).isEqualTo(HttpServletResponse.SC_FORBIDDEN);
+    }
+
+    @Test
+    public void testSaveNullTokenDeletesTheCookie() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        repository.saveToken(null, new MockHttpServletRequest(), response);
+
+        assertThat(response.getCookie("XSRF-TOKEN").getMaxAge()).isZero();
+    }
+
+    private void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+            AuthorityUtils.createAuthorityList(AuthoritiesConstants.USER)));
+    }
+
+    private MockHttpServletRequest request(String method, MockHttpSession session, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/users");
+        request.setSession(session);
+        if (token != null) {
+            request.addHeader("X-XSRF-TOKEN", token);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
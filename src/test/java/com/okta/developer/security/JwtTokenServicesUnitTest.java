@@ -0,0 +1,307 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the JwtTokenServices and the JwkSetCache, against a stub JSON Web Key Set server.
+ *
+ * @see JwtTokenServices
+ * @see JwkSetCache
+ */
+public class JwtTokenServicesUnitTest {
+
+    private static final String ISSUER = "https://idp.example.com/oauth2/default";
+
+    private static final Instant NOW = Instant.parse("2017-10-01T12:00:00Z");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static KeyPair firstKey;
+
+    private static KeyPair secondKey;
+
+    private final Map<String, KeyPair> publishedKeys = new LinkedHashMap<>();
+
+    private final AtomicInteger jwkSetRequests = new AtomicInteger();
+
+    private HttpServer jwkSetServer;
+
+    private ApplicationProperties applicationProperties;
+
+    private JwtTokenServices tokenServices;
+
+    @Before
+    public void setup() throws Exception {
+        if (firstKey == null) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            firstKey = generator.generateKeyPair();
+            secondKey = generator.generateKeyPair();
+        }
+        publishedKeys.put("first", firstKey);
+
+        jwkSetServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        jwkSetServer.createContext("/keys", exchange -> {
+            jwkSetRequests.incrementAndGet();
+            byte[] body = MAPPER.writeValueAsBytes(jwkSet());
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        jwkSetServer.start();
+
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Jwt jwt = applicationProperties.getJwt();
+        jwt.setJwkSetUri("http://localhost:" + jwkSetServer.getAddress().getPort() + "/keys");
+        jwt.setIssuer(ISSUER);
+        jwt.setAudiences(Collections.singletonList("api://default"));
+        jwt.setMinRefreshIntervalMs(0);
+        tokenServices = tokenServices();
+    }
+
+    @After
+    public void tearDown() {
+        jwkSetServer.stop(0);
+    }
+
+    @Test
+    public void testValidToken() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("groups", Arrays.asList("Everyone", AuthoritiesConstants.ADMIN));
+
+        OAuth2Authentication authentication = tokenServices.loadAuthentication(sign(claims, firstKey, "first"));
+
+        assertThat(authentication.getName()).isEqualTo("john.doe");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ADMIN);
+        assertThat(authentication.getOAuth2Request().getClientId()).isEqualTo("web_app");
+        assertThat(authentication.getOAuth2Request().getScope()).containsExactly("openid", "profile");
+        Map<?, ?> details = (Map<?, ?>) authentication.getUserAuthentication().getDetails();
+        assertThat(details.get("email")).isEqualTo("john.doe@example.com");
+        assertThat(authentication.getUserAuthentication()).isInstanceOf(RoleSetAuthenticationToken.class);
+        assertThat(jwkSetRequests.get()).isEqualTo(1);
+
+        tokenServices.loadAuthentication(sign(claims, firstKey, "first"));
+        assertThat(jwkSetRequests.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUsernameFallsBackToSubject() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.remove("preferred_username");
+
+        OAuth2Authentication authentication = tokenServices.loadAuthentication(sign(claims, firstKey, "first"));
+
+        assertThat(authentication.getName()).isEqualTo("00u1");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.USER);
+        Map<?, ?> details = (Map<?, ?>) authentication.getUserAuthentication().getDetails();
+        assertThat(details.get("preferred_username")).isEqualTo("00u1");
+    }
+
+    @Test
+    public void testReadAccessToken() throws Exception {
+        String token = sign(claims(), firstKey, "first");
+
+        OAuth2AccessToken accessToken = tokenServices.readAccessToken(token);
+
+        assertThat(accessToken.getValue()).isEqualTo(token);
+        assertThat(accessToken.getTokenType()).isEqualToIgnoringCase(OAuth2AccessToken.BEARER_TYPE);
+        assertThat(accessToken.getExpiration()).isEqualTo(Date.from(NOW.plusSeconds(3600)));
+        assertThat(accessToken.getScope()).containsExactly("openid", "profile");
+        assertThat(accessToken.getAdditionalInformation()).containsEntry("cid", "web_app");
+
+        Map<String, Object> claims = claims();
+        claims.put("exp", NOW.getEpochSecond() - 600);
+        String expired = sign(claims, firstKey, "first");
+        assertThatThrownBy(() -> tokenServices.readAccessToken(expired))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("expired");
+    }
+
+    @Test
+    public void testClockSkew() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("exp", NOW.getEpochSecond() - 30);
+        String token = sign(claims, firstKey, "first");
+
+        assertThat(tokenServices.loadAuthentication(token)).isNotNull();
+
+        applicationProperties.getJwt().setClockSkewSeconds(10);
+        assertThatThrownBy(() -> tokenServices().loadAuthentication(token))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("expired");
+
+        claims = claims();
+        claims.put("nbf", NOW.getEpochSecond() + 30);
+        String early = sign(claims, firstKey, "first");
+        assertThatThrownBy(() -> tokenServices().loadAuthentication(early))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("not valid yet");
+    }
+
+    @Test
+    public void testInvalidTokens() throws Exception {
+        Map<String, Object> claims = claims();
+        String valid = sign(claims, firstKey, "first");
+        String[] parts = valid.split("\\.");
+        String tampered = parts[0] + "." + base64(MAPPER.writeValueAsBytes(Collections.singletonMap("sub", "admin")))
+            + "." + parts[2];
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(tampered))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("signature");
+
+        String unsigned = base64("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "." + parts[1] + ".";
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(unsigned))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("algorithm");
+
+        assertThatThrownBy(() -> tokenServices.loadAuthentication("not-a-jwt"))
+            .isInstanceOf(InvalidTokenException.class);
+
+        claims.put("iss", "https://other.example.com");
+        String otherIssuer = sign(claims, firstKey, "first");
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(otherIssuer))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("issuer");
+
+        claims = claims();
+        claims.put("aud", "api://other");
+        String otherAudience = sign(claims, firstKey, "first");
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(otherAudience))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("audience");
+    }
+
+    @Test
+    public void testKeyRotation() throws Exception {
+        tokenServices.loadAuthentication(sign(claims(), firstKey, "first"));
+        assertThat(jwkSetRequests.get()).isEqualTo(1);
+
+        publishedKeys.clear();
+        publishedKeys.put("second", secondKey);
+        assertThat(tokenServices.loadAuthentication(sign(claims(), secondKey, "second"))).isNotNull();
+        assertThat(jwkSetRequests.get()).isEqualTo(2);
+
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(sign(claims(), firstKey, "first")))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("Unknown token key");
+    }
+
+    @Test
+    public void testUnknownKeysRefreshAtMostOncePerInterval() throws Exception {
+        applicationProperties.getJwt().setMinRefreshIntervalMs(60000);
+        tokenServices = tokenServices();
+        tokenServices.loadAuthentication(sign(claims(), firstKey, "first"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> tokenServices.loadAuthentication(sign(claims(), secondKey, "second")))
+                .isInstanceOf(InvalidTokenException.class);
+        }
+        assertThat(jwkSetRequests.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testKeysAreKeptWhenRefreshFails() throws Exception {
+        JwkSetCache jwkSetCache = new JwkSetCache(applicationProperties);
+        jwkSetCache.refresh();
+        assertThat(jwkSetCache.getKeys()).containsOnlyKeys("first");
+
+        jwkSetServer.stop(0);
+        jwkSetCache.refresh();
+        assertThat(jwkSetCache.getKeys()).containsOnlyKeys("first");
+    }
+
+    private JwtTokenServices tokenServices() {
+        JwtTokenServices services = new JwtTokenServices(new JwkSetCache(applicationProperties), applicationProperties);
+        services.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        return services;
+    }
+
+    private Map<String, Object> jwkSet() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        publishedKeys.forEach((keyId, keyPair) -> {
+            RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+            Map<String, Object> jwk = new HashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("use", "sig");
+            jwk.put("alg", "RS256");
+            jwk.put("kid", keyId);
+            jwk.put("n", base64(unsigned(publicKey.getModulus())));
+            jwk.put("e", base64(unsigned(publicKey.getPublicExponent())));
+            keys.add(jwk);
+        });
+        return Collections.singletonMap("keys", keys);
+    }
+
+    private static Map<String, Object> claims() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("iss", ISSUER);
+        claims.put("aud", "api://default");
+        claims.put("sub", "00u1");
+        claims.put("cid", "web_app");
+        claims.put("scp", Arrays.asList("openid", "profile"));
+        claims.put("preferred_username", "john.doe");
+        claims.put("email", "john.doe@example.com");
+        claims.put("iat", NOW.getEpochSecond() - 60);
+        claims.put("exp", NOW.getEpochSecond() + 3600);
+        return claims;
+    }
+
+    private static String sign(Map<String, Object> claims, KeyPair keyPair, String keyId) throws Exception {
+        Map<String, Object> header = new HashMap<>();
+        header.put("alg", "RS256");
+        header.put("kid", keyId);
+        String signingInput = base64(MAPPER.writeValueAsBytes(header)) + "." + base64(MAPPER.writeValueAsBytes(claims));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + base64(signature.sign());
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,69 @@
+package com.okta.developer.security;
+
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PathTrie.
+ *
+ * @see PathTrie
+ */
+public class PathTrieUnitTest {
+
+    private static final String[] PATTERNS = {
+        "/app/**/*.{js,html}", "/i18n/**", "/content/**", "/swagger-ui/index.html", "/api/profile-info",
+        "/management/health", "/api/*/info", "/api/users/?", "/**/favicon.ico"
+    };
+
+    private static final String[] PATHS = {
+        "/", "", "/app", "/app/main.js", "/app/home/home.html", "/app/a/b/c.js", "/app/a/b/c", "/i18n", "/i18n/",
+        "/i18n/en/global.json", "/i18nx", "/content/images/logo.png", "/swagger-ui/index.html",
+        "/swagger-ui/index.htm", "/api/profile-info", "/api/profile-info/", "/api/Profile-info", "/management/health",
+        "/management/health/db", "/management/env", "/api/x/info", "/api/x/y/info", "/api/users/a", "/api/users/ab",
+        "/favicon.ico", "/a/b/favicon.ico", "/api/account"
+    };
+
+    @Test
+    public void testMatchesLikeTheAntPathMatcher() {
+        PathTrie<String> trie = new PathTrie<>();
+        for (String pattern : PATTERNS) {
+            trie.add(pattern, pattern);
+        }
+        AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+        for (String path : PATHS) {
+            String expected = null;
+            for (String pattern : PATTERNS) {
+                if (antPathMatcher.match(pattern, path)) {
+                    expected = pattern;
+                    break;
+                }
+            }
+            assertThat(trie.match("GET", path)).as(path).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testFirstPatternWins() {
+        PathTrie<String> trie = new PathTrie<String>()
+            .add("/api/**", "any")
+            .add("/api/profile-info", "profile-info");
+
+        assertThat(trie.match("GET", "/api/profile-info")).isEqualTo("any");
+        assertThat(trie.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMethod() {
+        PathTrie<String> trie = new PathTrie<String>()
+            .add("OPTIONS", "/**", "preflight")
+            .add("/content/**", "content");
+
+        assertThat(trie.match("OPTIONS", "/api/account")).isEqualTo("preflight");
+        assertThat(trie.match("GET", "/api/account")).isNull();
+        assertThat(trie.match("GET", "/content/main.css")).isEqualTo("content");
+        assertThat(trie.match("OPTIONS", "/content/main.css")).isEqualTo("preflight");
+    }
+}
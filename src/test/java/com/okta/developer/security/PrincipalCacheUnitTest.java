@@ -0,0 +1,122 @@
+package com.okta.developer.security;
+
+import com.okta.developer.config.ApplicationProperties;
+import com.okta.developer.service.dto.ResourceVersion;
+import com.okta.developer.service.dto.UserDTO;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PrincipalCache.
+ *
+ * @see PrincipalCache
+ */
+public class PrincipalCacheUnitTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private MetricRegistry metricRegistry;
+
+    private PrincipalCache principalCache;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        metricRegistry = new MetricRegistry();
+        principalCache = new PrincipalCache(applicationProperties);
+        principalCache.setMetricRegistry(metricRegistry);
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        OAuth2Authentication authentication = authentication("token");
+        UserDTO userDTO = new UserDTO();
+        ResourceVersion version = ResourceVersion.of(Instant.EPOCH, "user");
+
+        assertThat(principalCache.get(authentication)).isNull();
+        principalCache.put(authentication, userDTO, version, authentication);
+
+        PrincipalCache.Entry entry = principalCache.get(authentication("token"));
+        assertThat(entry).isNotNull();
+        assertThat(entry.getUserDTO()).isSameAs(userDTO);
+        assertThat(entry.getVersion()).isSameAs(version);
+        assertThat(principalCache.get(authentication("refreshed-token"))).isNull();
+
+        assertThat(metricRegistry.meter("security.principal-cache.hits").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.meter("security.principal-cache.misses").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.getGauges().get("security.principal-cache.size").getValue()).isEqualTo(1);
+        Gauge<?> hitRate = metricRegistry.getGauges().get("security.principal-cache.hit-rate");
+        assertThat(hitRate).isNotNull();
+    }
+
+    @Test
+    public void testAuthenticationWithoutTokenIsNotCached() {
+        OAuth2Request request = new OAuth2Request(null, "client", null, true, null, null, null, null, null);
+        OAuth2Authentication authentication = new OAuth2Authentication(request,
+            new UsernamePasswordAuthenticationToken("user", "N/A"));
+
+        principalCache.put(authentication, new UserDTO(), null, authentication);
+        assertThat(principalCache.size()).isZero();
+    }
+
+    @Test
+    public void testEntriesAreBoundedAndExpire() {
+        applicationProperties.getPrincipalCache().setMaxEntries(2);
+        principalCache = new PrincipalCache(applicationProperties);
+        for (int i = 0; i < 3; i++) {
+            principalCache.put(authentication("token" + i), new UserDTO(), null, null);
+        }
+        assertThat(principalCache.size()).isEqualTo(2);
+        assertThat(principalCache.get(authentication("token0"))).isNull();
+
+        applicationProperties.getPrincipalCache().setTimeToLiveSeconds(0);
+        principalCache = new PrincipalCache(applicationProperties);
+        principalCache.put(authentication("token"), new UserDTO(), null, null);
+        assertThat(principalCache.get(authentication("token"))).isNull();
+    }
+
+    @Test
+    public void testDisabled() {
+        applicationProperties.getPrincipalCache().setEnabled(false);
+        principalCache = new PrincipalCache(applicationProperties);
+
+        principalCache.put(authentication("token"), new UserDTO(), null, null);
+        assertThat(principalCache.get(authentication("token"))).isNull();
+    }
+
+    @Test
+    public void testLogoutEvicts() throws Exception {
+        OAuth2Authentication authentication = authentication("token");
+        principalCache.put(authentication, new UserDTO(), null, authentication);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new PrincipalCacheLogoutSuccessHandler(principalCache)
+            .onLogoutSuccess(new MockHttpServletRequest(), response, authentication);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(principalCache.get(authentication)).isNull();
+    }
+
+    private static OAuth2Authentication authentication(String token) {
+        OAuth2Request request = new OAuth2Request(null, "client", null, true, null, null, null, null, null);
+        OAuth2Authentication authentication = new OAuth2Authentication(request,
+            new UsernamePasswordAuthenticationToken("user", "N/A"));
+        MockHttpServletRequest tokenRequest = new MockHttpServletRequest();
+        tokenRequest.setAttribute(OAuth2AuthenticationDetails.ACCESS_TOKEN_VALUE, token);
+        authentication.setDetails(new OAuth2AuthenticationDetails(tokenRequest));
+        return authentication;
+    }
+}
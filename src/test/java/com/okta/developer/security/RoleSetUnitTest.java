@@ -0,0 +1,102 @@
+package com.okta.developer.security;
+
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RoleSet and the AuthorityRegistry.
+ *
+ * @see RoleSet
+ * @see AuthorityRegistry
+ */
+public class RoleSetUnitTest {
+
+    @Test
+    public void testRegistryReturnsCanonicalInstances() {
+        assertThat(AuthorityRegistry.authority(AuthoritiesConstants.ADMIN))
+            .isSameAs(AuthorityRegistry.authority(AuthoritiesConstants.ADMIN));
+        assertThat(AuthorityRegistry.authority(AuthoritiesConstants.ADMIN).getName())
+            .isEqualTo(AuthoritiesConstants.ADMIN);
+        assertThat(AuthorityRegistry.grantedAuthority("ROLE_REGISTRY_TEST"))
+            .isSameAs(AuthorityRegistry.grantedAuthority("ROLE_REGISTRY_TEST"));
+        assertThat(AuthorityRegistry.grantedAuthority("ROLE_REGISTRY_TEST").getAuthority())
+            .isEqualTo("ROLE_REGISTRY_TEST");
+        assertThat(AuthorityRegistry.indexOf("ROLE_REGISTRY_TEST")).isNotNegative();
+        assertThat(AuthorityRegistry.indexOf("ROLE_NOT_REGISTERED")).isEqualTo(-1);
+    }
+
+    @Test
+    public void testContains() {
+        RoleSet roles = RoleSet.of(authorities(AuthoritiesConstants.USER, "ROLE_ROLE_SET_TEST"));
+
+        assertThat(roles.contains(AuthoritiesConstants.USER)).isTrue();
+        assertThat(roles.contains("ROLE_ROLE_SET_TEST")).isTrue();
+        assertThat(roles.contains(AuthoritiesConstants.ADMIN)).isFalse();
+        assertThat(roles.contains("ROLE_NOT_REGISTERED")).isFalse();
+        assertThat(RoleSet.of(Collections.emptyList()).contains(AuthoritiesConstants.USER)).isFalse();
+    }
+
+    @Test
+    public void testRoleSetIsComputedOncePerToken() {
+        RoleSetAuthenticationToken token = new RoleSetAuthenticationToken("user", "N/A",
+            authorities(AuthoritiesConstants.USER));
+
+        assertThat(RoleSet.of(token)).isSameAs(token.getRoleSet());
+        assertThat(RoleSet.of(token).contains(AuthoritiesConstants.USER)).isTrue();
+    }
+
+    @Test
+    public void testOAuth2AuthenticationUsesUserRoleSet() {
+        RoleSetAuthenticationToken token = new RoleSetAuthenticationToken("user", "N/A",
+            authorities(AuthoritiesConstants.ADMIN));
+        OAuth2Request request = new OAuth2Request(null, "client", token.getAuthorities(), true, null, null, null,
+            null, null);
+        OAuth2Authentication authentication = new OAuth2Authentication(request, token);
+
+        assertThat(RoleSet.of(authentication)).isSameAs(token.getRoleSet());
+        assertThat(RoleSet.of(authentication).contains(AuthoritiesConstants.ADMIN)).isTrue();
+    }
+
+    @Test
+    public void testOtherAuthenticationIsComputed() {
+        RoleSet roles = RoleSet.of(new UsernamePasswordAuthenticationToken("user", "user",
+            authorities(AuthoritiesConstants.ANONYMOUS)));
+
+        assertThat(roles.contains(AuthoritiesConstants.ANONYMOUS)).isTrue();
+        assertThat(roles.contains(AuthoritiesConstants.USER)).isFalse();
+    }
+
+    @Test
+    public void testHasRole() {
+        RoleSetAuthenticationToken token = new RoleSetAuthenticationToken("user", "N/A",
+            authorities(AuthoritiesConstants.ADMIN));
+        assertThat(RoleSet.hasRole(token, AuthoritiesConstants.ADMIN)).isTrue();
+        assertThat(RoleSet.hasRole(token, AuthoritiesConstants.USER)).isFalse();
+
+        // The roles of the other authentications are compared by name, without being registered
+        UsernamePasswordAuthenticationToken other = new UsernamePasswordAuthenticationToken("user", "user",
+            authorities("ROLE_HAS_ROLE_TEST"));
+        assertThat(RoleSet.hasRole(other, "ROLE_HAS_ROLE_TEST")).isTrue();
+        assertThat(RoleSet.hasRole(other, AuthoritiesConstants.ADMIN)).isFalse();
+        assertThat(AuthorityRegistry.indexOf("ROLE_HAS_ROLE_TEST")).isEqualTo(-1);
+    }
+
+    private static Collection<GrantedAuthority> authorities(String... names) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String name : names) {
+            authorities.add(new SimpleGrantedAuthority(name));
+        }
+        return authorities;
+    }
+}
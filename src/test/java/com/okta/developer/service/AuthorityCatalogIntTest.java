@@ -0,0 +1,97 @@
+package com.okta.developer.service;
+
+import com.okta.developer.OidcApp;
+import com.okta.developer.domain.Authority;
+import com.okta.developer.repository.AuthorityRepository;
+import com.okta.developer.security.AuthoritiesConstants;
+import com.okta.developer.service.dto.ResourceVersion;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the AuthorityCatalog.
+ *
+ * @see AuthorityCatalog
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = OidcApp.class)
+public class AuthorityCatalogIntTest {
+
+    private static final String NEW_AUTHORITY = "ROLE_CATALOG_TEST";
+
+    @Autowired
+    private AuthorityCatalog authorityCatalog;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @After
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            if (authorityRepository.exists(NEW_AUTHORITY)) {
+                authorityRepository.delete(NEW_AUTHORITY);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testSnapshotIsShared() {
+        List<String> names = authorityCatalog.getAuthorityNames();
+        assertThat(names).containsExactly(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+        assertThat(authorityCatalog.getAuthorityNames()).isSameAs(names);
+        assertThatThrownBy(() -> names.add(NEW_AUTHORITY)).isInstanceOf(UnsupportedOperationException.class);
+
+        Authority admin = authorityCatalog.getAuthority(AuthoritiesConstants.ADMIN);
+        assertThat(admin.getName()).isEqualTo(AuthoritiesConstants.ADMIN);
+        assertThat(authorityCatalog.getAuthority(AuthoritiesConstants.ADMIN)).isSameAs(admin);
+        assertThat(authorityCatalog.getAuthority(NEW_AUTHORITY)).isNull();
+    }
+
+    @Test
+    public void testSnapshotIsReloadedAfterCommittedChange() {
+        ResourceVersion version = authorityCatalog.getVersion();
+
+        Authority authority = new Authority();
+        authority.setName(NEW_AUTHORITY);
+        new TransactionTemplate(transactionManager).execute(status -> authorityRepository.save(authority));
+
+        assertThat(authorityCatalog.getAuthorityNames()).contains(NEW_AUTHORITY);
+        assertThat(authorityCatalog.getAuthority(NEW_AUTHORITY)).isNotNull();
+        assertThat(authorityCatalog.getVersion()).isNotEqualTo(version);
+
+        cleanUp();
+        assertThat(authorityCatalog.getAuthorityNames()).doesNotContain(NEW_AUTHORITY);
+        assertThat(authorityCatalog.getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    public void testSnapshotIsKeptOnRollback() {
+        List<String> names = authorityCatalog.getAuthorityNames();
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            Authority authority = new Authority();
+            authority.setName(NEW_AUTHORITY);
+            authorityRepository.saveAndFlush(authority);
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(authorityCatalog.getAuthorityNames()).isSameAs(names);
+    }
+}
@@ -0,0 +1,152 @@
+package com.okta.developer.service;
+
+import com.okta.developer.config.ApplicationProperties;
+import com.okta.developer.config.PoolMetricsTrackerFactory;
+import com.okta.developer.service.dto.PoolTuningDecisionDTO;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PoolTuningService decision logic.
+ *
+ * @see PoolTuningService
+ */
+public class PoolTuningServiceUnitTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private PoolTuningService poolTuningService;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.PoolTuning poolTuning = applicationProperties.getPoolTuning();
+        poolTuning.setMinPoolSize(4);
+        poolTuning.setMaxPoolSize(10);
+        poolTuning.setMinIdleFloor(2);
+        poolTuning.setStep(2);
+        poolTuning.setWaitThresholdMs(20);
+        poolTuning.setShrinkUtilization(0.5);
+        poolTuning.setShrinkAfterIntervals(3);
+        poolTuning.setHistorySize(2);
+        poolTuningService = new PoolTuningService(applicationProperties, new MetricRegistry());
+    }
+
+    @Test
+    public void testGrowOnHighWait() {
+        PoolTuningDecisionDTO decision = poolTuningService.evaluate(6, 4, 50, 10, 6, 0);
+
+        assertThat(decision).isNotNull();
+        assertThat(decision.getMaximumPoolSize()).isEqualTo(8);
+        assertThat(decision.getMinimumIdle()).isEqualTo(6);
+        assertThat(poolTuningService.getHistory()).containsExactly(decision);
+    }
+
+    @Test
+    public void testGrowOnPendingThreadsIsBounded() {
+        PoolTuningDecisionDTO decision = poolTuningService.evaluate(9, 9, 0, 10, 9, 3);
+
+        assertThat(decision.getMaximumPoolSize()).isEqualTo(10);
+        assertThat(decision.getMinimumIdle()).isEqualTo(10);
+        assertThat(poolTuningService.evaluate(10, 10, 0, 10, 10, 3)).isNull();
+    }
+
+    @Test
+    public void testShrinkOnlyAfterConsecutiveQuietIntervals() {
+        assertThat(poolTuningService.evaluate(10, 8, 1, 5, 1, 0)).isNull();
+        assertThat(poolTuningService.evaluate(10, 8, 1, 5, 1, 0)).isNull();
+        PoolTuningDecisionDTO decision = poolTuningService.evaluate(10, 8, 1, 5, 1, 0);
+
+        assertThat(decision).isNotNull();
+        assertThat(decision.getMaximumPoolSize()).isEqualTo(8);
+        assertThat(decision.getMinimumIdle()).isEqualTo(6);
+    }
+
+    @Test
+    public void testBusyIntervalResetsShrinkCooldown() {
+        assertThat(poolTuningService.evaluate(10, 8, 1, 5, 1, 0)).isNull();
+        assertThat(poolTuningService.evaluate(10, 8, 1, 5, 1, 0)).isNull();
+        assertThat(poolTuningService.evaluate(10, 8, 1, 5, 8, 0)).isNull();
+        assertThat(poolTuningService.evaluate(10, 8, 1, 5, 1, 0)).isNull();
+    }
+
+    @Test
+    public void testNoShrinkBelowLowerBound() {
+        applicationProperties.getPoolTuning().setShrinkAfterIntervals(1);
+
+        assertThat(poolTuningService.evaluate(4, 4, 0, 5, 0, 0)).isNull();
+        PoolTuningDecisionDTO decision = poolTuningService.evaluate(5, 3, 0, 5, 0, 0);
+        assertThat(decision.getMaximumPoolSize()).isEqualTo(4);
+        assertThat(decision.getMinimumIdle()).isEqualTo(2);
+    }
+
+    @Test
+    public void testHistoryIsBounded() {
+        poolTuningService.evaluate(4, 2, 50, 10, 4, 0);
+        poolTuningService.evaluate(6, 4, 50, 10, 6, 0);
+        PoolTuningDecisionDTO last = poolTuningService.evaluate(8, 6, 50, 10, 8, 0);
+
+        assertThat(poolTuningService.getHistory()).hasSize(2);
+        assertThat(poolTuningService.getHistory().get(0)).isSameAs(last);
+    }
+
+    @Test
+    public void testShrinkAfterABurstFollowedByIdleTime() {
+        ApplicationProperties.PoolTuning poolTuning = applicationProperties.getPoolTuning();
+        poolTuning.setEnabled(true);
+        poolTuning.setIntervalMs(10000);
+        MetricRegistry metricRegistry = new MetricRegistry();
+        AtomicLong nanos = new AtomicLong();
+        Clock clock = new Clock() {
+            @Override
+            public long getTick() {
+                return nanos.get();
+            }
+        };
+        AtomicInteger active = new AtomicInteger();
+        IMetricsTracker tracker = new PoolMetricsTrackerFactory(metricRegistry, 10000, clock)
+            .create("test", new PoolStats(0) {
+                @Override
+                protected void update() {
+                    activeConnections = active.get();
+                }
+            });
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("test");
+        dataSource.setMaximumPoolSize(6);
+        dataSource.setMinimumIdle(4);
+        poolTuningService = new PoolTuningService(applicationProperties, metricRegistry);
+        poolTuningService.setHikariDataSource(dataSource);
+
+        // A burst of connections waiting for 100 ms
+        active.set(6);
+        for (int i = 0; i < 20; i++) {
+            tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            tracker.recordConnectionUsageMillis(50);
+        }
+        poolTuningService.tune();
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(8);
+
+        // The pool is then idle, and the burst leaves the window of the next intervals
+        active.set(0);
+        for (int i = 0; i < 3; i++) {
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(10000) + 1);
+            poolTuningService.tune();
+        }
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(6);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(4);
+        assertThat(poolTuningService.getHistory().get(0).getReason()).startsWith("utilization below");
+    }
+}
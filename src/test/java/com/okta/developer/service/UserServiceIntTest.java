@@ -4,6 +4,8 @@ import com.okta.developer.OidcApp;
 import com.okta.developer.config.Constants;
 import com.okta.developer.domain.User;
 import com.okta.developer.repository.UserRepository;
+import com.okta.developer.security.AuthoritiesConstants;
+import com.okta.developer.service.dto.ResourceVersion;
 import com.okta.developer.service.dto.UserDTO;
 
 import org.junit.Before;
@@ -11,11 +13,19 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -35,6 +45,12 @@ public class UserServiceIntTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AuthorityCatalog authorityCatalog;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private User user;
 
     @Before
@@ -63,4 +79,52 @@ public class UserServiceIntTest {
             .isTrue();
     }
 
+    @Test
+    @Transactional
+    public void assertThatUpdatedAuthoritiesAreSharedInstances() {
+        userRepository.saveAndFlush(user);
+        UserDTO userDTO = new UserDTO(user.getId(), user.getLogin(), user.getFirstName(), user.getLastName(),
+            user.getEmail(), true, user.getImageUrl(), user.getLangKey(), null, null, null, null,
+            Collections.singleton(AuthoritiesConstants.USER));
+
+        userService.updateUser(userDTO);
+        userRepository.flush();
+
+        assertThat(userRepository.findOne(user.getId()).getAuthorities())
+            .containsExactly(authorityCatalog.getAuthority(AuthoritiesConstants.USER));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void assertThatVersionLoadedDuringAnUpdateIsNotKept() throws Exception {
+        // The caches of the tests are disabled
+        UserService cachingUserService = new UserService(userRepository, authorityCatalog,
+            new ConcurrentMapCacheManager());
+        userRepository.saveAndFlush(user);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            UserDTO userDTO = new UserDTO(user.getId(), user.getLogin(), "jane", user.getLastName(),
+                user.getEmail(), true, user.getImageUrl(), user.getLangKey(), null, null, null, null,
+                Collections.singleton(AuthoritiesConstants.USER));
+            ResourceVersion concurrentVersion = new TransactionTemplate(transactionManager).execute(status -> {
+                cachingUserService.updateUser(userDTO);
+                userRepository.flush();
+                // A concurrent request reads the user before the update is committed
+                try {
+                    return executor.submit(() -> cachingUserService.getUserVersion("johndoe").get())
+                        .get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            ResourceVersion version = cachingUserService.getUserVersion("johndoe").get();
+            assertThat(version).isNotEqualTo(concurrentVersion);
+            assertThat(version).isEqualTo(ResourceVersion.of(userService.getUserWithAuthoritiesByLogin("johndoe")
+                .map(UserDTO::new).get()));
+        } finally {
+            executor.shutdownNow();
+            userService.deleteUser("johndoe");
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package com.okta.developer.service.dto;
+
+import com.okta.developer.domain.Authority;
+import com.okta.developer.domain.User;
+import com.okta.developer.security.AuthoritiesConstants;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the UserListDTO.
+ *
+ * @see UserListDTO
+ */
+public class UserListDTOUnitTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .registerModule(new AfterburnerModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    public void testWritesTheSameJsonAsTheUserDTOs() throws Exception {
+        User user = new User();
+        user.setId(42L);
+        user.setLogin("john");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setEmail("john.doe@localhost");
+        user.setImageUrl("http://placehold.it/50x50");
+        user.setActivated(true);
+        user.setLangKey("en");
+        user.setCreatedBy("system");
+        user.setCreatedDate(Instant.parse("2017-10-01T12:00:00.123Z"));
+        user.setLastModifiedBy("admin");
+        user.setLastModifiedDate(Instant.parse("2017-10-02T08:30:00Z"));
+        user.setAuthorities(new HashSet<>(Arrays.asList(authority(AuthoritiesConstants.USER),
+            authority(AuthoritiesConstants.ADMIN))));
+        User emptyUser = new User();
+        emptyUser.setLogin("empty");
+        emptyUser.setCreatedDate(null);
+        List<User> users = Arrays.asList(user, emptyUser);
+
+        String json = mapper.writeValueAsString(new UserListDTO(users));
+        String dtoJson = mapper.writeValueAsString(users.stream().map(UserDTO::new).collect(Collectors.toList()));
+
+        assertThat(json).isEqualTo(dtoJson);
+        JsonNode tree = mapper.readTree(json);
+        assertThat(tree.get(0).get("createdDate").asText()).isEqualTo("2017-10-01T12:00:00.123Z");
+        assertThat(tree.get(1).get("id").isNull()).isTrue();
+        assertThat(tree.get(1).get("authorities").size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWritesAnEmptyList() throws Exception {
+        assertThat(mapper.writeValueAsString(new UserListDTO(Arrays.asList()))).isEqualTo("[]");
+    }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+}
@@ -0,0 +1,77 @@
+package com.okta.developer.web.limit;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AdaptiveConcurrencyLimiter.
+ *
+ * @see AdaptiveConcurrencyLimiter
+ */
+public class AdaptiveConcurrencyLimiterUnitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 6, 500, 0.5, clock::get);
+
+    @Test
+    public void testRejectsOverTheLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(4);
+
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void testIncreasesAdditivelyWhenBusyAndFast() {
+        limiter.tryAcquire();
+        limiter.release(FAST);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        for (int round = 0; round < 5; round++) {
+            while (limiter.tryAcquire()) {
+                // Use the whole limit
+            }
+            for (int i = limiter.getInFlight(); i > 0; i--) {
+                limiter.release(FAST);
+            }
+        }
+        assertThat(limiter.getLimit()).isEqualTo(6);
+    }
+
+    @Test
+    public void testDecreasesMultiplicativelyOncePerThreshold() {
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(SLOW);
+        limiter.release(SLOW);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        clock.addAndGet(SLOW);
+        limiter.tryAcquire();
+        limiter.release(SLOW);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCongestionSignalDecreasesTheLimit() {
+        AtomicBoolean congested = new AtomicBoolean(true);
+        limiter.setCongestionSignal(congested::get);
+        limiter.tryAcquire();
+        limiter.release(FAST);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+}
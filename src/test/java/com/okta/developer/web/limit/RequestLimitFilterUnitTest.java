@@ -0,0 +1,86 @@
+package com.okta.developer.web.limit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RequestLimitFilter.
+ *
+ * @see RequestLimitFilter
+ */
+public class RequestLimitFilterUnitTest {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(4, 2, 6, 0, 0.5);
+
+    private final RequestLimitFilter filter = new RequestLimitFilter(Arrays.asList("/api/account", "/login"),
+        new TokenBucketRateLimiter(100, 100, 16), new TokenBucketRateLimiter(2, 0.001, 16), concurrencyLimiter,
+        (request, response, handler, ex) -> null);
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testClientIpFromTrustedProxies() {
+        assertThat(filter.clientIp(request("203.0.113.7", null))).isEqualTo("203.0.113.7");
+        // The header of an untrusted client is ignored
+        assertThat(filter.clientIp(request("203.0.113.7", "198.51.100.1"))).isEqualTo("203.0.113.7");
+        assertThat(filter.clientIp(request("10.0.0.2", "198.51.100.1"))).isEqualTo("198.51.100.1");
+        // The addresses added by the client before the proxies are ignored
+        assertThat(filter.clientIp(request("10.0.0.2", "1.2.3.4, 198.51.100.1, 192.168.1.10")))
+            .isEqualTo("198.51.100.1");
+        assertThat(filter.clientIp(request("127.0.0.1", "10.0.0.3"))).isEqualTo("10.0.0.3");
+
+        filter.setTrustedProxies("");
+        assertThat(filter.clientIp(request("10.0.0.2", "198.51.100.1"))).isEqualTo("10.0.0.2");
+    }
+
+    @Test
+    public void testClientsBehindAProxyHaveTheirOwnBuckets() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertThat(doFilter(request("10.0.0.2", "198.51.100.1"), "/api/account").getStatus()).isEqualTo(200);
+        }
+        assertThat(doFilter(request("10.0.0.2", "198.51.100.1"), "/api/account").getStatus()).isEqualTo(429);
+        assertThat(doFilter(request("10.0.0.2", "198.51.100.2"), "/api/account").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    public void testUnmeasuredPathsDontAdaptTheLimit() throws Exception {
+        filter.setUnmeasuredPaths(Collections.singletonList("/login"));
+
+        doFilter(request("198.51.100.1", null), "/login");
+        assertThat(concurrencyLimiter.getLimit()).isEqualTo(4);
+        assertThat(concurrencyLimiter.getInFlight()).isEqualTo(0);
+
+        // Any request is slower than the threshold of 0 ms
+        doFilter(request("198.51.100.2", null), "/api/account");
+        assertThat(concurrencyLimiter.getLimit()).isEqualTo(2);
+        assertThat(concurrencyLimiter.getInFlight()).isEqualTo(0);
+    }
+
+    private MockHttpServletResponse doFilter(MockHttpServletRequest request, String path) throws Exception {
+        request.setServletPath(path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "");
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,68 @@
+package com.okta.developer.web.limit;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TokenBucketRateLimiter.
+ *
+ * @see TokenBucketRateLimiter
+ */
+public class TokenBucketRateLimiterUnitTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testAllowsBurstThenRefillRate() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 2, 16, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("user")).isZero();
+        }
+        assertThat(limiter.tryAcquire("user")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(limiter.tryAcquire("other")).isZero();
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(limiter.tryAcquire("user")).isZero();
+        assertThat(limiter.tryAcquire("user")).isPositive();
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("user")).isZero();
+        }
+        assertThat(limiter.tryAcquire("user")).isPositive();
+    }
+
+    @Test
+    public void testMemoryIsBounded() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 10, clock::get);
+        assertThat(limiter.size()).isEqualTo(16);
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(limiter.tryAcquire("client-" + i)).isZero();
+        }
+        assertThat(limiter.size()).isEqualTo(16);
+        assertThat(limiter.getEvictions()).isPositive();
+    }
+
+    @Test
+    public void testFullBucketsAreReplacedFirst() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 8, clock::get);
+        limiter.tryAcquire("active");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        for (int i = 0; i < 7; i++) {
+            limiter.tryAcquire("idle-" + i);
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        long evictions = limiter.getEvictions();
+
+        // The table is full: the new key replaces "active", whose bucket is full again
+        assertThat(limiter.tryAcquire("new")).isZero();
+        assertThat(limiter.getEvictions()).isEqualTo(evictions);
+        assertThat(limiter.tryAcquire("idle-0")).isPositive();
+    }
+}
@@ -5,6 +5,7 @@ import com.okta.developer.domain.Authority;
 import com.okta.developer.domain.User;
 import com.okta.developer.repository.UserRepository;
 import com.okta.developer.security.AuthoritiesConstants;
+import com.okta.developer.security.PrincipalCache;
 import com.okta.developer.web.rest.errors.ExceptionTranslator;
 import com.okta.developer.service.UserService;
 import org.junit.Before;
@@ -12,16 +13,34 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,6 +60,9 @@ public class AccountResourceIntTest {
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @MockBean
     private UserService mockUserService;
 
@@ -49,12 +71,16 @@ public class AccountResourceIntTest {
     @Autowired
     private WebApplicationContext context;
 
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
 
         AccountResource accountUserMockResource =
-            new AccountResource(userRepository, mockUserService);
+            new AccountResource(userRepository, mockUserService, principalCache, new SyncTaskExecutor());
         this.restUserMockMvc = MockMvcBuilders.standaloneSetup(accountUserMockResource)
             .setControllerAdvice(exceptionTranslator)
             .build();
@@ -116,6 +142,81 @@ public class AccountResourceIntTest {
             .andExpect(jsonPath("$.authorities").value(AuthoritiesConstants.ADMIN));
     }
 
+    @Test
+    public void testGetNotModifiedAccount() throws Exception {
+        User user = new User();
+        user.setLogin("test");
+        user.setFirstName("john");
+        user.setAuthorities(new HashSet<>());
+        when(mockUserService.getUserWithAuthorities()).thenReturn(user);
+
+        restUserMockMvc = MockMvcBuilders
+            .webAppContextSetup(context)
+            .apply(springSecurity())
+            .build();
+
+        String etag = restUserMockMvc.perform(get("/api/account")
+            .with(user(user.getLogin()).roles("ADMIN"))
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        restUserMockMvc.perform(get("/api/account")
+            .with(user(user.getLogin()).roles("ADMIN"))
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        user.setFirstName("jane");
+        restUserMockMvc.perform(get("/api/account")
+            .with(user(user.getLogin()).roles("ADMIN"))
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.firstName").value("jane"));
+    }
+
+    @Test
+    @Transactional
+    public void testGetIdpAccountIsCached() throws Exception {
+        Map<String, Object> details = new HashMap<>();
+        details.put("preferred_username", "cached-idp-user");
+        details.put("email", "cached-idp-user@localhost");
+        details.put("groups", Arrays.asList(AuthoritiesConstants.USER, "Everyone"));
+        UsernamePasswordAuthenticationToken userAuthentication = new UsernamePasswordAuthenticationToken(
+            "cached-idp-user", "N/A", Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+        userAuthentication.setDetails(details);
+        OAuth2Request request = new OAuth2Request(null, "client", null, true, null, null, null, null, null);
+        OAuth2Authentication authentication = new OAuth2Authentication(request, userAuthentication);
+        MockHttpServletRequest tokenRequest = new MockHttpServletRequest();
+        tokenRequest.setAttribute(OAuth2AuthenticationDetails.ACCESS_TOKEN_VALUE, "cached-idp-user-token");
+        authentication.setDetails(new OAuth2AuthenticationDetails(tokenRequest));
+
+        restUserMockMvc.perform(get("/api/account")
+            .principal(authentication)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login").value("cached-idp-user"))
+            .andExpect(jsonPath("$.authorities").value(AuthoritiesConstants.USER));
+        assertThat(userRepository.findOneByLogin("cached-idp-user")).isPresent();
+
+        PrincipalCache.Entry cached = principalCache.get(authentication);
+        assertThat(cached).isNotNull();
+        assertThat(cached.getAuthentication().getDetails()).isSameAs(authentication.getDetails());
+
+        restUserMockMvc.perform(get("/api/account")
+            .principal(cached.getAuthentication())
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login").value("cached-idp-user"));
+        assertThat(principalCache.get(cached.getAuthentication())).isSameAs(cached);
+
+        principalCache.evict(authentication);
+        assertThat(principalCache.get(authentication)).isNull();
+    }
+
     @Test
     public void testGetUnknownAccount() throws Exception {
         when(mockUserService.getUserWithAuthorities()).thenReturn(null);
@@ -124,4 +225,143 @@ public class AccountResourceIntTest {
             .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isInternalServerError());
     }
+
+    @Test
+    public void testGetExistingAccountAsync() throws Exception {
+        User user = new User();
+        user.setLogin("test");
+        user.setFirstName("john");
+        user.setLastName("doe");
+        user.setAuthorities(new HashSet<>());
+        when(mockUserService.getUserWithAuthorities()).thenReturn(user);
+
+        restUserMockMvc = MockMvcBuilders
+            .webAppContextSetup(context)
+            .apply(springSecurity())
+            .build();
+
+        MvcResult result = restUserMockMvc.perform(get("/api/async/account")
+            .with(user(user.getLogin()).roles("ADMIN"))
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restUserMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.login").value("test"))
+            .andExpect(jsonPath("$.firstName").value("john"))
+            .andExpect(jsonPath("$.lastName").value("doe"));
+    }
+
+    @Test
+    public void testGetUnknownAccountAsync() throws Exception {
+        when(mockUserService.getUserWithAuthorities()).thenReturn(null);
+
+        MvcResult result = restUserMockMvc.perform(get("/api/async/account")
+            .with(user("test").roles("ADMIN"))
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restUserMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    public void testGetNotModifiedAccountAsync() throws Exception {
+        User user = new User();
+        user.setLogin("test");
+        user.setFirstName("john");
+        user.setAuthorities(new HashSet<>());
+        when(mockUserService.getUserWithAuthorities()).thenReturn(user);
+
+        restUserMockMvc = MockMvcBuilders
+            .webAppContextSetup(context)
+            .apply(springSecurity())
+            .build();
+
+        MvcResult result = restUserMockMvc.perform(get("/api/async/account")
+            .with(user(user.getLogin()).roles("ADMIN"))
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String etag = restUserMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        result = restUserMockMvc.perform(get("/api/async/account")
+            .with(user(user.getLogin()).roles("ADMIN"))
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restUserMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void testGetIdpAccountAsyncOnTheTaskExecutor() throws Exception {
+        User user = new User();
+        user.setLogin("async-idp-user");
+        user.setEmail("async-idp-user@localhost");
+        user.setActivated(true);
+        user.setLangKey("en");
+        userRepository.saveAndFlush(user);
+        OAuth2Authentication authentication = idpAuthentication("async-idp-user");
+        Thread requestThread = Thread.currentThread();
+        AtomicReference<Thread> workerThread = new AtomicReference<>();
+        AtomicReference<SecurityContext> workerContext = new AtomicReference<>();
+        doAnswer(invocation -> {
+            workerThread.set(Thread.currentThread());
+            workerContext.set(SecurityContextHolder.getContext());
+            return null;
+        }).when(mockUserService).updateUser(any(), any(), any(), any(), any());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(
+            new AccountResource(userRepository, mockUserService, principalCache, taskExecutor))
+            .setControllerAdvice(exceptionTranslator)
+            .build();
+        SecurityContext requestContext = SecurityContextHolder.getContext();
+        try {
+            MvcResult result = mockMvc.perform(get("/api/async/account")
+                .principal(authentication)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value("async-idp-user"));
+
+            // The user is mapped in the request thread, and only synchronized by the task executor, with a copy of
+            // the security context of the request
+            assertThat(workerThread.get()).isNotNull().isNotSameAs(requestThread);
+            assertThat(workerContext.get()).isNotSameAs(requestContext);
+            assertThat(workerContext.get().getAuthentication()).isSameAs(requestContext.getAuthentication());
+            assertThat(requestContext.getAuthentication().getName()).isEqualTo("async-idp-user");
+            assertThat(principalCache.get(authentication)).isNotNull();
+        } finally {
+            SecurityContextHolder.clearContext();
+            principalCache.evict(authentication);
+            userRepository.delete(userRepository.findOneByLogin("async-idp-user").get());
+        }
+    }
+
+    private static OAuth2Authentication idpAuthentication(String login) {
+        Map<String, Object> details = new HashMap<>();
+        details.put("preferred_username", login);
+        details.put("email", login + "@localhost");
+        details.put("groups", Collections.singletonList(AuthoritiesConstants.USER));
+        UsernamePasswordAuthenticationToken userAuthentication = new UsernamePasswordAuthenticationToken(
+            login, "N/A", Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+        userAuthentication.setDetails(details);
+        OAuth2Request request = new OAuth2Request(null, "client", null, true, null, null, null, null, null);
+        OAuth2Authentication authentication = new OAuth2Authentication(request, userAuthentication);
+        MockHttpServletRequest tokenRequest = new MockHttpServletRequest();
+        tokenRequest.setAttribute(OAuth2AuthenticationDetails.ACCESS_TOKEN_VALUE, login + "-token");
+        authentication.setDetails(new OAuth2AuthenticationDetails(tokenRequest));
+        return authentication;
+    }
 }
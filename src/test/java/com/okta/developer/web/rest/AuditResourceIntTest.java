@@ -4,7 +4,11 @@ import com.okta.developer.OidcApp;
 import com.okta.developer.config.audit.AuditEventConverter;
 import com.okta.developer.domain.PersistentAuditEvent;
 import com.okta.developer.repository.PersistenceAuditEventRepository;
+import com.okta.developer.repository.RowCountEstimator;
 import com.okta.developer.service.AuditEventService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,17 +17,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.OptionalLong;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -51,6 +64,9 @@ public class AuditResourceIntTest {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private RequestMappingHandlerAdapter requestMappingHandlerAdapter;
+
     @Autowired
     private FormattingConversionService formattingConversionService;
 
@@ -94,6 +110,26 @@ public class AuditResourceIntTest {
             .andExpect(jsonPath("$.[*].principal").value(hasItem(SAMPLE_PRINCIPAL)));
     }
 
+    @Test
+    public void getAllAuditsWithApproximateCount() throws Exception {
+        // Initialize the database
+        auditEventRepository.save(auditEvent);
+        AuditEventService auditEventService = new AuditEventService(auditEventRepository, auditEventConverter);
+        RowCountEstimator estimator = mock(RowCountEstimator.class);
+        when(estimator.estimate(PersistentAuditEvent.class)).thenReturn(OptionalLong.of(500000));
+        auditEventService.setRowCountEstimator(estimator);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AuditResource(auditEventService))
+            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setMessageConverters(jacksonMessageConverter).build();
+
+        // Get all the audits, with the estimated total count
+        mockMvc.perform(get("/management/audits?size=10"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "500000"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("page=49999&size=10>; rel=\"last\"")))
+            .andExpect(jsonPath("$.[*].principal").value(hasItem(SAMPLE_PRINCIPAL)));
+    }
+
     @Test
     public void getAudit() throws Exception {
         // Initialize the database
@@ -138,6 +174,34 @@ public class AuditResourceIntTest {
             .andExpect(header().string("X-Total-Count", "0"));
     }
 
+    @Test
+    public void getAllAuditsAsSmile() throws Exception {
+        // Initialize the database
+        auditEventRepository.save(auditEvent);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AuditResource(
+            new AuditEventService(auditEventRepository, auditEventConverter)))
+            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setConversionService(formattingConversionService)
+            .setMessageConverters(requestMappingHandlerAdapter.getMessageConverters().toArray(new HttpMessageConverter<?>[0]))
+            .build();
+
+        // JSON stays the default format
+        MvcResult json = mockMvc.perform(get("/management/audits").accept(MediaType.ALL))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andReturn();
+
+        // Get all the audits in the Smile format
+        MvcResult smile = mockMvc.perform(get("/management/audits").accept("application/x-jackson-smile"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-jackson-smile"))
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andReturn();
+        JsonNode audits = new ObjectMapper(new SmileFactory()).readTree(smile.getResponse().getContentAsByteArray());
+        assertThat(audits.get(0).get("principal").asText()).isEqualTo(SAMPLE_PRINCIPAL);
+        assertThat(audits).isEqualTo(new ObjectMapper().readTree(json.getResponse().getContentAsByteArray()));
+    }
+
     @Test
     public void getNonExistingAudit() throws Exception {
         // Get the audit
@@ -1,16 +1,19 @@
 package com.okta.developer.web.rest;
 
 import com.okta.developer.OidcApp;
+import com.okta.developer.config.Constants;
 import com.okta.developer.domain.Authority;
 import com.okta.developer.domain.User;
 import com.okta.developer.repository.UserRepository;
 import com.okta.developer.security.AuthoritiesConstants;
 
+import com.okta.developer.service.AuthorityCatalog;
 import com.okta.developer.service.UserService;
 import com.okta.developer.service.dto.UserDTO;
 import com.okta.developer.service.mapper.UserMapper;
 import com.okta.developer.web.rest.errors.ExceptionTranslator;
 import com.okta.developer.web.rest.vm.ManagedUserVM;
+import com.jayway.jsonpath.JsonPath;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -18,23 +21,33 @@ import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -91,15 +104,30 @@ public class UserResourceIntTest {
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AuthorityCatalog authorityCatalog;
+
     private MockMvc restUserMockMvc;
 
+    private final AtomicInteger executedTasks = new AtomicInteger();
+
     private User user;
 
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        UserResource userResource = new UserResource(userRepository, userService);
-        this.restUserMockMvc = MockMvcBuilders.standaloneSetup(userResource)
+        this.restUserMockMvc = mockMvc(userService);
+    }
+
+    private MockMvc mockMvc(UserService userService) {
+        UserResource userResource = new UserResource(userRepository, userService, task -> {
+            executedTasks.incrementAndGet();
+            task.run();
+        });
+        return MockMvcBuilders.standaloneSetup(userResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
             .setMessageConverters(jacksonMessageConverter)
@@ -148,6 +176,36 @@ public class UserResourceIntTest {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    public void getAllUsersWithKeysetPagination() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        // Follow the next links from the first slice
+        List<String> logins = new ArrayList<>();
+        String link = "/api/users?cursor=&size=2";
+        while (link != null) {
+            MvcResult result = restUserMockMvc.perform(get(link).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andReturn();
+            List<String> slice = JsonPath.read(result.getResponse().getContentAsString(), "$.[*].login");
+            assertThat(slice.size()).isLessThanOrEqualTo(2);
+            logins.addAll(slice);
+            String header = result.getResponse().getHeader(HttpHeaders.LINK);
+            link = header == null ? null : header.substring(header.indexOf('<') + 1, header.indexOf('>'));
+            assertThat(header == null || header.endsWith("; rel=\"next\"")).isTrue();
+        }
+
+        assertThat(logins).isEqualTo(userRepository.findAll().stream()
+            .sorted(Comparator.comparing(User::getId))
+            .map(User::getLogin)
+            .filter(login -> !login.equals(Constants.ANONYMOUS_USER))
+            .collect(Collectors.toList()));
+        assertThat(logins).contains(DEFAULT_LOGIN);
+    }
+
     @Test
     @Transactional
     public void getUser() throws Exception {
@@ -173,6 +231,108 @@ public class UserResourceIntTest {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    public void getUserNotModified() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        cacheManager.getCache("users").clear();
+        cacheManager.getCache("resourceVersions").clear();
+
+        MvcResult result = restUserMockMvc.perform(get("/api/users/{login}", user.getLogin()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+            .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED,
+                user.getLastModifiedDate().toEpochMilli() / 1000 * 1000))
+            .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+
+        restUserMockMvc.perform(get("/api/users/{login}", user.getLogin())
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+
+        // Update the user
+        userService.updateUser(new UserDTO(user.getId(), user.getLogin(), UPDATED_FIRSTNAME, user.getLastName(),
+            user.getEmail(), user.getActivated(), user.getImageUrl(), user.getLangKey(), null, null, null, null,
+            Collections.emptySet()));
+
+        restUserMockMvc.perform(get("/api/users/{login}", user.getLogin())
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+            .andExpect(jsonPath("$.firstName").value(UPDATED_FIRSTNAME));
+    }
+
+    @Test
+    @Transactional
+    public void getUserAsync() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        // The caches are disabled in the tests
+        CacheManager caches = new ConcurrentMapCacheManager("users", "resourceVersions");
+        MockMvc restUserMockMvc = mockMvc(new UserService(userRepository, authorityCatalog, caches));
+
+        // Loaded from the database by the task executor
+        MvcResult result = restUserMockMvc.perform(get("/api/async/users/{login}", user.getLogin()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        // The version is written with the response, out of the task executor
+        String etag = restUserMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.login").value(user.getLogin()))
+            .andExpect(jsonPath("$.firstName").value(DEFAULT_FIRSTNAME))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+        assertThat(executedTasks.get()).isEqualTo(1);
+
+        // Served from the caches, the user being cached by the UserRepository when the caches are enabled
+        caches.getCache("users").put(user.getLogin(), user);
+        result = restUserMockMvc.perform(get("/api/async/users/{login}", user.getLogin()))
+            .andExpect(request().asyncStarted())
+            .andExpect(request().asyncResult(hasProperty("statusCode", is(HttpStatus.OK))))
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andReturn();
+        restUserMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login").value(user.getLogin()));
+
+        restUserMockMvc.perform(get("/api/async/users/{login}", user.getLogin())
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(request().asyncStarted())
+            .andExpect(request().asyncResult(nullValue()))
+            .andExpect(status().isNotModified());
+        assertThat(executedTasks.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingUserAsync() throws Exception {
+        MvcResult result = restUserMockMvc.perform(get("/api/async/users/unknown"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restUserMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getAllAuthoritiesNotModified() throws Exception {
+        String etag = restUserMockMvc.perform(get("/api/users/authorities"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        restUserMockMvc.perform(get("/api/users/authorities")
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
     @Test
     @Transactional
     public void getAllAuthorities() throws Exception {
@@ -1,21 +1,32 @@
 package com.okta.developer.web.rest.errors;
 
 import com.okta.developer.OidcApp;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.zalando.problem.spring.web.advice.MediaTypes;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -37,6 +48,9 @@ public class ExceptionTranslatorIntTest {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private MockMvc mockMvc;
 
     @Before
@@ -148,4 +162,81 @@ public class ExceptionTranslatorIntTest {
             .andExpect(jsonPath("$.title").value("Internal Server Error"));
     }
 
+    @Test
+    public void testTooManyRequests() throws Exception {
+        mockMvc.perform(get("/test/too-many-requests"))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(content().contentType(MediaTypes.PROBLEM))
+            .andExpect(header().string("Retry-After", "3"))
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_TOO_MANY_REQUESTS));
+    }
+
+    @Test
+    public void testServiceOverloaded() throws Exception {
+        mockMvc.perform(get("/test/service-overloaded"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(content().contentType(MediaTypes.PROBLEM))
+            .andExpect(header().string("Retry-After", "1"))
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_SERVICE_OVERLOADED));
+    }
+
+    @Test
+    public void testFastPathRendersTheSameProblems() throws Exception {
+        MockMvc fastPathMockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new ExceptionTranslator(true))
+            .setMessageConverters(jacksonMessageConverter)
+            .build();
+        List<RequestBuilder> requests = Arrays.asList(
+            get("/test/concurrency-failure"),
+            post("/test/method-argument").content("{}").contentType(MediaType.APPLICATION_JSON),
+            get("/test/parameterized-error"),
+            get("/test/missing-servlet-request-part"),
+            get("/test/missing-servlet-request-parameter"),
+            get("/test/access-denied"),
+            get("/test/unauthorized"),
+            post("/test/access-denied"),
+            get("/test/response-status"),
+            get("/test/internal-server-error"),
+            get("/test/too-many-requests"),
+            get("/test/service-overloaded"));
+
+        for (RequestBuilder request : requests) {
+            MvcResult expected = mockMvc.perform(request).andReturn();
+            MvcResult actual = fastPathMockMvc.perform(request).andReturn();
+
+            assertThat(actual.getResponse().getStatus()).isEqualTo(expected.getResponse().getStatus());
+            assertThat(actual.getResponse().getContentType()).isEqualTo(expected.getResponse().getContentType());
+            assertThat(actual.getResponse().getHeader("Retry-After"))
+                .isEqualTo(expected.getResponse().getHeader("Retry-After"));
+            assertThat(objectMapper.readTree(actual.getResponse().getContentAsString()))
+                .isEqualTo(objectMapper.readTree(expected.getResponse().getContentAsString()));
+        }
+    }
+
+    @Test
+    public void testExpectedProblemsWithoutStackTrace() {
+        assertThat(new TooManyRequestsException(1).getStackTrace()).isNotEmpty();
+        ExpectedProblem.setStackTraceEnabled(false);
+        try {
+            assertThat(new TooManyRequestsException(1).getStackTrace()).isEmpty();
+            assertThat(new EmailAlreadyUsedException().getStackTrace()).isEmpty();
+            assertThat(new InvalidPasswordException().getStackTrace()).isEmpty();
+            assertThat(new InternalServerErrorException("test").getStackTrace()).isEmpty();
+        } finally {
+            ExpectedProblem.setStackTraceEnabled(true);
+        }
+    }
+
+    @Test
+    public void testExpectedProblemsWithStackTraceInDebug() {
+        Logger logger = (Logger) LoggerFactory.getLogger(ExpectedProblem.class);
+        ExpectedProblem.setStackTraceEnabled(false);
+        logger.setLevel(Level.DEBUG);
+        try {
+            assertThat(new LoginAlreadyUsedException().getStackTrace()).isNotEmpty();
+        } finally {
+            logger.setLevel(null);
+            ExpectedProblem.setStackTraceEnabled(true);
+        }
+    }
 }
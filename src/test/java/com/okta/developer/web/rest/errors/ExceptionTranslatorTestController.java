@@ -68,6 +68,16 @@ public class ExceptionTranslatorTestController {
         throw new RuntimeException();
     }
 
+    @GetMapping("/test/too-many-requests")
+    public void tooManyRequests() {
+        throw new TooManyRequestsException(3);
+    }
+
+    @GetMapping("/test/service-overloaded")
+    public void serviceOverloaded() {
+        throw new ServiceOverloadedException(1);
+    }
+
     public static class TestDTO {
 
         @NotNull
@@ -1,17 +1,21 @@
 package com.okta.developer.web.rest.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
 
 /**
  * Tests based on parsing algorithm in app/components/util/pagination-util.service.js
@@ -41,4 +45,56 @@ public class PaginationUtilUnitTest {
         assertTrue(Long.valueOf(xTotalCountHeaders.get(0)).equals(400L));
     }
 
+    @Test
+    public void generatePaginationHttpHeadersLikeTheUriComponentsBuilderTest() {
+        List<String> baseUrls = Arrays.asList("/api/users", "/management/audits", "/api/_search/example?query=a b",
+            "http://localhost:8080/api/users?sort=id,desc", "/api/users#top", "/api/ユーザー");
+        for (String baseUrl : baseUrls) {
+            for (int number = 0; number < 4; number++) {
+                Page<String> page = new PageImpl<>(Arrays.asList("a", "b"), new PageRequest(number, 2), 7L);
+                // Twice, so that the template is also used from the cache
+                for (int i = 0; i < 2; i++) {
+                    HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, baseUrl);
+                    assertEquals(uriComponentsBuilderLink(page, baseUrl), headers.getFirst(HttpHeaders.LINK));
+                }
+            }
+        }
+        Page<String> empty = new PageImpl<>(new ArrayList<>(), new PageRequest(0, 20), 0L);
+        assertEquals("</api/users?page=0&size=20>; rel=\"last\",</api/users?page=0&size=20>; rel=\"first\"",
+            PaginationUtil.generatePaginationHttpHeaders(empty, "/api/users").getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void generateKeysetPaginationHttpHeadersTest() {
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(
+            new SliceImpl<>(Arrays.asList("a", "b c"), new PageRequest(0, 2), true), value -> value, "/api/users");
+        assertEquals("</api/users?cursor=b%20c&size=2>; rel=\"next\"", headers.getFirst(HttpHeaders.LINK));
+        assertNull(headers.getFirst("X-Total-Count"));
+
+        HttpHeaders last = PaginationUtil.generateKeysetPaginationHttpHeaders(
+            new SliceImpl<>(Arrays.asList("a", "b"), new PageRequest(0, 2), false), value -> value, "/api/users");
+        assertNull(last.getFirst(HttpHeaders.LINK));
+    }
+
+    /**
+     * The Link header as it was built before the links were templated, with a UriComponentsBuilder per link.
+     */
+    private static String uriComponentsBuilderLink(Page<?> page, String baseUrl) {
+        String link = "";
+        if ((page.getNumber() + 1) < page.getTotalPages()) {
+            link = "<" + uri(baseUrl, page.getNumber() + 1, page.getSize()) + ">; rel=\"next\",";
+        }
+        if ((page.getNumber()) > 0) {
+            link += "<" + uri(baseUrl, page.getNumber() - 1, page.getSize()) + ">; rel=\"prev\",";
+        }
+        int lastPage = page.getTotalPages() > 0 ? page.getTotalPages() - 1 : 0;
+        link += "<" + uri(baseUrl, lastPage, page.getSize()) + ">; rel=\"last\",";
+        link += "<" + uri(baseUrl, 0, page.getSize()) + ">; rel=\"first\"";
+        return link;
+    }
+
+    private static String uri(String baseUrl, int page, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size)
+            .toUriString();
+    }
 }
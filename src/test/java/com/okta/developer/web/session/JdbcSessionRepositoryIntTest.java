@@ -0,0 +1,141 @@
+package com.okta.developer.web.session;
+
+import com.okta.developer.OidcApp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the JdbcSessionRepository.
+ *
+ * @see JdbcSessionRepository
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = OidcApp.class)
+public class JdbcSessionRepositoryIntTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcSessionRepository repository;
+
+    @Before
+    public void setup() {
+        repository = new JdbcSessionRepository(jdbcTemplate, transactionManager);
+        jdbcTemplate.update("delete from jhi_session");
+    }
+
+    @Test
+    public void testSaveAndFind() {
+        long now = System.currentTimeMillis();
+        StoredSession session = new StoredSession("session-1", now, 1800);
+        repository.save(session, attributes("login", "admin", "langKey", "en"));
+
+        StoredSession found = repository.find("session-1");
+        assertThat(found.getCreationTime()).isEqualTo(now);
+        assertThat(found.getMaxInactiveIntervalSeconds()).isEqualTo(1800);
+        assertThat(found.getAttributes()).containsOnlyKeys("login", "langKey");
+        assertThat(new String(found.getAttributes().get("login"), StandardCharsets.UTF_8)).isEqualTo("admin");
+        assertThat(repository.find("unknown")).isNull();
+    }
+
+    @Test
+    public void testOnlyChangedAttributesAreWritten() {
+        StoredSession session = new StoredSession("session-1", System.currentTimeMillis(), 1800);
+        repository.save(session, attributes("login", "admin", "langKey", "en"));
+
+        Map<String, byte[]> changes = attributes("login", "user", "roles", "ROLE_USER");
+        changes.put("langKey", null);
+        session.setLastAccessedTime(session.getLastAccessedTime() + 1000);
+        repository.save(session, changes);
+
+        StoredSession found = repository.find("session-1");
+        assertThat(found.getLastAccessedTime()).isEqualTo(session.getLastAccessedTime());
+        assertThat(found.getAttributes()).containsOnlyKeys("login", "roles");
+        assertThat(new String(found.getAttributes().get("login"), StandardCharsets.UTF_8)).isEqualTo("user");
+    }
+
+    @Test
+    public void testChangeIdAndDelete() {
+        repository.save(new StoredSession("session-1", System.currentTimeMillis(), 1800), attributes("login", "admin"));
+
+        repository.changeId("session-1", "session-2");
+        assertThat(repository.find("session-1")).isNull();
+        assertThat(repository.find("session-2").getAttributes()).containsOnlyKeys("login");
+
+        repository.delete("session-2");
+        assertThat(repository.find("session-2")).isNull();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_session_attribute", Integer.class)).isZero();
+    }
+
+    @Test
+    public void testDeleteExpired() {
+        long now = System.currentTimeMillis();
+        repository.save(new StoredSession("expired", now - 3600_000, 1800), attributes("login", "admin"));
+        repository.save(new StoredSession("active", now, 1800), attributes("login", "admin"));
+        repository.save(new StoredSession("eternal", now - 3600_000, -1), attributes("login", "admin"));
+
+        assertThat(repository.find("expired")).isNull();
+        assertThat(repository.deleteExpired(now)).isEqualTo(1);
+        assertThat(repository.find("active")).isNotNull();
+        assertThat(repository.find("eternal")).isNotNull();
+    }
+
+    @Test
+    public void testConcurrentSavesOfANewSession() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                String id = "session-" + round;
+                long now = System.currentTimeMillis();
+                CyclicBarrier barrier = new CyclicBarrier(threads);
+                List<Future<?>> saves = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    String value = "value-" + i;
+                    saves.add(executor.submit(() -> {
+                        barrier.await();
+                        repository.save(new StoredSession(id, now, 1800), attributes("login", "admin", "key", value));
+                        return null;
+                    }));
+                }
+                for (Future<?> save : saves) {
+                    save.get(10, TimeUnit.SECONDS);
+                }
+                assertThat(repository.find(id).getAttributes()).containsOnlyKeys("login", "key");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map<String, byte[]> attributes(String... namesAndValues) {
+        Map<String, byte[]> attributes = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            attributes.put(namesAndValues[i], namesAndValues[i + 1].getBytes(StandardCharsets.UTF_8));
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,187 @@
+package com.okta.developer.web.session;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SessionRepositoryFilter.
+ *
+ * @see SessionRepositoryFilter
+ */
+public class SessionRepositoryFilterUnitTest {
+
+    private RecordingSessionRepository repository;
+
+    private MetricRegistry metricRegistry;
+
+    private SessionRepositoryFilter filter;
+
+    @Before
+    public void setup() {
+        repository = new RecordingSessionRepository();
+        metricRegistry = new MetricRegistry();
+        filter = new SessionRepositoryFilter(repository, "SESSION", 1800, 60);
+        filter.setMetricRegistry(metricRegistry);
+    }
+
+    @Test
+    public void testSessionIsCreatedAndFound() throws Exception {
+        MockHttpServletResponse response = perform(null, (request, ignored) -> {
+            assertThat(request.getSession(false)).isNull();
+            HttpSession session = request.getSession();
+            assertThat(session.isNew()).isTrue();
+            session.setAttribute("login", "admin");
+        });
+        Cookie cookie = response.getCookie("SESSION");
+        assertThat(cookie.isHttpOnly()).isTrue();
+        assertThat(repository.written).containsExactly("login");
+        assertThat(repository.find(cookie.getValue()).getAttributes()).containsOnlyKeys("login");
+
+        perform(cookie, (request, ignored) -> {
+            assertThat(request.isRequestedSessionIdValid()).isTrue();
+            HttpSession session = request.getSession(false);
+            assertThat(session.isNew()).isFalse();
+            assertThat(session.getAttribute("login")).isEqualTo("admin");
+        });
+    }
+
+    @Test
+    public void testOnlyChangedAttributesAreWritten() throws Exception {
+        Cookie cookie = perform(null, (request, ignored) -> {
+            request.getSession().setAttribute("login", "admin");
+            request.getSession().setAttribute("roles", new ArrayList<>());
+        }).getCookie("SESSION");
+        repository.written.clear();
+        repository.saves = 0;
+
+        // Reading the session neither deserializes the other attributes nor writes the session
+        perform(cookie, (request, ignored) -> request.getSession().getAttribute("login"));
+        assertThat(metricRegistry.meter("session-store.attributes.deserialized").getCount()).isEqualTo(1);
+        assertThat(repository.saves).isZero();
+
+        // Setting an attribute to the same value doesn't write it
+        perform(cookie, (request, ignored) -> {
+            request.getSession().setAttribute("login", "admin");
+            request.getSession().setAttribute("roles", new ArrayList<>());
+        });
+        assertThat(repository.saves).isZero();
+
+        perform(cookie, (request, ignored) -> {
+            request.getSession().setAttribute("login", "user");
+            request.getSession().removeAttribute("unknown");
+        });
+        assertThat(repository.saves).isEqualTo(1);
+        assertThat(repository.written).containsExactly("login");
+
+        perform(cookie, (request, ignored) -> request.getSession().removeAttribute("roles"));
+        assertThat(repository.written).containsExactly("login", "roles");
+        assertThat(repository.find(cookie.getValue()).getAttributes()).containsOnlyKeys("login");
+        // The two attributes of the new session, and the two changes
+        assertThat(metricRegistry.meter("session-store.attributes.written").getCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testSessionIsSavedBeforeRedirect() throws Exception {
+        Cookie cookie = perform(null, (request, response) -> {
+            request.getSession().setAttribute("login", "admin");
+            response.sendRedirect("/");
+            assertThat(repository.written).containsExactly("login");
+        }).getCookie("SESSION");
+
+        assertThat(repository.saves).isEqualTo(1);
+        assertThat(repository.find(cookie.getValue())).isNotNull();
+    }
+
+    @Test
+    public void testChangeSessionId() throws Exception {
+        Cookie cookie = perform(null, (request, ignored) -> request.getSession().setAttribute("login", "admin"))
+            .getCookie("SESSION");
+
+        Cookie changed = perform(cookie, (request, ignored) -> request.changeSessionId()).getCookie("SESSION");
+
+        assertThat(changed.getValue()).isNotEqualTo(cookie.getValue());
+        assertThat(repository.find(cookie.getValue())).isNull();
+        assertThat(repository.find(changed.getValue()).getAttributes()).containsOnlyKeys("login");
+    }
+
+    @Test
+    public void testInvalidatedOrExpiredSessionIsRemoved() throws Exception {
+        Cookie cookie = perform(null, (request, ignored) -> request.getSession().setAttribute("login", "admin"))
+            .getCookie("SESSION");
+
+        MockHttpServletResponse response = perform(cookie, (request, ignored) -> {
+            request.getSession().invalidate();
+            assertThat(request.getSession(false)).isNull();
+        });
+        assertThat(response.getCookie("SESSION").getMaxAge()).isZero();
+        assertThat(repository.find(cookie.getValue())).isNull();
+
+        cookie = perform(null, (request, ignored) -> {
+            request.getSession().setMaxInactiveInterval(0);
+            request.getSession().setAttribute("login", "admin");
+        }).getCookie("SESSION");
+        assertThat(repository.deleteExpired(System.currentTimeMillis() + 1)).isEqualTo(1);
+        perform(cookie, (request, ignored) -> {
+            assertThat(request.isRequestedSessionIdValid()).isFalse();
+            assertThat(request.getSession(false)).isNull();
+        });
+    }
+
+    private MockHttpServletResponse perform(Cookie cookie, RequestHandler handler) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (cookie != null) {
+            request.setCookies(cookie);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = new MockFilterChain(new HttpServlet() {
+
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException {
+                try {
+                    handler.handle(request, response);
+                } catch (Exception e) {
+                    throw new ServletException(e);
+                }
+            }
+        });
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private interface RequestHandler {
+
+        void handle(HttpServletRequest request, HttpServletResponse response) throws Exception;
+    }
+
+    private static class RecordingSessionRepository extends OffHeapSessionRepository {
+
+        private final List<String> written = new ArrayList<>();
+
+        private int saves;
+
+        @Override
+        public void save(StoredSession session, Map<String, byte[]> changedAttributes) {
+            saves++;
+            written.addAll(new HashMap<>(changedAttributes).keySet());
+            super.save(session, changedAttributes);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+const fs = require('fs');
+const path = require('path');
+const zlib = require('zlib');
+
+const utils = require('./utils.js');
+
+// Writes .gz and .br variants of the production assets, served by the WebConfigurer
+// to the clients which accept them. Brotli needs Node.js 11.7 or later, otherwise only gzip is used.
+const COMPRESSIBLE = /\.(js|css|html|svg|json|txt|map|ico|eot|ttf)$/;
+const MIN_SIZE = 1024;
+const MIN_RATIO = 0.8;
+
+const encodings = [{ extension: '.gz', compress: (data) => zlib.gzipSync(data, { level: 9 }) }];
+if (zlib.brotliCompressSync) {
+    encodings.push({
+        extension: '.br',
+        compress: (data) => zlib.brotliCompressSync(data, { params: { [zlib.constants.BROTLI_PARAM_QUALITY]: 11 } })
+    });
+}
+
+function precompress(dir) {
+    fs.readdirSync(dir).forEach((name) => {
+        const file = path.join(dir, name);
+        if (fs.statSync(file).isDirectory()) {
+            precompress(file);
+        } else if (COMPRESSIBLE.test(name)) {
+            const data = fs.readFileSync(file);
+            if (data.length < MIN_SIZE) {
+                return;
+            }
+            encodings.forEach((encoding) => {
+                const compressed = encoding.compress(data);
+                if (compressed.length < data.length * MIN_RATIO) {
+                    fs.writeFileSync(file + encoding.extension, compressed);
+                }
+            });
+        }
+    });
+}
+
+precompress(utils.root('target/www'));